@@ -644,6 +644,9 @@ public class NodeInfo {
       peerInfoBuilder.setDisconnectTimes(peerInfo.getDisconnectTimes());
       peerInfoBuilder.setLocalDisconnectReason(peerInfo.getLocalDisconnectReason());
       peerInfoBuilder.setRemoteDisconnectReason(peerInfo.getRemoteDisconnectReason());
+      peerInfoBuilder.setSyncBlockLatency(peerInfo.getSyncBlockLatency());
+      peerInfoBuilder.setSyncBandwidth(peerInfo.getSyncBandwidth());
+      peerInfoBuilder.setSyncScore(peerInfo.getSyncScore());
       builder.addPeerInfoList(peerInfoBuilder.build());
     }
     ConfigNodeInfo configNodeInfo = getConfigNodeInfo();
@@ -28,6 +28,9 @@ public class PeerInfo {
   private int disconnectTimes;
   private String localDisconnectReason;
   private String remoteDisconnectReason;
+  private double syncBlockLatency;
+  private double syncBandwidth;
+  private double syncScore;
 
   public String getLastSyncBlock() {
     return lastSyncBlock;
@@ -253,4 +256,31 @@ public class PeerInfo {
     this.remoteDisconnectReason = remoteDisconnectReason;
     return this;
   }
+
+  public double getSyncBlockLatency() {
+    return syncBlockLatency;
+  }
+
+  public PeerInfo setSyncBlockLatency(double syncBlockLatency) {
+    this.syncBlockLatency = syncBlockLatency;
+    return this;
+  }
+
+  public double getSyncBandwidth() {
+    return syncBandwidth;
+  }
+
+  public PeerInfo setSyncBandwidth(double syncBandwidth) {
+    this.syncBandwidth = syncBandwidth;
+    return this;
+  }
+
+  public double getSyncScore() {
+    return syncScore;
+  }
+
+  public PeerInfo setSyncScore(double syncScore) {
+    this.syncScore = syncScore;
+    return this;
+  }
 }
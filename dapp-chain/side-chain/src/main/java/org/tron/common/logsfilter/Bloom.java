@@ -0,0 +1,82 @@
+package org.tron.common.logsfilter;
+
+import java.util.Arrays;
+import org.tron.common.crypto.Hash;
+
+/**
+ * A 2048 bit bloom filter over log addresses and topics, set the way the ethereum log bloom is:
+ * three bits taken from the sha3 of every value.
+ */
+public class Bloom {
+
+  public static final int SIZE = 256;
+
+  private final byte[] data;
+
+  public Bloom() {
+    this(new byte[SIZE]);
+  }
+
+  public Bloom(byte[] data) {
+    if (data.length != SIZE) {
+      throw new IllegalArgumentException("bloom must have " + SIZE + " bytes, got "
+          + data.length);
+    }
+    this.data = data;
+  }
+
+  public static Bloom create(byte[] value) {
+    Bloom bloom = new Bloom();
+    bloom.add(value);
+    return bloom;
+  }
+
+  public void add(byte[] value) {
+    byte[] hash = Hash.sha3(value);
+    for (int i = 0; i < 6; i += 2) {
+      int bit = ((hash[i] & 7) << 8) | (hash[i + 1] & 0xff);
+      data[SIZE - 1 - bit / 8] |= 1 << (bit % 8);
+    }
+  }
+
+  public void or(Bloom other) {
+    for (int i = 0; i < SIZE; i++) {
+      data[i] |= other.data[i];
+    }
+  }
+
+  /**
+   * True when every bit of other is set here, so the values of other may have been added.
+   */
+  public boolean matches(Bloom other) {
+    for (int i = 0; i < SIZE; i++) {
+      if ((data[i] & other.data[i]) != other.data[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean isEmpty() {
+    for (byte b : data) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public byte[] getData() {
+    return data;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o || (o instanceof Bloom && Arrays.equals(data, ((Bloom) o).data));
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(data);
+  }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
+import org.tron.common.logsfilter.eventlog.EventLog;
 
 public class EventPluginConfig {
 
@@ -12,6 +13,9 @@ public class EventPluginConfig {
   public static final String CONTRACTEVENT_TRIGGER_NAME = "contractevent";
   public static final String CONTRACTLOG_TRIGGER_NAME = "contractlog";
 
+  public static final String ENCODING_JSON = "json";
+  public static final String ENCODING_PROTOBUF = "protobuf";
+
   @Getter
   @Setter
   private String pluginPath;
@@ -36,6 +40,23 @@ public class EventPluginConfig {
   @Setter
   private int sendQueueLength;
 
+  // json or protobuf, the payload of the triggers sent to the plugin or the native queue
+  @Getter
+  @Setter
+  private String encoding;
+
+  // the event log is off while the directory is empty
+  @Getter
+  @Setter
+  private String eventLogDirectory;
+
+  @Getter
+  @Setter
+  private int eventLogSegmentSize;
+
+  @Getter
+  @Setter
+  private long eventLogRetainBlocks;
 
   @Getter
   @Setter
@@ -48,6 +69,10 @@ public class EventPluginConfig {
     useNativeQueue = false;
     bindPort = 0;
     sendQueueLength = 0;
+    encoding = ENCODING_JSON;
+    eventLogDirectory = "";
+    eventLogSegmentSize = EventLog.DEFAULT_SEGMENT_SIZE;
+    eventLogRetainBlocks = EventLog.DEFAULT_RETAIN_BLOCKS;
     triggerConfigList = new ArrayList<>();
   }
 }
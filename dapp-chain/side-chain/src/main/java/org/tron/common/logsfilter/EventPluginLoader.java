@@ -2,15 +2,21 @@ package org.tron.common.logsfilter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Message;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.pf4j.CompoundPluginDescriptorFinder;
 import org.pf4j.DefaultPluginManager;
 import org.pf4j.ManifestPluginDescriptorFinder;
 import org.pf4j.PluginManager;
 import org.springframework.util.StringUtils;
+import org.tron.common.logsfilter.eventlog.EventLog;
 import org.tron.common.logsfilter.nativequeue.NativeMessageQueue;
 import org.tron.common.logsfilter.trigger.BlockLogTrigger;
 import org.tron.common.logsfilter.trigger.ContractEventTrigger;
@@ -47,6 +53,11 @@ public class EventPluginLoader {
 
   private boolean useNativeQueue = false;
 
+  private boolean useProtobuf = false;
+
+  @Getter
+  private EventLog eventLog;
+
   public static EventPluginLoader getInstance() {
     if (Objects.isNull(instance)) {
       synchronized (EventPluginLoader.class) {
@@ -108,6 +119,12 @@ public class EventPluginLoader {
 
     useNativeQueue = config.isUseNativeQueue();
 
+    useProtobuf = EventPluginConfig.ENCODING_PROTOBUF.equalsIgnoreCase(config.getEncoding());
+
+    if (StringUtils.hasText(config.getEventLogDirectory())) {
+      openEventLog(config);
+    }
+
     if (config.isUseNativeQueue()){
       return launchNativeQueue(config);
     }
@@ -115,6 +132,15 @@ public class EventPluginLoader {
     return launchEventPlugin(config);
   }
 
+  private void openEventLog(EventPluginConfig config) {
+    try {
+      eventLog = new EventLog(new File(config.getEventLogDirectory()),
+          config.getEventLogSegmentSize(), config.getEventLogRetainBlocks());
+    } catch (IOException e) {
+      logger.error("failed to open event log in '{}'", config.getEventLogDirectory(), e);
+    }
+  }
+
   private void setPluginConfig() {
 
     if (Objects.isNull(eventListeners)) {
@@ -252,45 +278,89 @@ public class EventPluginLoader {
 
     NativeMessageQueue.getInstance().stop();
 
+    if (Objects.nonNull(eventLog)) {
+      eventLog.close();
+      eventLog = null;
+    }
+
     logger.info("eventPlugin stopped");
   }
 
   public void postBlockTrigger(BlockLogTrigger trigger) {
-    if (useNativeQueue){
-      NativeMessageQueue.getInstance().publishTrigger(toJsonString(trigger), trigger.getTriggerName());
-    }
-    else {
-      eventListeners.forEach(listener ->
-          listener.handleBlockEvent(toJsonString(trigger)));
-    }
+    prepareBlockTrigger(trigger).run();
   }
 
   public void postTransactionTrigger(TransactionLogTrigger trigger) {
-    if (useNativeQueue){
-      NativeMessageQueue.getInstance().publishTrigger(toJsonString(trigger), trigger.getTriggerName());
-    }
-    else {
-      eventListeners.forEach(listener -> listener.handleTransactionTrigger(toJsonString(trigger)));
-    }
+    prepareTransactionTrigger(trigger).run();
   }
 
   public void postContractLogTrigger(ContractLogTrigger trigger) {
-    if (useNativeQueue){
-      NativeMessageQueue.getInstance().publishTrigger(toJsonString(trigger), trigger.getTriggerName());
-    }
-    else {
-      eventListeners.forEach(listener ->
-          listener.handleContractLogTrigger(toJsonString(trigger)));
-    }
+    prepareContractLogTrigger(trigger).run();
   }
 
   public void postContractEventTrigger(ContractEventTrigger trigger) {
-    if (useNativeQueue){
-      NativeMessageQueue.getInstance().publishTrigger(toJsonString(trigger), trigger.getTriggerName());
+    prepareContractEventTrigger(trigger).run();
+  }
+
+  /**
+   * Serializes the trigger now and returns the send, so the serialization can run apart from
+   * the sends, which keep their order.
+   */
+  public Runnable prepareBlockTrigger(BlockLogTrigger trigger) {
+    return prepare(trigger, trigger.getBlockNumber(), trigger.getLatestSolidifiedBlockNumber(),
+        TriggerProtoEncoder::toProto, IPluginEventListener::handleBlockEvent);
+  }
+
+  public Runnable prepareTransactionTrigger(TransactionLogTrigger trigger) {
+    return prepare(trigger, trigger.getBlockNumber(), trigger.getLatestSolidifiedBlockNumber(),
+        TriggerProtoEncoder::toProto, IPluginEventListener::handleTransactionTrigger);
+  }
+
+  public Runnable prepareContractLogTrigger(ContractLogTrigger trigger) {
+    return prepare(trigger, trigger.getBlockNumber(), trigger.getLatestSolidifiedBlockNumber(),
+        TriggerProtoEncoder::toProto, IPluginEventListener::handleContractLogTrigger);
+  }
+
+  public Runnable prepareContractEventTrigger(ContractEventTrigger trigger) {
+    return prepare(trigger, trigger.getBlockNumber(), trigger.getLatestSolidifiedBlockNumber(),
+        TriggerProtoEncoder::toProto, IPluginEventListener::handleContractEventTrigger);
+  }
+
+  private <T extends Trigger> Runnable prepare(T trigger, long blockNumber,
+      long solidifiedBlockNumber, Function<T, Message> toProto,
+      BiConsumer<IPluginEventListener, Object> handler) {
+    String topic = trigger.getTriggerName();
+    // the event log keeps json, it is only encoded when one of the two needs it
+    String jsonData = !useProtobuf || Objects.nonNull(eventLog) ? toJsonString(trigger) : null;
+    byte[] protoData = useProtobuf ? toProto.apply(trigger).toByteArray() : null;
+    return () -> {
+      if (Objects.nonNull(jsonData)) {
+        writeEventLog(blockNumber, solidifiedBlockNumber, topic, jsonData);
+      }
+      if (useNativeQueue) {
+        if (useProtobuf) {
+          NativeMessageQueue.getInstance().publishTrigger(protoData, topic);
+        } else {
+          NativeMessageQueue.getInstance().publishTrigger(jsonData, topic);
+        }
+      } else {
+        Object data = useProtobuf ? protoData : jsonData;
+        eventListeners.forEach(listener -> handler.accept(listener, data));
+      }
+    };
+  }
+
+  private void writeEventLog(long blockNumber, long solidifiedBlockNumber, String topic,
+      String jsonData) {
+    EventLog log = eventLog;
+    if (Objects.isNull(log)) {
+      return;
     }
-    else {
-      eventListeners.forEach(listener ->
-          listener.handleContractEventTrigger(toJsonString(trigger)));
+    try {
+      log.setSolidifiedBlockNumber(solidifiedBlockNumber);
+      log.append(blockNumber, topic, jsonData);
+    } catch (IOException e) {
+      logger.error("failed to write {} of block {} to event log", topic, blockNumber, e);
     }
   }
 
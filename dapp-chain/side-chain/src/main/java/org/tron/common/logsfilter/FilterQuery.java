@@ -1,5 +1,6 @@
 package org.tron.common.logsfilter;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -9,9 +10,15 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.spongycastle.util.encoders.Hex;
 import org.tron.common.logsfilter.trigger.ContractEventTrigger;
 import org.tron.common.logsfilter.trigger.ContractLogTrigger;
 import org.tron.common.logsfilter.trigger.ContractTrigger;
+import org.tron.common.runtime.utils.MUtil;
+import org.tron.common.runtime.vm.DataWord;
+import org.tron.common.runtime.vm.LogInfo;
+import org.tron.common.utils.ByteArraySet;
+import org.tron.core.Wallet;
 
 @Slf4j
 public class FilterQuery {
@@ -25,13 +32,13 @@ public class FilterQuery {
   private long toBlock;
 
   @Getter
-  @Setter
   private List<String> contractAddressList;
 
   @Getter
-  @Setter
   private List<String> contractTopicList;
 
+  private volatile RawFilter rawFilter;
+
   public static final int EARLIEST_BLOCK_NUM = 0;
   public static final int LATEST_BLOCK_NUM = -1;
 
@@ -39,6 +46,94 @@ public class FilterQuery {
   public static final String LATEST = "latest";
 
 
+  /**
+   * The address and topic lists compiled to byte sets, so a log can be matched before it is
+   * decoded. Topics that are not 32 byte hashes are decoded values, those are kept as strings and
+   * can only be matched after decoding. Topic 0 of a log is its event signature hash, the topics
+   * of a decoded event are only its indexed values, so a hash matches topic 0 of a log trigger
+   * but not of an event trigger.
+   */
+  private static class RawFilter {
+
+    private final ByteArraySet addresses = new ByteArraySet();
+    private final Set<String> addressNames = new HashSet<>();
+    private final ByteArraySet topics = new ByteArraySet();
+    private final List<String> valueTopics = new ArrayList<>();
+
+    private RawFilter(List<String> addressList, List<String> topicList) {
+      if (addressList != null) {
+        addressList.stream().filter(StringUtils::isNotEmpty).forEach(address -> {
+          byte[] bytes = Wallet.decodeFromBase58Check(address);
+          if (bytes != null) {
+            addresses.add(bytes);
+          } else {
+            addressNames.add(address.toLowerCase());
+          }
+        });
+      }
+      if (topicList != null) {
+        topicList.stream().filter(StringUtils::isNotEmpty).forEach(topic -> {
+          String hex = StringUtils.removeStartIgnoreCase(topic, "0x");
+          if (hex.length() == 64 && hex.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            topics.add(Hex.decode(hex));
+          } else {
+            valueTopics.add(topic);
+          }
+        });
+      }
+    }
+
+    private boolean matchAddress(ContractTrigger trigger) {
+      if (addresses.isEmpty() && addressNames.isEmpty()) {
+        return true;
+      }
+      LogInfo logInfo = trigger.getLogInfo();
+      if (logInfo != null && logInfo.getAddress() != null
+          && addresses.contains(MUtil.convertToTronAddress(logInfo.getAddress()))) {
+        return true;
+      }
+      return !addressNames.isEmpty() && trigger.getContractAddress() != null
+          && addressNames.contains(trigger.getContractAddress().toLowerCase());
+    }
+
+    private boolean matchRawTopics(ContractTrigger trigger, int fromIndex) {
+      LogInfo logInfo = trigger.getLogInfo();
+      if (topics.isEmpty() || logInfo == null || logInfo.getTopics() == null) {
+        return false;
+      }
+      List<DataWord> logTopics = logInfo.getTopics();
+      for (int i = fromIndex; i < logTopics.size(); i++) {
+        if (topics.contains(logTopics.get(i).getData())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean hasTopics() {
+      return !topics.isEmpty() || !valueTopics.isEmpty();
+    }
+  }
+
+  public void setContractAddressList(List<String> contractAddressList) {
+    this.contractAddressList = contractAddressList;
+    this.rawFilter = null;
+  }
+
+  public void setContractTopicList(List<String> contractTopicList) {
+    this.contractTopicList = contractTopicList;
+    this.rawFilter = null;
+  }
+
+  private RawFilter getRawFilter() {
+    RawFilter filter = rawFilter;
+    if (filter == null) {
+      filter = new RawFilter(contractAddressList, contractTopicList);
+      rawFilter = filter;
+    }
+    return filter;
+  }
+
   public static long parseFromBlockNumber(String blockNum) {
     long number = 0;
     if (StringUtils.isEmpty(blockNum) || FilterQuery.EARLIEST.equalsIgnoreCase(blockNum)) {
@@ -69,14 +164,60 @@ public class FilterQuery {
     return number;
   }
 
-  public static boolean matchFilter(ContractTrigger trigger) {
-    long blockNumber = trigger.getBlockNumber();
+  /**
+   * Matches a contract trigger by its block, the address and the topic hashes of its raw log,
+   * before anything is decoded. False means the trigger can be dropped, true that it matched or
+   * that only the decoded trigger can tell, see {@link #matchTopics}.
+   */
+  public static boolean matchRawFilter(ContractTrigger trigger) {
+    FilterQuery filterQuery = EventPluginLoader.getInstance().getFilterQuery();
+    if (Objects.isNull(filterQuery)) {
+      return true;
+    }
+    if (!matchBlockNumber(filterQuery, trigger.getBlockNumber())) {
+      return false;
+    }
+    RawFilter filter = filterQuery.getRawFilter();
+    if (!filter.matchAddress(trigger)) {
+      return false;
+    }
+    return !filter.hasTopics() || !filter.valueTopics.isEmpty()
+        || filter.matchRawTopics(trigger, 0);
+  }
 
+  /**
+   * Matches the topics of a trigger that passed {@link #matchRawFilter}, by the hashes of its raw
+   * log or by the values decoded from it. The signature hash only counts when the log was not
+   * decoded to an event.
+   */
+  public static boolean matchTopics(ContractTrigger rawTrigger, ContractTrigger decoded) {
     FilterQuery filterQuery = EventPluginLoader.getInstance().getFilterQuery();
     if (Objects.isNull(filterQuery)) {
       return true;
     }
+    RawFilter filter = filterQuery.getRawFilter();
+    int fromIndex = decoded instanceof ContractEventTrigger ? 1 : 0;
+    if (!filter.hasTopics() || filter.matchRawTopics(rawTrigger, fromIndex)) {
+      return true;
+    }
+    return !filter.valueTopics.isEmpty() && filterContractTopicList(decoded, filter.valueTopics);
+  }
 
+  public static boolean matchFilter(ContractTrigger trigger) {
+    FilterQuery filterQuery = EventPluginLoader.getInstance().getFilterQuery();
+    if (Objects.isNull(filterQuery)) {
+      return true;
+    }
+
+    if (!matchBlockNumber(filterQuery, trigger.getBlockNumber())) {
+      return false;
+    }
+
+    return filterContractAddress(trigger, filterQuery.getContractAddressList())
+        && filterContractTopicList(trigger, filterQuery.getContractTopicList());
+  }
+
+  private static boolean matchBlockNumber(FilterQuery filterQuery, long blockNumber) {
     long fromBlockNumber = filterQuery.getFromBlock();
     long toBlockNumber = filterQuery.getToBlock();
 
@@ -108,12 +249,7 @@ public class FilterQuery {
       }
     }
 
-    if (!matched) {
-      return false;
-    }
-
-    return filterContractAddress(trigger, filterQuery.getContractAddressList())
-        && filterContractTopicList(trigger, filterQuery.getContractTopicList());
+    return matched;
   }
 
   private static boolean filterContractAddress(ContractTrigger trigger, List<String> addressList) {
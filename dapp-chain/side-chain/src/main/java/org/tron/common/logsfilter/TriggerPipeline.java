@@ -0,0 +1,229 @@
+package org.tron.common.logsfilter;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.logsfilter.capsule.TriggerCapsule;
+
+/**
+ * Processes the triggers of the event subscription. The decoding and serialization of a trigger
+ * run on a worker pool, the sends run on a single thread in the order the triggers were
+ * submitted, so the triggers of a block reach the subscribers in block order. The triggers in
+ * preparation are bounded, the ones beyond wait in a backlog in order; a submit never waits, it
+ * runs in the block processing. The backlog is bounded too, once it is full the new triggers are
+ * dropped and counted, and a warning is logged while the backlog is above half its capacity.
+ */
+@Slf4j
+public class TriggerPipeline {
+
+  public static final int DEFAULT_CAPACITY = 100_000;
+
+  public static final int DEFAULT_BACKLOG_CAPACITY = 1_000_000;
+
+  public static final long STOP_TIMEOUT_MS = 10_000;
+
+  private static class Entry {
+
+    private final FutureTask<Runnable> task;
+    private final String name;
+    private final long time = System.currentTimeMillis();
+
+    private Entry(TriggerCapsule capsule) {
+      this.task = new FutureTask<>(capsule::prepareTrigger);
+      this.name = capsule.getClass().getSimpleName();
+    }
+  }
+
+  private final BlockingQueue<Entry> pending;
+
+  // the triggers that wait for room in pending, as many as the subscribers fall behind
+  private final Queue<Entry> backlog = new LinkedList<>();
+
+  private final int backlogCapacity;
+
+  // set from the first drop until the backlog has room again, so a burst is reported once
+  private boolean dropping;
+
+  private final ExecutorService preparePool;
+
+  private final Thread publishThread;
+
+  private final ScheduledExecutorService statsExecutor = Executors
+      .newSingleThreadScheduledExecutor();
+
+  private volatile boolean running = true;
+
+  @Getter
+  private final AtomicLong submittedCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong publishedCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong failedCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong backloggedCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  @Getter
+  private volatile long lag;
+
+  private final AtomicLong maxLag = new AtomicLong();
+
+  public TriggerPipeline(int threadNum) {
+    this(threadNum, DEFAULT_CAPACITY);
+  }
+
+  public TriggerPipeline(int threadNum, int capacity) {
+    this(threadNum, capacity, DEFAULT_BACKLOG_CAPACITY);
+  }
+
+  public TriggerPipeline(int threadNum, int capacity, int backlogCapacity) {
+    this.pending = new ArrayBlockingQueue<>(capacity);
+    this.backlogCapacity = backlogCapacity;
+    this.preparePool = Executors.newFixedThreadPool(threadNum,
+        new ThreadFactoryBuilder().setNameFormat("trigger-prepare-%d").build());
+    this.publishThread = new Thread(this::publishLoop, "trigger-publish");
+  }
+
+  public void start() {
+    publishThread.start();
+    statsExecutor.scheduleWithFixedDelay(this::logStats, 60, 60, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stops taking triggers and sends the queued ones, waiting at most STOP_TIMEOUT_MS for them.
+   */
+  public void stop() {
+    running = false;
+    statsExecutor.shutdown();
+    try {
+      publishThread.join(STOP_TIMEOUT_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (publishThread.isAlive()) {
+      logger.warn("Trigger pipeline stopped with {} triggers unsent.",
+          getQueueSize() + getBacklogSize());
+      publishThread.interrupt();
+      preparePool.shutdownNow();
+    } else {
+      preparePool.shutdown();
+    }
+  }
+
+  /**
+   * Queues a trigger behind the ones submitted before it, returns false when the pipeline is
+   * stopped or the trigger is dropped because the backlog is full.
+   */
+  public synchronized boolean submit(TriggerCapsule capsule) {
+    if (!running) {
+      return false;
+    }
+    if (backlog.size() >= backlogCapacity && !fill()) {
+      droppedCount.incrementAndGet();
+      if (!dropping) {
+        dropping = true;
+        logger.warn("Trigger backlog is full with {} triggers, dropping the new ones.",
+            backlog.size());
+      }
+      return false;
+    }
+    dropping = false;
+    submittedCount.incrementAndGet();
+    backlog.add(new Entry(capsule));
+    if (!fill()) {
+      backloggedCount.incrementAndGet();
+    }
+    return true;
+  }
+
+  /**
+   * Moves the triggers of the backlog into pending as long as there is room, and starts their
+   * preparation. Returns whether the backlog is empty.
+   */
+  private synchronized boolean fill() {
+    Entry entry;
+    while ((entry = backlog.peek()) != null && pending.offer(entry)) {
+      backlog.poll();
+      try {
+        preparePool.execute(entry.task);
+      } catch (RejectedExecutionException e) {
+        entry.task.cancel(false);
+      }
+    }
+    return backlog.isEmpty();
+  }
+
+  public synchronized int getBacklogSize() {
+    return backlog.size();
+  }
+
+  public int getQueueSize() {
+    return pending.size();
+  }
+
+  private void publishLoop() {
+    while (running || getQueueSize() > 0 || getBacklogSize() > 0) {
+      Entry entry;
+      try {
+        entry = pending.poll(100, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (entry == null) {
+        continue;
+      }
+      fill();
+      try {
+        Runnable post = entry.task.get();
+        if (post != null) {
+          post.run();
+        }
+        publishedCount.incrementAndGet();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        failedCount.incrementAndGet();
+        logger.error("Prepare {} failed.", entry.name, e.getCause());
+      } catch (CancellationException e) {
+        failedCount.incrementAndGet();
+      } catch (Throwable throwable) {
+        failedCount.incrementAndGet();
+        logger.error("Post {} failed.", entry.name, throwable);
+      }
+      lag = System.currentTimeMillis() - entry.time;
+      maxLag.accumulateAndGet(lag, Math::max);
+    }
+  }
+
+  private void logStats() {
+    int backlogSize = getBacklogSize();
+    logger.info("Trigger pipeline stats, size: {}, backlog: {}, submitted: {}, published: {}, "
+            + "failed: {}, backlogged: {}, dropped: {}, lag: {}ms, max lag: {}ms.",
+        getQueueSize(), backlogSize, submittedCount.get(), publishedCount.get(),
+        failedCount.get(), backloggedCount.get(), droppedCount.get(), lag, maxLag.getAndSet(0));
+    if (backlogSize > backlogCapacity / 2) {
+      logger.warn("Trigger backlog at {} of {}, the subscribers fall behind.", backlogSize,
+          backlogCapacity);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package org.tron.common.logsfilter;
+
+import static com.google.common.base.Strings.nullToEmpty;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import org.tron.common.logsfilter.capsule.RawData;
+import org.tron.common.logsfilter.trigger.BlockLogTrigger;
+import org.tron.common.logsfilter.trigger.ContractEventTrigger;
+import org.tron.common.logsfilter.trigger.ContractLogTrigger;
+import org.tron.common.logsfilter.trigger.ContractTrigger;
+import org.tron.common.logsfilter.trigger.InternalTransactionPojo;
+import org.tron.common.logsfilter.trigger.TransactionLogTrigger;
+import org.tron.common.runtime.vm.DataWord;
+import org.tron.protos.EventTrigger;
+
+/**
+ * Converts the triggers to their protobuf messages, for subscribers that take binary payloads.
+ * A field that is null in the trigger is left at its default in the message.
+ */
+public class TriggerProtoEncoder {
+
+  private TriggerProtoEncoder() {
+  }
+
+  public static EventTrigger.BlockLogTrigger toProto(BlockLogTrigger trigger) {
+    EventTrigger.BlockLogTrigger.Builder builder = EventTrigger.BlockLogTrigger.newBuilder()
+        .setTimeStamp(trigger.getTimeStamp())
+        .setTriggerName(nullToEmpty(trigger.getTriggerName()))
+        .setBlockNumber(trigger.getBlockNumber())
+        .setBlockHash(nullToEmpty(trigger.getBlockHash()))
+        .setTransactionSize(trigger.getTransactionSize())
+        .setLatestSolidifiedBlockNumber(trigger.getLatestSolidifiedBlockNumber());
+    if (Objects.nonNull(trigger.getTransactionList())) {
+      builder.addAllTransactionList(trigger.getTransactionList());
+    }
+    return builder.build();
+  }
+
+  public static EventTrigger.TransactionLogTrigger toProto(TransactionLogTrigger trigger) {
+    EventTrigger.TransactionLogTrigger.Builder builder = EventTrigger.TransactionLogTrigger
+        .newBuilder()
+        .setTimeStamp(trigger.getTimeStamp())
+        .setTriggerName(nullToEmpty(trigger.getTriggerName()))
+        .setTransactionId(nullToEmpty(trigger.getTransactionId()))
+        .setBlockHash(nullToEmpty(trigger.getBlockHash()))
+        .setBlockNumber(trigger.getBlockNumber())
+        .setEnergyUsage(trigger.getEnergyUsage())
+        .setEnergyFee(trigger.getEnergyFee())
+        .setOriginEnergyUsage(trigger.getOriginEnergyUsage())
+        .setEnergyUsageTotal(trigger.getEnergyUsageTotal())
+        .setNetUsage(trigger.getNetUsage())
+        .setNetFee(trigger.getNetFee())
+        .setResult(nullToEmpty(trigger.getResult()))
+        .setContractAddress(nullToEmpty(trigger.getContractAddress()))
+        .setContractType(nullToEmpty(trigger.getContractType()))
+        .setFeeLimit(trigger.getFeeLimit())
+        .setContractCallValue(trigger.getContractCallValue())
+        .setContractResult(nullToEmpty(trigger.getContractResult()))
+        .setFromAddress(nullToEmpty(trigger.getFromAddress()))
+        .setToAddress(nullToEmpty(trigger.getToAddress()))
+        .setAssetName(nullToEmpty(trigger.getAssetName()))
+        .setAssetAmount(trigger.getAssetAmount())
+        .setLatestSolidifiedBlockNumber(trigger.getLatestSolidifiedBlockNumber());
+    if (Objects.nonNull(trigger.getInternalTrananctionList())) {
+      trigger.getInternalTrananctionList()
+          .forEach(internal -> builder.addInternalTrananctionList(toProto(internal)));
+    }
+    return builder.build();
+  }
+
+  private static EventTrigger.InternalTransactionPojo toProto(InternalTransactionPojo internal) {
+    EventTrigger.InternalTransactionPojo.Builder builder = EventTrigger.InternalTransactionPojo
+        .newBuilder()
+        .setHash(nullToEmpty(internal.getHash()))
+        .setCallValue(internal.getCallValue())
+        .setTransferToAddress(nullToEmpty(internal.getTransferTo_address()))
+        .setData(nullToEmpty(internal.getData()))
+        .setCallerAddress(nullToEmpty(internal.getCaller_address()))
+        .setRejected(internal.isRejected())
+        .setNote(nullToEmpty(internal.getNote()));
+    if (Objects.nonNull(internal.getTokenInfo())) {
+      internal.getTokenInfo().forEach((token, value) -> {
+        if (Objects.nonNull(token) && Objects.nonNull(value)) {
+          builder.putTokenInfo(token, value);
+        }
+      });
+    }
+    return builder.build();
+  }
+
+  public static EventTrigger.ContractLogTrigger toProto(ContractLogTrigger trigger) {
+    EventTrigger.ContractLogTrigger.Builder builder = EventTrigger.ContractLogTrigger.newBuilder()
+        .setTrigger(toProto((ContractTrigger) trigger))
+        .setData(nullToEmpty(trigger.getData()));
+    if (Objects.nonNull(trigger.getTopicList())) {
+      builder.addAllTopicList(trigger.getTopicList());
+    }
+    return builder.build();
+  }
+
+  public static EventTrigger.ContractEventTrigger toProto(ContractEventTrigger trigger) {
+    EventTrigger.ContractEventTrigger.Builder builder = EventTrigger.ContractEventTrigger
+        .newBuilder()
+        .setTrigger(toProto((ContractTrigger) trigger))
+        .setEventSignature(nullToEmpty(trigger.getEventSignature()))
+        .setEventSignatureFull(nullToEmpty(trigger.getEventSignatureFull()))
+        .setEventName(nullToEmpty(trigger.getEventName()));
+    putAll(trigger.getTopicMap(), builder::putTopicMap);
+    putAll(trigger.getDataMap(), builder::putDataMap);
+    return builder.build();
+  }
+
+  private static void putAll(Map<String, String> map, BiConsumer<String, String> putter) {
+    if (Objects.nonNull(map)) {
+      map.forEach((key, value) -> putter.accept(nullToEmpty(key), nullToEmpty(value)));
+    }
+  }
+
+  private static EventTrigger.ContractTrigger toProto(ContractTrigger trigger) {
+    EventTrigger.ContractTrigger.Builder builder = EventTrigger.ContractTrigger.newBuilder()
+        .setTimeStamp(trigger.getTimeStamp())
+        .setTriggerName(nullToEmpty(trigger.getTriggerName()))
+        .setUniqueId(nullToEmpty(trigger.getUniqueId()))
+        .setTransactionId(nullToEmpty(trigger.getTransactionId()))
+        .setContractAddress(nullToEmpty(trigger.getContractAddress()))
+        .setCallerAddress(nullToEmpty(trigger.getCallerAddress()))
+        .setOriginAddress(nullToEmpty(trigger.getOriginAddress()))
+        .setCreatorAddress(nullToEmpty(trigger.getCreatorAddress()))
+        .setBlockNumber(Objects.isNull(trigger.getBlockNumber()) ? 0 : trigger.getBlockNumber())
+        .setRemoved(trigger.isRemoved())
+        .setLatestSolidifiedBlockNumber(trigger.getLatestSolidifiedBlockNumber());
+    RawData rawData = trigger.getRawData();
+    if (Objects.nonNull(rawData)) {
+      EventTrigger.RawData.Builder raw = EventTrigger.RawData.newBuilder()
+          .setAddress(nullToEmpty(rawData.getAddress()))
+          .setData(nullToEmpty(rawData.getData()));
+      if (Objects.nonNull(rawData.getTopics())) {
+        for (DataWord topic : rawData.getTopics()) {
+          raw.addTopics(topic.toHexString());
+        }
+      }
+      builder.setRawData(raw);
+    }
+    return builder.build();
+  }
+}
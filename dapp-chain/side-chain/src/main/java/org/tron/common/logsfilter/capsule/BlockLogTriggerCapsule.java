@@ -28,7 +28,7 @@ public class BlockLogTriggerCapsule extends TriggerCapsule {
   }
 
   @Override
-  public void processTrigger() {
-    EventPluginLoader.getInstance().postBlockTrigger(blockLogTrigger);
+  public Runnable prepareTrigger() {
+    return EventPluginLoader.getInstance().prepareBlockTrigger(blockLogTrigger);
   }
 }
@@ -53,13 +53,14 @@ public class ContractEventTriggerCapsule extends TriggerCapsule {
   }
 
   @Override
-  public void processTrigger() {
+  public Runnable prepareTrigger() {
     contractEventTrigger.setTopicMap(ContractEventParserAbi.parseTopics(topicList, abiEntry));
     contractEventTrigger
         .setDataMap(ContractEventParserAbi.parseEventData(data, topicList, abiEntry));
 
     if (FilterQuery.matchFilter(contractEventTrigger)) {
-      EventPluginLoader.getInstance().postContractEventTrigger(contractEventTrigger);
+      return EventPluginLoader.getInstance().prepareContractEventTrigger(contractEventTrigger);
     }
+    return null;
   }
 }
@@ -21,9 +21,10 @@ public class ContractLogTriggerCapsule extends TriggerCapsule {
   }
 
   @Override
-  public void processTrigger() {
+  public Runnable prepareTrigger() {
     if (FilterQuery.matchFilter(contractLogTrigger)) {
-      EventPluginLoader.getInstance().postContractLogTrigger(contractLogTrigger);
+      return EventPluginLoader.getInstance().prepareContractLogTrigger(contractLogTrigger);
     }
+    return null;
   }
 }
@@ -33,7 +33,12 @@ public class ContractTriggerCapsule extends TriggerCapsule {
   }
 
   @Override
-  public void processTrigger() {
+  public Runnable prepareTrigger() {
+    // most logs are dropped by the filter, drop them before the abi is even looked at
+    if (!FilterQuery.matchRawFilter(contractTrigger)) {
+      return null;
+    }
+
     ContractTrigger event;
     boolean isEvent = false;
     LogInfo logInfo = contractTrigger.getLogInfo();
@@ -88,7 +93,7 @@ public class ContractTriggerCapsule extends TriggerCapsule {
 
     if (isEvent) {
       if (!EventPluginLoader.getInstance().isContractEventTriggerEnable()) {
-        return;
+        return null;
       }
       event = new ContractEventTrigger();
       ((ContractEventTrigger) event).setEventSignature(eventSignature);
@@ -104,7 +109,7 @@ public class ContractTriggerCapsule extends TriggerCapsule {
           .setDataMap(ContractEventParserAbi.parseEventData(data, topicList, eventEntry));
     } else {
       if (!EventPluginLoader.getInstance().isContractLogTriggerEnable()) {
-        return;
+        return null;
       }
       event = new ContractLogTrigger();
       ((ContractLogTrigger) event).setTopicList(logInfo.getHexTopics());
@@ -126,12 +131,15 @@ public class ContractTriggerCapsule extends TriggerCapsule {
     event.setBlockNumber(contractTrigger.getBlockNumber());
     event.setTimeStamp(contractTrigger.getTimeStamp());
 
-    if (FilterQuery.matchFilter(contractTrigger)) {
+    if (FilterQuery.matchTopics(contractTrigger, event)) {
       if (isEvent) {
-        EventPluginLoader.getInstance().postContractEventTrigger((ContractEventTrigger) event);
+        return EventPluginLoader.getInstance()
+            .prepareContractEventTrigger((ContractEventTrigger) event);
       } else {
-        EventPluginLoader.getInstance().postContractLogTrigger((ContractLogTrigger) event);
+        return EventPluginLoader.getInstance()
+            .prepareContractLogTrigger((ContractLogTrigger) event);
       }
     }
+    return null;
   }
 }
@@ -175,7 +175,7 @@ public class TransactionLogTriggerCapsule extends TriggerCapsule {
   }
 
   @Override
-  public void processTrigger() {
-    EventPluginLoader.getInstance().postTransactionTrigger(transactionLogTrigger);
+  public Runnable prepareTrigger() {
+    return EventPluginLoader.getInstance().prepareTransactionTrigger(transactionLogTrigger);
   }
 }
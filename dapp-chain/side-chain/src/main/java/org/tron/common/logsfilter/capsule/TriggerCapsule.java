@@ -2,7 +2,18 @@ package org.tron.common.logsfilter.capsule;
 
 public class TriggerCapsule {
 
-  public void processTrigger() {
+  /**
+   * Decodes, filters and serializes the trigger, this part may run on any thread. Returns the
+   * send to the subscribers, which has to run in trigger order, or null when nothing is sent.
+   */
+  public Runnable prepareTrigger() {
     throw new UnsupportedOperationException();
   }
+
+  public void processTrigger() {
+    Runnable post = prepareTrigger();
+    if (post != null) {
+      post.run();
+    }
+  }
 }
@@ -0,0 +1,181 @@
+package org.tron.common.logsfilter.eventlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append-only log of the triggers sent to the subscribers, kept in memory-mapped segment
+ * files. Every trigger gets an offset, a subscriber that went away reads again from its last
+ * offset or from a block number. Segments whose blocks are all more than retainBlocks below the
+ * solidified block are deleted when a new segment is started.
+ */
+@Slf4j
+public class EventLog {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  // a segment is a single mapping with int positions
+  public static final int MAX_SEGMENT_SIZE = 1024 * 1024 * 1024;
+
+  public static final long DEFAULT_RETAIN_BLOCKS = 100_000;
+
+  private final File dir;
+
+  private final int segmentSize;
+
+  private final long retainBlocks;
+
+  private final List<EventLogSegment> segments = new ArrayList<>();
+
+  @Getter
+  private volatile long solidifiedBlockNumber;
+
+  private long lastBlockNumber = -1;
+
+  private int logIndex;
+
+  public EventLog(File dir) throws IOException {
+    this(dir, DEFAULT_SEGMENT_SIZE, DEFAULT_RETAIN_BLOCKS);
+  }
+
+  /**
+   * Opens the log in dir, the segments already there are scanned and appended to.
+   */
+  public EventLog(File dir, int segmentSize, long retainBlocks) throws IOException {
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+    this.retainBlocks = retainBlocks;
+    if (!dir.exists() && !dir.mkdirs()) {
+      throw new IOException("can not create event log directory " + dir);
+    }
+    File[] files = dir.listFiles((d, name) -> name.endsWith(EventLogSegment.SUFFIX));
+    if (files != null) {
+      Arrays.sort(files);
+      for (File file : files) {
+        if (file.length() == 0) {
+          // created right before a crash, it holds nothing
+          Files.delete(file.toPath());
+          continue;
+        }
+        segments.add(new EventLogSegment(dir, EventLogSegment.parseBaseOffset(file), 0));
+      }
+    }
+    if (segments.isEmpty()) {
+      segments.add(new EventLogSegment(dir, 0, segmentSize));
+    }
+    // the triggers appended next may belong to the block of the last record
+    for (int i = segments.size() - 1; i >= 0; i--) {
+      EventLogSegment segment = segments.get(i);
+      if (segment.getCount() > 0) {
+        long offset = segment.getNextOffset() - 1;
+        lastBlockNumber = segment.getBlockNumber(offset);
+        logIndex = segment.getLogIndex(offset);
+        break;
+      }
+    }
+    logger.info("Event log opened in {}, offsets {} to {}.", dir, getFirstOffset(),
+        getNextOffset());
+  }
+
+  private EventLogSegment getActive() {
+    return segments.get(segments.size() - 1);
+  }
+
+  public void setSolidifiedBlockNumber(long solidifiedBlockNumber) {
+    this.solidifiedBlockNumber = Math.max(this.solidifiedBlockNumber, solidifiedBlockNumber);
+  }
+
+  /**
+   * Appends a trigger and returns its offset.
+   */
+  public synchronized long append(long blockNumber, String topic, String data)
+      throws IOException {
+    byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+    byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+    int size = EventLogSegment.recordSize(topicBytes, dataBytes);
+    if (getActive().remaining() < size) {
+      roll(size);
+    }
+    logIndex = blockNumber == lastBlockNumber ? logIndex + 1 : 0;
+    lastBlockNumber = blockNumber;
+    return getActive().append(blockNumber, logIndex, topicBytes, dataBytes);
+  }
+
+  private void roll(int size) throws IOException {
+    EventLogSegment active = getActive();
+    active.flush();
+    // a trigger larger than a segment gets a segment of its own
+    segments.add(new EventLogSegment(dir, active.getNextOffset(), Math.max(segmentSize, size)));
+    retain();
+  }
+
+  private void retain() {
+    long minBlock = solidifiedBlockNumber - retainBlocks;
+    while (segments.size() > 1 && segments.get(0).getMaxBlock() < minBlock) {
+      EventLogSegment segment = segments.remove(0);
+      segment.delete();
+      logger.info("Delete event log segment {}, blocks up to {}.", segment.getFile().getName(),
+          segment.getMaxBlock());
+    }
+  }
+
+  /**
+   * Reads up to limit triggers from offset on. An offset that was already deleted reads from the
+   * first offset still kept.
+   */
+  public synchronized List<EventRecord> read(long offset, int limit) {
+    List<EventRecord> records = new ArrayList<>();
+    offset = Math.max(offset, getFirstOffset());
+    for (EventLogSegment segment : segments) {
+      while (records.size() < limit && offset < segment.getNextOffset()) {
+        if (offset >= segment.getBaseOffset()) {
+          records.add(segment.read(offset));
+        }
+        offset++;
+      }
+    }
+    return records;
+  }
+
+  /**
+   * The offset of the first trigger of a block at or after blockNumber, the next offset when no
+   * such trigger was written yet.
+   */
+  public synchronized long getOffsetOfBlock(long blockNumber) {
+    for (EventLogSegment segment : segments) {
+      if (segment.getMaxBlock() < blockNumber) {
+        continue;
+      }
+      for (long offset = segment.getBaseOffset(); offset < segment.getNextOffset(); offset++) {
+        if (segment.getBlockNumber(offset) >= blockNumber) {
+          return offset;
+        }
+      }
+    }
+    return getNextOffset();
+  }
+
+  public synchronized long getFirstOffset() {
+    return segments.get(0).getBaseOffset();
+  }
+
+  public synchronized long getNextOffset() {
+    return getActive().getNextOffset();
+  }
+
+  public synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  public synchronized void close() {
+    segments.forEach(EventLogSegment::close);
+    logger.info("Event log closed at offset {}.", getNextOffset());
+  }
+}
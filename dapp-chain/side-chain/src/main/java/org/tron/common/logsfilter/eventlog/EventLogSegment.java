@@ -0,0 +1,161 @@
+package org.tron.common.logsfilter.eventlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import lombok.Getter;
+
+/**
+ * One memory-mapped file of the event log, named by the offset of its first record. A record is
+ * laid out as [length][block number][log index][topic length][topic][data], the length is
+ * written last, so a record torn by a crash reads as the end of the segment.
+ */
+class EventLogSegment {
+
+  static final String SUFFIX = ".log";
+
+  // block number, log index and topic length
+  private static final int HEADER_SIZE = 8 + 4 + 2;
+
+  @Getter
+  private final File file;
+
+  @Getter
+  private final long baseOffset;
+
+  private final RandomAccessFile raf;
+
+  private final MappedByteBuffer buffer;
+
+  private int[] positions = new int[1024];
+
+  @Getter
+  private int count;
+
+  private int writePosition;
+
+  @Getter
+  private long minBlock = Long.MAX_VALUE;
+
+  @Getter
+  private long maxBlock = -1;
+
+  /**
+   * Maps the file of a segment, a new file is created with the given size. The records already
+   * in the file are scanned to rebuild the index.
+   */
+  EventLogSegment(File dir, long baseOffset, int size) throws IOException {
+    this.baseOffset = baseOffset;
+    this.file = new File(dir, String.format("%020d%s", baseOffset, SUFFIX));
+    this.raf = new RandomAccessFile(file, "rw");
+    long length = Math.max(raf.length(), size);
+    this.buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, length);
+    scan();
+  }
+
+  static long parseBaseOffset(File file) {
+    String name = file.getName();
+    return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+  }
+
+  static int recordSize(byte[] topic, byte[] data) {
+    return 4 + HEADER_SIZE + topic.length + data.length;
+  }
+
+  private void scan() {
+    int position = 0;
+    while (position + 4 <= buffer.capacity()) {
+      int length = buffer.getInt(position);
+      if (length < HEADER_SIZE || position + 4 + length > buffer.capacity()) {
+        break;
+      }
+      index(position, buffer.getLong(position + 4));
+      position += 4 + length;
+    }
+    writePosition = position;
+  }
+
+  private void index(int position, long blockNumber) {
+    if (count == positions.length) {
+      positions = Arrays.copyOf(positions, count * 2);
+    }
+    positions[count++] = position;
+    minBlock = Math.min(minBlock, blockNumber);
+    maxBlock = Math.max(maxBlock, blockNumber);
+  }
+
+  long getNextOffset() {
+    return baseOffset + count;
+  }
+
+  int remaining() {
+    return buffer.capacity() - writePosition;
+  }
+
+  /**
+   * Appends a record, the caller checked it fits.
+   */
+  long append(long blockNumber, int logIndex, byte[] topic, byte[] data) {
+    int position = writePosition;
+    int length = recordSize(topic, data) - 4;
+    buffer.putLong(position + 4, blockNumber);
+    buffer.putInt(position + 12, logIndex);
+    buffer.putShort(position + 16, (short) topic.length);
+    ByteBuffer view = buffer.duplicate();
+    view.position(position + 4 + HEADER_SIZE);
+    view.put(topic);
+    view.put(data);
+    buffer.putInt(position, length);
+    index(position, blockNumber);
+    writePosition += 4 + length;
+    return getNextOffset() - 1;
+  }
+
+  EventRecord read(long offset) {
+    int position = positions[(int) (offset - baseOffset)];
+    int length = buffer.getInt(position);
+    long blockNumber = buffer.getLong(position + 4);
+    int logIndex = buffer.getInt(position + 12);
+    byte[] topic = new byte[buffer.getShort(position + 16)];
+    byte[] data = new byte[length - HEADER_SIZE - topic.length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(position + 4 + HEADER_SIZE);
+    view.get(topic);
+    view.get(data);
+    return new EventRecord(offset, blockNumber, logIndex,
+        new String(topic, StandardCharsets.UTF_8), new String(data, StandardCharsets.UTF_8));
+  }
+
+  long getBlockNumber(long offset) {
+    return buffer.getLong(positions[(int) (offset - baseOffset)] + 4);
+  }
+
+  int getLogIndex(long offset) {
+    return buffer.getInt(positions[(int) (offset - baseOffset)] + 12);
+  }
+
+  void flush() {
+    buffer.force();
+  }
+
+  void close() {
+    try {
+      buffer.force();
+      raf.close();
+    } catch (IOException e) {
+      // the mapping stays valid until it is collected, there is nothing left to release
+    }
+  }
+
+  void delete() {
+    close();
+    if (!file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package org.tron.common.logsfilter.eventlog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A trigger as stored in the event log, its offset is its position in the whole log.
+ */
+@Getter
+@AllArgsConstructor
+public class EventRecord {
+
+  private final long offset;
+
+  private final long blockNumber;
+
+  // the position of the trigger among the triggers of its block
+  private final int logIndex;
+
+  private final String topic;
+
+  private final String data;
+}
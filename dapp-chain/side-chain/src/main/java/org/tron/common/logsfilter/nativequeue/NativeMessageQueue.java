@@ -54,6 +54,15 @@ public class NativeMessageQueue {
     }
   }
 
+  public void publishTrigger(byte[] data, String topic) {
+    if (Objects.isNull(publisher) || Objects.isNull(context.isClosed()) || context.isClosed()) {
+      return;
+    }
+
+    publisher.sendMore(topic);
+    publisher.send(data);
+  }
+
   public void publishTrigger(String data, String topic){
     if (Objects.isNull(publisher) || Objects.isNull(context.isClosed()) || context.isClosed()) {
       return;
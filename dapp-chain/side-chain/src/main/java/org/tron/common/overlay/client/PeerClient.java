@@ -1,6 +1,7 @@
 package org.tron.common.overlay.client;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelOption;
@@ -78,6 +79,7 @@ public class PeerClient {
     b.channel(NioSocketChannel.class);
 
     b.option(ChannelOption.SO_KEEPALIVE, true);
+    b.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
     b.option(ChannelOption.MESSAGE_SIZE_ESTIMATOR, DefaultMessageSizeEstimator.DEFAULT);
     b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Args.getInstance().getNodeConnectionTimeout());
     b.remoteAddress(host, port);
@@ -51,6 +51,7 @@ public class HelloMessage extends P2pMessage {
     builder.setGenesisBlockId(gBlockId);
     builder.setSolidBlockId(sBlockId);
     builder.setHeadBlockId(hBlockId);
+    builder.setCompactBlock(Args.getInstance().isCompactBlockRelay());
 
     this.helloMessage = builder.build();
     this.type = MessageTypes.P2P_HELLO.asByte();
@@ -86,6 +87,10 @@ public class HelloMessage extends P2pMessage {
         this.helloMessage.getHeadBlockId().getNumber());
   }
 
+  public boolean isCompactBlock() {
+    return this.helloMessage.getCompactBlock();
+  }
+
   @Override
   public Class<?> getAnswerMessage() {
     return null;
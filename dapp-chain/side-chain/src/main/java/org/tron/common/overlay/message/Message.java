@@ -8,7 +8,6 @@ import io.netty.buffer.Unpooled;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import lombok.Setter;
-import org.apache.commons.lang3.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.ReflectionUtils;
@@ -39,7 +38,8 @@ public abstract class Message {
   }
 
   public ByteBuf getSendData() {
-    return Unpooled.wrappedBuffer(ArrayUtils.add(this.getData(), 0, type));
+    // type byte and payload as one composite buffer, the payload is not copied
+    return Unpooled.wrappedBuffer(new byte[]{type}, this.getData());
   }
 
   public Sha256Hash getMessageId() {
@@ -63,7 +63,7 @@ public abstract class Message {
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(data);
+    return Arrays.hashCode(getData());
   }
 
   @Override
@@ -75,11 +75,19 @@ public abstract class Message {
       return false;
     }
     Message message = (Message) o;
-    return Arrays.equals(data, message.data);
+    return Arrays.equals(getData(), message.getData());
   }
 
   public static void compareBytes(byte[] src, byte[] dest) throws P2pException {
-    if (src.length != dest.length) {
+    compareBytes(src, dest.length);
+  }
+
+  /**
+   * Same check as {@link #compareBytes(byte[], byte[])} against the serialized size of the parsed
+   * message, which protobuf memoizes, instead of serializing it again.
+   */
+  public static void compareBytes(byte[] src, int destLength) throws P2pException {
+    if (src.length != destLength) {
       throw new P2pException(PROTOBUF_ERROR, PROTOBUF_ERROR.getDesc());
     }
   }
@@ -23,10 +23,13 @@ public class MessageCodec extends ByteToMessageDecoder {
   protected void decode(ChannelHandlerContext ctx, ByteBuf buffer, List<Object> out)
       throws Exception {
     int length = buffer.readableBytes();
-    byte[] encoded = new byte[length];
-    buffer.readBytes(encoded);
     try {
-      Message msg = createMessage(encoded);
+      // the frame is a slice of the pooled read buffer, the payload is copied out of it once
+      // and kept as the message data, so relaying it needs no serialization
+      byte type = buffer.readByte();
+      byte[] rawData = new byte[length - 1];
+      buffer.readBytes(rawData);
+      Message msg = createMessage(type, rawData);
       channel.getNodeStatistics().tcpFlow.add(length);
       out.add(msg);
     } catch (Exception e) {
@@ -38,15 +41,14 @@ public class MessageCodec extends ByteToMessageDecoder {
     this.channel = channel;
   }
 
-  private Message createMessage(byte[] encoded) throws Exception {
-    byte type = encoded[0];
+  private Message createMessage(byte type, byte[] rawData) throws Exception {
     if (MessageTypes.inP2pRange(type)) {
-      return p2pMessageFactory.create(encoded);
+      return p2pMessageFactory.create(type, rawData);
     }
     if (MessageTypes.inTronRange(type)) {
-      return tronMessageFactory.create(encoded);
+      return tronMessageFactory.create(type, rawData);
     }
-    throw new P2pException(P2pException.TypeEnum.NO_SUCH_MESSAGE, "type=" + encoded[0]);
+    throw new P2pException(P2pException.TypeEnum.NO_SUCH_MESSAGE, "type=" + type);
   }
 
 }
\ No newline at end of file
@@ -19,4 +19,10 @@ public abstract class MessageFactory {
 
   protected abstract Message create(byte[] data) throws Exception;
 
+  /**
+   * Creates a message from its type byte and payload, for callers that already split the two
+   * and would otherwise copy the payload again.
+   */
+  protected abstract Message create(byte type, byte[] rawData) throws Exception;
+
 }
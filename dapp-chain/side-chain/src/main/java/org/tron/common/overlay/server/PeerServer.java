@@ -1,6 +1,7 @@
 package org.tron.common.overlay.server;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.DefaultMessageSizeEstimator;
@@ -44,6 +45,7 @@ public class PeerServer {
       b.channel(NioServerSocketChannel.class);
 
       b.option(ChannelOption.SO_KEEPALIVE, true);
+      b.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
       b.option(ChannelOption.MESSAGE_SIZE_ESTIMATOR, DefaultMessageSizeEstimator.DEFAULT);
       b.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, this.args.getNodeConnectionTimeout());
 
@@ -23,9 +23,17 @@ package org.tron.common.overlay.server;
  */
 public class PeerStatistics {
 
+  // weight of the newest sample in the sync block averages
+  private static final double SYNC_SAMPLE_WEIGHT = 0.2;
+
   private double avgLatency = 0;
   private long pingCount = 0;
 
+  private volatile double avgBlockLatency = 0;
+  private volatile double blockBandwidth = 0;
+  private volatile long syncBlockCount = 0;
+  private volatile long lastSyncBlockTime = 0;
+
   public void pong(long pingStamp) {
     long latency = System.currentTimeMillis() - pingStamp;
     avgLatency = ((avgLatency * pingCount) + latency) / ++pingCount;
@@ -34,4 +42,53 @@ public class PeerStatistics {
   public double getAvgLatency() {
     return avgLatency;
   }
+
+  /**
+   * Records a sync block delivered by this peer.
+   *
+   * @param latency ms between requesting the block and receiving it
+   * @param size encoded size of the block in bytes
+   */
+  public synchronized void syncBlockReceived(long latency, int size) {
+    long now = System.currentTimeMillis();
+    if (syncBlockCount == 0) {
+      avgBlockLatency = latency;
+    } else {
+      avgBlockLatency += SYNC_SAMPLE_WEIGHT * (latency - avgBlockLatency);
+      long interval = Math.max(1, now - lastSyncBlockTime);
+      // only back to back deliveries say anything about bandwidth
+      if (interval < latency) {
+        blockBandwidth += SYNC_SAMPLE_WEIGHT * (size * 1000.0 / interval - blockBandwidth);
+      }
+    }
+    lastSyncBlockTime = now;
+    syncBlockCount++;
+  }
+
+  public double getAvgBlockLatency() {
+    return avgBlockLatency;
+  }
+
+  /**
+   * Smoothed sync block bandwidth in bytes per second, 0 until measured.
+   */
+  public double getBlockBandwidth() {
+    return blockBandwidth;
+  }
+
+  public long getSyncBlockCount() {
+    return syncBlockCount;
+  }
+
+  /**
+   * Blocks per second this peer is expected to deliver, higher is better. A peer that has not
+   * delivered anything yet scores 0, see {@link #isSyncMeasured()}.
+   */
+  public double getSyncScore() {
+    return syncBlockCount == 0 ? 0 : 1000.0 / Math.max(1.0, avgBlockLatency);
+  }
+
+  public boolean isSyncMeasured() {
+    return syncBlockCount > 0;
+  }
 }
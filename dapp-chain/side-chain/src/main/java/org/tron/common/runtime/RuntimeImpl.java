@@ -41,6 +41,7 @@ import org.tron.common.runtime.vm.program.invoke.ProgramInvoke;
 import org.tron.common.runtime.vm.program.invoke.ProgramInvokeFactory;
 import org.tron.common.storage.Deposit;
 import org.tron.common.storage.DepositImpl;
+import org.tron.common.storage.StorageAccessList;
 import org.tron.core.Constant;
 import org.tron.core.Wallet;
 import org.tron.core.actuator.Actuator;
@@ -98,6 +99,12 @@ public class RuntimeImpl implements Runtime {
   @Setter
   private boolean enableEventLinstener;
 
+  /**
+   * Taken from VMConfig when the runtime is made, block processing sets VMConfig right before.
+   */
+  @Setter
+  private boolean vmResourceChargingOn = VMConfig.isVmResourceChargingOn();
+
   private LogInfoTriggerParser logInfoTriggerParser;
 
   /**
@@ -376,7 +383,7 @@ public class RuntimeImpl implements Runtime {
         sunTokenCallTokenValue = tokenValue;
       }
 
-      if (!VMConfig.isVmResourceChargingOn()) {
+      if (!vmResourceChargingOn) {
         energyLimit = 10_000_000;
       } else {
         energyLimit = getAccountEnergyLimitWithFixRatio(creator, feeLimit, callValue,
@@ -477,7 +484,9 @@ public class RuntimeImpl implements Runtime {
     if (tokenId == Long.parseLong(SUN_TOKEN_ID)) {
       sunTokenCallTokenValue = tokenValue;
     }
-    byte[] code = this.deposit.getCode(contractAddress);
+    byte[] codeHash = deployedContract.getCodeHash();
+    ProgramPrecompile cached = ProgramPrecompile.getCached(codeHash);
+    byte[] code = cached != null ? cached.getCode() : this.deposit.getCode(contractAddress);
 
     if (isNotEmpty(code)) {
       // feeLimit check
@@ -494,8 +503,9 @@ public class RuntimeImpl implements Runtime {
       }
       long energyLimit;
       if (isStaticCall) {
-        energyLimit = Constant.ENERGY_LIMIT_IN_CONSTANT_TX;
-      } else if (!VMConfig.isVmResourceChargingOn()) {
+        long maxEnergy = Args.getInstance().getConstantCallMaxEnergy();
+        energyLimit = maxEnergy > 0 ? maxEnergy : Constant.ENERGY_LIMIT_IN_CONSTANT_TX;
+      } else if (!vmResourceChargingOn) {
         energyLimit = 10_000_000;
       } else {
         AccountCapsule creator = this.deposit
@@ -524,8 +534,12 @@ public class RuntimeImpl implements Runtime {
       rootInternalTransaction = new InternalTransaction(trx, trxType);
       this.program = new Program(code, programInvoke, rootInternalTransaction, config,
           this.blockCap);
+      this.program.setCodeHash(codeHash);
       byte[] txId = new TransactionCapsule(trx).getTransactionId().getBytes();
       this.program.setRootTransactionId(txId);
+      if (!isStaticCall) {
+        deposit.setStorageAccessList(StorageAccessList.get(txId));
+      }
 
       if (enableEventLinstener &&
           (EventPluginLoader.getInstance().isContractEventTriggerEnable()
@@ -611,6 +625,10 @@ public class RuntimeImpl implements Runtime {
           }
         } else {
           deposit.commit();
+          if (TrxType.TRX_CONTRACT_CALL_TYPE == trxType) {
+            StorageAccessList
+                .put(program.getRootTransactionId(), deposit.getStorageAccessList());
+          }
 
           if (logInfoTriggerParser != null) {
             List<ContractTrigger> triggers = logInfoTriggerParser
@@ -651,7 +669,7 @@ public class RuntimeImpl implements Runtime {
       }
       logger.info("runtime result is :{}", result.getException().getMessage());
     }
-    if (!VMConfig.isVmResourceChargingOn()
+    if (!vmResourceChargingOn
         || trace.isSideChainGateWayContractCall() && this.isResultSuccess()) {
       trace.setBill(0);
     }
@@ -687,7 +705,12 @@ public class RuntimeImpl implements Runtime {
   public void finalization() {
     if (StringUtils.isEmpty(runtimeError)) {
       for (DataWord contract : result.getDeleteAccounts()) {
-        deposit.deleteContract(convertToTronAddress((contract.getLast20Bytes())));
+        byte[] address = convertToTronAddress((contract.getLast20Bytes()));
+        ContractCapsule deleted = deposit.getContract(address);
+        if (deleted != null) {
+          ProgramPrecompile.invalidate(deleted.getCodeHash());
+        }
+        deposit.deleteContract(address);
       }
     }
 
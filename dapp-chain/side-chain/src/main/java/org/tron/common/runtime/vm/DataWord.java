@@ -251,30 +251,15 @@ public class DataWord implements Comparable<DataWord> {
   }
 
   public void negate() {
-    if (this.isZero()) return;
-
-    bnot();
-    add(DataWord.ONE());
+    UInt256.negate(word());
   }
 
   public void bnot() {
-    if (this.isZero()) {
-      this.data = ByteUtil.copyToArray(MAX_VALUE);
-      return;
-    }
-    this.data = ByteUtil.copyToArray(MAX_VALUE.subtract(this.value()));
+    UInt256.not(word());
   }
 
-  // By   : Holger
-  // From : http://stackoverflow.com/a/24023466/459349
   public void add(DataWord word) {
-    byte[] result = new byte[32];
-    for (int i = 31, overflow = 0; i >= 0; i--) {
-      int v = (this.data[i] & 0xff) + (word.data[i] & 0xff) + overflow;
-      result[i] = (byte) v;
-      overflow = v >>> 8;
-    }
-    this.data = result;
+    UInt256.add(word(), word.word());
   }
 
   // old add-method with BigInteger quick hack
@@ -283,15 +268,10 @@ public class DataWord implements Comparable<DataWord> {
     this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
   }
 
-  // TODO: mul can be done in more efficient way
-  // TODO:     with shift left shift right trick
-  // TODO      without BigInteger quick hack
   public void mul(DataWord word) {
-    BigInteger result = value().multiply(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.mul(word(), word.word());
   }
 
-  // TODO: improve with no BigInteger
   public void div(DataWord word) {
 
     if (word.isZero()) {
@@ -299,11 +279,9 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().divide(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.div(word(), word.word());
   }
 
-  // TODO: improve with no BigInteger
   public void sDiv(DataWord word) {
 
     if (word.isZero()) {
@@ -311,23 +289,17 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = sValue().divide(word.sValue());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.sdiv(word(), word.word());
   }
 
-  // TODO: improve with no BigInteger
   public void sub(DataWord word) {
-    BigInteger result = value().subtract(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.sub(word(), word.word());
   }
 
-  // TODO: improve with no BigInteger
   public void exp(DataWord word) {
-    BigInteger result = value().modPow(word.value(), _2_256);
-    this.data = ByteUtil.copyToArray(result);
+    UInt256.exp(word(), word.word());
   }
 
-  // TODO: improve with no BigInteger
   public void mod(DataWord word) {
 
     if (word.isZero()) {
@@ -335,8 +307,7 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().mod(word.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.mod(word(), word.word());
   }
 
   public void sMod(DataWord word) {
@@ -346,10 +317,7 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = sValue().abs().mod(word.sValue().abs());
-    result = (sValue().signum() == -1) ? result.negate() : result;
-
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.smod(word(), word.word());
   }
 
   public void addmod(DataWord word1, DataWord word2) {
@@ -358,8 +326,7 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().add(word1.value()).mod(word2.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.addmod(word(), word1.word(), word2.word());
   }
 
   public void mulmod(DataWord word1, DataWord word2) {
@@ -369,8 +336,18 @@ public class DataWord implements Comparable<DataWord> {
       return;
     }
 
-    BigInteger result = value().multiply(word1.value()).mod(word2.value());
-    this.data = ByteUtil.copyToArray(result.and(MAX_VALUE));
+    UInt256.mulmod(word(), word1.word(), word2.word());
+  }
+
+  /**
+   * The 32 byte backing array the arithmetic works on in place; a word created from
+   * <code>null</code> is widened to zero first.
+   */
+  private byte[] word() {
+    if (data.length != WORD_SIZE) {
+      data = getClonedData();
+    }
+    return data;
   }
 
   @JsonValue
@@ -433,6 +410,13 @@ public class DataWord implements Comparable<DataWord> {
     return (int) Math.signum(result);
   }
 
+  /**
+   * Compares both words as two's complement signed numbers.
+   */
+  public int sCompareTo(DataWord o) {
+    return Integer.signum(UInt256.compareSigned(word(), o.word()));
+  }
+
   public void signExtend(byte k) {
     if (0 > k || k > 31)
       throw new IndexOutOfBoundsException();
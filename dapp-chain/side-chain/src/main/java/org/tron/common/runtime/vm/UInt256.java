@@ -0,0 +1,511 @@
+package org.tron.common.runtime.vm;
+
+/**
+ * Fixed-width 256-bit arithmetic on the 32-byte big-endian words backing {@link DataWord}.
+ *
+ * The word is processed as four 64-bit limbs, limb 0 being the least significant. All
+ * operations write their result back into the first argument. ADD, SUB, MUL, NOT, NEG and
+ * the comparisons are allocation-free; the division family works on 32-bit digits (Knuth,
+ * TAOCP vol. 2, 4.3.1, algorithm D) and only needs a few short-lived scratch arrays.
+ *
+ * Every operation is bit-exact with the BigInteger based implementation it replaces, i.e. the
+ * result is the mathematical result reduced modulo 2^256.
+ */
+final class UInt256 {
+
+  static final int WORD_SIZE = 32;
+
+  private static final long INT_MASK = 0xFFFFFFFFL;
+
+  private UInt256() {
+  }
+
+  /* limb access */
+
+  static long limb(byte[] w, int i) {
+    int off = WORD_SIZE - 8 - (i << 3);
+    return ((long) w[off] << 56)
+        | ((long) (w[off + 1] & 0xff) << 48)
+        | ((long) (w[off + 2] & 0xff) << 40)
+        | ((long) (w[off + 3] & 0xff) << 32)
+        | ((long) (w[off + 4] & 0xff) << 24)
+        | ((long) (w[off + 5] & 0xff) << 16)
+        | ((long) (w[off + 6] & 0xff) << 8)
+        | ((long) (w[off + 7] & 0xff));
+  }
+
+  static void setLimb(byte[] w, int i, long v) {
+    int off = WORD_SIZE - 8 - (i << 3);
+    w[off] = (byte) (v >>> 56);
+    w[off + 1] = (byte) (v >>> 48);
+    w[off + 2] = (byte) (v >>> 40);
+    w[off + 3] = (byte) (v >>> 32);
+    w[off + 4] = (byte) (v >>> 24);
+    w[off + 5] = (byte) (v >>> 16);
+    w[off + 6] = (byte) (v >>> 8);
+    w[off + 7] = (byte) v;
+  }
+
+  private static void set(byte[] w, long l0, long l1, long l2, long l3) {
+    setLimb(w, 0, l0);
+    setLimb(w, 1, l1);
+    setLimb(w, 2, l2);
+    setLimb(w, 3, l3);
+  }
+
+  static boolean isZero(byte[] w) {
+    for (int i = 0; i < WORD_SIZE; ++i) {
+      if (w[i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean isNegative(byte[] w) {
+    return w[0] < 0;
+  }
+
+  static void setZero(byte[] w) {
+    java.util.Arrays.fill(w, (byte) 0);
+  }
+
+  /* comparison */
+
+  static int compareUnsigned(byte[] a, byte[] b) {
+    for (int i = 3; i >= 0; --i) {
+      int c = Long.compareUnsigned(limb(a, i), limb(b, i));
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  static int compareSigned(byte[] a, byte[] b) {
+    int c = Long.compare(limb(a, 3), limb(b, 3));
+    if (c != 0) {
+      return c;
+    }
+    for (int i = 2; i >= 0; --i) {
+      c = Long.compareUnsigned(limb(a, i), limb(b, i));
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  /* bitwise */
+
+  static void not(byte[] a) {
+    for (int i = 0; i < WORD_SIZE; ++i) {
+      a[i] = (byte) ~a[i];
+    }
+  }
+
+  static void negate(byte[] a) {
+    long l0 = ~limb(a, 0);
+    long l1 = ~limb(a, 1);
+    long l2 = ~limb(a, 2);
+    long l3 = ~limb(a, 3);
+    l0 += 1;
+    if (l0 == 0) {
+      l1 += 1;
+      if (l1 == 0) {
+        l2 += 1;
+        if (l2 == 0) {
+          l3 += 1;
+        }
+      }
+    }
+    set(a, l0, l1, l2, l3);
+  }
+
+  /* additive */
+
+  static void add(byte[] a, byte[] b) {
+    long a0 = limb(a, 0);
+    long s0 = a0 + limb(b, 0);
+    long c = Long.compareUnsigned(s0, a0) < 0 ? 1 : 0;
+
+    long a1 = limb(a, 1);
+    long t1 = a1 + limb(b, 1);
+    long s1 = t1 + c;
+    c = (Long.compareUnsigned(t1, a1) < 0 || Long.compareUnsigned(s1, t1) < 0) ? 1 : 0;
+
+    long a2 = limb(a, 2);
+    long t2 = a2 + limb(b, 2);
+    long s2 = t2 + c;
+    c = (Long.compareUnsigned(t2, a2) < 0 || Long.compareUnsigned(s2, t2) < 0) ? 1 : 0;
+
+    long s3 = limb(a, 3) + limb(b, 3) + c;
+    set(a, s0, s1, s2, s3);
+  }
+
+  static void sub(byte[] a, byte[] b) {
+    long a0 = limb(a, 0);
+    long b0 = limb(b, 0);
+    long d0 = a0 - b0;
+    long borrow = Long.compareUnsigned(a0, b0) < 0 ? 1 : 0;
+
+    long a1 = limb(a, 1);
+    long b1 = limb(b, 1);
+    long d1 = a1 - b1 - borrow;
+    borrow = (Long.compareUnsigned(a1, b1) < 0 || (a1 == b1 && borrow == 1)) ? 1 : 0;
+
+    long a2 = limb(a, 2);
+    long b2 = limb(b, 2);
+    long d2 = a2 - b2 - borrow;
+    borrow = (Long.compareUnsigned(a2, b2) < 0 || (a2 == b2 && borrow == 1)) ? 1 : 0;
+
+    long d3 = limb(a, 3) - limb(b, 3) - borrow;
+    set(a, d0, d1, d2, d3);
+  }
+
+  /* multiplicative */
+
+  /**
+   * High 64 bits of the unsigned 128-bit product x * y.
+   */
+  static long multiplyHighUnsigned(long x, long y) {
+    long x0 = x & INT_MASK;
+    long x1 = x >>> 32;
+    long y0 = y & INT_MASK;
+    long y1 = y >>> 32;
+    long w0 = x0 * y0;
+    long t = x1 * y0 + (w0 >>> 32);
+    long w1 = (t & INT_MASK) + x0 * y1;
+    return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+  }
+
+  /**
+   * High 64 bits of x * y + r + c, which never overflows 128 bits.
+   */
+  private static long macHigh(long x, long y, long r, long c) {
+    long hi = multiplyHighUnsigned(x, y);
+    long lo = x * y;
+    long s = lo + r;
+    if (Long.compareUnsigned(s, lo) < 0) {
+      hi++;
+    }
+    if (Long.compareUnsigned(s + c, s) < 0) {
+      hi++;
+    }
+    return hi;
+  }
+
+  static void mul(byte[] a, byte[] b) {
+    long a0 = limb(a, 0);
+    long a1 = limb(a, 1);
+    long a2 = limb(a, 2);
+    long a3 = limb(a, 3);
+    long b0 = limb(b, 0);
+    long b1 = limb(b, 1);
+    long b2 = limb(b, 2);
+    long b3 = limb(b, 3);
+
+    // row a0
+    long r0 = a0 * b0;
+    long c = multiplyHighUnsigned(a0, b0);
+    long r1 = a0 * b1 + c;
+    c = macHigh(a0, b1, 0, c);
+    long r2 = a0 * b2 + c;
+    c = macHigh(a0, b2, 0, c);
+    long r3 = a0 * b3 + c;
+
+    // row a1
+    c = macHigh(a1, b0, r1, 0);
+    r1 = a1 * b0 + r1;
+    long n2 = a1 * b1 + r2 + c;
+    c = macHigh(a1, b1, r2, c);
+    r2 = n2;
+    r3 += a1 * b2 + c;
+
+    // row a2
+    c = macHigh(a2, b0, r2, 0);
+    r2 = a2 * b0 + r2;
+    r3 += a2 * b1 + c;
+
+    // row a3
+    r3 += a3 * b0;
+
+    set(a, r0, r1, r2, r3);
+  }
+
+  static void exp(byte[] a, byte[] e) {
+    if (e == a) {
+      e = e.clone();
+    }
+    int bits = bitLength(e);
+    if (bits == 0) {
+      setZero(a);
+      a[WORD_SIZE - 1] = 1;
+      return;
+    }
+    byte[] base = a.clone();
+    setZero(a);
+    a[WORD_SIZE - 1] = 1;
+    for (int i = 0; i < bits; ++i) {
+      if ((e[WORD_SIZE - 1 - (i >>> 3)] & (1 << (i & 7))) != 0) {
+        mul(a, base);
+      }
+      if (i + 1 < bits) {
+        mul(base, base);
+      }
+    }
+  }
+
+  static int bitLength(byte[] w) {
+    for (int i = 3; i >= 0; --i) {
+      long l = limb(w, i);
+      if (l != 0) {
+        return (i << 6) + 64 - Long.numberOfLeadingZeros(l);
+      }
+    }
+    return 0;
+  }
+
+  /* division */
+
+  /**
+   * a = a / b (unsigned), b must not be zero.
+   */
+  static void div(byte[] a, byte[] b) {
+    divRem(a, b, true);
+  }
+
+  /**
+   * a = a % b (unsigned), b must not be zero.
+   */
+  static void mod(byte[] a, byte[] b) {
+    divRem(a, b, false);
+  }
+
+  /**
+   * a = a / b with both operands in two's complement, truncating towards zero. b must not be
+   * zero; MIN / -1 wraps to MIN.
+   */
+  static void sdiv(byte[] a, byte[] b) {
+    boolean negA = isNegative(a);
+    boolean negB = isNegative(b);
+    byte[] divisor = b == a ? b.clone() : b;
+    if (negA) {
+      negate(a);
+    }
+    if (negB) {
+      divisor = divisor == b ? b.clone() : divisor;
+      negate(divisor);
+    }
+    divRem(a, divisor, true);
+    if (negA != negB) {
+      negate(a);
+    }
+  }
+
+  /**
+   * a = |a| % |b| carrying the sign of a, b must not be zero.
+   */
+  static void smod(byte[] a, byte[] b) {
+    boolean negA = isNegative(a);
+    boolean negB = isNegative(b);
+    byte[] divisor = b == a ? b.clone() : b;
+    if (negA) {
+      negate(a);
+    }
+    if (negB) {
+      divisor = divisor == b ? b.clone() : divisor;
+      negate(divisor);
+    }
+    divRem(a, divisor, false);
+    if (negA) {
+      negate(a);
+    }
+  }
+
+  /**
+   * a = (a + b) % n over the full 257-bit sum, n must not be zero.
+   */
+  static void addmod(byte[] a, byte[] b, byte[] n) {
+    int[] u = toDigits(a, 9);
+    int[] v = toDigits(b, 8);
+    long carry = 0;
+    for (int i = 0; i < 8; ++i) {
+      long s = (u[i] & INT_MASK) + (v[i] & INT_MASK) + carry;
+      u[i] = (int) s;
+      carry = s >>> 32;
+    }
+    u[8] = (int) carry;
+    remainderInto(a, u, toDigits(n, 8));
+  }
+
+  /**
+   * a = (a * b) % n over the full 512-bit product, n must not be zero.
+   */
+  static void mulmod(byte[] a, byte[] b, byte[] n) {
+    int[] x = toDigits(a, 8);
+    int[] y = toDigits(b, 8);
+    int[] u = new int[16];
+    for (int i = 0; i < 8; ++i) {
+      long carry = 0;
+      long xi = x[i] & INT_MASK;
+      if (xi == 0) {
+        continue;
+      }
+      for (int j = 0; j < 8; ++j) {
+        long t = xi * (y[j] & INT_MASK) + (u[i + j] & INT_MASK) + carry;
+        u[i + j] = (int) t;
+        carry = t >>> 32;
+      }
+      u[i + 8] = (int) carry;
+    }
+    remainderInto(a, u, toDigits(n, 8));
+  }
+
+  private static void divRem(byte[] a, byte[] b, boolean quotient) {
+    if (compareUnsigned(a, b) < 0) {
+      if (quotient) {
+        setZero(a);
+      }
+      return;
+    }
+    // both operands fit into 64 bits
+    if (limb(a, 1) == 0 && limb(a, 2) == 0 && limb(a, 3) == 0
+        && limb(b, 1) == 0 && limb(b, 2) == 0 && limb(b, 3) == 0) {
+      long x = limb(a, 0);
+      long y = limb(b, 0);
+      setLimb(a, 0, quotient ? Long.divideUnsigned(x, y) : Long.remainderUnsigned(x, y));
+      return;
+    }
+    int[] u = toDigits(a, 8);
+    int[] v = toDigits(b, 8);
+    int m = significantDigits(u);
+    int n = significantDigits(v);
+    int[] q = new int[8];
+    int[] r = new int[8];
+    divmnu(q, r, u, v, m, n);
+    fromDigits(a, quotient ? q : r);
+  }
+
+  private static void remainderInto(byte[] a, int[] u, int[] v) {
+    int m = significantDigits(u);
+    int n = significantDigits(v);
+    int[] r = new int[8];
+    if (m < n) {
+      System.arraycopy(u, 0, r, 0, m);
+    } else {
+      divmnu(new int[u.length], r, u, v, m, n);
+    }
+    fromDigits(a, r);
+  }
+
+  private static int[] toDigits(byte[] w, int len) {
+    int[] d = new int[len];
+    for (int i = 0; i < 8; ++i) {
+      int off = WORD_SIZE - 4 - (i << 2);
+      d[i] = ((w[off] & 0xff) << 24) | ((w[off + 1] & 0xff) << 16)
+          | ((w[off + 2] & 0xff) << 8) | (w[off + 3] & 0xff);
+    }
+    return d;
+  }
+
+  private static void fromDigits(byte[] w, int[] d) {
+    for (int i = 0; i < 8; ++i) {
+      int off = WORD_SIZE - 4 - (i << 2);
+      int v = d[i];
+      w[off] = (byte) (v >>> 24);
+      w[off + 1] = (byte) (v >>> 16);
+      w[off + 2] = (byte) (v >>> 8);
+      w[off + 3] = (byte) v;
+    }
+  }
+
+  private static int significantDigits(int[] d) {
+    int n = d.length;
+    while (n > 0 && d[n - 1] == 0) {
+      n--;
+    }
+    return n;
+  }
+
+  /**
+   * Knuth's algorithm D on little-endian 32-bit digits, after Hacker's Delight divmnu64.
+   * Requires m >= n >= 1 and v[n - 1] != 0; q receives m - n + 1 digits, r receives n digits.
+   */
+  private static void divmnu(int[] q, int[] r, int[] u, int[] v, int m, int n) {
+    final long b = 1L << 32;
+
+    if (n == 1) {
+      long d = v[0] & INT_MASK;
+      long k = 0;
+      for (int j = m - 1; j >= 0; --j) {
+        long t = (k << 32) | (u[j] & INT_MASK);
+        q[j] = (int) Long.divideUnsigned(t, d);
+        k = Long.remainderUnsigned(t, d);
+      }
+      r[0] = (int) k;
+      return;
+    }
+
+    // normalize so that the top divisor digit has its high bit set
+    int s = Integer.numberOfLeadingZeros(v[n - 1]);
+    int[] vn = new int[n];
+    for (int i = n - 1; i > 0; --i) {
+      vn[i] = (int) (((v[i] & INT_MASK) << s) | ((v[i - 1] & INT_MASK) >>> (32 - s)));
+    }
+    vn[0] = v[0] << s;
+
+    int[] un = new int[m + 1];
+    un[m] = (int) ((u[m - 1] & INT_MASK) >>> (32 - s));
+    for (int i = m - 1; i > 0; --i) {
+      un[i] = (int) (((u[i] & INT_MASK) << s) | ((u[i - 1] & INT_MASK) >>> (32 - s)));
+    }
+    un[0] = u[0] << s;
+
+    long vTop = vn[n - 1] & INT_MASK;
+    long vNext = vn[n - 2] & INT_MASK;
+    for (int j = m - n; j >= 0; --j) {
+      long num = ((un[j + n] & INT_MASK) << 32) | (un[j + n - 1] & INT_MASK);
+      long qhat = Long.divideUnsigned(num, vTop);
+      long rhat = num - qhat * vTop;
+      while (qhat >= b
+          || Long.compareUnsigned(qhat * vNext, (rhat << 32) | (un[j + n - 2] & INT_MASK)) > 0) {
+        qhat--;
+        rhat += vTop;
+        if (rhat >= b) {
+          break;
+        }
+      }
+
+      // multiply and subtract
+      long k = 0;
+      long t;
+      for (int i = 0; i < n; ++i) {
+        long p = qhat * (vn[i] & INT_MASK);
+        t = (un[i + j] & INT_MASK) - k - (p & INT_MASK);
+        un[i + j] = (int) t;
+        k = (p >>> 32) - (t >> 32);
+      }
+      t = (un[j + n] & INT_MASK) - k;
+      un[j + n] = (int) t;
+
+      q[j] = (int) qhat;
+      if (t < 0) {
+        // subtracted too much, add back
+        q[j]--;
+        k = 0;
+        for (int i = 0; i < n; ++i) {
+          t = (un[i + j] & INT_MASK) + (vn[i] & INT_MASK) + k;
+          un[i + j] = (int) t;
+          k = t >>> 32;
+        }
+        un[j + n] += (int) k;
+      }
+    }
+
+    for (int i = 0; i < n - 1; ++i) {
+      r[i] = (int) (((un[i] & INT_MASK) >>> s) | ((un[i + 1] & INT_MASK) << (32 - s)));
+    }
+    r[n - 1] = (int) (((un[n - 1] & INT_MASK) >>> s) | ((un[n] & INT_MASK) << (32 - s)));
+  }
+}
@@ -37,9 +37,29 @@ public class VM {
   private static final String ENERGY_LOG_FORMATE = "{} Op:[{}]  Energy:[{}] Deep:[{}] Hint:[{}]";
 
   // 3MB
-  private static final BigInteger MEM_LIMIT = BigInteger.valueOf(3L * 1024 * 1024);
+  private static final long MEM_LIMIT = 3L * 1024 * 1024;
   public static final String ADDRESS_LOG = "address: ";
 
+  private static final EnergyCost ENERGY_COSTS = EnergyCost.getInstance();
+
+  /**
+   * Marks an opcode whose energy depends on its operands or on state, see staticEnergy.
+   */
+  private static final long DYNAMIC_ENERGY = -1;
+
+  /**
+   * Energy of every opcode byte that can be charged without looking at the stack, or
+   * DYNAMIC_ENERGY. Indexed by the unsigned opcode value.
+   */
+  private static final long[] STATIC_ENERGY = new long[256];
+
+  static {
+    for (OpCode op : OpCode.values()) {
+      int code = op.val() & 0xff;
+      STATIC_ENERGY[code] = staticEnergy(op);
+    }
+  }
+
   private final VMConfig config;
 
   public VM() {
@@ -50,20 +70,20 @@ public class VM {
     this.config = config;
   }
 
-  private void checkMemorySize(OpCode op, BigInteger newMemSize) {
-    if (newMemSize.compareTo(MEM_LIMIT) > 0) {
+  private void checkMemorySize(OpCode op, long newMemSize) {
+    if (newMemSize > MEM_LIMIT) {
       throw Program.Exception.memoryOverflow(op);
     }
   }
 
-  private long calcMemEnergy(EnergyCost energyCosts, long oldMemSize, BigInteger newMemSize,
+  private long calcMemEnergy(EnergyCost energyCosts, long oldMemSize, long newMemSize,
       long copySize, OpCode op) {
     long energyCost = 0;
 
     checkMemorySize(op, newMemSize);
 
     // memory drop consume calc
-    long memoryUsage = (newMemSize.longValueExact() + 31) / 32 * 32;
+    long memoryUsage = (newMemSize + 31) / 32 * 32;
     if (memoryUsage > oldMemSize) {
       long memWords = (memoryUsage / 32);
       long memWordsOld = (oldMemSize / 32);
@@ -80,6 +100,50 @@ public class VM {
     return energyCost;
   }
 
+  private static long staticEnergy(OpCode op) {
+    switch (op) {
+      case STOP:
+        return ENERGY_COSTS.getSTOP();
+      case SLOAD:
+        return ENERGY_COSTS.getSLOAD();
+      case TOKENBALANCE:
+      case BALANCE:
+        return ENERGY_COSTS.getBALANCE();
+      case EXTCODESIZE:
+        return ENERGY_COSTS.getEXT_CODE_SIZE();
+      case EXTCODEHASH:
+        return ENERGY_COSTS.getEXT_CODE_HASH();
+      case SUICIDE:
+      case SSTORE:
+      case MSTORE:
+      case MSTORE8:
+      case MLOAD:
+      case RETURN:
+      case REVERT:
+      case SHA3:
+      case CALLDATACOPY:
+      case RETURNDATACOPY:
+      case CODECOPY:
+      case EXTCODECOPY:
+      case CALL:
+      case CALLCODE:
+      case DELEGATECALL:
+      case STATICCALL:
+      case CALLTOKEN:
+      case CREATE:
+      case CREATE2:
+      case LOG0:
+      case LOG1:
+      case LOG2:
+      case LOG3:
+      case LOG4:
+      case EXP:
+        return DYNAMIC_ENERGY;
+      default:
+        return op.getTier().asInt();
+    }
+  }
+
   public void step(Program program) {
     if (config.vmTrace()) {
       program.saveOpTrace();
@@ -99,193 +163,182 @@ public class VM {
       Stack stack = program.getStack();
 
       String hint = "";
-      long energyCost = op.getTier().asInt();
-      EnergyCost energyCosts = EnergyCost.getInstance();
+      int code = op.val() & 0xff;
+      long energyCost = STATIC_ENERGY[code];
+      EnergyCost energyCosts = ENERGY_COSTS;
       DataWord adjustedCallEnergy = null;
 
-      // Calculate fees and spend energy
-      switch (op) {
-        case STOP:
-          energyCost = energyCosts.getSTOP();
-          break;
-        case SUICIDE:
-          energyCost = energyCosts.getSUICIDE();
-          DataWord suicideAddressWord = stack.get(stack.size() - 1);
-          if (isDeadAccount(program, suicideAddressWord)
-              && !program.getBalance(program.getContractAddress()).isZero()) {
-            energyCost += energyCosts.getNEW_ACCT_SUICIDE();
-          }
-          break;
-        case SSTORE:
-          // todo: check the reset to 0, refund or not
-          DataWord newValue = stack.get(stack.size() - 2);
-          DataWord oldValue = program.storageLoad(stack.peek());
-          if (oldValue == null && !newValue.isZero()) {
-            // set a new not-zero value
-            energyCost = energyCosts.getSET_SSTORE();
-          } else if (oldValue != null && newValue.isZero()) {
-            // set zero to an old value
-            program.futureRefundEnergy(energyCosts.getREFUND_SSTORE());
-            energyCost = energyCosts.getCLEAR_SSTORE();
-          } else {
-            // include:
-            // [1] oldValue == null && newValue == 0
-            // [2] oldValue != null && newValue != 0
-            energyCost = energyCosts.getRESET_SSTORE();
-          }
-          break;
-        case SLOAD:
-          energyCost = energyCosts.getSLOAD();
-          break;
-        case TOKENBALANCE:
-        case BALANCE:
-          energyCost = energyCosts.getBALANCE();
-          break;
+      // Calculate fees of the operand dependent ops and spend energy
+      if (energyCost == DYNAMIC_ENERGY) {
+        switch (op) {
+          case SUICIDE:
+            energyCost = energyCosts.getSUICIDE();
+            DataWord suicideAddressWord = stack.get(stack.size() - 1);
+            if (isDeadAccount(program, suicideAddressWord)
+                && !program.getBalance(program.getContractAddress()).isZero()) {
+              energyCost += energyCosts.getNEW_ACCT_SUICIDE();
+            }
+            break;
+          case SSTORE:
+            // todo: check the reset to 0, refund or not
+            DataWord newValue = stack.get(stack.size() - 2);
+            DataWord oldValue = program.storageLoad(stack.peek());
+            if (oldValue == null && !newValue.isZero()) {
+              // set a new not-zero value
+              energyCost = energyCosts.getSET_SSTORE();
+            } else if (oldValue != null && newValue.isZero()) {
+              // set zero to an old value
+              program.futureRefundEnergy(energyCosts.getREFUND_SSTORE());
+              energyCost = energyCosts.getCLEAR_SSTORE();
+            } else {
+              // include:
+              // [1] oldValue == null && newValue == 0
+              // [2] oldValue != null && newValue != 0
+              energyCost = energyCosts.getRESET_SSTORE();
+            }
+            break;
+
+          // These all operate on memory and therefore potentially expand it:
+          case MSTORE:
+            energyCost = calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), new DataWord(32)),
+                0, op);
+            break;
+          case MSTORE8:
+            energyCost = calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), new DataWord(1)),
+                0, op);
+            break;
+          case MLOAD:
+            energyCost = calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), new DataWord(32)),
+                0, op);
+            break;
+          case RETURN:
+          case REVERT:
+            energyCost = energyCosts.getSTOP() + calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
+            break;
+          case SHA3:
+            energyCost = energyCosts.getSHA3() + calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
+            DataWord size = stack.get(stack.size() - 2);
+            long chunkUsed = (size.longValueSafe() + 31) / 32;
+            energyCost += chunkUsed * energyCosts.getSHA3_WORD();
+            break;
+          case CALLDATACOPY:
+          case RETURNDATACOPY:
+            energyCost = calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), stack.get(stack.size() - 3)),
+                stack.get(stack.size() - 3).longValueSafe(), op);
+            break;
+          case CODECOPY:
+            energyCost = calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), stack.get(stack.size() - 3)),
+                stack.get(stack.size() - 3).longValueSafe(), op);
+            break;
+          case EXTCODECOPY:
+            energyCost = energyCosts.getEXT_CODE_COPY() + calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 4)),
+                stack.get(stack.size() - 4).longValueSafe(), op);
+            break;
+          case CALL:
+          case CALLCODE:
+          case DELEGATECALL:
+          case STATICCALL:
+          case CALLTOKEN:
+            // here, contract call an other contract, or a library, and so on
+            energyCost = energyCosts.getCALL();
+            DataWord callEnergyWord = stack.get(stack.size() - 1);
+            DataWord callAddressWord = stack.get(stack.size() - 2);
+            DataWord value = op.callHasValue() ? stack.get(stack.size() - 3) : DataWord.ZERO;
+
+            //check to see if account does not exist and is not a precompiled contract
+            if (op == CALL || op == CALLTOKEN) {
+              if (isDeadAccount(program, callAddressWord) && !value.isZero()) {
+                energyCost += energyCosts.getNEW_ACCT_CALL();
+              }
+            }
 
-        // These all operate on memory and therefore potentially expand it:
-        case MSTORE:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), new DataWord(32)),
-              0, op);
-          break;
-        case MSTORE8:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), new DataWord(1)),
-              0, op);
-          break;
-        case MLOAD:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), new DataWord(32)),
-              0, op);
-          break;
-        case RETURN:
-        case REVERT:
-          energyCost = energyCosts.getSTOP() + calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-          break;
-        case SHA3:
-          energyCost = energyCosts.getSHA3() + calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-          DataWord size = stack.get(stack.size() - 2);
-          long chunkUsed = (size.longValueSafe() + 31) / 32;
-          energyCost += chunkUsed * energyCosts.getSHA3_WORD();
-          break;
-        case CALLDATACOPY:
-        case RETURNDATACOPY:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), stack.get(stack.size() - 3)),
-              stack.get(stack.size() - 3).longValueSafe(), op);
-          break;
-        case CODECOPY:
-          energyCost = calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), stack.get(stack.size() - 3)),
-              stack.get(stack.size() - 3).longValueSafe(), op);
-          break;
-        case EXTCODESIZE:
-          energyCost = energyCosts.getEXT_CODE_SIZE();
-          break;
-        case EXTCODECOPY:
-          energyCost = energyCosts.getEXT_CODE_COPY() + calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 4)),
-              stack.get(stack.size() - 4).longValueSafe(), op);
-          break;
-        case EXTCODEHASH:
-          energyCost = energyCosts.getEXT_CODE_HASH();
-          break;
-        case CALL:
-        case CALLCODE:
-        case DELEGATECALL:
-        case STATICCALL:
-        case CALLTOKEN:
-          // here, contract call an other contract, or a library, and so on
-          energyCost = energyCosts.getCALL();
-          DataWord callEnergyWord = stack.get(stack.size() - 1);
-          DataWord callAddressWord = stack.get(stack.size() - 2);
-          DataWord value = op.callHasValue() ? stack.get(stack.size() - 3) : DataWord.ZERO;
-
-          //check to see if account does not exist and is not a precompiled contract
-          if (op == CALL || op == CALLTOKEN) {
-            if (isDeadAccount(program, callAddressWord) && !value.isZero()) {
-              energyCost += energyCosts.getNEW_ACCT_CALL();
+            // TODO #POC9 Make sure this is converted to BigInteger (256num support)
+            if (!value.isZero()) {
+              energyCost += energyCosts.getVT_CALL();
             }
-          }
 
-          // TODO #POC9 Make sure this is converted to BigInteger (256num support)
-          if (!value.isZero()) {
-            energyCost += energyCosts.getVT_CALL();
-          }
+            int opOff = op.callHasValue() ? 4 : 3;
+            if (op == CALLTOKEN) {
+              opOff++;
+          }
+            long in = memNeeded(stack.get(stack.size() - opOff),
+                stack.get(stack.size() - opOff - 1)); // in offset+size
+            long out = memNeeded(stack.get(stack.size() - opOff - 2),
+                stack.get(stack.size() - opOff - 3)); // out offset+size
+            energyCost += calcMemEnergy(energyCosts, oldMemSize, Math.max(in, out), 0, op);
+            checkMemorySize(op, Math.max(in, out));
+
+            if (energyCost > program.getEnergyLimitLeft().longValueSafe()) {
+              throw new OutOfEnergyException(
+                  "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
+                  op.name(),
+                  energyCost, program.getEnergyLimitLeft().longValueSafe());
+            }
 
-          int opOff = op.callHasValue() ? 4 : 3;
-          if (op == CALLTOKEN) {
-            opOff++;
+            DataWord getEnergyLimitLeft = program.getEnergyLimitLeft().clone();
+            getEnergyLimitLeft.sub(new DataWord(energyCost));
+
+            adjustedCallEnergy = program.getCallEnergy(op, callEnergyWord, getEnergyLimitLeft);
+            energyCost += adjustedCallEnergy.longValueSafe();
+            break;
+          case CREATE:
+            energyCost = energyCosts.getCREATE() + calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
+            break;
+          case CREATE2:
+            DataWord codeSize = stack.get(stack.size() - 3);
+            energyCost = energyCosts.getCREATE();
+            energyCost += calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
+            energyCost +=
+                DataWord.sizeInWords(codeSize.intValueSafe()) * energyCosts.getSHA3_WORD();
+
+            break;
+          case LOG0:
+          case LOG1:
+          case LOG2:
+          case LOG3:
+          case LOG4:
+            int nTopics = op.val() - OpCode.LOG0.val();
+            BigInteger dataSize = stack.get(stack.size() - 2).value();
+            BigInteger dataCost = dataSize
+                .multiply(BigInteger.valueOf(energyCosts.getLOG_DATA_ENERGY()));
+            if (program.getEnergyLimitLeft().value().compareTo(dataCost) < 0) {
+              throw new OutOfEnergyException(
+                  "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
+                  op.name(),
+                  dataCost.longValueExact(), program.getEnergyLimitLeft().longValueSafe());
+            }
+            energyCost = energyCosts.getLOG_ENERGY()
+                + energyCosts.getLOG_TOPIC_ENERGY() * nTopics
+                + energyCosts.getLOG_DATA_ENERGY() * stack.get(stack.size() - 2).longValue()
+                + calcMemEnergy(energyCosts, oldMemSize,
+                memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
+
+            checkMemorySize(op, memNeeded(stack.peek(), stack.get(stack.size() - 2)));
+            break;
+          case EXP:
+
+            DataWord exp = stack.get(stack.size() - 2);
+            int bytesOccupied = exp.bytesOccupied();
+            energyCost = (long) energyCosts.getEXP_ENERGY()
+                + energyCosts.getEXP_BYTE_ENERGY() * bytesOccupied;
+            break;
+          default:
+            break;
         }
-          BigInteger in = memNeeded(stack.get(stack.size() - opOff),
-              stack.get(stack.size() - opOff - 1)); // in offset+size
-          BigInteger out = memNeeded(stack.get(stack.size() - opOff - 2),
-              stack.get(stack.size() - opOff - 3)); // out offset+size
-          energyCost += calcMemEnergy(energyCosts, oldMemSize, in.max(out), 0, op);
-          checkMemorySize(op, in.max(out));
-
-          if (energyCost > program.getEnergyLimitLeft().longValueSafe()) {
-            throw new OutOfEnergyException(
-                "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
-                op.name(),
-                energyCost, program.getEnergyLimitLeft().longValueSafe());
-          }
-
-          DataWord getEnergyLimitLeft = program.getEnergyLimitLeft().clone();
-          getEnergyLimitLeft.sub(new DataWord(energyCost));
-
-          adjustedCallEnergy = program.getCallEnergy(op, callEnergyWord, getEnergyLimitLeft);
-          energyCost += adjustedCallEnergy.longValueSafe();
-          break;
-        case CREATE:
-          energyCost = energyCosts.getCREATE() + calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
-          break;
-        case CREATE2:
-          DataWord codeSize = stack.get(stack.size() - 3);
-          energyCost = energyCosts.getCREATE();
-          energyCost += calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.get(stack.size() - 2), stack.get(stack.size() - 3)), 0, op);
-          energyCost += DataWord.sizeInWords(codeSize.intValueSafe()) * energyCosts.getSHA3_WORD();
-
-          break;
-        case LOG0:
-        case LOG1:
-        case LOG2:
-        case LOG3:
-        case LOG4:
-          int nTopics = op.val() - OpCode.LOG0.val();
-          BigInteger dataSize = stack.get(stack.size() - 2).value();
-          BigInteger dataCost = dataSize
-              .multiply(BigInteger.valueOf(energyCosts.getLOG_DATA_ENERGY()));
-          if (program.getEnergyLimitLeft().value().compareTo(dataCost) < 0) {
-            throw new OutOfEnergyException(
-                "Not enough energy for '%s' operation executing: opEnergy[%d], programEnergy[%d]",
-                op.name(),
-                dataCost.longValueExact(), program.getEnergyLimitLeft().longValueSafe());
-          }
-          energyCost = energyCosts.getLOG_ENERGY()
-              + energyCosts.getLOG_TOPIC_ENERGY() * nTopics
-              + energyCosts.getLOG_DATA_ENERGY() * stack.get(stack.size() - 2).longValue()
-              + calcMemEnergy(energyCosts, oldMemSize,
-              memNeeded(stack.peek(), stack.get(stack.size() - 2)), 0, op);
-
-          checkMemorySize(op, memNeeded(stack.peek(), stack.get(stack.size() - 2)));
-          break;
-        case EXP:
-
-          DataWord exp = stack.get(stack.size() - 2);
-          int bytesOccupied = exp.bytesOccupied();
-          energyCost =
-              (long) energyCosts.getEXP_ENERGY() + energyCosts.getEXP_BYTE_ENERGY() * bytesOccupied;
-          break;
-        default:
-          break;
       }
 
       program.spendEnergy(energyCost, op.name());
+      // checked on every instruction, which one runs out of time is part of the result
       program.checkCPUTimeLimit(op.name());
 
       // Execute operation
@@ -431,7 +484,6 @@ public class VM {
         }
         break;
         case LT: {
-          // TODO: can be improved by not using BigInteger
           DataWord word1 = program.stackPop();
           DataWord word2 = program.stackPop();
 
@@ -439,7 +491,7 @@ public class VM {
             hint = word1.value() + " < " + word2.value();
           }
 
-          if (word1.value().compareTo(word2.value()) < 0) {
+          if (word1.compareTo(word2) < 0) {
             word1.and(DataWord.ZERO);
             word1.getData()[31] = 1;
           } else {
@@ -450,7 +502,6 @@ public class VM {
         }
         break;
         case SLT: {
-          // TODO: can be improved by not using BigInteger
           DataWord word1 = program.stackPop();
           DataWord word2 = program.stackPop();
 
@@ -458,7 +509,7 @@ public class VM {
             hint = word1.sValue() + " < " + word2.sValue();
           }
 
-          if (word1.sValue().compareTo(word2.sValue()) < 0) {
+          if (word1.sCompareTo(word2) < 0) {
             word1.and(DataWord.ZERO);
             word1.getData()[31] = 1;
           } else {
@@ -469,7 +520,6 @@ public class VM {
         }
         break;
         case SGT: {
-          // TODO: can be improved by not using BigInteger
           DataWord word1 = program.stackPop();
           DataWord word2 = program.stackPop();
 
@@ -477,7 +527,7 @@ public class VM {
             hint = word1.sValue() + " > " + word2.sValue();
           }
 
-          if (word1.sValue().compareTo(word2.sValue()) > 0) {
+          if (word1.sCompareTo(word2) > 0) {
             word1.and(DataWord.ZERO);
             word1.getData()[31] = 1;
           } else {
@@ -488,7 +538,6 @@ public class VM {
         }
         break;
         case GT: {
-          // TODO: can be improved by not using BigInteger
           DataWord word1 = program.stackPop();
           DataWord word2 = program.stackPop();
 
@@ -496,7 +545,7 @@ public class VM {
             hint = word1.value() + " > " + word2.value();
           }
 
-          if (word1.value().compareTo(word2.value()) > 0) {
+          if (word1.compareTo(word2) > 0) {
             word1.and(DataWord.ZERO);
             word1.getData()[31] = 1;
           } else {
@@ -1012,8 +1061,8 @@ public class VM {
         case DUP16: {
 
           int n = op.val() - OpCode.DUP1.val() + 1;
-          DataWord word_1 = stack.get(stack.size() - n);
-          program.stackPush(word_1.clone());
+          program.verifyStackOverflow(0, 1);
+          stack.dup(n);
           program.step();
           break;
         }
@@ -1449,9 +1498,18 @@ public class VM {
    *
    * @param offset starting position of the memory
    * @param size number of bytes needed
-   * @return offset + size, unless size is 0. In that case memNeeded is also 0.
+   * @return offset + size, unless size is 0. In that case memNeeded is also 0. Any sum above
+   * MEM_LIMIT saturates to Long.MAX_VALUE, which is all checkMemorySize needs to know.
    */
-  private static BigInteger memNeeded(DataWord offset, DataWord size) {
-    return size.isZero() ? BigInteger.ZERO : offset.value().add(size.value());
+  private static long memNeeded(DataWord offset, DataWord size) {
+    if (size.isZero()) {
+      return 0;
+    }
+    long off = offset.longValueSafe();
+    long len = size.longValueSafe();
+    if (off > MEM_LIMIT || len > MEM_LIMIT) {
+      return Long.MAX_VALUE;
+    }
+    return off + len;
   }
 }
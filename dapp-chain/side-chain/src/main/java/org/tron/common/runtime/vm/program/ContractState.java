@@ -18,6 +18,8 @@
 package org.tron.common.runtime.vm.program;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.tron.common.runtime.vm.DataWord;
 import org.tron.common.runtime.vm.program.invoke.ProgramInvoke;
 import org.tron.common.runtime.vm.program.listener.ProgramListener;
@@ -209,6 +211,16 @@ public class ContractState implements Deposit, ProgramListenerAware {
     deposit.putStorage(key, cache);
   }
 
+  @Override
+  public void setStorageAccessList(Map<Key, Set<DataWord>> accessList) {
+    deposit.setStorageAccessList(accessList);
+  }
+
+  @Override
+  public Map<Key, Set<DataWord>> getStorageAccessList() {
+    return deposit.getStorageAccessList();
+  }
+
   @Override
   public void putVotes(Key key, Value value) {
     deposit.putVotes(key, value);
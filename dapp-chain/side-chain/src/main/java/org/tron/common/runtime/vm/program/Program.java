@@ -90,7 +90,7 @@ public class Program {
 
   private static final int MAX_DEPTH = 64;
   //Max size for stack checks
-  private static final int MAX_STACK_SIZE = 1024;
+  private static final int MAX_STACK_SIZE = Stack.MAX_SIZE;
   public static final String VALIDATE_FOR_SMART_CONTRACT_FAILURE =
       "validateForSmartContract failure:%s";
   private static final String INVALID_TOKEN_ID_MSG = "not valid token id";
@@ -98,6 +98,9 @@ public class Program {
   private BlockCapsule blockCap;
 
   private long nonce;
+
+  // debug and solidity nodes never abort on cpu time, resolved once per program
+  private final boolean cpuTimeUnlimited;
   private byte[] rootTransactionId;
 
   private InternalTransaction internalTransaction;
@@ -125,6 +128,7 @@ public class Program {
   private boolean stopped;
 
   private ProgramPrecompile programPrecompile;
+  private byte[] codeHash;
 
   private final VMConfig config;
 
@@ -150,6 +154,7 @@ public class Program {
     this.contractState = setupProgramListener(new ContractState(programInvoke));
     this.trace = new ProgramTrace(config, programInvoke);
     this.nonce = internalTransaction.getNonce();
+    this.cpuTimeUnlimited = Args.getInstance().isDebug() || Args.getInstance().isSolidityNode();
   }
 
   public byte[] getRootTransactionId() {
@@ -170,11 +175,19 @@ public class Program {
 
   public ProgramPrecompile getProgramPrecompile() {
     if (programPrecompile == null) {
-      programPrecompile = ProgramPrecompile.compile(ops);
+      programPrecompile = ProgramPrecompile.compile(codeHash, ops);
     }
     return programPrecompile;
   }
 
+  /**
+   * Lets the jumpdest analysis be shared with every other program running the same code. Only
+   * to be set when codeHash is known to be the hash of this program's code.
+   */
+  public void setCodeHash(byte[] codeHash) {
+    this.codeHash = codeHash;
+  }
+
   public int getCallDeep() {
     return invoke.getCallDeep();
   }
@@ -251,12 +264,11 @@ public class Program {
   }
 
   public void stackPushZero() {
-    stackPush(new DataWord(0));
+    stackPush(DataWord.ZERO());
   }
 
   public void stackPushOne() {
-    DataWord stackWord = new DataWord(1);
-    stackPush(stackWord);
+    stackPush(DataWord.ONE());
   }
 
   public Stack getStack() {
@@ -662,8 +674,14 @@ public class Program {
     // FETCH THE CODE
     AccountCapsule accountCapsule = getContractState().getAccount(codeAddress);
 
-    byte[] programCode =
-        accountCapsule != null ? getContractState().getCode(codeAddress) : EMPTY_BYTE_ARRAY;
+    byte[] programCode = EMPTY_BYTE_ARRAY;
+    byte[] programCodeHash = null;
+    if (accountCapsule != null) {
+      ContractCapsule codeContract = getContractState().getContract(codeAddress);
+      programCodeHash = codeContract != null ? codeContract.getCodeHash() : null;
+      ProgramPrecompile cached = ProgramPrecompile.getCached(programCodeHash);
+      programCode = cached != null ? cached.getCode() : getContractState().getCode(codeAddress);
+    }
 
     // only for trx, not for token
     long contextBalance = 0L;
@@ -720,6 +738,7 @@ public class Program {
       Program program = new Program(programCode, programInvoke, internalTx, config,
           this.blockCap);
       program.setRootTransactionId(this.rootTransactionId);
+      program.setCodeHash(programCodeHash);
       vm.play(program);
       callResult = program.getResult();
 
@@ -801,10 +820,7 @@ public class Program {
   }
 
   public void checkCPUTimeLimit(String opName) {
-    if (Args.getInstance().isDebug()) {
-      return;
-    }
-    if (Args.getInstance().isSolidityNode()) {
+    if (cpuTimeUnlimited) {
       return;
     }
     long vmNowInUs = System.nanoTime() / 1000;
@@ -1682,7 +1698,7 @@ public class Program {
   }
 
   @SuppressWarnings("serial")
-  public class StackTooLargeException extends BytecodeExecutionException {
+  public static class StackTooLargeException extends BytecodeExecutionException {
 
     public StackTooLargeException(String message) {
       super(message);
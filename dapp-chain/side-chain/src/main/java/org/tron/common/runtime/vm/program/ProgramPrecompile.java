@@ -17,11 +17,14 @@
  */
 package org.tron.common.runtime.vm.program;
 
-import java.util.HashSet;
-import java.util.Set;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.BitSet;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.tron.common.runtime.vm.DataWord;
 import org.tron.common.runtime.vm.OpCode;
+import org.tron.common.utils.ByteUtil;
+import org.tron.core.db.ByteArrayWrapper;
 
 
 @Slf4j(topic = "VM")
@@ -30,10 +33,35 @@ import org.tron.common.runtime.vm.OpCode;
  */
 public class ProgramPrecompile {
 
-  private Set<Integer> jumpdest = new HashSet<>();
+  /**
+   * Upper bound for the code bytes held by the analysis cache.
+   */
+  private static final long CACHE_MAX_WEIGHT = 64L * 1024 * 1024;
+
+  /**
+   * Analyzed contracts by code hash. The key is the hash of the code itself, so an entry can
+   * never go stale: a contract created, redeployed or restored by a fork switch simply maps to
+   * another (or the same, equally valid) entry.
+   */
+  private static final Cache<ByteArrayWrapper, ProgramPrecompile> CACHE = CacheBuilder
+      .newBuilder()
+      .maximumWeight(CACHE_MAX_WEIGHT)
+      .weigher((ByteArrayWrapper key, ProgramPrecompile value) -> value.code.length + 64)
+      .recordStats()
+      .build();
+
+  @Getter
+  private final byte[] code;
+
+  private final BitSet jumpdest;
+
+  private ProgramPrecompile(byte[] code, BitSet jumpdest) {
+    this.code = code;
+    this.jumpdest = jumpdest;
+  }
 
   public static ProgramPrecompile compile(byte[] ops) {
-    ProgramPrecompile ret = new ProgramPrecompile();
+    BitSet jumpdest = new BitSet(ops.length);
     for (int i = 0; i < ops.length; ++i) {
 
       OpCode op = OpCode.code(ops[i]);
@@ -43,14 +71,55 @@ public class ProgramPrecompile {
 
       if (op.equals(OpCode.JUMPDEST)) {
         logger.debug("JUMPDEST:" + i);
-        ret.jumpdest.add(i);
+        jumpdest.set(i);
       }
 
       if (op.asInt() >= OpCode.PUSH1.asInt() && op.asInt() <= OpCode.PUSH32.asInt()) {
         i += op.asInt() - OpCode.PUSH1.asInt() + 1;
       }
     }
-    return ret;
+    return new ProgramPrecompile(ops, jumpdest);
+  }
+
+  /**
+   * Returns the analysis of <code>ops</code>, compiling it only if no program with the same code
+   * hash has been seen before. The caller guarantees that <code>codeHash</code> is the hash of
+   * <code>ops</code>; without a hash the code is compiled and not cached.
+   */
+  public static ProgramPrecompile compile(byte[] codeHash, byte[] ops) {
+    if (ByteUtil.isNullOrZeroArray(codeHash)) {
+      return compile(ops);
+    }
+    ByteArrayWrapper key = new ByteArrayWrapper(codeHash);
+    ProgramPrecompile precompile = CACHE.getIfPresent(key);
+    if (precompile == null) {
+      precompile = compile(ops);
+      CACHE.put(key, precompile);
+    }
+    return precompile;
+  }
+
+  /**
+   * @return the cached analysis for <code>codeHash</code>, or null if there is none
+   */
+  public static ProgramPrecompile getCached(byte[] codeHash) {
+    if (ByteUtil.isNullOrZeroArray(codeHash)) {
+      return null;
+    }
+    return CACHE.getIfPresent(new ByteArrayWrapper(codeHash));
+  }
+
+  /**
+   * Drops the analysis of a code hash, e.g. after the last contract carrying it self-destructed.
+   */
+  public static void invalidate(byte[] codeHash) {
+    if (!ByteUtil.isNullOrZeroArray(codeHash)) {
+      CACHE.invalidate(new ByteArrayWrapper(codeHash));
+    }
+  }
+
+  public static String getCacheStats() {
+    return CACHE.stats().toString();
   }
 
   public static byte[] getCode(byte[] ops) {
@@ -83,6 +152,6 @@ public class ProgramPrecompile {
   }
 
   public boolean hasJumpDest(int pc) {
-    return jumpdest.contains(pc);
+    return pc >= 0 && jumpdest.get(pc);
   }
 }
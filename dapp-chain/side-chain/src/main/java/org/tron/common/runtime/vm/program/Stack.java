@@ -17,36 +17,79 @@
  */
 package org.tron.common.runtime.vm.program;
 
+import java.util.Arrays;
+import java.util.EmptyStackException;
 import java.util.Objects;
 import org.tron.common.runtime.vm.DataWord;
+import org.tron.common.runtime.vm.program.Program.StackTooLargeException;
 import org.tron.common.runtime.vm.program.listener.ProgramListener;
 import org.tron.common.runtime.vm.program.listener.ProgramListenerAware;
 
-public class Stack extends java.util.Stack<DataWord> implements ProgramListenerAware {
+/**
+ * Operand stack of a single {@link Program}.
+ *
+ * A program is only ever executed by one thread, so unlike the <code>java.util.Stack</code> it
+ * used to extend this is a plain, unsynchronized array of fixed capacity. Index 0 is the bottom
+ * of the stack, so <code>get(size() - 1)</code> is the top, as before.
+ */
+public class Stack implements ProgramListenerAware {
 
-  private static final long serialVersionUID = 1;
+  public static final int MAX_SIZE = 1024;
 
-  private transient ProgramListener programListener;
+  private final DataWord[] elements = new DataWord[MAX_SIZE];
+  private int size;
+
+  private ProgramListener programListener;
 
   @Override
   public void setProgramListener(ProgramListener listener) {
     this.programListener = listener;
   }
 
-  @Override
-  public synchronized DataWord pop() {
+  public DataWord pop() {
+    if (size == 0) {
+      throw new EmptyStackException();
+    }
     if (programListener != null) {
       programListener.onStackPop();
     }
-    return super.pop();
+    DataWord item = elements[--size];
+    // the caller owns the word from now on
+    elements[size] = null;
+    return item;
   }
 
-  @Override
   public DataWord push(DataWord item) {
+    if (size == MAX_SIZE) {
+      throw new StackTooLargeException(
+          "Expected: overflow " + MAX_SIZE + " elements stack limit");
+    }
     if (programListener != null) {
       programListener.onStackPush(item);
     }
-    return super.push(item);
+    elements[size++] = item;
+    return item;
+  }
+
+  public DataWord peek() {
+    if (size == 0) {
+      throw new EmptyStackException();
+    }
+    return elements[size - 1];
+  }
+
+  public DataWord get(int index) {
+    if (index < 0 || index >= size) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return elements[index];
+  }
+
+  /**
+   * Pushes a copy of the n-th word from the top, n = 1 being the top itself.
+   */
+  public void dup(int n) {
+    push(get(size - n).clone());
   }
 
   public void swap(int from, int to) {
@@ -54,13 +97,27 @@ public class Stack extends java.util.Stack<DataWord> implements ProgramListenerA
       if (programListener != null) {
         programListener.onStackSwap(from, to);
       }
-      DataWord tmp = get(from);
-      set(from, set(to, tmp));
+      DataWord tmp = elements[from];
+      elements[from] = elements[to];
+      elements[to] = tmp;
     }
   }
 
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(elements, 0, size, null);
+    size = 0;
+  }
+
   private boolean isAccessible(int from) {
-    return from >= 0 && from < size();
+    return from >= 0 && from < size;
   }
 
   @Override
@@ -74,16 +131,29 @@ public class Stack extends java.util.Stack<DataWord> implements ProgramListenerA
     if (o.getClass() != this.getClass()) {
       return false;
     }
-    if (!super.equals(o)) {
+    Stack dataWords = (Stack) o;
+    if (size != dataWords.size) {
       return false;
     }
-    Stack dataWords = (Stack) o;
+    for (int i = 0; i < size; ++i) {
+      if (!Objects.equals(elements[i], dataWords.elements[i])) {
+        return false;
+      }
+    }
     return Objects.equals(programListener, dataWords.programListener);
   }
 
-
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), programListener);
+    int result = 1;
+    for (int i = 0; i < size; ++i) {
+      result = 31 * result + Objects.hashCode(elements[i]);
+    }
+    return Objects.hash(result, programListener);
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(Arrays.copyOf(elements, size));
   }
 }
@@ -2,14 +2,20 @@ package org.tron.common.runtime.vm.program;
 
 import static java.lang.System.arraycopy;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.Getter;
 import org.tron.common.crypto.Hash;
 import org.tron.common.runtime.vm.DataWord;
 import org.tron.common.utils.ByteUtil;
 import org.tron.core.capsule.StorageRowCapsule;
 import org.tron.core.db.StorageRowStore;
+import org.tron.core.db.common.WrappedByteArray;
 
 public class Storage {
 
@@ -19,6 +25,13 @@ public class Storage {
   private StorageRowStore store;
   @Getter
   private final Map<DataWord, StorageRowCapsule> rowCache = new HashMap<>();
+  // keys known to have no row in the store, so a miss is not looked up twice
+  private final Set<DataWord> absentKeys = new HashSet<>();
+  // every key that was read from the store, used as the access list of the next execution
+  @Getter
+  private final Set<DataWord> loadedKeys = new HashSet<>();
+  // keys prefetched but not read yet, they join loadedKeys on their first read
+  private final Set<DataWord> prefetchedKeys = new HashSet<>();
 
   @Getter
   private byte[] address;
@@ -44,14 +57,53 @@ public class Storage {
       StorageRowCapsule newRow = new StorageRowCapsule(row);
       this.rowCache.put(rowKey.clone(), newRow);
     });
+    this.absentKeys.addAll(storage.absentKeys);
+    this.loadedKeys.addAll(storage.loadedKeys);
+    this.prefetchedKeys.addAll(storage.prefetchedKeys);
+  }
+
+  /**
+   * Loads the rows of the given slots in one batched read, so the SLOADs that follow are served
+   * from the row cache. Slots already cached are skipped.
+   */
+  public void prefetch(Collection<DataWord> keys) {
+    Map<WrappedByteArray, DataWord> missing = new HashMap<>();
+    for (DataWord key : keys) {
+      if (!rowCache.containsKey(key) && !absentKeys.contains(key)) {
+        missing.put(WrappedByteArray.of(compose(key.getData(), addrHash)), key.clone());
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+
+    List<byte[]> rowKeys = new ArrayList<>(missing.size());
+    missing.keySet().forEach(rowKey -> rowKeys.add(rowKey.getBytes()));
+    Map<WrappedByteArray, StorageRowCapsule> rows = store.get(rowKeys);
+    missing.forEach((rowKey, key) -> {
+      StorageRowCapsule row = rows.get(rowKey);
+      if (row == null || row.getInstance() == null) {
+        absentKeys.add(key);
+      } else {
+        rowCache.put(key, row);
+      }
+      prefetchedKeys.add(key);
+    });
   }
 
   public DataWord getValue(DataWord key) {
     if (rowCache.containsKey(key)) {
+      markRead(key);
       return rowCache.get(key).getValue();
     } else {
+      if (absentKeys.contains(key)) {
+        markRead(key);
+        return null;
+      }
       StorageRowCapsule row = store.get(compose(key.getData(), addrHash));
+      loadedKeys.add(key.clone());
       if (row == null || row.getInstance() == null) {
+        absentKeys.add(key.clone());
         return null;
       }
       rowCache.put(key, row);
@@ -59,6 +111,12 @@ public class Storage {
     }
   }
 
+  private void markRead(DataWord key) {
+    if (!prefetchedKeys.isEmpty() && prefetchedKeys.remove(key)) {
+      loadedKeys.add(key.clone());
+    }
+  }
+
   public void put(DataWord key, DataWord value) {
     if (rowCache.containsKey(key)) {
       rowCache.get(key).setValue(value);
@@ -89,14 +147,14 @@ public class Storage {
   }
 
   public void commit() {
+    Map<byte[], StorageRowCapsule> dirtyRows = new HashMap<>();
     rowCache.forEach((DataWord rowKey, StorageRowCapsule row) -> {
       if (row.isDirty()) {
-        if (row.getValue().isZero()) {
-          this.store.delete(row.getRowKey());
-        } else {
-          this.store.put(row.getRowKey(), row);
-        }
+        dirtyRows.put(row.getRowKey(), row.getValue().isZero() ? null : row);
       }
     });
+    if (!dirtyRows.isEmpty()) {
+      this.store.put(dirtyRows);
+    }
   }
 }
@@ -1,6 +1,8 @@
 package org.tron.common.storage;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.tron.common.runtime.vm.DataWord;
 import org.tron.common.runtime.vm.program.Storage;
 import org.tron.core.capsule.AccountCapsule;
@@ -53,6 +55,10 @@ public interface Deposit {
 
   Storage getStorage(byte[] address);
 
+  void setStorageAccessList(Map<Key, Set<DataWord>> accessList);
+
+  Map<Key, Set<DataWord>> getStorageAccessList();
+
   long getBalance(byte[] address);
 
   long addBalance(byte[] address, long value);
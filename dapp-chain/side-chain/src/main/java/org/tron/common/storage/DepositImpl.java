@@ -5,7 +5,10 @@ import static org.tron.common.runtime.utils.MUtil.convertToTronAddress;
 import com.google.common.primitives.Longs;
 import com.google.protobuf.ByteString;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.spongycastle.util.Strings;
 import org.spongycastle.util.encoders.Hex;
@@ -67,6 +70,8 @@ public class DepositImpl implements Deposit {
   private HashMap<Key, Value> dynamicPropertiesCache = new HashMap<>();
   private HashMap<Key, Storage> storageCache = new HashMap<>();
   private HashMap<Key, Value> assetIssueCache = new HashMap<>();
+  // slots read by the previous execution of the same transaction, prefetched by the root deposit
+  private Map<Key, Set<DataWord>> storageAccessList;
 
   private DepositImpl(Manager dbManager, DepositImpl parent) {
     init(dbManager, parent);
@@ -360,9 +365,28 @@ public class DepositImpl implements Deposit {
     if (contract != null && !ByteUtil.isNullOrZeroArray(contract.getTrxHash())) {
       storage.generateAddrHash(contract.getTrxHash());
     }
+    if (this.parent == null && storageAccessList != null && storageAccessList.containsKey(key)) {
+      storage.prefetch(storageAccessList.get(key));
+    }
     return storage;
   }
 
+  @Override
+  public synchronized void setStorageAccessList(Map<Key, Set<DataWord>> accessList) {
+    this.storageAccessList = accessList;
+  }
+
+  @Override
+  public synchronized Map<Key, Set<DataWord>> getStorageAccessList() {
+    Map<Key, Set<DataWord>> accessList = new HashMap<>();
+    storageCache.forEach((Key address, Storage storage) -> {
+      if (!storage.getLoadedKeys().isEmpty()) {
+        accessList.put(address, new HashSet<>(storage.getLoadedKeys()));
+      }
+    });
+    return accessList;
+  }
+
   @Override
   public synchronized AssetIssueCapsule getAssetIssue(byte[] tokenId) {
     byte[] tokenIdWithoutLeadingZero = ByteUtil.stripLeadingZeroes(tokenId);
@@ -0,0 +1,49 @@
+package org.tron.common.storage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.tron.common.runtime.vm.DataWord;
+import org.tron.core.db.ByteArrayWrapper;
+
+/**
+ * Storage slots touched by recent contract executions, by transaction id. A transaction is
+ * executed when it enters the pending pool and again when it is packed or when its block is
+ * applied, so the slots recorded by the first run let the later runs load everything they need
+ * in one batched read instead of one store lookup per SLOAD.
+ *
+ * <p>The list is only a hint: a slot that is not read this time only costs a cache entry, and a
+ * slot that is missing is still loaded on demand.
+ */
+public class StorageAccessList {
+
+  private static final long MAX_TRANSACTIONS = 50_000;
+  private static final long EXPIRE_MINUTES = 10;
+
+  private static final Cache<ByteArrayWrapper, Map<Key, Set<DataWord>>> CACHE = CacheBuilder
+      .newBuilder()
+      .maximumSize(MAX_TRANSACTIONS)
+      .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+      .build();
+
+  private StorageAccessList() {
+  }
+
+  public static Map<Key, Set<DataWord>> get(byte[] txId) {
+    if (txId == null) {
+      return Collections.emptyMap();
+    }
+    Map<Key, Set<DataWord>> accessList = CACHE.getIfPresent(new ByteArrayWrapper(txId));
+    return accessList == null ? Collections.emptyMap() : accessList;
+  }
+
+  public static void put(byte[] txId, Map<Key, Set<DataWord>> accessList) {
+    if (txId == null || accessList == null || accessList.isEmpty()) {
+      return;
+    }
+    CACHE.put(new ByteArrayWrapper(txId), accessList);
+  }
+}
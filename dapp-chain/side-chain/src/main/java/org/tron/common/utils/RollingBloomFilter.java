@@ -0,0 +1,46 @@
+package org.tron.common.utils;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * A bloom filter over recent insertions only. Two generations of {@code capacity} entries are
+ * kept, when the current one is full the previous one is dropped, so an entry is remembered for
+ * at least {@code capacity} and at most {@code 2 * capacity} later insertions, in constant
+ * memory.
+ */
+public class RollingBloomFilter {
+
+  private final int capacity;
+  private final double fpp;
+
+  private BloomFilter<byte[]> current;
+  private BloomFilter<byte[]> previous;
+  private int count;
+
+  public RollingBloomFilter(int capacity, double fpp) {
+    this.capacity = capacity;
+    this.fpp = fpp;
+    this.current = newFilter();
+    this.previous = newFilter();
+  }
+
+  private BloomFilter<byte[]> newFilter() {
+    return BloomFilter.create(Funnels.byteArrayFunnel(), capacity, fpp);
+  }
+
+  public synchronized void put(byte[] key) {
+    if (count >= capacity) {
+      previous = current;
+      current = newFilter();
+      count = 0;
+    }
+    if (current.put(key)) {
+      count++;
+    }
+  }
+
+  public synchronized boolean mightContain(byte[] key) {
+    return current.mightContain(key) || previous.mightContain(key);
+  }
+}
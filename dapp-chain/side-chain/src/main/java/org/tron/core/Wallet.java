@@ -22,19 +22,30 @@ import static org.tron.core.config.Parameter.DatabaseConstants.EXCHANGE_COUNT_LI
 import static org.tron.core.config.Parameter.DatabaseConstants.PROPOSAL_COUNT_LIMIT_MAX;
 
 import com.google.common.base.CaseFormat;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
 import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 import java.security.SignatureException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
@@ -50,6 +61,9 @@ import org.tron.api.GrpcAPI.AssetIssueList;
 import org.tron.api.GrpcAPI.BlockList;
 import org.tron.api.GrpcAPI.DelegatedResourceList;
 import org.tron.api.GrpcAPI.ExchangeList;
+import org.tron.api.GrpcAPI.LogEntry;
+import org.tron.api.GrpcAPI.LogFilter;
+import org.tron.api.GrpcAPI.LogList;
 import org.tron.api.GrpcAPI.Node;
 import org.tron.api.GrpcAPI.NodeList;
 import org.tron.api.GrpcAPI.NumberMessage;
@@ -59,20 +73,16 @@ import org.tron.api.GrpcAPI.SideChainProposalList;
 import org.tron.api.GrpcAPI.TransactionApprovedList;
 import org.tron.api.GrpcAPI.TransactionExtention;
 import org.tron.api.GrpcAPI.TransactionExtention.Builder;
+import org.tron.api.GrpcAPI.TransactionListExtention;
 import org.tron.api.GrpcAPI.TransactionSignWeight;
 import org.tron.api.GrpcAPI.TransactionSignWeight.Result;
 import org.tron.api.GrpcAPI.WitnessList;
 import org.tron.common.crypto.ECKey;
 import org.tron.common.crypto.Hash;
+import org.tron.common.logsfilter.Bloom;
 import org.tron.common.overlay.discover.node.NodeHandler;
 import org.tron.common.overlay.discover.node.NodeManager;
 import org.tron.common.overlay.message.Message;
-import org.tron.common.runtime.Runtime;
-import org.tron.common.runtime.RuntimeImpl;
-import org.tron.common.runtime.config.VMConfig;
-import org.tron.common.runtime.vm.program.ProgramResult;
-import org.tron.common.runtime.vm.program.invoke.ProgramInvokeFactoryImpl;
-import org.tron.common.storage.DepositImpl;
 import org.tron.common.utils.Base58;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.ByteUtil;
@@ -118,6 +128,7 @@ import org.tron.core.exception.ValidateSignatureException;
 import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.TronNetService;
 import org.tron.core.net.message.TransactionMessage;
+import org.tron.core.services.ConstantCallExecutor;
 import org.tron.protos.Contract.AssetIssueContract;
 import org.tron.protos.Contract.CreateSmartContract;
 import org.tron.protos.Contract.TransferContract;
@@ -138,6 +149,7 @@ import org.tron.protos.Protocol.Transaction.Contract;
 import org.tron.protos.Protocol.Transaction.Contract.ContractType;
 import org.tron.protos.Protocol.Transaction.Result.code;
 import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.Protocol.TransactionInfo.Log;
 import org.tron.protos.Protocol.TransactionSign;
 
 @Slf4j
@@ -154,11 +166,25 @@ public class Wallet {
   private Manager dbManager;
   @Autowired
   private NodeManager nodeManager;
+  @Autowired
+  private ConstantCallExecutor constantCallExecutor;
   private static String addressPreFixString = Constant.ADD_PRE_FIX_STRING_MAINNET;  //default testnet
   private static byte addressPreFixByte = Constant.ADD_PRE_FIX_BYTE_MAINNET;
 
   private int minEffectiveConnection = Args.getInstance().getMinEffectiveConnection();
 
+  private static final long BLOCK_PAGE_SIZE = 100;
+
+  private static final long LOG_QUERY_MAX_RANGE = 100_000;
+
+  private static final long LOG_QUERY_CHUNK_SIZE = 1_000;
+
+  private static final int LOG_QUERY_MAX_RESULTS = 10_000;
+
+  private static final ExecutorService logQueryPool = Executors.newFixedThreadPool(
+      Runtime.getRuntime().availableProcessors(),
+      new ThreadFactoryBuilder().setNameFormat("log-query-%d").setDaemon(true).build());
+
   /**
    * Creates a new Wallet with a random ECKey.
    */
@@ -1194,6 +1220,38 @@ public class Wallet {
     return block;
   }
 
+  /**
+   * Iterates the blocks in [startNum, endNum) reading {@code BLOCK_PAGE_SIZE} blocks at a time,
+   * so a long range is never held in memory as a whole.
+   */
+  public Iterator<Block> getBlockIterator(long startNum, long endNum) {
+    return new AbstractIterator<Block>() {
+      private long next = startNum;
+      private Iterator<BlockCapsule> page = Collections.emptyIterator();
+
+      @Override
+      protected Block computeNext() {
+        if (!page.hasNext()) {
+          if (next >= endNum) {
+            return endOfData();
+          }
+          List<BlockCapsule> blocks = dbManager.getBlockStore()
+              .getLimitNumber(next, Math.min(BLOCK_PAGE_SIZE, endNum - next));
+          if (blocks.isEmpty()) {
+            return endOfData();
+          }
+          page = blocks.iterator();
+        }
+        BlockCapsule block = page.next();
+        if (block.getNum() >= endNum) {
+          return endOfData();
+        }
+        next = block.getNum() + 1;
+        return block.getInstance();
+      }
+    };
+  }
+
   public BlockList getBlocksByLimitNext(long number, long limit) {
     if (limit <= 0) {
       return null;
@@ -1245,6 +1303,118 @@ public class Wallet {
     return null;
   }
 
+  /**
+   * The logs of the blocks fromBlock to toBlock from any of the addresses, with any of the
+   * topics; an empty list matches everything. Blocks whose bloom rules the filter out are not
+   * read, the range is split into chunks that are scanned in parallel.
+   */
+  public LogList getLogs(LogFilter filter) {
+    long head = dbManager.getDynamicPropertiesStore().getLatestBlockHeaderNumber();
+    long fromBlock = filter.getFromBlock();
+    long toBlock = filter.getToBlock() <= 0 ? head : Math.min(filter.getToBlock(), head);
+    if (fromBlock < 0 || fromBlock > toBlock) {
+      throw new IllegalArgumentException("need 0 <= fromBlock <= toBlock");
+    }
+    if (toBlock - fromBlock >= LOG_QUERY_MAX_RANGE) {
+      throw new IllegalArgumentException("can not query more than " + LOG_QUERY_MAX_RANGE
+          + " blocks at once");
+    }
+
+    // the addresses of the logs have no prefix byte
+    Set<ByteString> addresses = new HashSet<>();
+    for (ByteString address : filter.getAddressesList()) {
+      addresses.add(address.size() == Constant.ADDRESS_SIZE / 2
+          ? address.substring(1) : address);
+    }
+    Set<ByteString> topics = new HashSet<>(filter.getTopicsList());
+    List<Bloom> addressBlooms = addresses.stream()
+        .map(address -> Bloom.create(address.toByteArray())).collect(Collectors.toList());
+    List<Bloom> topicBlooms = topics.stream()
+        .map(topic -> Bloom.create(topic.toByteArray())).collect(Collectors.toList());
+    long firstIndexedBlock = dbManager.getBlockBloomStore().getFirstIndexedBlock();
+
+    List<Future<List<LogEntry>>> chunks = new ArrayList<>();
+    for (long start = fromBlock; start <= toBlock; start += LOG_QUERY_CHUNK_SIZE) {
+      long from = start;
+      long to = Math.min(start + LOG_QUERY_CHUNK_SIZE - 1, toBlock);
+      chunks.add(logQueryPool.submit(() -> scanLogs(from, to, firstIndexedBlock, addresses,
+          topics, addressBlooms, topicBlooms)));
+    }
+    LogList.Builder builder = LogList.newBuilder();
+    try {
+      for (Future<List<LogEntry>> chunk : chunks) {
+        builder.addAllLogs(chunk.get());
+        if (builder.getLogsCount() > LOG_QUERY_MAX_RESULTS) {
+          throw new IllegalArgumentException("more than " + LOG_QUERY_MAX_RESULTS
+              + " logs match, narrow the block range");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("log query interrupted");
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+    } finally {
+      chunks.forEach(chunk -> chunk.cancel(true));
+    }
+    return builder.build();
+  }
+
+  private List<LogEntry> scanLogs(long from, long to, long firstIndexedBlock,
+      Set<ByteString> addresses, Set<ByteString> topics, List<Bloom> addressBlooms,
+      List<Bloom> topicBlooms) {
+    List<LogEntry> entries = new ArrayList<>();
+    for (long num = from; num <= to && entries.size() <= LOG_QUERY_MAX_RESULTS; num++) {
+      // blocks from before the index have no bloom and are always read
+      if (firstIndexedBlock >= 0 && num >= firstIndexedBlock) {
+        Bloom bloom = dbManager.getBlockBloomStore().getBloom(num);
+        if (bloom == null || !matchesAny(bloom, addressBlooms)
+            || !matchesAny(bloom, topicBlooms)) {
+          continue;
+        }
+      }
+      Block block = getBlockByNum(num);
+      if (block == null) {
+        continue;
+      }
+      for (Transaction transaction : block.getTransactionsList()) {
+        ContractType type = transaction.getRawData().getContract(0).getType();
+        if (type != ContractType.TriggerSmartContract
+            && type != ContractType.CreateSmartContract) {
+          continue;
+        }
+        ByteString id = ByteString.copyFrom(
+            Sha256Hash.hash(transaction.getRawData().toByteArray()));
+        TransactionInfo info = getTransactionInfoById(id);
+        if (info == null) {
+          continue;
+        }
+        for (int i = 0; i < info.getLogCount(); i++) {
+          Log log = info.getLog(i);
+          if (matchesLog(log, addresses, topics)) {
+            entries.add(LogEntry.newBuilder()
+                .setBlockNumber(num)
+                .setBlockTimeStamp(block.getBlockHeader().getRawData().getTimestamp())
+                .setTransactionId(id)
+                .setLogIndex(i)
+                .setLog(log)
+                .build());
+          }
+        }
+      }
+    }
+    return entries;
+  }
+
+  private static boolean matchesAny(Bloom bloom, List<Bloom> blooms) {
+    return blooms.isEmpty() || blooms.stream().anyMatch(bloom::matches);
+  }
+
+  private static boolean matchesLog(Log log, Set<ByteString> addresses, Set<ByteString> topics) {
+    return (addresses.isEmpty() || addresses.contains(log.getAddress()))
+        && (topics.isEmpty() || log.getTopicsList().stream().anyMatch(topics::contains));
+  }
+
   public SideChainProposal getProposalById(ByteString proposalId) {
     if (Objects.isNull(proposalId)) {
       return null;
@@ -1349,6 +1519,71 @@ public class Wallet {
     return callConstantContract(trxCap, builder, retBuilder);
   }
 
+  /**
+   * Runs a batch of constant calls in parallel on one block. Every call gets the reply a single
+   * triggerConstantContract would give, a call that fails does not fail the others.
+   */
+  public TransactionListExtention triggerConstantContracts(List<TriggerSmartContract> calls)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    if (!Args.getInstance().isSupportConstant()) {
+      throw new ContractValidateException("this node don't support constant");
+    }
+    if (calls.size() > ConstantCallExecutor.MAX_BATCH_SIZE) {
+      throw new ContractValidateException(
+          "at most " + ConstantCallExecutor.MAX_BATCH_SIZE + " calls in a batch");
+    }
+    List<TransactionExtention.Builder> replies = new ArrayList<>(calls.size());
+    List<TransactionCapsule> trxCaps = new ArrayList<>();
+    List<TransactionExtention.Builder> pending = new ArrayList<>();
+    for (TriggerSmartContract call : calls) {
+      TransactionExtention.Builder reply = TransactionExtention.newBuilder();
+      replies.add(reply);
+      try {
+        byte[] contract = dbManager.getContractStore()
+            .findContractByHash(call.getContractAddress().toByteArray());
+        if (ArrayUtils.isEmpty(contract)) {
+          throw new ContractValidateException("No contract or not a smart contract");
+        }
+        trxCaps.add(createTransactionCapsule(call, ContractType.TriggerSmartContract));
+        pending.add(reply);
+      } catch (ContractValidateException e) {
+        reply.setResult(Return.newBuilder().setResult(false)
+            .setCode(response_code.CONTRACT_VALIDATE_ERROR)
+            .setMessage(ByteString.copyFromUtf8("contract validate error : " + e.getMessage())));
+      }
+    }
+
+    List<ConstantCallExecutor.Result> results = constantCallExecutor.callAll(
+        trxCaps.stream().map(TransactionCapsule::getInstance).collect(Collectors.toList()));
+    for (int i = 0; i < results.size(); i++) {
+      ConstantCallExecutor.Result result = results.get(i);
+      TransactionCapsule trxCap = trxCaps.get(i);
+      TransactionExtention.Builder reply = pending.get(i);
+      Return.Builder retBuilder = Return.newBuilder();
+      Exception e = result.getException();
+      if (e == null) {
+        setConstantResult(trxCap, reply, retBuilder, result);
+        reply.setTransaction(trxCap.getInstance());
+        reply.setTxid(trxCap.getTransactionId().getByteString());
+        retBuilder.setResult(true).setCode(response_code.SUCCESS);
+      } else if (e instanceof ContractValidateException || e instanceof VMIllegalException) {
+        retBuilder.setResult(false).setCode(response_code.CONTRACT_VALIDATE_ERROR)
+            .setMessage(ByteString.copyFromUtf8("contract validate error : " + e.getMessage()));
+      } else if (e instanceof RuntimeException) {
+        retBuilder.setResult(false).setCode(response_code.CONTRACT_EXE_ERROR)
+            .setMessage(ByteString.copyFromUtf8(e.getClass() + " : " + e.getMessage()));
+      } else {
+        retBuilder.setResult(false).setCode(response_code.OTHER_ERROR)
+            .setMessage(ByteString.copyFromUtf8(e.getClass() + " : " + e.getMessage()));
+      }
+      reply.setResult(retBuilder);
+    }
+
+    TransactionListExtention.Builder builder = TransactionListExtention.newBuilder();
+    replies.forEach(builder::addTransaction);
+    return builder.build();
+  }
+
   public Transaction callConstantContract(TransactionCapsule trxCap, Builder builder,
       Return.Builder retBuilder)
       throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
@@ -1356,44 +1591,26 @@ public class Wallet {
     if (!Args.getInstance().isSupportConstant()) {
       throw new ContractValidateException("this node don't support constant");
     }
-    DepositImpl deposit = DepositImpl.createRoot(dbManager);
-
-    Block headBlock;
-    List<BlockCapsule> blockCapsuleList = dbManager.getBlockStore().getBlockByLatestNum(1);
-    if (CollectionUtils.isEmpty(blockCapsuleList)) {
-      throw new HeaderNotFound("latest block not found");
-    } else {
-      headBlock = blockCapsuleList.get(0).getInstance();
-    }
-
-    Runtime runtime = new RuntimeImpl(trxCap.getInstance(), new BlockCapsule(headBlock), deposit,
-        new ProgramInvokeFactoryImpl(), true);
-    VMConfig.handleProposalInVM(dbManager);
-    runtime.execute();
-    runtime.go();
-    runtime.finalization();
-    // TODO exception
-    if (runtime.getResult().getException() != null) {
-      RuntimeException e = runtime.getResult().getException();
-      logger.warn("Constant call has error {}", e.getMessage());
-      throw e;
-    }
+    ConstantCallExecutor.Result result = constantCallExecutor.call(trxCap.getInstance());
+    setConstantResult(trxCap, builder, retBuilder, result);
+    return trxCap.getInstance();
+  }
 
-    ProgramResult result = runtime.getResult();
+  private static void setConstantResult(TransactionCapsule trxCap, Builder builder,
+      Return.Builder retBuilder, ConstantCallExecutor.Result result) {
     TransactionResultCapsule ret = new TransactionResultCapsule();
 
-    builder.addConstantResult(ByteString.copyFrom(result.getHReturn()));
+    builder.addConstantResult(result.getReturnData());
     ret.setStatus(0, code.SUCESS);
-    if (StringUtils.isNoneEmpty(runtime.getRuntimeError())) {
+    if (StringUtils.isNoneEmpty(result.getRuntimeError())) {
       ret.setStatus(0, code.FAILED);
-      retBuilder.setMessage(ByteString.copyFromUtf8(runtime.getRuntimeError())).build();
+      retBuilder.setMessage(ByteString.copyFromUtf8(result.getRuntimeError())).build();
     }
-    if (runtime.getResult().isRevert()) {
+    if (result.isRevert()) {
       ret.setStatus(0, code.FAILED);
       retBuilder.setMessage(ByteString.copyFromUtf8("REVERT opcode executed")).build();
     }
     trxCap.setResult(ret);
-    return trxCap.getInstance();
   }
 
   public SmartContract getContract(GrpcAPI.BytesMessage bytesMessage) {
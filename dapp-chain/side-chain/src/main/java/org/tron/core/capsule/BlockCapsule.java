@@ -18,12 +18,12 @@ package org.tron.core.capsule;
 import com.google.common.primitives.Longs;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import java.security.SignatureException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Vector;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -32,7 +32,7 @@ import org.tron.common.crypto.ECKey.ECDSASignature;
 import org.tron.common.utils.ByteUtil;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.common.utils.Time;
-import org.tron.core.capsule.utils.MerkleTree;
+import org.tron.core.capsule.utils.IncrementalMerkleTree;
 import org.tron.core.config.Parameter.ChainConstant;
 import org.tron.core.db.Manager;
 import org.tron.core.exception.BadItemException;
@@ -123,6 +123,15 @@ public class BlockCapsule implements ProtoCapsule<Block> {
   public boolean generatedByMyself = false;
   private List<TransactionCapsule> transactions = new ArrayList<>();
 
+  // the transactions added since the proto was last built, it is built again when it is read
+  private List<Transaction> addedTransactions = new ArrayList<>();
+
+  // what the added transactions add to the serialized size of the proto
+  private long addedSize;
+
+  // over the transactions in block order, made on the first add or merkle root
+  private IncrementalMerkleTree merkleTree;
+
   public BlockCapsule(long number, Sha256Hash hash, long when, ByteString witnessAddress) {
     // blockheader raw
     BlockHeader.raw.Builder blockHeaderRawBuild = BlockHeader.raw.newBuilder();
@@ -191,10 +200,28 @@ public class BlockCapsule implements ProtoCapsule<Block> {
   }
 
   public void addTransaction(TransactionCapsule pendingTrx) {
-    this.block = this.block.toBuilder().addTransactions(pendingTrx.getInstance()).build();
+    Transaction trx = pendingTrx.getInstance();
+    getMerkleTree().append(pendingTrx.getMerkleHash());
+    addedTransactions.add(trx);
+    addedSize += CodedOutputStream.computeMessageSize(Block.TRANSACTIONS_FIELD_NUMBER, trx);
     getTransactions().add(pendingTrx);
   }
 
+  private void buildBlock() {
+    if (!addedTransactions.isEmpty()) {
+      this.block = this.block.toBuilder().addAllTransactions(addedTransactions).build();
+      addedTransactions.clear();
+      addedSize = 0;
+    }
+  }
+
+  /**
+   * The serialized size of the block, kept up to date as transactions are added.
+   */
+  public long getSerializedSize() {
+    return this.block.getSerializedSize() + addedSize;
+  }
+
   public List<TransactionCapsule> getTransactions() {
     return transactions;
   }
@@ -246,18 +273,24 @@ public class BlockCapsule implements ProtoCapsule<Block> {
   }
 
   public Sha256Hash calcMerkleRoot() {
-    List<Transaction> transactionsList = this.block.getTransactionsList();
-
-    if (CollectionUtils.isEmpty(transactionsList)) {
+    if (CollectionUtils.isEmpty(getTransactions())) {
       return Sha256Hash.ZERO_HASH;
     }
+    return getMerkleTree().getRoot();
+  }
 
-    Vector<Sha256Hash> ids = transactionsList.stream()
-        .map(TransactionCapsule::new)
-        .map(TransactionCapsule::getMerkleHash)
-        .collect(Collectors.toCollection(Vector::new));
-
-    return MerkleTree.getInstance().createTree(ids).getRoot().getHash();
+  private IncrementalMerkleTree getMerkleTree() {
+    if (merkleTree == null) {
+      merkleTree = new IncrementalMerkleTree();
+      List<Transaction> transactionsList = this.block.getTransactionsList();
+      for (int i = 0; i < transactionsList.size(); i++) {
+        // the capsule caches the hash, unless its transaction changed since
+        TransactionCapsule trx = transactions.get(i);
+        merkleTree.append(trx.getInstance() == transactionsList.get(i) ? trx.getMerkleHash()
+            : Sha256Hash.of(transactionsList.get(i).toByteArray()));
+      }
+    }
+    return merkleTree;
   }
 
   public void setMerkleRoot() {
@@ -307,11 +340,13 @@ public class BlockCapsule implements ProtoCapsule<Block> {
 
   @Override
   public byte[] getData() {
+    buildBlock();
     return this.block.toByteArray();
   }
 
   @Override
   public Block getInstance() {
+    buildBlock();
     return this.block;
   }
 
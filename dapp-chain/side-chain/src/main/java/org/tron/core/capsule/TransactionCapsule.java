@@ -110,6 +110,25 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
   @Setter
   private TransactionTrace trxTrace;
 
+  /**
+   * A hash with the proto it was computed from. The protos are immutable, a hash stays good as
+   * long as the transaction holds the same proto.
+   */
+  private static class CachedHash {
+
+    private final Object source;
+    private final Sha256Hash hash;
+
+    private CachedHash(Object source, Sha256Hash hash) {
+      this.source = source;
+      this.hash = hash;
+    }
+  }
+
+  private volatile CachedHash transactionId;
+
+  private volatile CachedHash merkleHash;
+
   private static final ExecutorService executorService = Executors
       .newFixedThreadPool(Args.getInstance().getValidContractProtoThreadNum());
 
@@ -256,12 +275,17 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
   }
 
   public Sha256Hash getMerkleHash() {
-    byte[] transBytes = this.transaction.toByteArray();
-    return Sha256Hash.of(transBytes);
+    Transaction trx = this.transaction;
+    CachedHash cached = merkleHash;
+    if (cached == null || cached.source != trx) {
+      cached = new CachedHash(trx, Sha256Hash.of(trx.toByteArray()));
+      merkleHash = cached;
+    }
+    return cached.hash;
   }
 
   private Sha256Hash getRawHash() {
-    return Sha256Hash.of(this.transaction.getRawData().toByteArray());
+    return getTransactionId();
   }
 
   public void sign(byte[] privateKey) {
@@ -598,7 +622,7 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
     //      throw new P2pException(PROTOBUF_ERROR, PROTOBUF_ERROR.getDesc());
     //    }
 
-    Message.compareBytes(src.toByteArray(), contractMessage.toByteArray());
+    Message.compareBytes(src.toByteArray(), contractMessage.getSerializedSize());
   }
 
   // todo mv this static function to capsule util
@@ -756,7 +780,14 @@ public class TransactionCapsule implements ProtoCapsule<Transaction> {
   }
 
   public Sha256Hash getTransactionId() {
-    return getRawHash();
+    // signatures and results leave the raw data as it is, the id is computed once for them
+    raw rawData = this.transaction.getRawData();
+    CachedHash cached = transactionId;
+    if (cached == null || cached.source != rawData) {
+      cached = new CachedHash(rawData, Sha256Hash.of(rawData.toByteArray()));
+      transactionId = cached;
+    }
+    return cached.hash;
   }
 
   @Override
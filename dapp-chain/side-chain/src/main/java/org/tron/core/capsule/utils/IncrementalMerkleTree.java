@@ -0,0 +1,66 @@
+package org.tron.core.capsule.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.tron.common.utils.Sha256Hash;
+
+/**
+ * A merkle tree built as its leaves are appended, with the same root as {@link MerkleTree} over
+ * the same hashes. Every level keeps the hashes of its complete pairs, so an append hashes at most
+ * one pair per level and the root only hashes the right edge of the tree.
+ */
+public class IncrementalMerkleTree {
+
+  private final List<List<Sha256Hash>> levels = new ArrayList<>();
+
+  private Sha256Hash root;
+
+  public void append(Sha256Hash hash) {
+    root = null;
+    Sha256Hash node = hash;
+    for (int level = 0; node != null; level++) {
+      if (levels.size() == level) {
+        levels.add(new ArrayList<>());
+      }
+      List<Sha256Hash> nodes = levels.get(level);
+      nodes.add(node);
+      int size = nodes.size();
+      node = size % 2 == 0
+          ? MerkleTree.computeHash(nodes.get(size - 2), nodes.get(size - 1)) : null;
+    }
+  }
+
+  public int size() {
+    return levels.isEmpty() ? 0 : levels.get(0).size();
+  }
+
+  /**
+   * The root hash, ZERO_HASH when there is no leaf.
+   */
+  public Sha256Hash getRoot() {
+    if (root == null) {
+      root = computeRoot();
+    }
+    return root;
+  }
+
+  private Sha256Hash computeRoot() {
+    if (size() == 0) {
+      return Sha256Hash.ZERO_HASH;
+    }
+    // the node made of the unpaired nodes at the end of the levels below, it pairs with the last
+    // node of its level when that one is unpaired, and moves up as it is otherwise
+    Sha256Hash carry = null;
+    for (List<Sha256Hash> nodes : levels) {
+      int size = nodes.size();
+      if (size + (carry == null ? 0 : 1) == 1) {
+        return carry == null ? nodes.get(0) : carry;
+      }
+      if (size % 2 == 1) {
+        Sha256Hash last = nodes.get(size - 1);
+        carry = carry == null ? last : MerkleTree.computeHash(last, carry);
+      }
+    }
+    return carry;
+  }
+}
@@ -79,7 +79,7 @@ public class MerkleTree {
     return leaf;
   }
 
-  private Sha256Hash computeHash(Sha256Hash leftHash, Sha256Hash rightHash) {
+  static Sha256Hash computeHash(Sha256Hash leftHash, Sha256Hash rightHash) {
     return Sha256Hash.of(leftHash.getByteString().concat(rightHash.getByteString()).toByteArray());
   }
 
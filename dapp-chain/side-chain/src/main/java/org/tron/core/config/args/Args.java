@@ -39,6 +39,7 @@ import org.tron.common.crypto.ECKey;
 import org.tron.common.logsfilter.EventPluginConfig;
 import org.tron.common.logsfilter.FilterQuery;
 import org.tron.common.logsfilter.TriggerConfig;
+import org.tron.common.logsfilter.eventlog.EventLog;
 import org.tron.common.overlay.discover.node.Node;
 import org.tron.common.storage.RocksDbSettings;
 import org.tron.common.utils.ByteArray;
@@ -106,6 +107,30 @@ public class Args {
   @Parameter(names = {"--long-running-time"})
   private int longRunningTime = 10;
 
+  @Getter
+  @Setter
+  private int constantCallThreads;
+
+  @Getter
+  @Setter
+  private int constantCallQueueSize;
+
+  @Getter
+  @Setter
+  private long constantCallTimeout;
+
+  @Getter
+  @Setter
+  private long constantCallMaxEnergy;
+
+  @Getter
+  @Setter
+  private long constantCallCacheTtl;
+
+  @Getter
+  @Setter
+  private boolean constantCallOnSolidity;
+
   @Getter
   @Setter
   @Parameter(names = {"--max-connect-number"})
@@ -216,6 +241,18 @@ public class Args {
   @Setter
   private int nodeMaxActiveNodesWithSameIp;
 
+  @Getter
+  @Setter
+  private int syncFetchWindow;
+
+  @Getter
+  @Setter
+  private boolean compactBlockRelay;
+
+  @Getter
+  @Setter
+  private long transactionPackerInterval;
+
   @Getter
   @Setter
   private int minParticipationRate;
@@ -274,6 +311,10 @@ public class Args {
   @Setter
   private int solidityHttpPort;
 
+  @Getter
+  @Setter
+  private int apiResponseCacheSize;
+
   @Getter
   @Setter
   @Parameter(names = {"--rpc-thread"}, description = "Num of gRPC thread")
@@ -548,6 +589,9 @@ public class Args {
     INSTANCE.nodeChannelReadTimeout = 0;
     INSTANCE.nodeMaxActiveNodes = 30;
     INSTANCE.nodeMaxActiveNodesWithSameIp = 2;
+    INSTANCE.syncFetchWindow = 2;
+    INSTANCE.compactBlockRelay = true;
+    INSTANCE.transactionPackerInterval = 0;
     INSTANCE.minParticipationRate = 0;
     INSTANCE.nodeListenPort = 0;
     INSTANCE.nodeDiscoveryBindIp = "";
@@ -560,6 +604,7 @@ public class Args {
     INSTANCE.rpcOnSolidityPort = 0;
     INSTANCE.fullNodeHttpPort = 0;
     INSTANCE.solidityHttpPort = 0;
+    INSTANCE.apiResponseCacheSize = 0;
     INSTANCE.maintenanceTimeInterval = 0;
     INSTANCE.proposalExpireTime = 0;
     INSTANCE.checkFrozenTime = 1;
@@ -586,6 +631,12 @@ public class Args {
     INSTANCE.minTimeRatio = 0.0;
     INSTANCE.maxTimeRatio = 5.0;
     INSTANCE.longRunningTime = 10;
+    INSTANCE.constantCallThreads = 0;
+    INSTANCE.constantCallQueueSize = 0;
+    INSTANCE.constantCallTimeout = 0;
+    INSTANCE.constantCallMaxEnergy = 0;
+    INSTANCE.constantCallCacheTtl = 0;
+    INSTANCE.constantCallOnSolidity = false;
     INSTANCE.maxHttpConnectNumber = 50;
 //    INSTANCE.allowMultiSign = 0;
     INSTANCE.trxExpirationTimeInMilliseconds = 0;
@@ -712,6 +763,27 @@ public class Args {
       INSTANCE.longRunningTime = config.getInt("vm.longRunningTime");
     }
 
+    INSTANCE.constantCallThreads = config.hasPath("vm.constantCall.threads")
+        ? config.getInt("vm.constantCall.threads")
+        : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    INSTANCE.constantCallQueueSize = config.hasPath("vm.constantCall.queueSize")
+        ? config.getInt("vm.constantCall.queueSize") : 1000;
+
+    INSTANCE.constantCallTimeout = config.hasPath("vm.constantCall.timeout")
+        ? config.getLong("vm.constantCall.timeout") : 2000;
+
+    INSTANCE.constantCallMaxEnergy = config.hasPath("vm.constantCall.maxEnergy")
+        ? Math.min(config.getLong("vm.constantCall.maxEnergy"),
+        Constant.ENERGY_LIMIT_IN_CONSTANT_TX) : Constant.ENERGY_LIMIT_IN_CONSTANT_TX;
+
+    INSTANCE.constantCallCacheTtl = config.hasPath("vm.constantCall.cacheTtl")
+        ? config.getLong("vm.constantCall.cacheTtl") : 3000;
+
+    if (config.hasPath("vm.constantCall.onSolidity")) {
+      INSTANCE.constantCallOnSolidity = config.getBoolean("vm.constantCall.onSolidity");
+    }
+
     INSTANCE.storage = new Storage();
     INSTANCE.storage.setDbVersion(Optional.ofNullable(INSTANCE.storageDbVersion)
         .filter(StringUtils::isNotEmpty)
@@ -727,6 +799,11 @@ public class Args {
       throw new RuntimeException("db.version = 1 is not supported by ROCKSDB engine.");
     }
 
+    if (INSTANCE.constantCallOnSolidity && INSTANCE.storage.getDbVersion() == 1) {
+      // db.version = 1 keeps no solidified state, the calls would read the head state
+      throw new RuntimeException("vm.constantCall.onSolidity needs db.version = 2.");
+    }
+
     INSTANCE.storage.setDbSync(Optional.ofNullable(INSTANCE.storageDbSynchronous)
         .filter(StringUtils::isNotEmpty)
         .map(Boolean::valueOf)
@@ -808,6 +885,15 @@ public class Args {
         config.hasPath("node.maxActiveNodesWithSameIp") ? config
             .getInt("node.maxActiveNodesWithSameIp") : 2;
 
+    INSTANCE.syncFetchWindow =
+        config.hasPath("node.syncFetchWindow") ? config.getInt("node.syncFetchWindow") : 2;
+
+    INSTANCE.compactBlockRelay =
+        !config.hasPath("node.compactBlockRelay") || config.getBoolean("node.compactBlockRelay");
+
+    INSTANCE.transactionPackerInterval = config.hasPath("node.transactionPacker.interval")
+        ? config.getLong("node.transactionPacker.interval") : 100;
+
     INSTANCE.minParticipationRate =
         config.hasPath("node.minParticipationRate") ? config.getInt("node.minParticipationRate")
             : 0;
@@ -840,6 +926,10 @@ public class Args {
     INSTANCE.solidityHttpPort =
         config.hasPath("node.http.solidityPort") ? config.getInt("node.http.solidityPort") : 8091;
 
+    INSTANCE.apiResponseCacheSize =
+        config.hasPath("node.apiResponseCacheSize") ? config.getInt("node.apiResponseCacheSize")
+            : 64;
+
     INSTANCE.rpcThreadNum =
         config.hasPath("node.rpc.thread") ? config.getInt("node.rpc.thread")
             : Runtime.getRuntime().availableProcessors() / 2;
@@ -1181,6 +1271,32 @@ public class Args {
       }
     }
 
+    if (config.hasPath("event.subscribe.encoding")) {
+      String encoding = config.getString("event.subscribe.encoding").trim();
+      if (StringUtils.isNotEmpty(encoding)) {
+        eventPluginConfig.setEncoding(encoding);
+      }
+    }
+
+    if (config.hasPath("event.subscribe.eventlog.directory")) {
+      String directory = config.getString("event.subscribe.eventlog.directory").trim();
+      if (StringUtils.isNotEmpty(directory) && !new File(directory).isAbsolute()) {
+        directory = new File(INSTANCE.getOutputDirectory(), directory).getPath();
+      }
+      eventPluginConfig.setEventLogDirectory(directory);
+
+      if (config.hasPath("event.subscribe.eventlog.segmentSize")) {
+        long segmentSize = config.getLong("event.subscribe.eventlog.segmentSize") * 1024 * 1024;
+        eventPluginConfig.setEventLogSegmentSize(
+            (int) Math.min(segmentSize, EventLog.MAX_SEGMENT_SIZE));
+      }
+
+      if (config.hasPath("event.subscribe.eventlog.retainBlocks")) {
+        eventPluginConfig
+            .setEventLogRetainBlocks(config.getLong("event.subscribe.eventlog.retainBlocks"));
+      }
+    }
+
     if (config.hasPath("event.subscribe.topics")) {
       List<TriggerConfig> triggerConfigList = config.getObjectList("event.subscribe.topics")
           .stream()
@@ -1417,7 +1533,10 @@ public class Args {
     logger.info("Seed node size: {}", args.getSeedNode().getIpList().size());
     logger.info("Max connection: {}", args.getNodeMaxActiveNodes());
     logger.info("Max connection with same IP: {}", args.getNodeMaxActiveNodesWithSameIp());
+    logger.info("Sync fetch window: {}", args.getSyncFetchWindow());
+    logger.info("Compact block relay: {}", args.isCompactBlockRelay());
     logger.info("Solidity threads: {}", args.getSolidityThreads());
+    logger.info("API response cache size: {}MB", args.getApiResponseCacheSize());
     logger.info("************************ Backup config ************************");
     logger.info("Backup listen port: {}", args.getBackupPort());
     logger.info("Backup member size: {}", args.getBackupMembers().size());
@@ -0,0 +1,59 @@
+package org.tron.core.db;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.tron.common.logsfilter.Bloom;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.capsule.BytesCapsule;
+
+/**
+ * The log bloom of every block with contract logs, by block number. A block without logs has no
+ * entry, the blocks from before the store existed are told apart by the first indexed block.
+ */
+@Component
+public class BlockBloomStore extends TronStoreWithRevoking<BytesCapsule> {
+
+  private static final byte[] FIRST_INDEXED_BLOCK = "FIRST_INDEXED_BLOCK".getBytes();
+
+  @Autowired
+  public BlockBloomStore(@Value("block-bloom") String dbName) {
+    super(dbName);
+  }
+
+  @Override
+  public BytesCapsule get(byte[] key) {
+    byte[] value = revokingDB.getUnchecked(key);
+    return ArrayUtils.isEmpty(value) ? null : new BytesCapsule(value);
+  }
+
+  /**
+   * Saves the bloom of a block, the first block ever saved is marked as the start of the index.
+   */
+  public void putBloom(long blockNum, Bloom bloom) {
+    if (getFirstIndexedBlock() < 0) {
+      put(FIRST_INDEXED_BLOCK, new BytesCapsule(ByteArray.fromLong(blockNum)));
+    }
+    if (!bloom.isEmpty()) {
+      put(ByteArray.fromLong(blockNum), new BytesCapsule(bloom.getData()));
+    }
+  }
+
+  /**
+   * The bloom of a block, null when the block has no logs.
+   */
+  public Bloom getBloom(long blockNum) {
+    BytesCapsule value = get(ByteArray.fromLong(blockNum));
+    return value == null ? null : new Bloom(value.getData());
+  }
+
+  /**
+   * The first block with an entry in the index, -1 before any block was indexed. The logs of older
+   * blocks can only be found by reading all their transactions.
+   */
+  public long getFirstIndexedBlock() {
+    BytesCapsule value = get(FIRST_INDEXED_BLOCK);
+    return value == null ? -1 : ByteArray.toLong(value.getData());
+  }
+}
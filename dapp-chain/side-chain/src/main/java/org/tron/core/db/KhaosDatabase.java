@@ -3,14 +3,11 @@ package org.tron.core.db;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javafx.util.Pair;
 import lombok.Getter;
@@ -81,24 +78,20 @@ public class KhaosDatabase extends TronDatabase {
     private int maxCapcity = 1024;
 
     @Getter
-    private LinkedHashMap<Long, ArrayList<KhaosBlock>> numKblkMap =
-        new LinkedHashMap<Long, ArrayList<KhaosBlock>>() {
-
-          @Override
-          protected boolean removeEldestEntry(Map.Entry<Long, ArrayList<KhaosBlock>> entry) {
-            long minNum = Long.max(0L, head.num - maxCapcity);
-            Map<Long, ArrayList<KhaosBlock>> minNumMap = numKblkMap.entrySet().stream()
-                .filter(e -> e.getKey() < minNum)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-
-            minNumMap.forEach((k, v) -> {
-              numKblkMap.remove(k);
-              v.forEach(b -> hashKblkMap.remove(b.id));
-            });
-
-            return false;
-          }
-        };
+    private HashMap<Long, ArrayList<KhaosBlock>> numKblkMap = new HashMap<>();
+
+    // no block is below lowestNum or above highestNum, the heights between are walked at most
+    // once when the store is pruned or its highest block is looked for
+    private long lowestNum = Long.MAX_VALUE;
+    private long highestNum = Long.MIN_VALUE;
+
+    // counts the removals, a removed block may change the branches between the blocks left
+    @Getter
+    private long removeCount;
+
+    // the blocks below it are pruned, they only change the branches that reach down to them
+    @Getter
+    private long prunedNum = Long.MIN_VALUE;
 
     public void setMaxCapcity(int maxCapcity) {
       this.maxCapcity = maxCapcity;
@@ -107,6 +100,38 @@ public class KhaosDatabase extends TronDatabase {
     public void insert(KhaosBlock block) {
       hashKblkMap.put(block.id, block);
       numKblkMap.computeIfAbsent(block.num, listBlk -> new ArrayList<>()).add(block);
+      lowestNum = Long.min(lowestNum, block.num);
+      highestNum = Long.max(highestNum, block.num);
+      prune();
+    }
+
+    private void prune() {
+      if (head == null) {
+        return;
+      }
+      long minNum = Long.max(0L, head.num - maxCapcity);
+      if (lowestNum >= minNum) {
+        return;
+      }
+      if (minNum - lowestNum > numKblkMap.size()) {
+        // sparse heights, looking over them is cheaper than walking the gaps
+        numKblkMap.entrySet().removeIf(entry -> {
+          if (entry.getKey() < minNum) {
+            entry.getValue().forEach(b -> hashKblkMap.remove(b.id));
+            return true;
+          }
+          return false;
+        });
+      } else {
+        for (long num = lowestNum; num < minNum; num++) {
+          ArrayList<KhaosBlock> listBlk = numKblkMap.remove(num);
+          if (listBlk != null) {
+            listBlk.forEach(b -> hashKblkMap.remove(b.id));
+          }
+        }
+      }
+      lowestNum = minNum;
+      prunedNum = Long.max(prunedNum, minNum);
     }
 
     public boolean remove(Sha256Hash hash) {
@@ -125,11 +150,29 @@ public class KhaosDatabase extends TronDatabase {
         }
 
         this.hashKblkMap.remove(hash);
+        removeCount++;
         return true;
       }
       return false;
     }
 
+    /**
+     * The first block at the highest height, null when the store is empty.
+     */
+    public KhaosBlock getHighest() {
+      while (!numKblkMap.isEmpty()) {
+        if (highestNum - lowestNum > numKblkMap.size()) {
+          highestNum = Collections.max(numKblkMap.keySet());
+        }
+        ArrayList<KhaosBlock> listBlk = numKblkMap.get(highestNum);
+        if (listBlk != null) {
+          return listBlk.get(0);
+        }
+        highestNum--;
+      }
+      return null;
+    }
+
     public List<KhaosBlock> getBlockByNum(Long num) {
       return numKblkMap.get(num);
     }
@@ -144,8 +187,29 @@ public class KhaosDatabase extends TronDatabase {
 
   }
 
+  private static class BranchCache {
+
+    private final Sha256Hash block1;
+    private final Sha256Hash block2;
+    private final long removeCount;
+    // the height of the common parent, the lowest block the branch depends on
+    private final long parentNum;
+    private final Pair<LinkedList<KhaosBlock>, LinkedList<KhaosBlock>> branch;
+
+    private BranchCache(Sha256Hash block1, Sha256Hash block2, long removeCount, long parentNum,
+        Pair<LinkedList<KhaosBlock>, LinkedList<KhaosBlock>> branch) {
+      this.block1 = block1;
+      this.block2 = block2;
+      this.removeCount = removeCount;
+      this.parentNum = parentNum;
+      this.branch = branch;
+    }
+  }
+
   private KhaosBlock head;
 
+  private volatile BranchCache branchCache;
+
   @Getter
   private KhaosStore miniStore = new KhaosStore();
 
@@ -189,11 +253,10 @@ public class KhaosDatabase extends TronDatabase {
       miniUnlinkedStore.remove(hash);
     }
 
-    head = miniStore.numKblkMap.entrySet().stream()
-        .max(Comparator.comparingLong(Map.Entry::getKey))
-        .map(Map.Entry::getValue)
-        .map(list -> list.get(0))
-        .orElseThrow(() -> new RuntimeException("khaosDB head should not be null."));
+    head = miniStore.getHighest();
+    if (head == null) {
+      throw new RuntimeException("khaosDB head should not be null.");
+    }
   }
 
   /**
@@ -268,11 +331,35 @@ public class KhaosDatabase extends TronDatabase {
   }
 
   /**
-   * Find two block's most recent common parent block.
+   * Find two block's most recent common parent block. The last branch found is kept until a
+   * block is removed or the pruning reaches its common parent, the peers that sync from the same
+   * fork all ask for it.
    */
   public Pair<LinkedList<KhaosBlock>, LinkedList<KhaosBlock>> getBranch(Sha256Hash block1,
       Sha256Hash block2)
       throws NonCommonBlockException {
+    BranchCache cache = branchCache;
+    if (cache == null || !cache.block1.equals(block1) || !cache.block2.equals(block2)
+        || cache.removeCount != miniStore.getRemoveCount()
+        || cache.parentNum < miniStore.getPrunedNum()) {
+      long removeCount = miniStore.getRemoveCount();
+      Pair<LinkedList<KhaosBlock>, LinkedList<KhaosBlock>> branch = findBranch(block1, block2);
+      long parentNum = Stream.of(branch.getKey(), branch.getValue())
+          .filter(list -> !list.isEmpty())
+          .mapToLong(list -> list.peekLast().num - 1)
+          .min()
+          .orElseGet(() -> miniStore.getByHash(block1).num);
+      cache = new BranchCache(block1, block2, removeCount, parentNum, branch);
+      branchCache = cache;
+    }
+    // the callers get lists of their own
+    return new Pair<>(new LinkedList<>(cache.branch.getKey()),
+        new LinkedList<>(cache.branch.getValue()));
+  }
+
+  private Pair<LinkedList<KhaosBlock>, LinkedList<KhaosBlock>> findBranch(Sha256Hash block1,
+      Sha256Hash block2)
+      throws NonCommonBlockException {
     LinkedList<KhaosBlock> list1 = new LinkedList<>();
     LinkedList<KhaosBlock> list2 = new LinkedList<>();
     KhaosBlock kblk1 = miniStore.getByHash(block1);
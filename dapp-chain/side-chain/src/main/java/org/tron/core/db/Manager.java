@@ -18,9 +18,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -42,20 +44,23 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.BooleanUtils;
 import org.joda.time.DateTime;
 import org.spongycastle.util.encoders.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.tron.common.logsfilter.Bloom;
 import org.tron.common.logsfilter.EventPluginLoader;
 import org.tron.common.logsfilter.FilterQuery;
+import org.tron.common.logsfilter.TriggerPipeline;
 import org.tron.common.logsfilter.capsule.BlockLogTriggerCapsule;
 import org.tron.common.logsfilter.capsule.ContractTriggerCapsule;
 import org.tron.common.logsfilter.capsule.TransactionLogTriggerCapsule;
-import org.tron.common.logsfilter.capsule.TriggerCapsule;
 import org.tron.common.logsfilter.trigger.ContractTrigger;
 import org.tron.common.overlay.discover.node.Node;
 import org.tron.common.overlay.message.Message;
 import org.tron.common.runtime.config.VMConfig;
+import org.tron.common.runtime.vm.LogInfo;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.ForkController;
 import org.tron.common.utils.SessionOptional;
@@ -76,6 +81,7 @@ import org.tron.core.config.Parameter.ChainConstant;
 import org.tron.core.config.args.Args;
 import org.tron.core.config.args.GenesisBlock;
 import org.tron.core.db.KhaosDatabase.KhaosBlock;
+import org.tron.core.db.TransactionPacker.Candidate;
 import org.tron.core.db.fast.TrieService;
 import org.tron.core.db.fast.callback.FastSyncCallBack;
 import org.tron.core.db2.core.ISession;
@@ -152,6 +158,9 @@ public class Manager {
   @Autowired
   private TransactionHistoryStore transactionHistoryStore;
   @Autowired
+  @Getter
+  private BlockBloomStore blockBloomStore;
+  @Autowired
   private CodeStore codeStore;
   @Autowired
   private ContractStore contractStore;
@@ -203,7 +212,6 @@ public class Manager {
 
   private boolean isRunRepushThread = true;
 
-  private boolean isRunTriggerCapsuleProcessThread = true;
 
   private long latestSolidifiedBlockNumber;
 
@@ -311,7 +319,10 @@ public class Manager {
   // the capacity is equal to Integer.MAX_VALUE default
   private BlockingQueue<TransactionCapsule> repushTransactions;
 
-  private BlockingQueue<TriggerCapsule> triggerCapsuleQueue;
+  private TransactionPacker transactionPacker;
+
+  @Getter
+  private TriggerPipeline triggerPipeline;
 
   // for test only
   public List<ByteString> getWitnesses() {
@@ -388,31 +399,17 @@ public class Manager {
         }
       };
 
-  private Runnable triggerCapsuleProcessLoop =
-      () -> {
-        while (isRunTriggerCapsuleProcessThread) {
-          try {
-            TriggerCapsule tiggerCapsule = triggerCapsuleQueue.poll(1, TimeUnit.SECONDS);
-            if (tiggerCapsule != null) {
-              tiggerCapsule.processTrigger();
-            }
-          } catch (InterruptedException ex) {
-            logger.info(ex.getMessage());
-            Thread.currentThread().interrupt();
-          } catch (Exception ex) {
-            logger.error("unknown exception happened in process capsule loop", ex);
-          } catch (Throwable throwable) {
-            logger.error("unknown throwable happened in process capsule loop", throwable);
-          }
-        }
-      };
-
   public void stopRepushThread() {
     isRunRepushThread = false;
+    if (transactionPacker != null) {
+      transactionPacker.stop();
+    }
   }
 
   public void stopRepushTriggerThread() {
-    isRunTriggerCapsuleProcessThread = false;
+    if (triggerPipeline != null) {
+      triggerPipeline.stop();
+    }
   }
 
   @PostConstruct
@@ -426,7 +423,6 @@ public class Manager {
     this.setProposalController(ProposalController.createInstance(this));
     this.pendingTransactions = Collections.synchronizedList(Lists.newArrayList());
     this.repushTransactions = new LinkedBlockingQueue<>();
-    this.triggerCapsuleQueue = new LinkedBlockingQueue<>();
 
     this.initGenesis();
     try {
@@ -456,12 +452,17 @@ public class Manager {
         .newFixedThreadPool(Args.getInstance().getValidateSignThreadNum());
     Thread repushThread = new Thread(repushLoop);
     repushThread.start();
+    if (Args.getInstance().isWitness() && Args.getInstance().getTransactionPackerInterval() > 0) {
+      transactionPacker = new TransactionPacker(this,
+          Args.getInstance().getTransactionPackerInterval());
+      transactionPacker.start();
+    }
 
     // add contract event listener for subscribing
     if (Args.getInstance().isEventSubscribe()) {
+      triggerPipeline = new TriggerPipeline(Runtime.getRuntime().availableProcessors());
+      triggerPipeline.start();
       startEventSubscribing();
-      Thread triggerCapsuleProcessThread = new Thread(triggerCapsuleProcessLoop);
-      triggerCapsuleProcessThread.start();
     }
   }
 
@@ -1420,13 +1421,20 @@ public class Manager {
     }
 
     Set<String> accountSet = new HashSet<>();
-    Iterator<TransactionCapsule> iterator = pendingTransactions.iterator();
+    List<TransactionCapsule> pending;
+    synchronized (pendingTransactions) {
+      pending = new ArrayList<>(pendingTransactions);
+    }
+    Set<TransactionCapsule> packed = Collections.newSetFromMap(new IdentityHashMap<>());
+    Map<TransactionCapsule, Candidate> candidates = transactionPacker == null
+        ? Collections.emptyMap() : transactionPacker.getCandidates(getHeadBlockId());
+    Iterator<TransactionCapsule> iterator = pending.iterator();
     while (iterator.hasNext() || repushTransactions.size() > 0) {
       boolean fromPending = false;
       TransactionCapsule trx;
       if (iterator.hasNext()) {
         fromPending = true;
-        trx = (TransactionCapsule) iterator.next();
+        trx = iterator.next();
       } else {
         trx = repushTransactions.poll();
       }
@@ -1439,21 +1447,34 @@ public class Manager {
         break;
       }
 
+      Candidate candidate = candidates.get(trx);
+      if (candidate != null && !candidate.isPackable()) {
+        // it fails on this head whatever the block holds
+        continue;
+      }
+
       // check the block size
-      if ((blockCapsule.getInstance().getSerializedSize() + trx.getSerializedSize() + 3)
-          > ChainConstant.BLOCK_SIZE) {
+      long trxSize = candidate != null ? candidate.getSize() : trx.getSerializedSize();
+      if (blockCapsule.getSerializedSize() + trxSize + 3 > ChainConstant.BLOCK_SIZE) {
         postponedTrxCount++;
         continue;
       }
 
       //
-      Contract contract = trx.getInstance().getRawData().getContract(0);
-      byte[] owner = TransactionCapsule.getOwner(contract);
-      String ownerAddress = ByteArray.toHexString(owner);
+      String ownerAddress;
+      boolean multiSign;
+      if (candidate != null) {
+        ownerAddress = candidate.getOwnerAddress();
+        multiSign = candidate.isMultiSign();
+      } else {
+        Contract contract = trx.getInstance().getRawData().getContract(0);
+        ownerAddress = ByteArray.toHexString(TransactionCapsule.getOwner(contract));
+        multiSign = isMultSignTransaction(trx.getInstance());
+      }
       if (accountSet.contains(ownerAddress)) {
         continue;
       } else {
-        if (isMultSignTransaction(trx.getInstance())) {
+        if (multiSign) {
           accountSet.add(ownerAddress);
         }
       }
@@ -1469,7 +1490,7 @@ public class Manager {
         // push into block
         blockCapsule.addTransaction(trx);
         if (fromPending) {
-          iterator.remove();
+          packed.add(trx);
         }
       } catch (ContractExeException e) {
         logger.info("contract not processed during execute");
@@ -1505,6 +1526,9 @@ public class Manager {
         logger.warn(e.getMessage(), e);
       }
     }// end of while
+    if (!packed.isEmpty()) {
+      pendingTransactions.removeIf(packed::contains);
+    }
 
     fastSyncCallBack.executeGenerateFinish();
 
@@ -1558,7 +1582,7 @@ public class Manager {
     }
   }
 
-  private boolean isMultSignTransaction(Transaction transaction) {
+  static boolean isMultSignTransaction(Transaction transaction) {
     Contract contract = transaction.getRawData().getContract(0);
     switch (contract.getType()) {
       case AccountPermissionUpdateContract: {
@@ -1625,6 +1649,7 @@ public class Manager {
     } finally {
       fastSyncCallBack.exceptionFinish();
     }
+    updateBlockBloom(block);
 
     boolean needMaint = needMaintenance(block.getTimeStamp());
     if (needMaint) {
@@ -1648,6 +1673,27 @@ public class Manager {
   }
 
 
+  /**
+   * Indexes the log addresses and topics of the block, for the log queries. The logs are read
+   * from the transaction infos, there is nothing to index when those are not kept.
+   */
+  private void updateBlockBloom(BlockCapsule block) {
+    if (!BooleanUtils.toBoolean(Args.getInstance().getStorage().getTransactionHistoreSwitch())) {
+      return;
+    }
+    Bloom bloom = new Bloom();
+    for (TransactionCapsule trx : block.getTransactions()) {
+      if (trx.getTrxTrace() == null || trx.getTrxTrace().getRuntimeResult() == null) {
+        continue;
+      }
+      for (LogInfo logInfo : trx.getTrxTrace().getRuntimeResult().getLogInfoList()) {
+        bloom.add(logInfo.getAddress());
+        logInfo.getTopics().forEach(topic -> bloom.add(topic.getData()));
+      }
+    }
+    blockBloomStore.putBloom(block.getNum(), bloom);
+  }
+
   private void updateTransHashCache(BlockCapsule block) {
     for (TransactionCapsule transactionCapsule : block.getTransactions()) {
       this.transactionIdCache.put(transactionCapsule.getTransactionId(), true);
@@ -1835,6 +1881,7 @@ public class Manager {
     closeOneStore(proposalStore);
     closeOneStore(recentBlockStore);
     closeOneStore(transactionHistoryStore);
+    closeOneStore(blockBloomStore);
     closeOneStore(votesStore);
     closeOneStore(delegatedResourceStore);
     closeOneStore(delegatedResourceAccountIndexStore);
@@ -1970,9 +2017,9 @@ public class Manager {
     if (eventPluginLoaded && EventPluginLoader.getInstance().isBlockLogTriggerEnable()) {
       BlockLogTriggerCapsule blockLogTriggerCapsule = new BlockLogTriggerCapsule(newBlock);
       blockLogTriggerCapsule.setLatestSolidifiedBlockNumber(latestSolidifiedBlockNumber);
-      boolean result = triggerCapsuleQueue.offer(blockLogTriggerCapsule);
-      if (!result) {
-        logger.info("too many trigger, lost block trigger: {}", newBlock.getBlockId());
+      if (!triggerPipeline.submit(blockLogTriggerCapsule)) {
+        logger.debug("trigger pipeline stopped or full, lost block trigger: {}",
+            newBlock.getBlockId());
       }
     }
 
@@ -1986,9 +2033,9 @@ public class Manager {
     if (eventPluginLoaded && EventPluginLoader.getInstance().isTransactionLogTriggerEnable()) {
       TransactionLogTriggerCapsule trx = new TransactionLogTriggerCapsule(trxCap, blockCap);
       trx.setLatestSolidifiedBlockNumber(latestSolidifiedBlockNumber);
-      boolean result = triggerCapsuleQueue.offer(trx);
-      if (!result) {
-        logger.info("too many trigger, lost transaction trigger: {}", trxCap.getTransactionId());
+      if (!triggerPipeline.submit(trx)) {
+        logger.debug("trigger pipeline stopped or full, lost transaction trigger: {}",
+            trxCap.getTransactionId());
       }
     }
   }
@@ -2020,8 +2067,9 @@ public class Manager {
         ContractTriggerCapsule contractEventTriggerCapsule = new ContractTriggerCapsule(trigger);
         contractEventTriggerCapsule.getContractTrigger().setRemoved(remove);
         contractEventTriggerCapsule.setLatestSolidifiedBlockNumber(latestSolidifiedBlockNumber);
-        if (!triggerCapsuleQueue.offer(contractEventTriggerCapsule)) {
-          logger.info("too many tigger, lost contract log trigger: {}", trigger.getTransactionId());
+        if (!triggerPipeline.submit(contractEventTriggerCapsule)) {
+          logger.debug("trigger pipeline stopped or full, lost contract log trigger: {}",
+              trigger.getTransactionId());
         }
       }
     }
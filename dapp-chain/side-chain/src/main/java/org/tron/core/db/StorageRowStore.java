@@ -1,10 +1,14 @@
 package org.tron.core.db;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.tron.core.capsule.StorageRowCapsule;
+import org.tron.core.db.common.WrappedByteArray;
 
 @Slf4j(topic = "DB")
 @Component
@@ -21,4 +25,27 @@ public class StorageRowStore extends TronStoreWithRevoking<StorageRowCapsule> {
     row.setRowKey(key);
     return row;
   }
+
+  /**
+   * Reads several rows under one lock of the revoking db. Rows that do not exist are absent from
+   * the result.
+   */
+  public Map<WrappedByteArray, StorageRowCapsule> get(Collection<byte[]> keys) {
+    Map<WrappedByteArray, StorageRowCapsule> rows = new HashMap<>(keys.size() * 2);
+    revokingDB.getUnchecked(keys).forEach((key, value) -> {
+      StorageRowCapsule row = new StorageRowCapsule(value);
+      row.setRowKey(key.getBytes());
+      rows.put(key, row);
+    });
+    return rows;
+  }
+
+  /**
+   * Writes several rows under one lock of the revoking db, a null row deletes the key.
+   */
+  public void put(Map<byte[], StorageRowCapsule> rows) {
+    Map<byte[], byte[]> batch = new HashMap<>(rows.size() * 2);
+    rows.forEach((key, row) -> batch.put(key, row == null ? null : row.getData()));
+    revokingDB.updateByBatch(batch);
+  }
 }
@@ -0,0 +1,137 @@
+package org.tron.core.db;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.core.exception.TaposException;
+import org.tron.core.exception.TooBigTransactionException;
+import org.tron.core.exception.TransactionExpirationException;
+import org.tron.protos.Protocol.Transaction.Contract;
+
+/**
+ * Prepares the pending transactions for the next block of this witness between its slots. Every
+ * pending transaction gets its size and owner worked out once, and the checks that only depend
+ * on the head block (size, expiration, tapos) are run ahead, so generateBlock skips the doomed
+ * ones without a session. The preparation is tied to a head block and dropped when it changes.
+ *
+ * <p>Executing the transactions ahead is not possible: there is one revoking session stack, and
+ * the pending transactions already hold it between blocks.
+ */
+@Slf4j(topic = "DB")
+public class TransactionPacker {
+
+  /**
+   * A pending transaction with what generateBlock needs to know about it.
+   */
+  @Getter
+  public static class Candidate {
+
+    private final TransactionCapsule trx;
+    private final long size;
+    private final String ownerAddress;
+    private final boolean multiSign;
+    private final boolean packable;
+
+    Candidate(TransactionCapsule trx, boolean packable) {
+      this.trx = trx;
+      this.size = trx.getInstance().getSerializedSize();
+      Contract contract = trx.getInstance().getRawData().getContract(0);
+      this.ownerAddress = ByteArray.toHexString(TransactionCapsule.getOwner(contract));
+      this.multiSign = Manager.isMultSignTransaction(trx.getInstance());
+      this.packable = packable;
+    }
+  }
+
+  private final Manager manager;
+
+  private final long interval;
+
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("transaction-packer").setDaemon(true).build());
+
+  private BlockId head;
+
+  private final Map<TransactionCapsule, Candidate> prepared = new IdentityHashMap<>();
+
+  public TransactionPacker(Manager manager, long interval) {
+    this.manager = manager;
+    this.interval = interval;
+  }
+
+  public void start() {
+    executor.scheduleWithFixedDelay(() -> {
+      try {
+        if (!manager.isGeneratingBlock()) {
+          refresh();
+        }
+      } catch (Exception e) {
+        logger.warn("Prepare pending transactions failed.", e);
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Prepares the pending transactions that came in since the last call. A head block that
+   * changed while they were checked makes the work useless, it starts over on the next call.
+   */
+  void refresh() {
+    BlockId current = manager.getHeadBlockId();
+    List<TransactionCapsule> pending;
+    synchronized (manager.getPendingTransactions()) {
+      pending = new ArrayList<>(manager.getPendingTransactions());
+    }
+    List<Candidate> added = new ArrayList<>();
+    synchronized (this) {
+      if (!current.equals(head)) {
+        head = current;
+        prepared.clear();
+      }
+      pending.removeIf(prepared::containsKey);
+    }
+    for (TransactionCapsule trx : pending) {
+      added.add(new Candidate(trx, isPackable(trx)));
+    }
+    synchronized (this) {
+      if (!current.equals(manager.getHeadBlockId()) || !current.equals(head)) {
+        return;
+      }
+      added.forEach(candidate -> prepared.putIfAbsent(candidate.getTrx(), candidate));
+    }
+  }
+
+  private boolean isPackable(TransactionCapsule trx) {
+    try {
+      manager.validateTapos(trx);
+      manager.validateCommon(trx);
+      return trx.getInstance().getRawData().getContractCount() == 1;
+    } catch (TaposException | TooBigTransactionException | TransactionExpirationException e) {
+      return false;
+    }
+  }
+
+  /**
+   * The prepared transactions by transaction, empty when they were prepared on another head. The
+   * pending transactions that came in since the last refresh are not among them.
+   */
+  public synchronized Map<TransactionCapsule, Candidate> getCandidates(BlockId headBlockId) {
+    if (!headBlockId.equals(head)) {
+      return Collections.emptyMap();
+    }
+    return new IdentityHashMap<>(prepared);
+  }
+}
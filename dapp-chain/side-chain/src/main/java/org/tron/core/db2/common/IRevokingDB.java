@@ -1,5 +1,6 @@
 package org.tron.core.db2.common;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import org.tron.core.db.common.WrappedByteArray;
@@ -17,6 +18,12 @@ public interface IRevokingDB extends Iterable<Map.Entry<byte[], byte[]>> {
 
   byte[] getUnchecked(byte[] key);
 
+  // keys without a value are absent from the result
+  Map<WrappedByteArray, byte[]> getUnchecked(Collection<byte[]> keys);
+
+  // a null value deletes the key
+  void updateByBatch(Map<byte[], byte[]> rows);
+
   void close();
 
   void reset();
@@ -2,6 +2,7 @@ package org.tron.core.db2.core;
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -98,6 +99,31 @@ public class RevokingDBWithCachingNewValue implements IRevokingDB {
     return head().get(key);
   }
 
+  @Override
+  public synchronized Map<WrappedByteArray, byte[]> getUnchecked(Collection<byte[]> keys) {
+    Snapshot snapshot = head();
+    Map<WrappedByteArray, byte[]> result = new HashMap<>(keys.size() * 2);
+    for (byte[] key : keys) {
+      byte[] value = snapshot.get(key);
+      if (value != null) {
+        result.put(WrappedByteArray.of(key), value);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized void updateByBatch(Map<byte[], byte[]> rows) {
+    Snapshot snapshot = head();
+    rows.forEach((key, value) -> {
+      if (value == null) {
+        snapshot.remove(key);
+      } else {
+        snapshot.put(key, value);
+      }
+    });
+  }
+
   @Override
   public synchronized boolean has(byte[] key) {
     return getUnchecked(key) != null;
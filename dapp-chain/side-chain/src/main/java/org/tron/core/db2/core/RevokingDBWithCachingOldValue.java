@@ -1,5 +1,6 @@
 package org.tron.core.db2.core;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -81,6 +82,30 @@ public class RevokingDBWithCachingOldValue implements IRevokingDB {
     }
   }
 
+  @Override
+  public Map<WrappedByteArray, byte[]> getUnchecked(Collection<byte[]> keys) {
+    Map<WrappedByteArray, byte[]> result = new HashMap<>(keys.size() * 2);
+    for (byte[] key : keys) {
+      byte[] value = getUnchecked(key);
+      if (value != null) {
+        result.put(WrappedByteArray.of(key), value);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void updateByBatch(Map<byte[], byte[]> rows) {
+    // every row still needs its own undo record, so this cannot be a single db batch
+    rows.forEach((key, value) -> {
+      if (value == null) {
+        delete(key);
+      } else {
+        put(key, value);
+      }
+    });
+  }
+
   @Override
   public void close() {
     dbSource.closeDB();
@@ -1,10 +1,16 @@
 package org.tron.core.net;
 
+import static org.tron.core.config.Parameter.ChainConstant.BLOCK_PRODUCED_INTERVAL;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,7 +50,10 @@ import org.tron.core.net.message.BlockMessage;
 import org.tron.core.net.message.MessageTypes;
 import org.tron.core.net.message.TransactionMessage;
 import org.tron.core.net.peer.PeerConnection;
+import org.tron.protos.Contract.TriggerSmartContract;
 import org.tron.protos.Protocol.Inventory.InventoryType;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
 
 @Slf4j(topic = "net")
 @Component
@@ -62,6 +71,11 @@ public class TronNetDelegate {
   @Getter
   private Object blockLock = new Object();
 
+  // the side chain gateways, read once per block instead of on every transaction received
+  private volatile Set<ByteString> gateways;
+
+  private volatile long gatewaysTime;
+
   private int blockIdCacheSize = 100;
 
   private Queue<BlockId> freshBlockId = new ConcurrentLinkedQueue<BlockId>() {
@@ -173,6 +187,7 @@ public class TronNetDelegate {
         if (!freshBlockId.contains(block.getBlockId())) {
           dbManager.pushBlock(block);
           freshBlockId.add(block.getBlockId());
+          gateways = null;
           logger.info("Success process block {}.", block.getBlockId().getString());
         }
       } catch (ValidateSignatureException
@@ -216,6 +231,44 @@ public class TronNetDelegate {
     }
   }
 
+  /**
+   * Checks the signatures of a transaction received from a peer. The result is kept on the
+   * capsule, so the push that follows does not check them again.
+   */
+  public void validateSignature(TransactionCapsule trx) throws P2pException {
+    try {
+      trx.validateSignature(dbManager);
+    } catch (ValidateSignatureException e) {
+      throw new P2pException(TypeEnum.TRX_EXE_FAILED, e);
+    }
+  }
+
+  /**
+   * Whether the contract calls a side chain gateway. The gateways are cached, they are read
+   * again after the next block this node receives, or a block interval later for the blocks it
+   * produces itself.
+   */
+  public boolean isGatewayContractCall(Transaction.Contract contract) {
+    if (contract.getType() != ContractType.TriggerSmartContract) {
+      return false;
+    }
+    Set<ByteString> current = gateways;
+    long now = System.currentTimeMillis();
+    if (current == null || now - gatewaysTime >= BLOCK_PRODUCED_INTERVAL) {
+      current = dbManager.getDynamicPropertiesStore().getSideChainGateWayList().stream()
+          .map(ByteString::copyFrom)
+          .collect(Collectors.toSet());
+      gateways = current;
+      gatewaysTime = now;
+    }
+    try {
+      return current.contains(contract.getParameter().unpack(TriggerSmartContract.class)
+          .getContractAddress());
+    } catch (InvalidProtocolBufferException e) {
+      return false;
+    }
+  }
+
   public boolean validBlock(BlockCapsule block) throws P2pException {
     try {
       if (!block.validateSignature(dbManager)) {
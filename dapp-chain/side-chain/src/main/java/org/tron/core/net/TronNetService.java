@@ -90,9 +90,12 @@ public class TronNetService {
           inventoryMsgHandler.processMessage(peer, msg);
           break;
         case FETCH_INV_DATA:
+        case FETCH_BLOCK_TRXS:
           fetchInvDataMsgHandler.processMessage(peer, msg);
           break;
         case BLOCK:
+        case COMPACT_BLOCK:
+        case BLOCK_TRXS:
           blockMsgHandler.processMessage(peer, msg);
           break;
         case TRXS:
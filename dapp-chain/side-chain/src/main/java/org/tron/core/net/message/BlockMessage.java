@@ -15,7 +15,7 @@ public class BlockMessage extends TronMessage {
     this.type = MessageTypes.BLOCK.asByte();
     this.block = new BlockCapsule(getCodedInputStream(data));
     if (Message.isFilter()) {
-      Message.compareBytes(data, block.getInstance().toByteArray());
+      Message.compareBytes(data, block.getInstance().getSerializedSize());
       TransactionCapsule.validContractProto(block.getInstance().getTransactionsList());
     }
   }
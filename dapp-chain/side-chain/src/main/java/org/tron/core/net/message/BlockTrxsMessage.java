@@ -0,0 +1,51 @@
+package org.tron.core.net.message;
+
+import java.util.List;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.protos.Protocol.BlockTransactions;
+import org.tron.protos.Protocol.Transaction;
+
+public class BlockTrxsMessage extends TronMessage {
+
+  private BlockTransactions blockTransactions;
+
+  public BlockTrxsMessage(byte[] data) throws Exception {
+    super(data);
+    this.type = MessageTypes.BLOCK_TRXS.asByte();
+    this.blockTransactions = BlockTransactions.parseFrom(getCodedInputStream(data));
+    if (isFilter()) {
+      compareBytes(data, blockTransactions.getSerializedSize());
+      TransactionCapsule.validContractProto(blockTransactions.getTransactionsList());
+    }
+  }
+
+  public BlockTrxsMessage(BlockId blockId, List<Transaction> transactions) {
+    this.blockTransactions = BlockTransactions.newBuilder()
+        .setBlockId(blockId.getByteString())
+        .addAllTransactions(transactions)
+        .build();
+    this.type = MessageTypes.BLOCK_TRXS.asByte();
+    this.data = blockTransactions.toByteArray();
+  }
+
+  public BlockId getBlockId() {
+    return new BlockId(Sha256Hash.wrap(blockTransactions.getBlockId()));
+  }
+
+  public List<Transaction> getTransactions() {
+    return blockTransactions.getTransactionsList();
+  }
+
+  @Override
+  public Class<?> getAnswerMessage() {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder().append(super.toString()).append(getBlockId().getString())
+        .append(", trx size: ").append(getTransactions().size()).toString();
+  }
+}
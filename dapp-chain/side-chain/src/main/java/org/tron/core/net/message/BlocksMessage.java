@@ -19,7 +19,7 @@ public class BlocksMessage extends TronMessage {
       blocks = items.getBlocksList();
     }
     if (isFilter() && CollectionUtils.isNotEmpty(blocks)) {
-      compareBytes(data, items.toByteArray());
+      compareBytes(data, items.getSerializedSize());
       for (Block block : blocks) {
         TransactionCapsule.validContractProto(block.getTransactionsList());
       }
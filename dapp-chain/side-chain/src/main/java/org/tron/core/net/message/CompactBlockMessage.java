@@ -0,0 +1,99 @@
+package org.tron.core.net.message;
+
+import com.google.common.primitives.Longs;
+import java.util.List;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.BlockHeader;
+import org.tron.protos.Protocol.CompactBlock;
+import org.tron.protos.Protocol.CompactBlock.TransactionRet;
+import org.tron.protos.Protocol.Transaction;
+
+public class CompactBlockMessage extends TronMessage {
+
+  private CompactBlock compactBlock;
+
+  private BlockId blockId;
+
+  public CompactBlockMessage(byte[] data) throws Exception {
+    super(data);
+    this.type = MessageTypes.COMPACT_BLOCK.asByte();
+    this.compactBlock = CompactBlock.parseFrom(getCodedInputStream(data));
+    if (isFilter()) {
+      compareBytes(data, compactBlock.getSerializedSize());
+    }
+  }
+
+  public CompactBlockMessage(BlockCapsule block) {
+    CompactBlock.Builder builder = CompactBlock.newBuilder()
+        .setBlockHeader(block.getInstance().getBlockHeader());
+    block.getTransactions().forEach(trx -> builder
+        .addShortIds(shortId(trx.getTransactionId()))
+        .addRets(TransactionRet.newBuilder().addAllRet(trx.getInstance().getRetList())));
+    this.compactBlock = builder.build();
+    this.blockId = block.getBlockId();
+    this.type = MessageTypes.COMPACT_BLOCK.asByte();
+    this.data = compactBlock.toByteArray();
+  }
+
+  /**
+   * The first 8 bytes of a transaction id. A collision only costs the receiver a fallback fetch,
+   * the rebuilt block has to match the merkle root of the header.
+   */
+  public static long shortId(Sha256Hash trxId) {
+    return Longs.fromByteArray(trxId.getBytes());
+  }
+
+  public BlockHeader getBlockHeader() {
+    return compactBlock.getBlockHeader();
+  }
+
+  public BlockId getBlockId() {
+    if (blockId == null) {
+      blockId = new BlockCapsule(Block.newBuilder().setBlockHeader(getBlockHeader()).build())
+          .getBlockId();
+    }
+    return blockId;
+  }
+
+  public int getTransactionCount() {
+    return compactBlock.getShortIdsCount();
+  }
+
+  public long getShortId(int index) {
+    return compactBlock.getShortIds(index);
+  }
+
+  public int getRetCount() {
+    return compactBlock.getRetsCount();
+  }
+
+  /**
+   * The transaction at index as it is in the block, with the ret the block carries.
+   */
+  public Transaction withRet(int index, Transaction transaction) {
+    List<Transaction.Result> ret = compactBlock.getRets(index).getRetList();
+    if (transaction.getRetList().equals(ret)) {
+      return transaction;
+    }
+    return transaction.toBuilder().clearRet().addAllRet(ret).build();
+  }
+
+  @Override
+  public Class<?> getAnswerMessage() {
+    return null;
+  }
+
+  @Override
+  public Sha256Hash getMessageId() {
+    return getBlockId();
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder().append(super.toString()).append(getBlockId().getString())
+        .append(", trx size: ").append(getTransactionCount()).append("\n").toString();
+  }
+}
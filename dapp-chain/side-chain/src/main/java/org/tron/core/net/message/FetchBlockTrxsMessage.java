@@ -0,0 +1,48 @@
+package org.tron.core.net.message;
+
+import java.util.List;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.protos.Protocol.FetchBlockTransactions;
+
+public class FetchBlockTrxsMessage extends TronMessage {
+
+  private FetchBlockTransactions fetchBlockTransactions;
+
+  public FetchBlockTrxsMessage(byte[] data) throws Exception {
+    super(data);
+    this.type = MessageTypes.FETCH_BLOCK_TRXS.asByte();
+    this.fetchBlockTransactions = FetchBlockTransactions.parseFrom(getCodedInputStream(data));
+    if (isFilter()) {
+      compareBytes(data, fetchBlockTransactions.getSerializedSize());
+    }
+  }
+
+  public FetchBlockTrxsMessage(BlockId blockId, List<Integer> indexes) {
+    this.fetchBlockTransactions = FetchBlockTransactions.newBuilder()
+        .setBlockId(blockId.getByteString())
+        .addAllIndexes(indexes)
+        .build();
+    this.type = MessageTypes.FETCH_BLOCK_TRXS.asByte();
+    this.data = fetchBlockTransactions.toByteArray();
+  }
+
+  public BlockId getBlockId() {
+    return new BlockId(Sha256Hash.wrap(fetchBlockTransactions.getBlockId()));
+  }
+
+  public List<Integer> getIndexes() {
+    return fetchBlockTransactions.getIndexesList();
+  }
+
+  @Override
+  public Class<?> getAnswerMessage() {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder().append(super.toString()).append(getBlockId().getString())
+        .append(", trx size: ").append(getIndexes().size()).toString();
+  }
+}
@@ -33,6 +33,12 @@ public enum MessageTypes {
 
   TRX_INVENTORY(0x13),
 
+  COMPACT_BLOCK(0x14),
+
+  FETCH_BLOCK_TRXS(0x15),
+
+  BLOCK_TRXS(0x16),
+
   P2P_HELLO(0x20),
 
   P2P_DISCONNECT(0x21),
@@ -82,7 +88,7 @@ public enum MessageTypes {
   }
 
   public static boolean inTronRange(byte code) {
-    return code <= TRX_INVENTORY.asByte() && code >= FIRST.asByte();
+    return code <= BLOCK_TRXS.asByte() && code >= FIRST.asByte();
   }
 
   @Override
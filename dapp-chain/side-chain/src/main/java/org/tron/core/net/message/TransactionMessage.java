@@ -16,16 +16,27 @@ public class TransactionMessage extends TronMessage {
     this.transactionCapsule = new TransactionCapsule(getCodedInputStream(data));
     this.type = MessageTypes.TRX.asByte();
     if (Message.isFilter()) {
-      compareBytes(data, transactionCapsule.getInstance().toByteArray());
+      compareBytes(data, transactionCapsule.getInstance().getSerializedSize());
       transactionCapsule
           .validContractProto(transactionCapsule.getInstance().getRawData().getContract(0));
     }
   }
 
+  /**
+   * The transaction is serialized on first use, most messages built from a block or a
+   * transactions message are only cached and never sent.
+   */
   public TransactionMessage(Transaction trx) {
     this.transactionCapsule = new TransactionCapsule(trx);
     this.type = MessageTypes.TRX.asByte();
-    this.data = trx.toByteArray();
+  }
+
+  @Override
+  public byte[] getData() {
+    if (data == null) {
+      data = transactionCapsule.getInstance().toByteArray();
+    }
+    return data;
   }
 
   @Override
@@ -11,19 +11,22 @@ public class TronMessageFactory extends MessageFactory {
 
   @Override
   public TronMessage create(byte[] data) throws Exception {
+    return create(data[0], ArrayUtils.subarray(data, 1, data.length));
+  }
+
+  @Override
+  public TronMessage create(byte type, byte[] rawData) throws Exception {
     try {
-      byte type = data[0];
-      byte[] rawData = ArrayUtils.subarray(data, 1, data.length);
-      return create(type, rawData);
+      return createMessage(type, rawData);
     } catch (final P2pException e) {
       throw e;
     } catch (final Exception e) {
       throw new P2pException(P2pException.TypeEnum.PARSE_MESSAGE_FAILED,
-          "type=" + data[0] + ", len=" + data.length + ", error msg: " + e.getMessage());
+          "type=" + type + ", len=" + (rawData.length + 1) + ", error msg: " + e.getMessage());
     }
   }
 
-  private TronMessage create(byte type, byte[] packed) throws Exception {
+  private TronMessage createMessage(byte type, byte[] packed) throws Exception {
     MessageTypes receivedTypes = MessageTypes.fromByte(type);
     if (receivedTypes == null) {
       throw new P2pException(P2pException.TypeEnum.NO_SUCH_MESSAGE,
@@ -52,6 +55,12 @@ public class TronMessageFactory extends MessageFactory {
         return new FetchBlockHeadersMessage(packed);
       case TRX_INVENTORY:
         return new TransactionInventoryMessage(packed);
+      case COMPACT_BLOCK:
+        return new CompactBlockMessage(packed);
+      case FETCH_BLOCK_TRXS:
+        return new FetchBlockTrxsMessage(packed);
+      case BLOCK_TRXS:
+        return new BlockTrxsMessage(packed);
       default:
         throw new P2pException(P2pException.TypeEnum.NO_SUCH_MESSAGE,
             receivedTypes.toString() + ", len=" + packed.length);
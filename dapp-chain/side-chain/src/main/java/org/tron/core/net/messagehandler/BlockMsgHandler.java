@@ -3,7 +3,16 @@ package org.tron.core.net.messagehandler;
 import static org.tron.core.config.Parameter.ChainConstant.BLOCK_PRODUCED_INTERVAL;
 import static org.tron.core.config.Parameter.ChainConstant.BLOCK_SIZE;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.core.capsule.BlockCapsule;
@@ -13,13 +22,18 @@ import org.tron.core.exception.P2pException;
 import org.tron.core.exception.P2pException.TypeEnum;
 import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.message.BlockTrxsMessage;
+import org.tron.core.net.message.CompactBlockMessage;
+import org.tron.core.net.message.FetchBlockTrxsMessage;
 import org.tron.core.net.message.TronMessage;
 import org.tron.core.net.peer.Item;
 import org.tron.core.net.peer.PeerConnection;
 import org.tron.core.net.service.AdvService;
 import org.tron.core.net.service.SyncService;
 import org.tron.core.services.WitnessProductBlockService;
+import org.tron.protos.Protocol.Block;
 import org.tron.protos.Protocol.Inventory.InventoryType;
+import org.tron.protos.Protocol.Transaction;
 
 @Slf4j(topic = "net")
 @Component
@@ -41,32 +55,147 @@ public class BlockMsgHandler implements TronMsgHandler {
 
   private boolean fastForward = Args.getInstance().isFastForward();
 
+  // compact blocks waiting for the transactions that were not in our cache, by the peer asked
+  private Cache<Pair<PeerConnection, BlockId>, PendingBlock> pendingBlocks = CacheBuilder
+      .newBuilder().maximumSize(1000).expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+  private static class PendingBlock {
+
+    private final PeerConnection peer;
+    private final CompactBlockMessage compactBlock;
+    private final Transaction[] transactions;
+    private List<Integer> missing;
+
+    PendingBlock(PeerConnection peer, CompactBlockMessage compactBlock) {
+      this.peer = peer;
+      this.compactBlock = compactBlock;
+      this.transactions = new Transaction[compactBlock.getTransactionCount()];
+    }
+  }
+
   @Override
   public void processMessage(PeerConnection peer, TronMessage msg) throws P2pException {
+    if (msg instanceof CompactBlockMessage) {
+      processCompactBlock(peer, (CompactBlockMessage) msg);
+    } else if (msg instanceof BlockTrxsMessage) {
+      processBlockTrxs(peer, (BlockTrxsMessage) msg);
+    } else {
+      processBlockMessage(peer, (BlockMessage) msg);
+    }
+  }
 
-    BlockMessage blockMessage = (BlockMessage) msg;
+  private void processBlockMessage(PeerConnection peer, BlockMessage blockMessage)
+      throws P2pException {
 
     check(peer, blockMessage);
 
     BlockId blockId = blockMessage.getBlockId();
     Item item = new Item(blockId, InventoryType.BLOCK);
-    if (peer.getSyncBlockRequested().containsKey(blockId)) {
-      peer.getSyncBlockRequested().remove(blockId);
+    Long requestTime = peer.getSyncBlockRequested().remove(blockId);
+    if (requestTime != null) {
+      peer.getPeerStats().syncBlockReceived(System.currentTimeMillis() - requestTime,
+          blockMessage.getData().length);
       syncService.processBlock(peer, blockMessage);
     } else {
       logger.info("Receive block {} from {}, cost {}ms", blockId.getString(), peer.getInetAddress(),
           System.currentTimeMillis() - peer.getAdvInvRequest().get(item));
       peer.getAdvInvRequest().remove(item);
-      processBlock(peer, blockMessage.getBlockCapsule());
+      processBlock(peer, blockMessage);
     }
   }
 
-  private void check(PeerConnection peer, BlockMessage msg) throws P2pException {
-    Item item = new Item(msg.getBlockId(), InventoryType.BLOCK);
-    if (!peer.getSyncBlockRequested().containsKey(msg.getBlockId()) && !peer.getAdvInvRequest()
-        .containsKey(item)) {
+  private void processCompactBlock(PeerConnection peer, CompactBlockMessage msg)
+      throws P2pException {
+    BlockId blockId = msg.getBlockId();
+    checkRequested(peer, blockId);
+    if (msg.getData().length > maxBlockSize) {
+      throw new P2pException(TypeEnum.BAD_MESSAGE, "block size over limit");
+    }
+    if (msg.getRetCount() != msg.getTransactionCount()) {
+      throw new P2pException(TypeEnum.BAD_MESSAGE, msg.getTransactionCount() + " trxs, "
+          + msg.getRetCount() + " rets");
+    }
+
+    PendingBlock pending = new PendingBlock(peer, msg);
+    List<Integer> missing = new ArrayList<>();
+    for (int i = 0; i < pending.transactions.length; i++) {
+      Transaction transaction = advService.getTransaction(msg.getShortId(i));
+      if (transaction == null) {
+        missing.add(i);
+      } else {
+        pending.transactions[i] = msg.withRet(i, transaction);
+      }
+    }
+
+    if (missing.isEmpty()) {
+      assemble(pending);
+    } else {
+      logger.info("Receive compact block {} from {}, fetch {} of {} trxs.", blockId.getString(),
+          peer.getInetAddress(), missing.size(), pending.transactions.length);
+      fetchMissing(pending, missing);
+    }
+  }
+
+  private void processBlockTrxs(PeerConnection peer, BlockTrxsMessage msg) throws P2pException {
+    BlockId blockId = msg.getBlockId();
+    Pair<PeerConnection, BlockId> key = Pair.of(peer, blockId);
+    PendingBlock pending = pendingBlocks.getIfPresent(key);
+    if (pending == null || pending.peer != peer) {
+      // expired, or the block came complete another way, the peer did nothing wrong
+      logger.info("Drop trxs of block {} from {}, no pending request.", blockId.getString(),
+          peer.getInetAddress());
+      return;
+    }
+    pendingBlocks.invalidate(key);
+
+    List<Transaction> transactions = msg.getTransactions();
+    if (transactions.size() != pending.missing.size()) {
+      throw new P2pException(TypeEnum.BAD_MESSAGE, "request " + pending.missing.size()
+          + " trxs, receive " + transactions.size());
+    }
+    for (int i = 0; i < transactions.size(); i++) {
+      int index = pending.missing.get(i);
+      pending.transactions[index] = pending.compactBlock.withRet(index, transactions.get(i));
+    }
+    assemble(pending);
+  }
+
+  private void fetchMissing(PendingBlock pending, List<Integer> missing) {
+    BlockId blockId = pending.compactBlock.getBlockId();
+    pending.missing = missing;
+    pendingBlocks.put(Pair.of(pending.peer, blockId), pending);
+    pending.peer.sendMessage(new FetchBlockTrxsMessage(blockId, missing));
+  }
+
+  private void assemble(PendingBlock pending) throws P2pException {
+    BlockCapsule block = new BlockCapsule(Block.newBuilder()
+        .setBlockHeader(pending.compactBlock.getBlockHeader())
+        .addAllTransactions(Arrays.asList(pending.transactions))
+        .build());
+    if (!block.calcMerkleRoot().equals(block.getMerkleRoot())) {
+      int count = pending.transactions.length;
+      if (pending.missing != null && pending.missing.size() == count) {
+        throw new P2pException(TypeEnum.BAD_MESSAGE,
+            "merkle root mismatch, block " + block.getBlockId().getString());
+      }
+      // a short id matched the wrong cached transaction, take them all from the peer
+      logger.info("Compact block {} does not match its merkle root, fetch all {} trxs.",
+          block.getBlockId().getString(), count);
+      fetchMissing(pending, IntStream.range(0, count).boxed().collect(Collectors.toList()));
+      return;
+    }
+    processBlockMessage(pending.peer, new BlockMessage(block));
+  }
+
+  private void checkRequested(PeerConnection peer, BlockId blockId) throws P2pException {
+    if (!peer.getSyncBlockRequested().containsKey(blockId) && !peer.getAdvInvRequest()
+        .containsKey(new Item(blockId, InventoryType.BLOCK))) {
       throw new P2pException(TypeEnum.BAD_MESSAGE, "no request");
     }
+  }
+
+  private void check(PeerConnection peer, BlockMessage msg) throws P2pException {
+    checkRequested(peer, msg.getBlockId());
     BlockCapsule blockCapsule = msg.getBlockCapsule();
     if (blockCapsule.getInstance().getSerializedSize() > maxBlockSize) {
       throw new P2pException(TypeEnum.BAD_MESSAGE, "block size over limit");
@@ -77,7 +206,8 @@ public class BlockMsgHandler implements TronMsgHandler {
     }
   }
 
-  private void processBlock(PeerConnection peer, BlockCapsule block) throws P2pException {
+  private void processBlock(PeerConnection peer, BlockMessage blockMessage) throws P2pException {
+    BlockCapsule block = blockMessage.getBlockCapsule();
     BlockId blockId = block.getBlockId();
     if (!tronNetDelegate.containBlock(block.getParentBlockId())) {
       logger.warn("Get unlink block {} from {}, head is {}.", blockId.getString(),
@@ -87,8 +217,9 @@ public class BlockMsgHandler implements TronMsgHandler {
       return;
     }
 
+    // relay the received message, its bytes are sent as they came in
     if (fastForward && tronNetDelegate.validBlock(block)) {
-      advService.broadcast(new BlockMessage(block));
+      advService.broadcast(blockMessage);
     }
 
     tronNetDelegate.processBlock(block);
@@ -100,7 +231,7 @@ public class BlockMsgHandler implements TronMsgHandler {
     });
 
     if (!fastForward) {
-      advService.broadcast(new BlockMessage(block));
+      advService.broadcast(blockMessage);
     }
   }
 
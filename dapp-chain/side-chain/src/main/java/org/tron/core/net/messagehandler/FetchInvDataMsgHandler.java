@@ -15,6 +15,8 @@ import org.tron.core.exception.P2pException;
 import org.tron.core.exception.P2pException.TypeEnum;
 import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.message.BlockTrxsMessage;
+import org.tron.core.net.message.FetchBlockTrxsMessage;
 import org.tron.core.net.message.FetchInvDataMessage;
 import org.tron.core.net.message.MessageTypes;
 import org.tron.core.net.message.TransactionMessage;
@@ -46,12 +48,20 @@ public class FetchInvDataMsgHandler implements TronMsgHandler {
   @Override
   public void processMessage(PeerConnection peer, TronMessage msg) throws P2pException {
 
+    if (msg instanceof FetchBlockTrxsMessage) {
+      processFetchBlockTrxs(peer, (FetchBlockTrxsMessage) msg);
+      return;
+    }
+
     FetchInvDataMessage fetchInvDataMsg = (FetchInvDataMessage) msg;
 
     check(peer, fetchInvDataMsg);
 
     InventoryType type = fetchInvDataMsg.getInventoryType();
     List<Transaction> transactions = Lists.newArrayList();
+    // advertised blocks are mostly made of transactions the peer already holds
+    boolean compact = type.equals(InventoryType.BLOCK) && peer.isCompactBlockSupported()
+        && isAdvFetch(peer, fetchInvDataMsg);
 
     int size = 0;
 
@@ -73,7 +83,7 @@ public class FetchInvDataMsgHandler implements TronMsgHandler {
         if (peer.getBlockBothHave().getNum() < blockId.getNum()) {
           peer.setBlockBothHave(blockId);
         }
-        peer.sendMessage(message);
+        peer.sendMessage(compact ? advService.getCompactBlock((BlockMessage) message) : message);
       } else {
         transactions.add(((TransactionMessage) message).getTransactionCapsule().getInstance());
         size += ((TransactionMessage) message).getTransactionCapsule().getInstance()
@@ -107,14 +117,7 @@ public class FetchInvDataMsgHandler implements TronMsgHandler {
             "maxCount: " + maxCount + ", fetchCount: " + fetchCount);
       }
     } else {
-      boolean isAdv = true;
-      for (Sha256Hash hash : fetchInvDataMsg.getHashList()) {
-        if (peer.getAdvInvSpread().getIfPresent(new Item(hash, InventoryType.BLOCK)) == null) {
-          isAdv = false;
-          break;
-        }
-      }
-      if (isAdv) {
+      if (isAdvFetch(peer, fetchInvDataMsg)) {
         MessageCount tronOutAdvBlock = peer.getNodeStatistics().messageStatistics.tronOutAdvBlock;
         tronOutAdvBlock.add(fetchInvDataMsg.getHashList().size());
         int outBlockCountIn1min = tronOutAdvBlock.getCount(60);
@@ -145,4 +148,50 @@ public class FetchInvDataMsgHandler implements TronMsgHandler {
     }
   }
 
+  private boolean isAdvFetch(PeerConnection peer, FetchInvDataMessage fetchInvDataMsg) {
+    for (Sha256Hash hash : fetchInvDataMsg.getHashList()) {
+      if (peer.getAdvInvSpread().getIfPresent(new Item(hash, InventoryType.BLOCK)) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Answers the transactions a peer could not find in its cache while rebuilding a compact block
+   * we sent.
+   */
+  private void processFetchBlockTrxs(PeerConnection peer, FetchBlockTrxsMessage msg)
+      throws P2pException {
+    BlockId blockId = msg.getBlockId();
+    Item item = new Item(blockId, InventoryType.BLOCK);
+    if (peer.getAdvInvSpread().getIfPresent(item) == null) {
+      throw new P2pException(TypeEnum.BAD_MESSAGE, "not spread block: " + blockId.getString());
+    }
+
+    Message message = advService.getMessage(item);
+    if (message == null) {
+      try {
+        message = tronNetDelegate.getData(blockId, InventoryType.BLOCK);
+      } catch (Exception e) {
+        logger.error("Fetch block {} trxs failed. reason: {}", blockId.getString(),
+            e.getMessage());
+        peer.disconnect(ReasonCode.FETCH_FAIL);
+        return;
+      }
+    }
+
+    List<Transaction> blockTrxs = ((BlockMessage) message).getBlockCapsule().getInstance()
+        .getTransactionsList();
+    List<Transaction> transactions = Lists.newArrayList();
+    for (int index : msg.getIndexes()) {
+      if (index < 0 || index >= blockTrxs.size()) {
+        throw new P2pException(TypeEnum.BAD_MESSAGE,
+            "block " + blockId.getString() + " has no trx " + index);
+      }
+      transactions.add(blockTrxs.get(index));
+    }
+    peer.sendMessage(new BlockTrxsMessage(blockId, transactions));
+  }
+
 }
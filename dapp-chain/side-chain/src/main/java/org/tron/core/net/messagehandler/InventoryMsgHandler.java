@@ -39,6 +39,9 @@ public class InventoryMsgHandler implements TronMsgHandler {
     for (Sha256Hash id : inventoryMessage.getHashList()) {
       Item item = new Item(id, type);
       peer.getAdvInvReceive().put(item, System.currentTimeMillis());
+      if (type.equals(InventoryType.TRX)) {
+        peer.getKnownTrxs().put(id.getBytes());
+      }
       advService.addInv(item);
     }
   }
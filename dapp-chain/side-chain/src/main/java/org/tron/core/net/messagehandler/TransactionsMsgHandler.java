@@ -1,17 +1,24 @@
 package org.tron.core.net.messagehandler;
 
-import com.googlecode.cqengine.query.simple.In;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ExecutorService;
+import com.google.protobuf.ByteString;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.tron.core.capsule.TransactionCapsule;
 import org.tron.core.config.args.Args;
 import org.tron.core.exception.P2pException;
 import org.tron.core.exception.P2pException.TypeEnum;
@@ -39,22 +46,79 @@ public class TransactionsMsgHandler implements TronMsgHandler {
 
   private static int MAX_TRX_SIZE = 50_000;
 
-  private static int MAX_SMART_CONTRACT_SUBMIT_SIZE = 100;
+  private static int MAX_TRX_PER_PEER = 10_000;
+
+  private static int MAX_TRX_PER_SENDER = 1_000;
+
+  // gateway calls are counted apart, the oracles send many, but anyone can aim a call at a gateway
+  private static int MAX_GATEWAY_TRX_PER_SENDER = 2_000;
 
 //  private static int TIME_OUT = 10 * 60 * 1000;
 
-  private BlockingQueue<TrxEvent> smartContractQueue = new LinkedBlockingQueue(MAX_TRX_SIZE);
+  /**
+   * Admission classes, in the order they are handled. A transaction first waits unverified, the
+   * sender and the gateway a call aims at are only trusted once a worker has checked the
+   * signatures, so the sender quota and the class are taken after that and the transaction is
+   * queued again. Gateway calls carry deposits and the oracle confirmations of the side chain,
+   * plain system contracts are cheap to apply, smart contracts are the expensive ones and are
+   * ordered by the fee they are willing to burn. A smart contract only reaches a worker when no
+   * transaction of a higher class waits, which takes the place of the former throttle that fed
+   * them to the workers 100 at a time.
+   */
+  public enum Priority {
+    UNVERIFIED,
+    GATEWAY,
+    SYSTEM,
+    SMART_CONTRACT
+  }
 
-  private BlockingQueue<Runnable> queue = new LinkedBlockingQueue();
+  private static final Comparator<Runnable> ORDER = Comparator
+      .comparing((Runnable r) -> ((TrxEvent) r).getPriority())
+      .thenComparing(r -> ((TrxEvent) r).getPriority() == Priority.SMART_CONTRACT
+          ? -((TrxEvent) r).getFeeLimit() : 0L)
+      .thenComparingLong(r -> ((TrxEvent) r).getSeq());
+
+  private PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>(1024, ORDER);
 
   private int threadNum = Args.getInstance().getValidateSignThreadNum();
-  private ExecutorService trxHandlePool = new ThreadPoolExecutor(threadNum, threadNum, 0L,
+  private ThreadPoolExecutor trxHandlePool = new ThreadPoolExecutor(threadNum, threadNum, 0L,
       TimeUnit.MILLISECONDS, queue);
 
-  private ScheduledExecutorService smartContractExecutor = Executors
-      .newSingleThreadScheduledExecutor();
+  private ScheduledExecutorService statsExecutor = Executors.newSingleThreadScheduledExecutor();
+
+  private final AtomicLong seq = new AtomicLong();
+
+  private final Map<PeerConnection, AtomicInteger> peerQueued = new ConcurrentHashMap<>();
+
+  private final Map<ByteString, AtomicInteger> senderQueued = new ConcurrentHashMap<>();
+
+  private final Map<ByteString, AtomicInteger> gatewaySenderQueued = new ConcurrentHashMap<>();
+
+  private final Map<Priority, AtomicInteger> priorityQueued = new EnumMap<>(Priority.class);
+
+  @Getter
+  private final AtomicLong admittedCount = new AtomicLong();
 
-  class TrxEvent {
+  @Getter
+  private final AtomicLong queueFullDropCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong peerQuotaDropCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong senderQuotaDropCount = new AtomicLong();
+
+  private final AtomicLong handledCount = new AtomicLong();
+
+  private final AtomicLong queueWait = new AtomicLong();
+
+  {
+    for (Priority priority : Priority.values()) {
+      priorityQueued.put(priority, new AtomicInteger());
+    }
+  }
+
+  class TrxEvent implements Runnable {
 
     @Getter
     private PeerConnection peer;
@@ -62,24 +126,49 @@ public class TransactionsMsgHandler implements TronMsgHandler {
     private TransactionMessage msg;
     @Getter
     private long time;
+    @Getter
+    @Setter
+    private Priority priority = Priority.UNVERIFIED;
+    @Getter
+    @Setter
+    private ByteString sender;
+    @Getter
+    private long feeLimit;
+    @Getter
+    private long seq;
 
-    public TrxEvent(PeerConnection peer, TransactionMessage msg) {
+    public TrxEvent(PeerConnection peer, TransactionMessage msg, long seq) {
       this.peer = peer;
       this.msg = msg;
+      this.feeLimit = msg.getTransactionCapsule().getInstance().getRawData().getFeeLimit();
+      this.seq = seq;
       this.time = System.currentTimeMillis();
     }
+
+    @Override
+    public void run() {
+      if (priority == Priority.UNVERIFIED) {
+        verify(this);
+        return;
+      }
+      release(this);
+      queueWait.addAndGet(System.currentTimeMillis() - time);
+      handledCount.incrementAndGet();
+      handleTransaction(peer, msg);
+    }
   }
 
   public void init() {
-    handleSmartContract();
+    statsExecutor.scheduleWithFixedDelay(this::logStats, 60, 60, TimeUnit.SECONDS);
   }
 
   public void close() {
-    smartContractExecutor.shutdown();
+    statsExecutor.shutdown();
+    trxHandlePool.shutdown();
   }
 
   public boolean isBusy() {
-    return queue.size() + smartContractQueue.size() > MAX_TRX_SIZE;
+    return queue.size() >= MAX_TRX_SIZE;
   }
 
   @Override
@@ -87,19 +176,144 @@ public class TransactionsMsgHandler implements TronMsgHandler {
     TransactionsMessage transactionsMessage = (TransactionsMessage) msg;
     check(peer, transactionsMessage);
     for (Transaction trx : transactionsMessage.getTransactions().getTransactionsList()) {
-      int type = trx.getRawData().getContract(0).getType().getNumber();
-      if (type == ContractType.TriggerSmartContract_VALUE
-          || type == ContractType.CreateSmartContract_VALUE) {
-        if (!smartContractQueue.offer(new TrxEvent(peer, new TransactionMessage(trx)))) {
-          logger.warn("Add smart contract failed, queueSize {}:{}", smartContractQueue.size(),
-              queue.size());
-        }
-      } else {
-        trxHandlePool.submit(() -> handleTransaction(peer, new TransactionMessage(trx)));
+      TrxEvent event = new TrxEvent(peer, new TransactionMessage(trx), seq.incrementAndGet());
+      if (admit(event)) {
+        submit(event);
       }
     }
   }
 
+  private void submit(TrxEvent event) {
+    try {
+      trxHandlePool.execute(event);
+    } catch (RejectedExecutionException e) {
+      release(event);
+      logger.warn("Drop trx {} from {}, the handler is closed.", event.getMsg().getMessageId(),
+          event.getPeer().getInetAddress());
+    }
+  }
+
+  /**
+   * Checks the signatures of an unverified event, then charges its sender and queues it again in
+   * its class. A transaction that fails the check gives back its peer slot and is dropped.
+   */
+  private void verify(TrxEvent event) {
+    priorityQueued.get(Priority.UNVERIFIED).decrementAndGet();
+    PeerConnection peer = event.getPeer();
+    TransactionMessage trx = event.getMsg();
+    if (peer.isDisconnect()) {
+      release(peerQueued, peer);
+      logger.warn("Drop trx {} from {}, peer is disconnect.", trx.getMessageId(),
+          peer.getInetAddress());
+      return;
+    }
+    try {
+      tronNetDelegate.validateSignature(trx.getTransactionCapsule());
+    } catch (P2pException e) {
+      release(peerQueued, peer);
+      logger.warn("Trx {} from peer {} process failed. type: {}, reason: {}",
+          trx.getMessageId(), peer.getInetAddress(), e.getType(), e.getMessage());
+      return;
+    }
+    Transaction.Contract contract = trx.getTransactionCapsule().getInstance().getRawData()
+        .getContract(0);
+    byte[] owner = TransactionCapsule.getOwner(contract);
+    event.setPriority(priorityOf(contract));
+    event.setSender(owner == null ? null : ByteString.copyFrom(owner));
+    if (event.getSender() != null && !acquire(senderQueuedOf(event), event.getSender(),
+        event.getPriority() == Priority.GATEWAY ? MAX_GATEWAY_TRX_PER_SENDER
+            : MAX_TRX_PER_SENDER)) {
+      release(peerQueued, peer);
+      senderQuotaDropCount.incrementAndGet();
+      logger.debug("Drop trx {} from {}, sender is over quota.", trx.getMessageId(),
+          peer.getInetAddress());
+      return;
+    }
+    priorityQueued.get(event.getPriority()).incrementAndGet();
+    submit(event);
+  }
+
+  private Priority priorityOf(Transaction.Contract contract) {
+    int type = contract.getType().getNumber();
+    if (type == ContractType.TriggerSmartContract_VALUE) {
+      return tronNetDelegate.isGatewayContractCall(contract)
+          ? Priority.GATEWAY : Priority.SMART_CONTRACT;
+    }
+    if (type == ContractType.CreateSmartContract_VALUE) {
+      return Priority.SMART_CONTRACT;
+    }
+    return Priority.SYSTEM;
+  }
+
+  /**
+   * Takes a queue slot for the event, or drops it when the queue or its peer is over quota. Only
+   * the peer is charged here, the owner of an unverified transaction may be forged.
+   */
+  private boolean admit(TrxEvent event) {
+    if (queue.size() >= MAX_TRX_SIZE) {
+      queueFullDropCount.incrementAndGet();
+      logger.debug("Drop trx {} from {}, queue is full.", event.getMsg().getMessageId(),
+          event.getPeer().getInetAddress());
+      return false;
+    }
+    if (!acquire(peerQueued, event.getPeer(), MAX_TRX_PER_PEER)) {
+      peerQuotaDropCount.incrementAndGet();
+      logger.debug("Drop trx {} from {}, peer is over quota.", event.getMsg().getMessageId(),
+          event.getPeer().getInetAddress());
+      return false;
+    }
+    priorityQueued.get(event.getPriority()).incrementAndGet();
+    admittedCount.incrementAndGet();
+    return true;
+  }
+
+  private void release(TrxEvent event) {
+    release(peerQueued, event.getPeer());
+    if (event.getSender() != null) {
+      release(senderQueuedOf(event), event.getSender());
+    }
+    priorityQueued.get(event.getPriority()).decrementAndGet();
+  }
+
+  private Map<ByteString, AtomicInteger> senderQueuedOf(TrxEvent event) {
+    return event.getPriority() == Priority.GATEWAY ? gatewaySenderQueued : senderQueued;
+  }
+
+  private static <K> boolean acquire(Map<K, AtomicInteger> counts, K key, int quota) {
+    AtomicInteger count = counts.computeIfAbsent(key, k -> new AtomicInteger());
+    if (count.incrementAndGet() > quota) {
+      count.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  private static <K> void release(Map<K, AtomicInteger> counts, K key) {
+    counts.computeIfPresent(key, (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+  }
+
+  public int getQueueSize() {
+    return queue.size();
+  }
+
+  public int getQueueSize(Priority priority) {
+    return priorityQueued.get(priority).get();
+  }
+
+  public long getAvgQueueWait() {
+    long count = handledCount.get();
+    return count == 0 ? 0 : queueWait.get() / count;
+  }
+
+  private void logStats() {
+    logger.info("Trx queue stats, size: {}, unverified: {}, gateway: {}, system: {}, "
+            + "smart contract: {}, admitted: {}, dropped full: {}, peer quota: {}, "
+            + "sender quota: {}, avg wait: {}ms.",
+        getQueueSize(), getQueueSize(Priority.UNVERIFIED), getQueueSize(Priority.GATEWAY), getQueueSize(Priority.SYSTEM),
+        getQueueSize(Priority.SMART_CONTRACT), admittedCount.get(), queueFullDropCount.get(),
+        peerQuotaDropCount.get(), senderQuotaDropCount.get(), getAvgQueueWait());
+  }
+
   private void check(PeerConnection peer, TransactionsMessage msg) throws P2pException {
     for (Transaction trx : msg.getTransactions().getTransactionsList()) {
       Item item = new Item(new TransactionMessage(trx).getMessageId(), InventoryType.TRX);
@@ -108,22 +322,10 @@ public class TransactionsMsgHandler implements TronMsgHandler {
             "trx: " + msg.getMessageId() + " without request.");
       }
       peer.getAdvInvRequest().remove(item);
+      peer.getKnownTrxs().put(item.getHash().getBytes());
     }
   }
 
-  private void handleSmartContract() {
-    smartContractExecutor.scheduleWithFixedDelay(() -> {
-      try {
-        while (queue.size() < MAX_SMART_CONTRACT_SUBMIT_SIZE) {
-          TrxEvent event = smartContractQueue.take();
-          trxHandlePool.submit(() -> handleTransaction(event.getPeer(), event.getMsg()));
-        }
-      } catch (Exception e) {
-        logger.error("Handle smart contract exception.", e);
-      }
-    }, 1000, 20, TimeUnit.MILLISECONDS);
-  }
-
   private void handleTransaction(PeerConnection peer, TransactionMessage trx) {
     if (peer.isDisconnect()) {
       logger.warn("Drop trx {} from {}, peer is disconnect.", trx.getMessageId(),
@@ -21,9 +21,11 @@ import org.springframework.stereotype.Component;
 import org.tron.common.overlay.message.HelloMessage;
 import org.tron.common.overlay.message.Message;
 import org.tron.common.overlay.server.Channel;
+import org.tron.common.utils.RollingBloomFilter;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.config.Parameter.NodeConstant;
+import org.tron.core.config.args.Args;
 import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.service.AdvService;
 import org.tron.core.net.service.SyncService;
@@ -44,6 +46,8 @@ public class PeerConnection extends Channel {
 
   private int invCacheSize = 100_000;
 
+  private static final int KNOWN_TRX_CAPACITY = 50_000;
+
   @Setter
   @Getter
   private BlockId signUpErrorBlockId;
@@ -66,6 +70,10 @@ public class PeerConnection extends Channel {
   @Getter
   private Map<Item, Long> advInvRequest = new ConcurrentHashMap<>();
 
+  // transaction ids the peer already has, announced by it, sent by it or announced to it
+  @Getter
+  private RollingBloomFilter knownTrxs = new RollingBloomFilter(KNOWN_TRX_CAPACITY, 0.001);
+
   @Getter
   private BlockId blockBothHave = new BlockId();
 
@@ -117,6 +125,11 @@ public class PeerConnection extends Channel {
     return advInvRequest.isEmpty() && syncBlockRequested.isEmpty() && syncChainRequested == null;
   }
 
+  public boolean isCompactBlockSupported() {
+    return Args.getInstance().isCompactBlockRelay() && helloMessage != null
+        && helloMessage.isCompactBlock();
+  }
+
   public void sendMessage(Message message) {
     msgQueue.sendMessage(message);
   }
@@ -16,6 +16,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -29,12 +31,14 @@ import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.config.args.Args;
 import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.message.CompactBlockMessage;
 import org.tron.core.net.message.FetchInvDataMessage;
 import org.tron.core.net.message.InventoryMessage;
 import org.tron.core.net.message.TransactionMessage;
 import org.tron.core.net.peer.Item;
 import org.tron.core.net.peer.PeerConnection;
 import org.tron.protos.Protocol.Inventory.InventoryType;
+import org.tron.protos.Protocol.Transaction;
 
 @Slf4j(topic = "net")
 @Component
@@ -43,19 +47,41 @@ public class AdvService {
   @Autowired
   private TronNetDelegate tronNetDelegate;
 
-  private ConcurrentHashMap<Item, Long> invToFetch = new ConcurrentHashMap<>();
+  // segments of the inventory caches, every network thread adds to them
+  private static final int CONCURRENCY_LEVEL = 16;
 
-  private ConcurrentHashMap<Item, Long> invToSpread = new ConcurrentHashMap<>();
+  // queued items that flush the queue without waiting for the timer
+  private static final int FETCH_FLUSH_SIZE = MAX_TRX_FETCH_PER_PEER;
+
+  private static final int SPREAD_FLUSH_SIZE = 200;
+
+  private static final long MAX_TRX_SPREAD_DELAY = 100;
+
+  private ConcurrentHashMap<Item, Long> invToFetch = new ConcurrentHashMap<>(1024, 0.75f,
+      CONCURRENCY_LEVEL);
+
+  private ConcurrentHashMap<Item, Long> invToSpread = new ConcurrentHashMap<>(1024, 0.75f,
+      CONCURRENCY_LEVEL);
 
   private Cache<Item, Long> invToFetchCache = CacheBuilder.newBuilder()
-      .maximumSize(100_000).expireAfterWrite(1, TimeUnit.HOURS).recordStats().build();
+      .maximumSize(100_000).expireAfterWrite(1, TimeUnit.HOURS)
+      .concurrencyLevel(CONCURRENCY_LEVEL).recordStats().build();
 
   private Cache<Item, Message> trxCache = CacheBuilder.newBuilder()
-      .maximumSize(50_000).expireAfterWrite(1, TimeUnit.HOURS).recordStats().build();
+      .maximumSize(50_000).expireAfterWrite(1, TimeUnit.HOURS)
+      .concurrencyLevel(CONCURRENCY_LEVEL).recordStats().build();
 
   private Cache<Item, Message> blockCache = CacheBuilder.newBuilder()
       .maximumSize(10).expireAfterWrite(1, TimeUnit.MINUTES).recordStats().build();
 
+  // ids of the cached transactions by compact block short id, to rebuild compact blocks
+  private Cache<Long, Item> trxShortIdCache = CacheBuilder.newBuilder()
+      .maximumSize(50_000).expireAfterWrite(1, TimeUnit.HOURS)
+      .concurrencyLevel(CONCURRENCY_LEVEL).recordStats().build();
+
+  private Cache<Item, CompactBlockMessage> compactBlockCache = CacheBuilder.newBuilder()
+      .maximumSize(10).expireAfterWrite(1, TimeUnit.MINUTES).recordStats().build();
+
   private ScheduledExecutorService spreadExecutor = Executors.newSingleThreadScheduledExecutor();
 
   private ScheduledExecutorService fetchExecutor = Executors.newSingleThreadScheduledExecutor();
@@ -65,6 +91,27 @@ public class AdvService {
 
   private int maxSpreadSize = 1_000;
 
+  private final Object fetchLock = new Object();
+
+  private final Object spreadLock = new Object();
+
+  private final AtomicBoolean fetchScheduled = new AtomicBoolean(false);
+
+  private final AtomicBoolean spreadScheduled = new AtomicBoolean(false);
+
+  // inventories dropped because the item is already cached or being fetched
+  @Getter
+  private final AtomicLong invDedupCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong spreadItemCount = new AtomicLong();
+
+  // announcements skipped because the peer already has the item
+  @Getter
+  private final AtomicLong spreadDedupCount = new AtomicLong();
+
+  private final AtomicLong spreadLatency = new AtomicLong();
+
   private boolean fastForward = Args.getInstance().isFastForward();
 
   public void init() {
@@ -88,6 +135,8 @@ public class AdvService {
         logger.error("Fetch thread error.", t);
       }
     }, 100, 30, TimeUnit.MILLISECONDS);
+
+    fetchExecutor.scheduleWithFixedDelay(this::logStats, 60, 60, TimeUnit.SECONDS);
   }
 
   public void close() {
@@ -95,31 +144,39 @@ public class AdvService {
     fetchExecutor.shutdown();
   }
 
-  synchronized public boolean addInv(Item item) {
+  /**
+   * Queues an advertised item for fetching. Called by the network threads for every inventory of
+   * every peer, so it takes no lock: the fetch cache decides atomically which call wins an item.
+   */
+  public boolean addInv(Item item) {
 
     if (fastForward && !InventoryType.BLOCK.equals(item.getType())) {
       return false;
     }
 
-    if (invToFetchCache.getIfPresent(item) != null) {
-      return false;
-    }
-
     if (item.getType().equals(InventoryType.TRX)) {
       if (trxCache.getIfPresent(item) != null) {
+        invDedupCount.incrementAndGet();
         return false;
       }
     } else {
       if (blockCache.getIfPresent(item) != null) {
+        invDedupCount.incrementAndGet();
         return false;
       }
     }
 
-    invToFetchCache.put(item, System.currentTimeMillis());
-    invToFetch.put(item, System.currentTimeMillis());
+    long now = System.currentTimeMillis();
+    if (invToFetchCache.asMap().putIfAbsent(item, now) != null) {
+      invDedupCount.incrementAndGet();
+      return false;
+    }
+    invToFetch.put(item, now);
 
     if (InventoryType.BLOCK.equals(item.getType())) {
       consumerInvToFetch();
+    } else if (invToFetch.size() >= FETCH_FLUSH_SIZE) {
+      triggerFetch();
     }
 
     return true;
@@ -133,6 +190,33 @@ public class AdvService {
     }
   }
 
+  /**
+   * The cached transaction with the given compact block short id, or null.
+   */
+  public Transaction getTransaction(long shortId) {
+    Item item = trxShortIdCache.getIfPresent(shortId);
+    if (item == null) {
+      return null;
+    }
+    TransactionMessage message = (TransactionMessage) trxCache.getIfPresent(item);
+    return message == null ? null : message.getTransactionCapsule().getInstance();
+  }
+
+  public CompactBlockMessage getCompactBlock(BlockMessage blockMessage) {
+    Item item = new Item(blockMessage.getMessageId(), InventoryType.BLOCK);
+    CompactBlockMessage compactBlock = compactBlockCache.getIfPresent(item);
+    if (compactBlock == null) {
+      compactBlock = new CompactBlockMessage(blockMessage.getBlockCapsule());
+      compactBlockCache.put(item, compactBlock);
+    }
+    return compactBlock;
+  }
+
+  private void cacheTransaction(Item item, Message msg) {
+    trxCache.put(item, msg);
+    trxShortIdCache.put(CompactBlockMessage.shortId(item.getHash()), item);
+  }
+
   public void broadcast(Message msg) {
 
     if (fastForward && !(msg instanceof BlockMessage)) {
@@ -152,7 +236,7 @@ public class AdvService {
       blockMsg.getBlockCapsule().getTransactions().forEach(transactionCapsule -> {
         Sha256Hash tid = transactionCapsule.getTransactionId();
         invToSpread.remove(tid);
-        trxCache.put(new Item(tid, InventoryType.TRX),
+        cacheTransaction(new Item(tid, InventoryType.TRX),
             new TransactionMessage(transactionCapsule.getInstance()));
       });
       blockCache.put(item, msg);
@@ -160,7 +244,7 @@ public class AdvService {
       TransactionMessage trxMsg = (TransactionMessage) msg;
       item = new Item(trxMsg.getMessageId(), InventoryType.TRX);
       trxCount.add();
-      trxCache.put(item,
+      cacheTransaction(item,
           new TransactionMessage(((TransactionMessage) msg).getTransactionCapsule().getInstance()));
     } else {
       logger.error("Adv item is neither block nor trx, type: {}", msg.getType());
@@ -171,9 +255,57 @@ public class AdvService {
 
     if (InventoryType.BLOCK.equals(item.getType())) {
       consumerInvToSpread();
+    } else if (invToSpread.size() >= SPREAD_FLUSH_SIZE) {
+      triggerSpread();
+    }
+  }
+
+  public int getFetchQueueSize() {
+    return invToFetch.size();
+  }
+
+  public int getSpreadQueueSize() {
+    return invToSpread.size();
+  }
+
+  public long getAvgSpreadLatency() {
+    long count = spreadItemCount.get();
+    return count == 0 ? 0 : spreadLatency.get() / count;
+  }
+
+  private void triggerFetch() {
+    if (!fetchExecutor.isShutdown() && fetchScheduled.compareAndSet(false, true)) {
+      fetchExecutor.execute(() -> {
+        fetchScheduled.set(false);
+        try {
+          consumerInvToFetch();
+        } catch (Throwable t) {
+          logger.error("Fetch thread error.", t);
+        }
+      });
     }
   }
 
+  private void triggerSpread() {
+    if (!spreadExecutor.isShutdown() && spreadScheduled.compareAndSet(false, true)) {
+      spreadExecutor.execute(() -> {
+        spreadScheduled.set(false);
+        try {
+          consumerInvToSpread();
+        } catch (Throwable t) {
+          logger.error("Spread thread error.", t);
+        }
+      });
+    }
+  }
+
+  private void logStats() {
+    logger.info("Adv stats, fetch queue: {}, spread queue: {}, dedup hits: {}, "
+            + "spread items: {}, spread skipped: {}, avg spread latency: {}ms.",
+        getFetchQueueSize(), getSpreadQueueSize(), invDedupCount.get(), spreadItemCount.get(),
+        spreadDedupCount.get(), getAvgSpreadLatency());
+  }
+
   public void onDisconnect(PeerConnection peer) {
     if (!peer.getAdvInvRequest().isEmpty()) {
       peer.getAdvInvRequest().keySet().forEach(item -> {
@@ -191,7 +323,13 @@ public class AdvService {
     }
   }
 
-  synchronized private void consumerInvToFetch() {
+  private void consumerInvToFetch() {
+    synchronized (fetchLock) {
+      fetchInv();
+    }
+  }
+
+  private void fetchInv() {
     Collection<PeerConnection> peers = tronNetDelegate.getActivePeer().stream()
         .filter(peer -> peer.isIdle())
         .collect(Collectors.toList());
@@ -224,7 +362,13 @@ public class AdvService {
     invSender.sendFetch();
   }
 
-  synchronized private void consumerInvToSpread() {
+  private void consumerInvToSpread() {
+    synchronized (spreadLock) {
+      spreadInv();
+    }
+  }
+
+  private void spreadInv() {
 
     List<PeerConnection> peers = tronNetDelegate.getActivePeer().stream()
         .filter(peer -> !peer.isNeedSyncFromPeer() && !peer.isNeedSyncFromUs())
@@ -234,20 +378,60 @@ public class AdvService {
       return;
     }
 
+    long now = System.currentTimeMillis();
+    if (!isSpreadBatchReady(now)) {
+      return;
+    }
+
     InvSender invSender = new InvSender();
 
-    invToSpread.forEach((item, time) -> peers.forEach(peer -> {
-      if (peer.getAdvInvReceive().getIfPresent(item) == null &&
-          peer.getAdvInvSpread().getIfPresent(item) == null) {
+    invToSpread.forEach((item, time) -> {
+      peers.forEach(peer -> {
+        if (isKnown(peer, item)) {
+          spreadDedupCount.incrementAndGet();
+          return;
+        }
         peer.getAdvInvSpread().put(item, Time.getCurrentMillis());
+        if (InventoryType.TRX.equals(item.getType())) {
+          peer.getKnownTrxs().put(item.getHash().getBytes());
+        }
         invSender.add(item, peer);
+      });
+      if (invToSpread.remove(item, time)) {
+        spreadItemCount.incrementAndGet();
+        spreadLatency.addAndGet(now - time);
       }
-      invToSpread.remove(item);
-    }));
+    });
 
     invSender.sendInv();
   }
 
+  /**
+   * Transactions are announced in batches: right away with a block or once SPREAD_FLUSH_SIZE
+   * items wait, otherwise when the oldest one has waited MAX_TRX_SPREAD_DELAY. Under load the
+   * size bound fires first, when quiet the delay bounds the latency.
+   */
+  private boolean isSpreadBatchReady(long now) {
+    if (invToSpread.size() >= SPREAD_FLUSH_SIZE) {
+      return true;
+    }
+    for (Entry<Item, Long> entry : invToSpread.entrySet()) {
+      if (InventoryType.BLOCK.equals(entry.getKey().getType())
+          || now - entry.getValue() >= MAX_TRX_SPREAD_DELAY) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isKnown(PeerConnection peer, Item item) {
+    if (InventoryType.TRX.equals(item.getType())) {
+      return peer.getKnownTrxs().mightContain(item.getHash().getBytes());
+    }
+    return peer.getAdvInvReceive().getIfPresent(item) != null
+        || peer.getAdvInvSpread().getIfPresent(item) != null;
+  }
+
   class InvSender {
 
     private HashMap<PeerConnection, HashMap<InventoryType, LinkedList<Sha256Hash>>> send = new HashMap<>();
@@ -5,24 +5,32 @@ import static org.tron.core.config.Parameter.NetConstants.MAX_BLOCK_FETCH_PER_PE
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import javafx.util.Pair;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.common.overlay.server.Channel.TronState;
+import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.BlockCapsule;
 import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.config.Parameter.NodeConstant;
+import org.tron.core.config.args.Args;
 import org.tron.core.exception.P2pException;
 import org.tron.core.exception.P2pException.TypeEnum;
 import org.tron.core.net.TronNetDelegate;
@@ -48,6 +56,15 @@ public class SyncService {
       .expireAfterWrite(1, TimeUnit.HOURS).initialCapacity(10_000)
       .recordStats().build();
 
+  // sync blocks already handed to the handler, so the copy of a re-requested straggler that
+  // arrives second is dropped instead of waiting for a peer that will never expect it
+  private Cache<BlockId, Long> receivedBlockIds = CacheBuilder.newBuilder().maximumSize(10_000)
+      .expireAfterWrite(10, TimeUnit.MINUTES).build();
+
+  // stragglers already asked from a second peer
+  private Cache<BlockId, Long> reRequestedBlockIds = CacheBuilder.newBuilder()
+      .maximumSize(10_000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+
   private ScheduledExecutorService fetchExecutor = Executors.newSingleThreadScheduledExecutor();
 
   private ScheduledExecutorService blockHandleExecutor = Executors
@@ -55,31 +72,33 @@ public class SyncService {
 
   private volatile boolean handleFlag = false;
 
-  @Setter
   private volatile boolean fetchFlag = false;
 
+  // set while a fetch / handle pass is queued on its executor, so bursts of events coalesce
+  private final AtomicBoolean fetchScheduled = new AtomicBoolean(false);
+
+  private final AtomicBoolean handleScheduled = new AtomicBoolean(false);
+
+  // blocks kept in flight to one peer, as a number of fetch batches
+  private final int fetchWindow = Math.max(1, Args.getInstance().getSyncFetchWindow());
+
+  // a requested block is a straggler once it is this many times later than the peer's average
+  private static final int STRAGGLER_LATENCY_FACTOR = 3;
+
+  private static final long STRAGGLER_MIN_WAIT_MS = 2_000;
+
   public void init() {
+    // block arrival drives fetching and handling directly, the periodic passes only pick up
+    // work that no event announced, such as ids freed by a timed out peer
     fetchExecutor.scheduleWithFixedDelay(() -> {
-      try {
-        if (fetchFlag) {
-          fetchFlag = false;
-          startFetchSyncBlock();
-        }
-      } catch (Throwable t) {
-        logger.error("Fetch sync block error.", t);
-      }
-    }, 10, 1, TimeUnit.SECONDS);
-
-    blockHandleExecutor.scheduleWithFixedDelay(() -> {
-      try {
-        if (handleFlag) {
-          handleFlag = false;
-          handleSyncBlock();
-        }
-      } catch (Throwable t) {
-        logger.error("Handle sync block error.", t);
+      // stragglers produce no event, look for them while anything is in flight
+      if (tronNetDelegate.getActivePeer().stream()
+          .anyMatch(peer -> !peer.getSyncBlockRequested().isEmpty())) {
+        fetchFlag = true;
       }
+      fetch();
     }, 10, 1, TimeUnit.SECONDS);
+    blockHandleExecutor.scheduleWithFixedDelay(this::handle, 10, 1, TimeUnit.SECONDS);
   }
 
   public void close() {
@@ -87,6 +106,51 @@ public class SyncService {
     blockHandleExecutor.shutdown();
   }
 
+  /**
+   * Asks for a fetch round as soon as the fetch thread is free.
+   */
+  public void triggerFetch() {
+    fetchFlag = true;
+    if (!fetchExecutor.isShutdown() && fetchScheduled.compareAndSet(false, true)) {
+      fetchExecutor.execute(() -> {
+        fetchScheduled.set(false);
+        fetch();
+      });
+    }
+  }
+
+  private void triggerHandle() {
+    handleFlag = true;
+    if (!blockHandleExecutor.isShutdown() && handleScheduled.compareAndSet(false, true)) {
+      blockHandleExecutor.execute(() -> {
+        handleScheduled.set(false);
+        handle();
+      });
+    }
+  }
+
+  private void fetch() {
+    try {
+      if (fetchFlag) {
+        fetchFlag = false;
+        startFetchSyncBlock();
+      }
+    } catch (Throwable t) {
+      logger.error("Fetch sync block error.", t);
+    }
+  }
+
+  private void handle() {
+    try {
+      if (handleFlag) {
+        handleFlag = false;
+        handleSyncBlock();
+      }
+    } catch (Throwable t) {
+      logger.error("Handle sync block error.", t);
+    }
+  }
+
   public void startSync(PeerConnection peer) {
     peer.setTronState(TronState.SYNCING);
     peer.setNeedSyncFromPeer(true);
@@ -112,17 +176,18 @@ public class SyncService {
   }
 
   public void processBlock(PeerConnection peer, BlockMessage blockMessage) {
-    synchronized (blockJustReceived) {
-      blockJustReceived.put(blockMessage, peer);
+    if (receivedBlockIds.asMap()
+        .putIfAbsent(blockMessage.getBlockId(), System.currentTimeMillis()) != null) {
+      triggerFetch();
+      return;
     }
-    handleFlag = true;
-    if (peer.isIdle()) {
-      if (peer.getRemainNum() > 0
-          && peer.getSyncBlockToFetch().size() <= NodeConstant.SYNC_FETCH_BATCH_NUM) {
-        syncNext(peer);
-      } else {
-        fetchFlag = true;
-      }
+    blockJustReceived.put(blockMessage, peer);
+    triggerHandle();
+    if (peer.isIdle() && peer.getRemainNum() > 0
+        && peer.getSyncBlockToFetch().size() <= NodeConstant.SYNC_FETCH_BATCH_NUM) {
+      syncNext(peer);
+    } else {
+      triggerFetch();
     }
   }
 
@@ -134,7 +199,9 @@ public class SyncService {
 
   private void invalid(BlockId blockId) {
     requestBlockIds.invalidate(blockId);
-    fetchFlag = true;
+    receivedBlockIds.invalidate(blockId);
+    reRequestedBlockIds.invalidate(blockId);
+    triggerFetch();
   }
 
   private LinkedList<BlockId> getBlockChainSummary(PeerConnection peer) throws Exception {
@@ -189,67 +256,155 @@ public class SyncService {
     return summary;
   }
 
-  private void startFetchSyncBlock() {
-    HashMap<PeerConnection, List<BlockId>> send = new HashMap<>();
+  private boolean canFetchFrom(PeerConnection peer) {
+    return peer.isNeedSyncFromPeer() && peer.getSyncChainRequested() == null
+        && peer.getAdvInvRequest().isEmpty();
+  }
 
-    tronNetDelegate.getActivePeer().stream()
-        .filter(peer -> peer.isNeedSyncFromPeer() && peer.isIdle())
-        .forEach(peer -> {
-          if (!send.containsKey(peer)) {
-            send.put(peer, new LinkedList<>());
-          }
-          for (BlockId blockId : peer.getSyncBlockToFetch()) {
-            if (requestBlockIds.getIfPresent(blockId) == null) {
-              requestBlockIds.put(blockId, System.currentTimeMillis());
-              peer.getSyncBlockRequested().put(blockId, System.currentTimeMillis());
-              send.get(peer).add(blockId);
-              if (send.get(peer).size() >= MAX_BLOCK_FETCH_PER_PEER) {
-                break;
-              }
-            }
+  /**
+   * Blocks a peer may have in flight. Measured peers get a share of the window in proportion to
+   * how fast they deliver compared to the best one, peers not measured yet get the full window
+   * so they get the chance to show their speed.
+   */
+  private int windowOf(PeerConnection peer, double bestScore) {
+    int window = fetchWindow * MAX_BLOCK_FETCH_PER_PEER;
+    if (!peer.getPeerStats().isSyncMeasured() || bestScore <= 0) {
+      return window;
+    }
+    return Math.max(MAX_BLOCK_FETCH_PER_PEER / 2,
+        (int) (window * peer.getPeerStats().getSyncScore() / bestScore));
+  }
+
+  private void startFetchSyncBlock() {
+    List<PeerConnection> peers = tronNetDelegate.getActivePeer().stream()
+        .filter(this::canFetchFrom)
+        .sorted(Comparator.comparing((PeerConnection peer) -> peer.getPeerStats().isSyncMeasured())
+            .thenComparing(peer -> peer.getPeerStats().getSyncScore(), Comparator.reverseOrder()))
+        .collect(Collectors.toList());
+    double bestScore = peers.stream().mapToDouble(peer -> peer.getPeerStats().getSyncScore())
+        .max().orElse(0);
+    long now = System.currentTimeMillis();
+
+    Map<PeerConnection, List<Sha256Hash>> send = new HashMap<>();
+    reRequestStragglers(peers, bestScore, now, send);
+
+    Map<PeerConnection, Iterator<BlockId>> cursors = new HashMap<>();
+    peers.forEach(peer -> cursors.put(peer, peer.getSyncBlockToFetch().iterator()));
+
+    // one batch per peer per round, fastest first, so peers holding the same chain fetch
+    // disjoint ranges side by side instead of the first peer taking its whole window
+    boolean assigned = true;
+    while (assigned) {
+      assigned = false;
+      for (PeerConnection peer : peers) {
+        List<Sha256Hash> blockIds = send.computeIfAbsent(peer, p -> new LinkedList<>());
+        int room = windowOf(peer, bestScore) - peer.getSyncBlockRequested().size();
+        // top up in large batches, a message per received block would flood the peer
+        if (room <= 0 || (room < MAX_BLOCK_FETCH_PER_PEER / 2
+            && !peer.getSyncBlockRequested().isEmpty())) {
+          continue;
+        }
+        int limit = blockIds.size() + Math.min(room, MAX_BLOCK_FETCH_PER_PEER);
+        Iterator<BlockId> cursor = cursors.get(peer);
+        while (cursor.hasNext() && blockIds.size() < limit) {
+          BlockId blockId = cursor.next();
+          if (requestBlockIds.getIfPresent(blockId) == null) {
+            requestBlockIds.put(blockId, now);
+            peer.getSyncBlockRequested().put(blockId, now);
+            blockIds.add(blockId);
+            assigned = true;
           }
-        });
+        }
+      }
+    }
 
     send.forEach((peer, blockIds) -> {
       if (!blockIds.isEmpty()) {
-        peer.sendMessage(new FetchInvDataMessage(new LinkedList<>(blockIds), InventoryType.BLOCK));
+        peer.sendMessage(new FetchInvDataMessage(blockIds, InventoryType.BLOCK));
       }
     });
   }
 
-  private synchronized void handleSyncBlock() {
-
-    synchronized (blockJustReceived) {
-      blockWaitToProcess.putAll(blockJustReceived);
-      blockJustReceived.clear();
+  /**
+   * Asks a faster peer for blocks another peer is holding up. The slow peer keeps its request,
+   * whichever copy arrives second is dropped by processBlock.
+   */
+  private void reRequestStragglers(List<PeerConnection> peers, double bestScore, long now,
+      Map<PeerConnection, List<Sha256Hash>> send) {
+    if (peers.size() < 2) {
+      return;
     }
+    // the fetch deques are long, each one is copied to a set at most once per call
+    Map<PeerConnection, Set<BlockId>> toFetch = new HashMap<>();
+    for (PeerConnection slow : tronNetDelegate.getActivePeer()) {
+      long maxWait = Math.max(STRAGGLER_MIN_WAIT_MS,
+          (long) (STRAGGLER_LATENCY_FACTOR * slow.getPeerStats().getAvgBlockLatency()));
+      for (Map.Entry<BlockId, Long> entry : slow.getSyncBlockRequested().entrySet()) {
+        BlockId blockId = entry.getKey();
+        if (now - entry.getValue() < maxWait
+            || reRequestedBlockIds.getIfPresent(blockId) != null) {
+          continue;
+        }
+        for (PeerConnection fast : peers) {
+          if (fast == slow || fast.getSyncBlockRequested().containsKey(blockId)
+              || fast.getSyncBlockRequested().size() >= windowOf(fast, bestScore)
+              || !toFetch.computeIfAbsent(fast, p -> new HashSet<>(p.getSyncBlockToFetch()))
+              .contains(blockId)) {
+            continue;
+          }
+          logger.debug("Re-request straggler block {} from {}, waited {}ms on {}.",
+              blockId.getString(), fast.getInetAddress(), now - entry.getValue(),
+              slow.getInetAddress());
+          reRequestedBlockIds.put(blockId, now);
+          fast.getSyncBlockRequested().put(blockId, now);
+          send.computeIfAbsent(fast, p -> new LinkedList<>()).add(blockId);
+          break;
+        }
+      }
+    }
+  }
 
-    final boolean[] isProcessed = {true};
-
-    while (isProcessed[0]) {
+  private synchronized void handleSyncBlock() {
+    Iterator<Map.Entry<BlockMessage, PeerConnection>> received =
+        blockJustReceived.entrySet().iterator();
+    while (received.hasNext()) {
+      Map.Entry<BlockMessage, PeerConnection> entry = received.next();
+      blockWaitToProcess.put(entry.getKey(), entry.getValue());
+      received.remove();
+    }
 
-      isProcessed[0] = false;
+    Map<BlockId, BlockMessage> waiting = new HashMap<>();
+    blockWaitToProcess.forEach((msg, peerConnection) -> {
+      if (peerConnection.isDisconnect()) {
+        blockWaitToProcess.remove(msg);
+        invalid(msg.getBlockId());
+      } else {
+        waiting.put(msg.getBlockId(), msg);
+      }
+    });
 
-      blockWaitToProcess.forEach((msg, peerConnection) -> {
-        if (peerConnection.isDisconnect()) {
-          blockWaitToProcess.remove(msg);
-          invalid(msg.getBlockId());
-          return;
+    // a block is processed once it is the next one some peer expects, which keeps the chain
+    // order no matter in which order the batches of different peers arrived
+    boolean isProcessed = true;
+    while (isProcessed && !waiting.isEmpty()) {
+      isProcessed = false;
+      Collection<PeerConnection> peers = tronNetDelegate.getActivePeer();
+      for (PeerConnection peer : peers) {
+        BlockId next = peer.getSyncBlockToFetch().peek();
+        BlockMessage msg = next == null ? null : waiting.remove(next);
+        if (msg == null) {
+          continue;
         }
-        final boolean[] isFound = {false};
-        tronNetDelegate.getActivePeer().stream()
-            .filter(peer -> msg.getBlockId().equals(peer.getSyncBlockToFetch().peek()))
-            .forEach(peer -> {
-              peer.getSyncBlockToFetch().pop();
-              peer.getSyncBlockInProcess().add(msg.getBlockId());
-              isFound[0] = true;
+        peers.stream()
+            .filter(p -> next.equals(p.getSyncBlockToFetch().peek()))
+            .forEach(p -> {
+              p.getSyncBlockToFetch().pop();
+              p.getSyncBlockInProcess().add(next);
             });
-        if (isFound[0]) {
-          blockWaitToProcess.remove(msg);
-          isProcessed[0] = true;
-          processSyncBlock(msg.getBlockCapsule());
-        }
-      });
+        blockWaitToProcess.remove(msg);
+        isProcessed = true;
+        processSyncBlock(msg.getBlockCapsule());
+      }
     }
   }
 
@@ -274,6 +429,10 @@ public class SyncService {
         }
       }
     }
+    // a block that failed must be fetched again, not dropped as a copy already received
+    if (!flag) {
+      invalid(blockId);
+    }
   }
 
 }
@@ -0,0 +1,251 @@
+package org.tron.core.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.tron.core.Wallet;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.Manager;
+import org.tron.core.services.http.JsonFormat;
+import org.tron.core.services.http.Util;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.TransactionInfo;
+
+/**
+ * Answers of the block and transaction queries, shared by the http and grpc apis. The grpc api
+ * gets the immutable message itself, the http api its json rendering as utf-8 bytes. Only data at
+ * or below the solidified block is kept, it can no longer change with a fork, so an entry never
+ * has to be invalidated and is only evicted by size.
+ */
+@Slf4j(topic = "API")
+@Component
+public class ApiResponseCache {
+
+  public enum Endpoint {
+    BLOCK_BY_NUM,
+    BLOCK_BY_ID,
+    TRANSACTION_BY_ID,
+    TRANSACTION_INFO_BY_ID
+  }
+
+  private enum Format {
+    PROTO,
+    JSON,
+    JSON_VISIBLE
+  }
+
+  private static final class Key {
+
+    private final Endpoint endpoint;
+    private final Object id;
+    private final Format format;
+
+    private Key(Endpoint endpoint, Object id, Format format) {
+      this.endpoint = endpoint;
+      this.id = id;
+      this.format = format;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return endpoint == key.endpoint && format == key.format && id.equals(key.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(endpoint, id, format);
+    }
+  }
+
+  @Autowired
+  private Wallet wallet;
+
+  @Autowired
+  private Manager dbManager;
+
+  private final boolean enabled;
+
+  // a Message for PROTO keys, the json bytes for the others
+  private final Cache<Key, Object> cache;
+
+  public ApiResponseCache() {
+    long maxBytes = Args.getInstance().getApiResponseCacheSize() * 1024L * 1024L;
+    enabled = maxBytes > 0;
+    cache = CacheBuilder.newBuilder().maximumWeight(Math.max(maxBytes, 0))
+        .weigher(ApiResponseCache::weigh).recordStats().build();
+  }
+
+  private static int weigh(Key key, Object value) {
+    // the serialized size stands for the message, it is computed once and kept by protobuf
+    return value instanceof Message ? ((Message) value).getSerializedSize()
+        : ((byte[]) value).length;
+  }
+
+  /**
+   * The block with this number, from the cache when it is solidified.
+   */
+  public Block getBlockByNum(long num) {
+    return getMessage(Endpoint.BLOCK_BY_NUM, num);
+  }
+
+  public Block getBlockById(ByteString id) {
+    return getMessage(Endpoint.BLOCK_BY_ID, id);
+  }
+
+  public Transaction getTransactionById(ByteString id) {
+    return getMessage(Endpoint.TRANSACTION_BY_ID, id);
+  }
+
+  public TransactionInfo getTransactionInfoById(ByteString id) {
+    return getMessage(Endpoint.TRANSACTION_INFO_BY_ID, id);
+  }
+
+  /**
+   * The http rendering of a query, null when there is no such block or transaction.
+   */
+  public String getJson(Endpoint endpoint, Object id, boolean visible) {
+    StringBuilder out = new StringBuilder();
+    try {
+      return writeJson(endpoint, id, visible, out) ? out.toString() : null;
+    } catch (IOException e) {
+      throw new RuntimeException(
+          "Writing to a StringBuilder threw an IOException (should never happen).", e);
+    }
+  }
+
+  /**
+   * Writes the http rendering of a query to {@code out}, returns false and writes nothing when
+   * there is no such block or transaction. On a miss the rendering goes straight to {@code out},
+   * a solidified one is kept as it is written.
+   */
+  public boolean writeJson(Endpoint endpoint, Object id, boolean visible, Appendable out)
+      throws IOException {
+    Key key = new Key(endpoint, id, visible ? Format.JSON_VISIBLE : Format.JSON);
+    byte[] cached = enabled ? (byte[]) cache.getIfPresent(key) : null;
+    if (cached != null) {
+      out.append(new String(cached, StandardCharsets.UTF_8));
+      return true;
+    }
+    Message message = load(endpoint, id);
+    if (message == null) {
+      return false;
+    }
+    if (!isSolidified(endpoint, id, message)) {
+      render(message, visible, out);
+      return true;
+    }
+    StringBuilder written = new StringBuilder();
+    render(message, visible, new Appendable() {
+      @Override
+      public Appendable append(CharSequence csq) throws IOException {
+        written.append(csq);
+        out.append(csq);
+        return this;
+      }
+
+      @Override
+      public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        written.append(csq, start, end);
+        out.append(csq, start, end);
+        return this;
+      }
+
+      @Override
+      public Appendable append(char c) throws IOException {
+        written.append(c);
+        out.append(c);
+        return this;
+      }
+    });
+    cache.put(key, written.toString().getBytes(StandardCharsets.UTF_8));
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Message> T getMessage(Endpoint endpoint, Object id) {
+    Key key = new Key(endpoint, id, Format.PROTO);
+    Object cached = enabled ? cache.getIfPresent(key) : null;
+    if (cached != null) {
+      return (T) cached;
+    }
+    Message message = load(endpoint, id);
+    if (message != null && isSolidified(endpoint, id, message)) {
+      cache.put(key, message);
+    }
+    return (T) message;
+  }
+
+  private Message load(Endpoint endpoint, Object id) {
+    switch (endpoint) {
+      case BLOCK_BY_NUM:
+        return wallet.getBlockByNum((Long) id);
+      case BLOCK_BY_ID:
+        return wallet.getBlockById((ByteString) id);
+      case TRANSACTION_BY_ID:
+        return wallet.getTransactionById((ByteString) id);
+      case TRANSACTION_INFO_BY_ID:
+        return wallet.getTransactionInfoById((ByteString) id);
+      default:
+        throw new IllegalArgumentException("unknown endpoint " + endpoint);
+    }
+  }
+
+  private static void render(Message message, boolean visible, Appendable out)
+      throws IOException {
+    if (message instanceof Block) {
+      Util.printBlock((Block) message, visible, out);
+    } else if (message instanceof Transaction) {
+      Util.printTransaction((Transaction) message, visible, out);
+    } else {
+      out.append(JsonFormat.printToString(message, visible));
+    }
+  }
+
+  private boolean isSolidified(Endpoint endpoint, Object id, Message message) {
+    if (!enabled) {
+      return false;
+    }
+    long num;
+    switch (endpoint) {
+      case BLOCK_BY_NUM:
+      case BLOCK_BY_ID:
+        num = ((Block) message).getBlockHeader().getRawData().getNumber();
+        break;
+      case TRANSACTION_INFO_BY_ID:
+        num = ((TransactionInfo) message).getBlockNumber();
+        break;
+      default:
+        // a transaction does not know its block, its info does
+        TransactionInfo info = getTransactionInfoById((ByteString) id);
+        if (info == null) {
+          return false;
+        }
+        num = info.getBlockNumber();
+    }
+    return num <= dbManager.getDynamicPropertiesStore().getLatestSolidifiedBlockNum();
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public long getSize() {
+    return cache.size();
+  }
+}
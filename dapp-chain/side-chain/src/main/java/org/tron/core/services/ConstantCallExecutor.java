@@ -0,0 +1,323 @@
+package org.tron.core.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.tron.common.runtime.RuntimeImpl;
+import org.tron.common.runtime.vm.program.invoke.ProgramInvokeFactoryImpl;
+import org.tron.common.storage.DepositImpl;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.Manager;
+import org.tron.core.exception.ContractExeException;
+import org.tron.core.exception.ContractValidateException;
+import org.tron.core.exception.HeaderNotFound;
+import org.tron.core.exception.VMIllegalException;
+import org.tron.protos.Protocol.Transaction;
+
+/**
+ * Runs the constant contract calls on a pool of their own, so read-only calls queue up there
+ * instead of in the api threads, and a full queue turns calls away at once. A call reads the
+ * head state, or the solidified state with onSolidity, and its result is cached for a short
+ * while by call and block, the same call on the same block is answered without the vm.
+ */
+@Slf4j(topic = "API")
+@Component
+public class ConstantCallExecutor {
+
+  /**
+   * What a constant call returned, enough to build its api reply.
+   */
+  @Getter
+  public static class Result {
+
+    private final ByteString returnData;
+    private final String runtimeError;
+    private final boolean revert;
+    /**
+     * Why the call failed, only set in the results of a batch.
+     */
+    private final Exception exception;
+
+    public Result(ByteString returnData, String runtimeError, boolean revert) {
+      this.returnData = returnData;
+      this.runtimeError = runtimeError;
+      this.revert = revert;
+      this.exception = null;
+    }
+
+    public Result(Exception exception) {
+      this.returnData = ByteString.EMPTY;
+      this.runtimeError = null;
+      this.revert = false;
+      this.exception = exception;
+    }
+  }
+
+  public static final int MAX_BATCH_SIZE = 100;
+
+  private static final int BATCH_ATTEMPTS = 3;
+
+  @Autowired
+  private Manager dbManager;
+
+  private final ThreadPoolExecutor executor;
+
+  private final long timeout;
+
+  private final boolean onSolidity;
+
+  private final Cache<ByteString, Result> cache;
+
+  @Getter
+  private final AtomicLong callCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong cacheHitCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  @Getter
+  private final AtomicLong timeoutCount = new AtomicLong();
+
+  public ConstantCallExecutor() {
+    this(Args.getInstance().getConstantCallThreads(), Args.getInstance().getConstantCallQueueSize(),
+        Args.getInstance().getConstantCallTimeout(), Args.getInstance().getConstantCallCacheTtl(),
+        Args.getInstance().isConstantCallOnSolidity());
+  }
+
+  public ConstantCallExecutor(int threads, int queueSize, long timeout, long cacheTtl,
+      boolean onSolidity) {
+    threads = Math.max(threads, 1);
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(queueSize, 1)),
+        new ThreadFactoryBuilder().setNameFormat("constant-call-%d").setDaemon(true).build());
+    this.timeout = timeout > 0 ? timeout : 2000;
+    this.onSolidity = onSolidity;
+    this.cache = cacheTtl > 0 ? CacheBuilder.newBuilder()
+        .expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS).maximumSize(100_000).build() : null;
+  }
+
+  /**
+   * Runs a constant call, waiting at most timeout ms for it, queueing included.
+   */
+  public Result call(Transaction trx)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    callCount.incrementAndGet();
+    ByteString callKey = getCallKey(trx);
+    if (cache != null) {
+      Result cached = cache.getIfPresent(getLatestBlockKey().concat(callKey));
+      if (cached != null) {
+        cacheHitCount.incrementAndGet();
+        return cached;
+      }
+    }
+
+    Future<Result> future;
+    try {
+      future = executor.submit(() -> execute(trx, callKey, null));
+    } catch (RejectedExecutionException e) {
+      rejectedCount.incrementAndGet();
+      throw new ContractValidateException("too many constant calls, try again later");
+    }
+    return await(future, System.currentTimeMillis() + timeout);
+  }
+
+  /**
+   * Runs a batch of constant calls in parallel, all on the same block, and returns their
+   * results in order; a call that failed has its exception as result. When a new block comes in
+   * while the batch runs, the batch runs again on it, so the results belong to one block. With
+   * onSolidity that is one consistent state, the head state also moves with the pending
+   * transactions. The whole batch takes at most timeout ms.
+   */
+  public List<Result> callAll(List<Transaction> trxs)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    if (trxs.size() > MAX_BATCH_SIZE) {
+      throw new ContractValidateException("at most " + MAX_BATCH_SIZE + " calls in a batch");
+    }
+    callCount.addAndGet(trxs.size());
+    long deadline = System.currentTimeMillis() + timeout;
+    List<Result> results = new ArrayList<>();
+    BlockCapsule block = getLatestBlock(deadline);
+    for (int attempt = 0; attempt < BATCH_ATTEMPTS; attempt++) {
+      results = callAll(trxs, block, deadline);
+      BlockCapsule latest = getLatestBlock(deadline);
+      if (getBlockKey(latest).equals(getBlockKey(block))) {
+        break;
+      }
+      block = latest;
+    }
+    return results;
+  }
+
+  private List<Result> callAll(List<Transaction> trxs, BlockCapsule block, long deadline) {
+    ByteString blockKey = getBlockKey(block);
+    List<Result> results = new ArrayList<>(trxs.size());
+    List<Future<Result>> futures = new ArrayList<>(trxs.size());
+    for (Transaction trx : trxs) {
+      ByteString callKey = getCallKey(trx);
+      Result result = cache == null ? null : cache.getIfPresent(blockKey.concat(callKey));
+      Future<Result> future = null;
+      if (result != null) {
+        cacheHitCount.incrementAndGet();
+      } else {
+        try {
+          future = executor.submit(() -> execute(trx, callKey, block));
+        } catch (RejectedExecutionException e) {
+          rejectedCount.incrementAndGet();
+          result = new Result(
+              new ContractValidateException("too many constant calls, try again later"));
+        }
+      }
+      results.add(result);
+      futures.add(future);
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      if (futures.get(i) != null) {
+        try {
+          results.set(i, await(futures.get(i), deadline));
+        } catch (Exception e) {
+          results.set(i, new Result(e));
+        }
+      }
+    }
+    return results;
+  }
+
+  private BlockCapsule getLatestBlock(long deadline)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    try {
+      // the block is read on a worker, which reads in the mode of the executor
+      return await(executor.submit(() -> {
+        dbManager.setMode(!onSolidity);
+        return readLatestBlock();
+      }), deadline);
+    } catch (RejectedExecutionException e) {
+      rejectedCount.incrementAndGet();
+      throw new ContractValidateException("too many constant calls, try again later");
+    }
+  }
+
+  private <T> T await(Future<T> future, long deadline)
+      throws ContractValidateException, ContractExeException, HeaderNotFound, VMIllegalException {
+    try {
+      return future.get(Math.max(deadline - System.currentTimeMillis(), 0),
+          TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // a running call still ends at the cpu time limit of the vm
+      future.cancel(true);
+      timeoutCount.incrementAndGet();
+      throw new ContractExeException("constant call timed out after " + timeout + "ms");
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ContractExeException("constant call interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ContractValidateException) {
+        throw (ContractValidateException) cause;
+      } else if (cause instanceof ContractExeException) {
+        throw (ContractExeException) cause;
+      } else if (cause instanceof HeaderNotFound) {
+        throw (HeaderNotFound) cause;
+      } else if (cause instanceof VMIllegalException) {
+        throw (VMIllegalException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ContractExeException(cause.getMessage());
+    }
+  }
+
+  private Result execute(Transaction trx, ByteString callKey, BlockCapsule block)
+      throws Exception {
+    dbManager.setMode(!onSolidity);
+    if (block == null) {
+      block = readLatestBlock();
+    }
+    Result result = run(trx, block);
+    if (cache != null) {
+      cache.put(getBlockKey(block).concat(callKey), result);
+    }
+    return result;
+  }
+
+  private BlockCapsule readLatestBlock() throws HeaderNotFound {
+    List<BlockCapsule> blocks = dbManager.getBlockStore().getBlockByLatestNum(1);
+    if (CollectionUtils.isEmpty(blocks)) {
+      throw new HeaderNotFound("latest block not found");
+    }
+    return blocks.get(0);
+  }
+
+  Result run(Transaction trx, BlockCapsule block)
+      throws ContractValidateException, ContractExeException, VMIllegalException {
+    RuntimeImpl runtime = new RuntimeImpl(trx, block, DepositImpl.createRoot(dbManager),
+        new ProgramInvokeFactoryImpl(), true);
+    // the global flag belongs to block processing, a call takes it from the state it reads
+    runtime.setVmResourceChargingOn(
+        dbManager.getDynamicPropertiesStore().getChargingSwitch() == 1);
+    runtime.execute();
+    runtime.go();
+    runtime.finalization();
+    if (runtime.getResult().getException() != null) {
+      RuntimeException e = runtime.getResult().getException();
+      logger.warn("Constant call has error {}", e.getMessage());
+      throw e;
+    }
+    return new Result(ByteString.copyFrom(runtime.getResult().getHReturn()),
+        runtime.getRuntimeError(), runtime.getResult().isRevert());
+  }
+
+  /**
+   * What tells a call apart within a block: the contract call and the fee limit, which bounds
+   * the energy the call may use.
+   */
+  private static ByteString getCallKey(Transaction trx) {
+    return trx.getRawData().getContract(0).getParameter().getValue()
+        .concat(ByteString.copyFrom(Longs.toByteArray(trx.getRawData().getFeeLimit())));
+  }
+
+  /**
+   * The head block is told by its id, a fork may put another block at the same height; a
+   * solidified block never changes, its number is enough.
+   */
+  private ByteString getBlockKey(BlockCapsule block) {
+    return onSolidity ? ByteString.copyFrom(Longs.toByteArray(block.getNum()))
+        : block.getBlockId().getByteString();
+  }
+
+  private ByteString getLatestBlockKey() {
+    return onSolidity ? ByteString.copyFrom(Longs.toByteArray(
+        dbManager.getDynamicPropertiesStore().getLatestSolidifiedBlockNum()))
+        : dbManager.getDynamicPropertiesStore().getLatestBlockHeaderHash().getByteString();
+  }
+
+  public int getQueueSize() {
+    return executor.getQueue().size();
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+  }
+}
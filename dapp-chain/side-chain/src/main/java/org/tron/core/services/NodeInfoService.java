@@ -155,6 +155,9 @@ public class NodeInfoService {
       peerInfo.setSyncToFetchSizePeekNum(peerConnection.getSyncBlockToFetch().size() > 0
           ? peerConnection.getSyncBlockToFetch().peek().getNum() : -1);
       peerInfo.setUnFetchSynNum(peerConnection.getRemainNum());
+      peerInfo.setSyncBlockLatency(peerConnection.getPeerStats().getAvgBlockLatency());
+      peerInfo.setSyncBandwidth(peerConnection.getPeerStats().getBlockBandwidth());
+      peerInfo.setSyncScore(peerConnection.getPeerStats().getSyncScore());
       totalFlow += peerConnection.getNodeStatistics().tcpFlow.getTotalCount();
       peerInfoList.add(peerInfo);
     }
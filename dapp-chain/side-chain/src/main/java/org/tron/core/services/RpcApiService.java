@@ -4,15 +4,19 @@ import com.google.common.base.Preconditions;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 import io.grpc.Server;
+import io.grpc.Status;
 import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Hex;
@@ -40,6 +44,8 @@ import org.tron.api.GrpcAPI.EasyTransferByPrivateMessage;
 import org.tron.api.GrpcAPI.EasyTransferMessage;
 import org.tron.api.GrpcAPI.EasyTransferResponse;
 import org.tron.api.GrpcAPI.EmptyMessage;
+import org.tron.api.GrpcAPI.LogFilter;
+import org.tron.api.GrpcAPI.LogList;
 import org.tron.api.GrpcAPI.Node;
 import org.tron.api.GrpcAPI.NodeList;
 import org.tron.api.GrpcAPI.NumberMessage;
@@ -52,6 +58,7 @@ import org.tron.api.GrpcAPI.TransactionExtention;
 import org.tron.api.GrpcAPI.TransactionList;
 import org.tron.api.GrpcAPI.TransactionListExtention;
 import org.tron.api.GrpcAPI.TransactionSignWeight;
+import org.tron.api.GrpcAPI.TriggerSmartContractList;
 import org.tron.api.GrpcAPI.WitnessList;
 import org.tron.api.WalletExtensionGrpc;
 import org.tron.api.WalletGrpc.WalletImplBase;
@@ -117,6 +124,9 @@ public class RpcApiService implements Service {
   @Autowired
   private NodeInfoService nodeInfoService;
 
+  @Autowired
+  private ApiResponseCache responseCache;
+
   @Getter
   private DatabaseApi databaseApi = new DatabaseApi();
   private WalletApi walletApi = new WalletApi();
@@ -372,7 +382,7 @@ public class RpcApiService implements Service {
     public void getBlockByNum(NumberMessage request, StreamObserver<Block> responseObserver) {
       long num = request.getNum();
       if (num >= 0) {
-        Block reply = wallet.getBlockByNum(num);
+        Block reply = responseCache.getBlockByNum(num);
         responseObserver.onNext(reply);
       } else {
         responseObserver.onNext(null);
@@ -385,7 +395,7 @@ public class RpcApiService implements Service {
         StreamObserver<BlockExtention> responseObserver) {
       long num = request.getNum();
       if (num >= 0) {
-        Block reply = wallet.getBlockByNum(num);
+        Block reply = responseCache.getBlockByNum(num);
         responseObserver.onNext(block2Extention(reply));
       } else {
         responseObserver.onNext(null);
@@ -450,7 +460,7 @@ public class RpcApiService implements Service {
         StreamObserver<Transaction> responseObserver) {
       ByteString id = request.getValue();
       if (null != id) {
-        Transaction reply = wallet.getTransactionById(id);
+        Transaction reply = responseCache.getTransactionById(id);
 
         responseObserver.onNext(reply);
       } else {
@@ -464,7 +474,7 @@ public class RpcApiService implements Service {
         StreamObserver<TransactionInfo> responseObserver) {
       ByteString id = request.getValue();
       if (null != id) {
-        TransactionInfo reply = wallet.getTransactionInfoById(id);
+        TransactionInfo reply = responseCache.getTransactionInfoById(id);
 
         responseObserver.onNext(reply);
       } else {
@@ -1207,14 +1217,14 @@ public class RpcApiService implements Service {
 
     @Override
     public void getBlockByNum(NumberMessage request, StreamObserver<Block> responseObserver) {
-      responseObserver.onNext(wallet.getBlockByNum(request.getNum()));
+      responseObserver.onNext(responseCache.getBlockByNum(request.getNum()));
       responseObserver.onCompleted();
     }
 
     @Override
     public void getBlockByNum2(NumberMessage request,
         StreamObserver<BlockExtention> responseObserver) {
-      Block block = wallet.getBlockByNum(request.getNum());
+      Block block = responseCache.getBlockByNum(request.getNum());
       responseObserver.onNext(block2Extention(block));
       responseObserver.onCompleted();
     }
@@ -1389,7 +1399,7 @@ public class RpcApiService implements Service {
       ByteString blockId = request.getValue();
 
       if (Objects.nonNull(blockId)) {
-        responseObserver.onNext(wallet.getBlockById(blockId));
+        responseObserver.onNext(responseCache.getBlockById(blockId));
       } else {
         responseObserver.onNext(null);
       }
@@ -1451,6 +1461,41 @@ public class RpcApiService implements Service {
       responseObserver.onCompleted();
     }
 
+    @Override
+    public void streamBlocks(BlockLimit request, StreamObserver<Block> responseObserver) {
+      long startNum = request.getStartNum();
+      long endNum = request.getEndNum();
+      if (startNum < 0 || endNum <= startNum) {
+        responseObserver.onError(Status.INVALID_ARGUMENT
+            .withDescription("need 0 <= startNum < endNum").asRuntimeException());
+        return;
+      }
+
+      // blocks are only read while the client keeps up, so memory stays flat for any range
+      ServerCallStreamObserver<Block> observer =
+          (ServerCallStreamObserver<Block>) responseObserver;
+      Iterator<Block> blocks = wallet.getBlockIterator(startNum, endNum);
+      AtomicBoolean done = new AtomicBoolean();
+      observer.setOnCancelHandler(() -> done.set(true));
+      observer.setOnReadyHandler(() -> {
+        try {
+          while (observer.isReady() && !done.get()) {
+            if (!blocks.hasNext()) {
+              done.set(true);
+              observer.onCompleted();
+              return;
+            }
+            observer.onNext(blocks.next());
+          }
+        } catch (Exception e) {
+          logger.error("Stream blocks from {} to {} failed.", startNum, endNum, e);
+          if (done.compareAndSet(false, true)) {
+            observer.onError(Status.INTERNAL.withDescription(e.getMessage()).asRuntimeException());
+          }
+        }
+      });
+    }
+
     @Override
     public void getBlockByLatestNum(NumberMessage request,
         StreamObserver<BlockList> responseObserver) {
@@ -1483,7 +1528,7 @@ public class RpcApiService implements Service {
       ByteString transactionId = request.getValue();
 
       if (Objects.nonNull(transactionId)) {
-        responseObserver.onNext(wallet.getTransactionById(transactionId));
+        responseObserver.onNext(responseCache.getTransactionById(transactionId));
       } else {
         responseObserver.onNext(null);
       }
@@ -1530,6 +1575,22 @@ public class RpcApiService implements Service {
       callContract(request, responseObserver, true);
     }
 
+    @Override
+    public void triggerConstantContracts(TriggerSmartContractList request,
+        StreamObserver<TransactionListExtention> responseObserver) {
+      try {
+        responseObserver.onNext(wallet.triggerConstantContracts(request.getCallsList()));
+        responseObserver.onCompleted();
+      } catch (ContractValidateException e) {
+        responseObserver.onError(Status.INVALID_ARGUMENT
+            .withDescription(e.getMessage()).asRuntimeException());
+      } catch (Exception e) {
+        logger.warn("Batch constant call failed: {}", e.getMessage());
+        responseObserver.onError(Status.INTERNAL
+            .withDescription(e.getMessage()).asRuntimeException());
+      }
+    }
+
     private void callContract(Contract.TriggerSmartContract request,
         StreamObserver<TransactionExtention> responseObserver, boolean isConstant) {
       TransactionExtention.Builder trxExtBuilder = TransactionExtention.newBuilder();
@@ -1663,7 +1724,7 @@ public class RpcApiService implements Service {
         StreamObserver<TransactionInfo> responseObserver) {
       ByteString id = request.getValue();
       if (null != id) {
-        TransactionInfo reply = wallet.getTransactionInfoById(id);
+        TransactionInfo reply = responseCache.getTransactionInfoById(id);
 
         responseObserver.onNext(reply);
       } else {
@@ -1672,6 +1733,21 @@ public class RpcApiService implements Service {
       responseObserver.onCompleted();
     }
 
+    @Override
+    public void getLogs(LogFilter request, StreamObserver<LogList> responseObserver) {
+      try {
+        responseObserver.onNext(wallet.getLogs(request));
+        responseObserver.onCompleted();
+      } catch (IllegalArgumentException e) {
+        responseObserver.onError(Status.INVALID_ARGUMENT
+            .withDescription(e.getMessage()).asRuntimeException());
+      } catch (Exception e) {
+        logger.error("Get logs failed.", e);
+        responseObserver.onError(Status.INTERNAL
+            .withDescription(e.getMessage()).asRuntimeException());
+      }
+    }
+
     @Override
     public void getNodeInfo(EmptyMessage request, StreamObserver<NodeInfo> responseObserver) {
       try {
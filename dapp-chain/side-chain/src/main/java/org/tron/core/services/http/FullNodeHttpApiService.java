@@ -75,6 +75,12 @@ public class FullNodeHttpApiService implements Service {
   @Autowired
   private GetBlockByLatestNumServlet getBlockByLatestNumServlet;
   @Autowired
+  private StreamBlocksServlet streamBlocksServlet;
+  @Autowired
+  private GetEventLogServlet getEventLogServlet;
+  @Autowired
+  private GetLogsServlet getLogsServlet;
+  @Autowired
   private GetTransactionByIdServlet getTransactionByIdServlet;
   @Autowired
   private GetTransactionInfoByIdServlet getTransactionInfoByIdServlet;
@@ -115,6 +121,8 @@ public class FullNodeHttpApiService implements Service {
   @Autowired
   private TriggerConstantContractServlet triggerConstantContractServlet;
   @Autowired
+  private TriggerConstantContractsServlet triggerConstantContractsServlet;
+  @Autowired
   private GetContractServlet getContractServlet;
   @Autowired
   private ClearABIServlet clearABIServlet;
@@ -202,6 +210,9 @@ public class FullNodeHttpApiService implements Service {
       context.addServlet(new ServletHolder(getBlockByIdServlet), "/getblockbyid");
       context.addServlet(new ServletHolder(getBlockByLimitNextServlet), "/getblockbylimitnext");
       context.addServlet(new ServletHolder(getBlockByLatestNumServlet), "/getblockbylatestnum");
+      context.addServlet(new ServletHolder(streamBlocksServlet), "/streamblocks");
+      context.addServlet(new ServletHolder(getEventLogServlet), "/geteventlog");
+      context.addServlet(new ServletHolder(getLogsServlet), "/getlogs");
       context.addServlet(new ServletHolder(getTransactionByIdServlet), "/gettransactionbyid");
       context.addServlet(
           new ServletHolder(getTransactionInfoByIdServlet), "/gettransactioninfobyid");
@@ -231,6 +242,8 @@ public class FullNodeHttpApiService implements Service {
       context.addServlet(new ServletHolder(triggerSmartContractServlet), "/triggersmartcontract");
       context.addServlet(new ServletHolder(triggerConstantContractServlet),
           "/triggerconstantcontract");
+      context.addServlet(new ServletHolder(triggerConstantContractsServlet),
+          "/triggerconstantcontracts");
       context.addServlet(new ServletHolder(getContractServlet), "/getcontract");
       context.addServlet(new ServletHolder(clearABIServlet), "/clearabi");
       context.addServlet(new ServletHolder(proposalCreateServlet), "/proposalcreate");
@@ -13,8 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.api.GrpcAPI.BytesMessage;
 import org.tron.common.utils.ByteArray;
-import org.tron.core.Wallet;
-import org.tron.protos.Protocol.Block;
+import org.tron.core.services.ApiResponseCache;
+import org.tron.core.services.ApiResponseCache.Endpoint;
 
 
 @Component
@@ -22,15 +22,16 @@ import org.tron.protos.Protocol.Block;
 public class GetBlockByIdServlet extends HttpServlet {
 
   @Autowired
-  private Wallet wallet;
+  private ApiResponseCache responseCache;
 
   protected void doGet(HttpServletRequest request, HttpServletResponse response) {
     try {
       boolean visible = Util.getVisible(request);
       String input = request.getParameter("value");
-      Block reply = wallet.getBlockById(ByteString.copyFrom(ByteArray.fromHexString(input)));
-      if (reply != null) {
-        response.getWriter().println(Util.printBlock(reply, visible));
+      if (responseCache.writeJson(Endpoint.BLOCK_BY_ID,
+          ByteString.copyFrom(ByteArray.fromHexString(input)), visible,
+          response.getWriter())) {
+        response.getWriter().println();
       } else {
         response.getWriter().println("{}");
       }
@@ -52,9 +53,9 @@ public class GetBlockByIdServlet extends HttpServlet {
       boolean visible = Util.getVisiblePost(input);
       BytesMessage.Builder build = BytesMessage.newBuilder();
       JsonFormat.merge(input, build, visible);
-      Block reply = wallet.getBlockById(build.getValue());
-      if (reply != null) {
-        response.getWriter().println(Util.printBlock(reply, visible));
+      if (responseCache.writeJson(Endpoint.BLOCK_BY_ID, build.getValue(), visible,
+          response.getWriter())) {
+        response.getWriter().println();
       } else {
         response.getWriter().println("{}");
       }
@@ -29,7 +29,8 @@ public class GetBlockByLatestNumServlet extends HttpServlet {
       if (getNum > 0 && getNum < BLOCK_LIMIT_NUM) {
         BlockList reply = wallet.getBlockByLatestNum(getNum);
         if (reply != null) {
-          response.getWriter().println(Util.printBlockList(reply, visible));
+          Util.printBlockList(reply, visible, response.getWriter());
+          response.getWriter().println();
           return;
         }
       }
@@ -56,7 +57,8 @@ public class GetBlockByLatestNumServlet extends HttpServlet {
       if (getNum > 0 && getNum < BLOCK_LIMIT_NUM) {
         BlockList reply = wallet.getBlockByLatestNum(getNum);
         if (reply != null) {
-          response.getWriter().println(Util.printBlockList(reply, visible));
+          Util.printBlockList(reply, visible, response.getWriter());
+          response.getWriter().println();
           return;
         }
       }
@@ -30,7 +30,8 @@ public class GetBlockByLimitNextServlet extends HttpServlet {
       if (endNum > 0 && endNum > startNum && endNum - startNum <= BLOCK_LIMIT_NUM) {
         BlockList reply = wallet.getBlocksByLimitNext(startNum, endNum - startNum);
         if (reply != null) {
-          response.getWriter().println(Util.printBlockList(reply, visible));
+          Util.printBlockList(reply, visible, response.getWriter());
+          response.getWriter().println();
           return;
         }
       }
@@ -58,7 +59,8 @@ public class GetBlockByLimitNextServlet extends HttpServlet {
       if (endNum > 0 && endNum > startNum && endNum - startNum <= BLOCK_LIMIT_NUM) {
         BlockList reply = wallet.getBlocksByLimitNext(startNum, endNum - startNum);
         if (reply != null) {
-          response.getWriter().println(Util.printBlockList(reply, visible));
+          Util.printBlockList(reply, visible, response.getWriter());
+          response.getWriter().println();
           return;
         }
       }
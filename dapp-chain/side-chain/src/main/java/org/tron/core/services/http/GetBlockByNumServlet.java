@@ -10,8 +10,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.api.GrpcAPI.NumberMessage;
-import org.tron.core.Wallet;
-import org.tron.protos.Protocol.Block;
+import org.tron.core.services.ApiResponseCache;
+import org.tron.core.services.ApiResponseCache.Endpoint;
 
 
 @Component
@@ -19,15 +19,15 @@ import org.tron.protos.Protocol.Block;
 public class GetBlockByNumServlet extends HttpServlet {
 
   @Autowired
-  private Wallet wallet;
+  private ApiResponseCache responseCache;
 
   protected void doGet(HttpServletRequest request, HttpServletResponse response) {
     try {
       boolean visible = Util.getVisible(request);
       long num = Long.parseLong(request.getParameter("num"));
-      Block reply = wallet.getBlockByNum(num);
-      if (reply != null) {
-        response.getWriter().println(Util.printBlock(reply, visible));
+      if (responseCache.writeJson(Endpoint.BLOCK_BY_NUM, num, visible,
+          response.getWriter())) {
+        response.getWriter().println();
       } else {
         response.getWriter().println("{}");
       }
@@ -49,9 +49,9 @@ public class GetBlockByNumServlet extends HttpServlet {
       boolean visible = Util.getVisiblePost(input);
       NumberMessage.Builder build = NumberMessage.newBuilder();
       JsonFormat.merge(input, build, visible);
-      Block reply = wallet.getBlockByNum(build.getNum());
-      if (reply != null) {
-        response.getWriter().println(Util.printBlock(reply, visible));
+      if (responseCache.writeJson(Endpoint.BLOCK_BY_NUM, build.getNum(), visible,
+          response.getWriter())) {
+        response.getWriter().println();
       } else {
         response.getWriter().println("{}");
       }
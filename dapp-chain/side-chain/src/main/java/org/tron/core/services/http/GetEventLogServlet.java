@@ -0,0 +1,103 @@
+package org.tron.core.services.http;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import org.tron.common.logsfilter.EventPluginLoader;
+import org.tron.common.logsfilter.eventlog.EventLog;
+import org.tron.common.logsfilter.eventlog.EventRecord;
+
+/**
+ * Reads the triggers kept in the event log, from an offset or from the first trigger of a block.
+ * A subscriber passes the returned next_offset to the following call to read on where it left.
+ */
+@Component
+@Slf4j(topic = "API")
+public class GetEventLogServlet extends HttpServlet {
+
+  private static final int DEFAULT_LIMIT = 100;
+
+  private static final int MAX_LIMIT = 1000;
+
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+    try {
+      String offset = request.getParameter("offset");
+      String blockNum = request.getParameter("block_num");
+      String limit = request.getParameter("limit");
+      read(StringUtils.isEmpty(offset) ? null : Long.parseLong(offset),
+          StringUtils.isEmpty(blockNum) ? null : Long.parseLong(blockNum),
+          StringUtils.isEmpty(limit) ? DEFAULT_LIMIT : Integer.parseInt(limit), response);
+    } catch (Exception e) {
+      logger.debug("Exception: {}", e.getMessage());
+      try {
+        response.getWriter().println(Util.printErrorMsg(e));
+      } catch (IOException ioe) {
+        logger.debug("IOException: {}", ioe.getMessage());
+      }
+    }
+  }
+
+  protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+    try {
+      String input = request.getReader().lines()
+          .collect(Collectors.joining(System.lineSeparator()));
+      Util.checkBodySize(input);
+      JSONObject json = JSON.parseObject(input);
+      read(json.getLong("offset"), json.getLong("block_num"),
+          json.containsKey("limit") ? json.getIntValue("limit") : DEFAULT_LIMIT, response);
+    } catch (Exception e) {
+      logger.debug("Exception: {}", e.getMessage());
+      try {
+        response.getWriter().println(Util.printErrorMsg(e));
+      } catch (IOException ioe) {
+        logger.debug("IOException: {}", ioe.getMessage());
+      }
+    }
+  }
+
+  private void read(Long offset, Long blockNum, int limit, HttpServletResponse response)
+      throws IOException {
+    EventLog eventLog = EventPluginLoader.getInstance().getEventLog();
+    if (eventLog == null) {
+      throw new IllegalStateException("event log is not enabled");
+    }
+    long from;
+    if (offset != null) {
+      from = offset;
+    } else if (blockNum != null) {
+      from = eventLog.getOffsetOfBlock(blockNum);
+    } else {
+      from = eventLog.getFirstOffset();
+    }
+    List<EventRecord> records = eventLog
+        .read(from, Math.min(Math.max(limit, 1), MAX_LIMIT));
+    long next = records.isEmpty() ? Math.max(from, eventLog.getFirstOffset())
+        : records.get(records.size() - 1).getOffset() + 1;
+
+    // the triggers are json already, they are written as they are kept
+    PrintWriter writer = response.getWriter();
+    writer.append("{\"next_offset\":").append(String.valueOf(next)).append(",\"events\":[");
+    for (int i = 0; i < records.size(); i++) {
+      EventRecord record = records.get(i);
+      if (i > 0) {
+        writer.append(',');
+      }
+      writer.append("{\"offset\":").append(String.valueOf(record.getOffset()))
+          .append(",\"block_number\":").append(String.valueOf(record.getBlockNumber()))
+          .append(",\"log_index\":").append(String.valueOf(record.getLogIndex()))
+          .append(",\"topic\":").append(JSON.toJSONString(record.getTopic()))
+          .append(",\"trigger\":").append(record.getData()).append('}');
+    }
+    writer.append("]}");
+    writer.println();
+  }
+}
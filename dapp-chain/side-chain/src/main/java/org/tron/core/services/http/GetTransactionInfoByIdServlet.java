@@ -13,8 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.api.GrpcAPI.BytesMessage;
 import org.tron.common.utils.ByteArray;
-import org.tron.core.Wallet;
-import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.core.services.ApiResponseCache;
+import org.tron.core.services.ApiResponseCache.Endpoint;
 
 
 @Component
@@ -22,16 +22,16 @@ import org.tron.protos.Protocol.TransactionInfo;
 public class GetTransactionInfoByIdServlet extends HttpServlet {
 
   @Autowired
-  private Wallet wallet;
+  private ApiResponseCache responseCache;
 
   protected void doGet(HttpServletRequest request, HttpServletResponse response) {
     try {
       boolean visible = Util.getVisible(request);
       String input = request.getParameter("value");
-      TransactionInfo reply = wallet
-          .getTransactionInfoById(ByteString.copyFrom(ByteArray.fromHexString(input)));
+      String reply = responseCache.getJson(Endpoint.TRANSACTION_INFO_BY_ID,
+          ByteString.copyFrom(ByteArray.fromHexString(input)), visible);
       if (reply != null) {
-        response.getWriter().println(JsonFormat.printToString(reply, visible));
+        response.getWriter().println(reply);
       } else {
         response.getWriter().println("{}");
       }
@@ -53,9 +53,10 @@ public class GetTransactionInfoByIdServlet extends HttpServlet {
       boolean visible = Util.getVisiblePost(input);
       BytesMessage.Builder build = BytesMessage.newBuilder();
       JsonFormat.merge(input, build, visible);
-      TransactionInfo reply = wallet.getTransactionInfoById(build.getValue());
+      String reply = responseCache.getJson(Endpoint.TRANSACTION_INFO_BY_ID,
+          build.getValue(), visible);
       if (reply != null) {
-        response.getWriter().println(JsonFormat.printToString(reply, visible));
+        response.getWriter().println(reply);
       } else {
         response.getWriter().println("{}");
       }
@@ -0,0 +1,93 @@
+package org.tron.core.services.http;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.tron.api.GrpcAPI.BlockLimit;
+import org.tron.core.Wallet;
+import org.tron.protos.Protocol.Block;
+
+/**
+ * Writes the blocks in [startNum, endNum) as newline delimited json, one block per line. The
+ * blocks are read page by page while the response is written, a slow client holds the writer
+ * back instead of making the node buffer the range.
+ */
+@Component
+@Slf4j(topic = "API")
+public class StreamBlocksServlet extends HttpServlet {
+
+  private static final String CONTENT_TYPE = "application/x-ndjson";
+
+  // blocks written between two flushes of the response
+  private static final int FLUSH_SIZE = 100;
+
+  @Autowired
+  private Wallet wallet;
+
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+    try {
+      boolean visible = Util.getVisible(request);
+      long startNum = Long.parseLong(request.getParameter("startNum"));
+      long endNum = Long.parseLong(request.getParameter("endNum"));
+      stream(startNum, endNum, visible, response);
+    } catch (Exception e) {
+      logger.debug("Exception: {}", e.getMessage());
+      try {
+        response.getWriter().println(Util.printErrorMsg(e));
+      } catch (IOException ioe) {
+        logger.debug("IOException: {}", ioe.getMessage());
+      }
+    }
+  }
+
+  protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+    try {
+      String input = request.getReader().lines()
+          .collect(Collectors.joining(System.lineSeparator()));
+      Util.checkBodySize(input);
+      boolean visible = Util.getVisiblePost(input);
+      BlockLimit.Builder build = BlockLimit.newBuilder();
+      JsonFormat.merge(input, build, visible);
+      stream(build.getStartNum(), build.getEndNum(), visible, response);
+    } catch (Exception e) {
+      logger.debug("Exception: {}", e.getMessage());
+      try {
+        response.getWriter().println(Util.printErrorMsg(e));
+      } catch (IOException ioe) {
+        logger.debug("IOException: {}", ioe.getMessage());
+      }
+    }
+  }
+
+  private void stream(long startNum, long endNum, boolean visible, HttpServletResponse response)
+      throws IOException {
+    if (startNum < 0 || endNum <= startNum) {
+      response.getWriter().println("{}");
+      return;
+    }
+    response.setContentType(CONTENT_TYPE);
+    PrintWriter writer = response.getWriter();
+    Iterator<Block> blocks = wallet.getBlockIterator(startNum, endNum);
+    int count = 0;
+    while (blocks.hasNext()) {
+      Util.printBlock(blocks.next(), visible, writer);
+      writer.println();
+      if (++count % FLUSH_SIZE == 0) {
+        writer.flush();
+        if (writer.checkError()) {
+          logger.debug("Stream blocks from {} stopped after {} blocks, client is gone.",
+              startNum, count);
+          return;
+        }
+      }
+    }
+    writer.flush();
+  }
+}
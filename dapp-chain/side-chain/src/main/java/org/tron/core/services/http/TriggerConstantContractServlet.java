@@ -100,6 +100,7 @@ public class TriggerConstantContractServlet extends HttpServlet {
           .setMessage(ByteString.copyFromUtf8(e.getClass() + " : " + errString));
     }
     trxExtBuilder.setResult(retBuilder);
-    response.getWriter().println(Util.printTransactionExtention(trxExtBuilder.build(), visible));
+    Util.printTransactionExtention(trxExtBuilder.build(), visible, response.getWriter());
+    response.getWriter().println();
   }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package org.tron.core.services.http;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.protobuf.ByteString;
+import io.netty.util.internal.StringUtil;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.tron.api.GrpcAPI.TransactionListExtention;
+import org.tron.common.utils.ByteArray;
+import org.tron.core.Wallet;
+import org.tron.protos.Contract.TriggerSmartContract;
+
+/**
+ * Runs many constant calls in one request. The body holds the calls as triggerconstantcontract
+ * takes them, {"calls": [...]}, the replies come back in the same order.
+ */
+@Component
+@Slf4j(topic = "API")
+public class TriggerConstantContractsServlet extends HttpServlet {
+
+  private static final String FUNCTION_SELECTOR = "function_selector";
+
+  @Autowired
+  private Wallet wallet;
+
+  protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+  }
+
+  private static void validateParameter(JSONObject call) {
+    if (StringUtil.isNullOrEmpty(call.getString("owner_address"))) {
+      throw new InvalidParameterException("owner_address isn't set.");
+    }
+    if (StringUtil.isNullOrEmpty(call.getString("contract_address"))) {
+      throw new InvalidParameterException("contract_address isn't set.");
+    }
+    if (StringUtil.isNullOrEmpty(call.getString(FUNCTION_SELECTOR))) {
+      throw new InvalidParameterException("function_selector isn't set.");
+    }
+  }
+
+  protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+    try {
+      String input = request.getReader().lines()
+          .collect(Collectors.joining(System.lineSeparator()));
+      Util.checkBodySize(input);
+      boolean visible = Util.getVisiblePost(input);
+      JSONArray array = JSONObject.parseObject(input).getJSONArray("calls");
+      if (array == null) {
+        throw new InvalidParameterException("calls isn't set.");
+      }
+      List<TriggerSmartContract> calls = new ArrayList<>(array.size());
+      for (int i = 0; i < array.size(); i++) {
+        JSONObject call = array.getJSONObject(i);
+        validateParameter(call);
+        TriggerSmartContract.Builder build = TriggerSmartContract.newBuilder();
+        JsonFormat.merge(call.toJSONString(), build, visible);
+        String data = Util.parseMethod(call.getString(FUNCTION_SELECTOR),
+            call.getString("parameter"));
+        build.setData(ByteString.copyFrom(ByteArray.fromHexString(data)));
+        calls.add(build.build());
+      }
+      TransactionListExtention reply = wallet.triggerConstantContracts(calls);
+      Util.printTransactionListExtention(reply, visible, response.getWriter());
+      response.getWriter().println();
+    } catch (Exception e) {
+      logger.debug("Exception: {}", e.getMessage());
+      try {
+        response.getWriter().println(Util.printErrorMsg(e));
+      } catch (IOException ioe) {
+        logger.debug("IOException: {}", ioe.getMessage());
+      }
+    }
+  }
+}
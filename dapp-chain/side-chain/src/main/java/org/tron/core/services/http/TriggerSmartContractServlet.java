@@ -105,6 +105,7 @@ public class TriggerSmartContractServlet extends HttpServlet {
           .setMessage(ByteString.copyFromUtf8(e.getClass() + " : " + errString));
     }
     trxExtBuilder.setResult(retBuilder);
-    response.getWriter().println(Util.printTransactionExtention(trxExtBuilder.build(), visible));
+    Util.printTransactionExtention(trxExtBuilder.build(), visible, response.getWriter());
+    response.getWriter().println();
   }
 }
\ No newline at end of file
@@ -5,11 +5,15 @@ import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.security.InvalidParameterException;
 import java.util.List;
+import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
 import lombok.extern.slf4j.Slf4j;
@@ -21,14 +25,16 @@ import org.tron.api.GrpcAPI.EasyTransferResponse;
 import org.tron.api.GrpcAPI.TransactionApprovedList;
 import org.tron.api.GrpcAPI.TransactionExtention;
 import org.tron.api.GrpcAPI.TransactionList;
+import org.tron.api.GrpcAPI.TransactionListExtention;
 import org.tron.api.GrpcAPI.TransactionSignWeight;
 import org.tron.common.crypto.Hash;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.Wallet;
-import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.BlockCapsule.BlockId;
 import org.tron.core.capsule.TransactionCapsule;
 import org.tron.core.config.args.Args;
+import org.tron.core.services.http.JsonFormat.JsonGenerator;
 import org.tron.core.services.http.JsonFormat.ParseException;
 import org.tron.protos.Contract;
 import org.tron.protos.Contract.AccountCreateContract;
@@ -67,44 +73,90 @@ public class Util {
     return jsonObject.toJSONString();
   }
 
+  /**
+   * Something that writes JSON to an output, so that the string form of a response and its
+   * streamed form come from the same code.
+   */
+  private interface JsonPrinter {
+
+    void print(Appendable out) throws IOException;
+  }
+
+  private static String printToString(JsonPrinter printer) {
+    try {
+      StringBuilder out = new StringBuilder();
+      printer.print(out);
+      return out.toString();
+    } catch (IOException e) {
+      throw new RuntimeException(
+          "Writing to a StringBuilder threw an IOException (should never happen).", e);
+    }
+  }
+
   public static String printBlockList(BlockList list, boolean selfType) {
-    List<Block> blocks = list.getBlockList();
-    JSONObject jsonObject = JSONObject.parseObject(JsonFormat.printToString(list, selfType));
-    JSONArray jsonArray = new JSONArray();
-    blocks.stream().forEach(block -> {
-      jsonArray.add(printBlockToJSON(block, selfType));
-    });
-    jsonObject.put("block", jsonArray);
+    return printToString(out -> printBlockList(list, selfType, out));
+  }
 
-    return jsonObject.toJSONString();
+  /**
+   * Writes a block list in one pass, blocks and transactions are rendered straight to {@code out}
+   * without building an intermediate document.
+   */
+  public static void printBlockList(BlockList list, boolean selfType, Appendable out)
+      throws IOException {
+    out.append("{\"block\": [");
+    for (int i = 0; i < list.getBlockCount(); i++) {
+      if (i > 0) {
+        out.append(",");
+      }
+      printBlock(list.getBlock(i), selfType, out);
+    }
+    out.append("]}");
   }
 
   public static String printBlock(Block block, boolean selfType) {
-    return printBlockToJSON(block, selfType).toJSONString();
+    return printToString(out -> printBlock(block, selfType, out));
   }
 
-  public static JSONObject printBlockToJSON(Block block, boolean selfType) {
-    BlockCapsule blockCapsule = new BlockCapsule(block);
-    String blockID = ByteArray.toHexString(blockCapsule.getBlockId().getBytes());
-    JSONObject jsonObject = JSONObject.parseObject(JsonFormat.printToString(block, selfType));
-    jsonObject.put("blockID", blockID);
-    if (!blockCapsule.getTransactions().isEmpty()) {
-      jsonObject.put("transactions", printTransactionListToJSON(blockCapsule.getTransactions(),
-          selfType));
+  public static void printBlock(Block block, boolean selfType, Appendable out)
+      throws IOException {
+    BlockId blockId = new BlockId(
+        Sha256Hash.of(block.getBlockHeader().getRawData().toByteArray()),
+        block.getBlockHeader().getRawData().getNumber());
+    out.append("{\"blockID\": \"").append(ByteArray.toHexString(blockId.getBytes())).append("\"");
+    JsonGenerator generator = new JsonGenerator(out);
+    for (Map.Entry<FieldDescriptor, Object> field : block.getAllFields().entrySet()) {
+      out.append(",");
+      if (field.getKey().getNumber() == Block.TRANSACTIONS_FIELD_NUMBER) {
+        out.append("\"transactions\": [");
+        for (int i = 0; i < block.getTransactionsCount(); i++) {
+          if (i > 0) {
+            out.append(",");
+          }
+          printTransaction(block.getTransactions(i), selfType, null, out);
+        }
+        out.append("]");
+      } else {
+        JsonFormat.printField(field.getKey(), field.getValue(), generator, selfType);
+      }
     }
-    return jsonObject;
+    out.append("}");
+  }
+
+  public static JSONObject printBlockToJSON(Block block, boolean selfType) {
+    return JSONObject.parseObject(printBlock(block, selfType));
   }
 
   public static String printTransactionList(TransactionList list, boolean selfType) {
-    List<Transaction> transactions = list.getTransactionList();
-    JSONObject jsonObject = JSONObject.parseObject(JsonFormat.printToString(list, selfType));
-    JSONArray jsonArray = new JSONArray();
-    transactions.stream().forEach(transaction -> {
-      jsonArray.add(printTransactionToJSON(transaction, selfType));
+    return printToString(out -> {
+      out.append("{\"" + TRANSACTION + "\": [");
+      for (int i = 0; i < list.getTransactionCount(); i++) {
+        if (i > 0) {
+          out.append(",");
+        }
+        printTransaction(list.getTransaction(i), selfType, null, out);
+      }
+      out.append("]}");
     });
-    jsonObject.put(TRANSACTION, jsonArray);
-
-    return jsonObject.toJSONString();
   }
 
   public static JSONArray printTransactionListToJSON(List<TransactionCapsule> list,
@@ -123,26 +175,61 @@ public class Util {
   }
 
   public static String printTransaction(Transaction transaction, boolean selfType) {
-    return printTransactionToJSON(transaction, selfType).toJSONString();
+    return printToString(out -> printTransaction(transaction, selfType, null, out));
+  }
+
+  public static void printTransaction(Transaction transaction, boolean selfType, Appendable out)
+      throws IOException {
+    printTransaction(transaction, selfType, null, out);
   }
 
   public static String printCreateTransaction(Transaction transaction, boolean selfType) {
-    JSONObject jsonObject = printTransactionToJSON(transaction, selfType);
-    jsonObject.put(VISIBLE, selfType);
-    return jsonObject.toJSONString();
+    return printToString(out -> printTransaction(transaction, selfType, selfType, out));
   }
 
   public static String printTransactionExtention(TransactionExtention transactionExtention,
       boolean selfType) {
-    String string = JsonFormat.printToString(transactionExtention, selfType);
-    JSONObject jsonObject = JSONObject.parseObject(string);
-    if (transactionExtention.getResult().getResult()) {
-      JSONObject transactionOjbect = printTransactionToJSON(
-          transactionExtention.getTransaction(), selfType);
-      transactionOjbect.put(VISIBLE, selfType);
-      jsonObject.put(TRANSACTION, transactionOjbect);
+    return printToString(out -> printTransactionExtention(transactionExtention, selfType, out));
+  }
+
+  public static void printTransactionExtention(TransactionExtention transactionExtention,
+      boolean selfType, Appendable out) throws IOException {
+    boolean printTransaction = transactionExtention.getResult().getResult();
+    JsonGenerator generator = new JsonGenerator(out);
+    out.append("{");
+    boolean first = true;
+    for (Map.Entry<FieldDescriptor, Object> field : transactionExtention.getAllFields()
+        .entrySet()) {
+      if (printTransaction
+          && field.getKey().getNumber() == TransactionExtention.TRANSACTION_FIELD_NUMBER) {
+        continue;
+      }
+      if (!first) {
+        out.append(",");
+      }
+      first = false;
+      JsonFormat.printField(field.getKey(), field.getValue(), generator, selfType);
     }
-    return jsonObject.toJSONString();
+    if (printTransaction) {
+      if (!first) {
+        out.append(",");
+      }
+      out.append("\"" + TRANSACTION + "\": ");
+      printTransaction(transactionExtention.getTransaction(), selfType, selfType, out);
+    }
+    out.append("}");
+  }
+
+  public static void printTransactionListExtention(TransactionListExtention list,
+      boolean selfType, Appendable out) throws IOException {
+    out.append("{\"" + TRANSACTION + "\": [");
+    for (int i = 0; i < list.getTransactionCount(); i++) {
+      if (i > 0) {
+        out.append(",");
+      }
+      printTransactionExtention(list.getTransaction(i), selfType, out);
+    }
+    out.append("]}");
   }
 
   public static String printTransactionSignWeight(TransactionSignWeight transactionSignWeight,
@@ -183,215 +270,146 @@ public class Util {
   }
 
   public static JSONObject printTransactionToJSON(Transaction transaction, boolean selfType) {
-    JSONObject jsonTransaction = JSONObject.parseObject(JsonFormat.printToString(transaction,
-        selfType));
-    JSONArray contracts = new JSONArray();
-    transaction.getRawData().getContractList().stream().forEach(contract -> {
+    return JSONObject.parseObject(printTransaction(transaction, selfType));
+  }
+
+  /**
+   * Writes a transaction with its contracts unpacked, plus the derived {@code txID},
+   * {@code raw_data_hex} and, for contract creation, {@code contract_address}. A non-null
+   * {@code visible} is written as the {@code visible} field.
+   */
+  private static void printTransaction(Transaction transaction, boolean selfType,
+      Boolean visible, Appendable out) throws IOException {
+    byte[] rawData = transaction.getRawData().toByteArray();
+    out.append("{\"txID\": \"").append(ByteArray.toHexString(Sha256Hash.hash(rawData)))
+        .append("\"");
+    if (visible != null) {
+      out.append(", \"" + VISIBLE + "\": ").append(visible.toString());
+    }
+
+    JsonGenerator generator = new JsonGenerator(out);
+    StringBuilder contracts = new StringBuilder();
+    byte[] contractAddress = null;
+    for (Transaction.Contract contract : transaction.getRawData().getContractList()) {
       try {
-        JSONObject contractJson = null;
-        Any contractParameter = contract.getParameter();
-        switch (contract.getType()) {
-          case AccountCreateContract:
-            AccountCreateContract accountCreateContract = contractParameter
-                .unpack(AccountCreateContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(accountCreateContract,
-                selfType));
-            break;
-          case TransferContract:
-            TransferContract transferContract = contractParameter.unpack(TransferContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(transferContract,
-                selfType));
-            break;
-          case TransferAssetContract:
-            TransferAssetContract transferAssetContract = contractParameter
-                .unpack(TransferAssetContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(transferAssetContract,
-                selfType));
-            break;
-//          case VoteAssetContract:
-//            VoteAssetContract voteAssetContract = contractParameter.unpack(VoteAssetContract.class);
-//            contractJson = JSONObject.parseObject(JsonFormat.printToString(voteAssetContract,
-//                selfType));
-//            break;
-          case VoteWitnessContract:
-            VoteWitnessContract voteWitnessContract = contractParameter
-                .unpack(VoteWitnessContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(voteWitnessContract,
-                selfType));
-            break;
-          case WitnessCreateContract:
-            WitnessCreateContract witnessCreateContract = contractParameter
-                .unpack(WitnessCreateContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(witnessCreateContract,
-                selfType));
-            break;
-//          case AssetIssueContract:
-//            AssetIssueContract assetIssueContract = contractParameter
-//                .unpack(AssetIssueContract.class);
-//            contractJson = JSONObject.parseObject(JsonFormat.printToString(assetIssueContract,
-//                selfType));
-//            break;
-          case WitnessUpdateContract:
-            WitnessUpdateContract witnessUpdateContract = contractParameter
-                .unpack(WitnessUpdateContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(witnessUpdateContract,
-                selfType));
-            break;
-//          case ParticipateAssetIssueContract:
-//            ParticipateAssetIssueContract participateAssetIssueContract = contractParameter
-//                .unpack(ParticipateAssetIssueContract.class);
-//            contractJson = JSONObject
-//                .parseObject(JsonFormat.printToString(participateAssetIssueContract, selfType));
-//            break;
-          case AccountUpdateContract:
-            AccountUpdateContract accountUpdateContract = contractParameter
-                .unpack(AccountUpdateContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(accountUpdateContract,
-                selfType));
-            break;
-          case FreezeBalanceContract:
-            FreezeBalanceContract freezeBalanceContract = contractParameter
-                .unpack(FreezeBalanceContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(freezeBalanceContract,
-                selfType));
-            break;
-          case UnfreezeBalanceContract:
-            UnfreezeBalanceContract unfreezeBalanceContract = contractParameter
-                .unpack(UnfreezeBalanceContract.class);
-            contractJson = JSONObject
-                .parseObject(JsonFormat.printToString(unfreezeBalanceContract, selfType));
-            break;
-          case WithdrawBalanceContract:
-            WithdrawBalanceContract withdrawBalanceContract = contractParameter
-                .unpack(WithdrawBalanceContract.class);
-            contractJson = JSONObject
-                .parseObject(JsonFormat.printToString(withdrawBalanceContract, selfType));
-            break;
-//          case UnfreezeAssetContract:
-//            UnfreezeAssetContract unfreezeAssetContract = contractParameter
-//                .unpack(UnfreezeAssetContract.class);
-//            contractJson = JSONObject.parseObject(JsonFormat.printToString(unfreezeAssetContract,
-//                selfType));
-//            break;
-//          case UpdateAssetContract:
-//            UpdateAssetContract updateAssetContract = contractParameter
-//                .unpack(UpdateAssetContract.class);
-//            contractJson = JSONObject.parseObject(JsonFormat.printToString(updateAssetContract,
-//                selfType));
-//            break;
-          case SideChainProposalCreateContract:
-            SideChainProposalCreateContract proposalCreateContract = contractParameter
-                .unpack(SideChainProposalCreateContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(proposalCreateContract,
-                selfType));
-            break;
-          case ProposalApproveContract:
-            ProposalApproveContract proposalApproveContract = contractParameter
-                .unpack(ProposalApproveContract.class);
-            contractJson = JSONObject
-                .parseObject(JsonFormat.printToString(proposalApproveContract, selfType));
-            break;
-          case ProposalDeleteContract:
-            ProposalDeleteContract proposalDeleteContract = contractParameter
-                .unpack(ProposalDeleteContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(proposalDeleteContract,
-                selfType));
-            break;
-          case SetAccountIdContract:
-            Contract.SetAccountIdContract setAccountIdContract =
-                contractParameter.unpack(Contract.SetAccountIdContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(setAccountIdContract,
-                selfType));
-            break;
-          case CreateSmartContract:
-            CreateSmartContract deployContract = contractParameter
-                .unpack(CreateSmartContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(deployContract,
-                selfType));
-            byte[] ownerAddress = deployContract.getOwnerAddress().toByteArray();
-            byte[] contractAddress = generateContractAddress(transaction, ownerAddress);
-            jsonTransaction.put("contract_address", ByteArray.toHexString(contractAddress));
-            break;
-          case TriggerSmartContract:
-            TriggerSmartContract triggerSmartContract = contractParameter
-                .unpack(TriggerSmartContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(triggerSmartContract,
-                selfType));
-            break;
-          case UpdateSettingContract:
-            UpdateSettingContract updateSettingContract = contractParameter
-                .unpack(UpdateSettingContract.class);
-            contractJson = JSONObject.parseObject(JsonFormat.printToString(updateSettingContract,
-                selfType));
-            break;
-//          case ExchangeCreateContract:
-//            ExchangeCreateContract exchangeCreateContract = contractParameter
-//                .unpack(ExchangeCreateContract.class);
-//            contractJson = JSONObject.parseObject(JsonFormat.printToString(exchangeCreateContract,
-//                selfType));
-//            break;
-//          case ExchangeInjectContract:
-//            ExchangeInjectContract exchangeInjectContract = contractParameter
-//                .unpack(ExchangeInjectContract.class);
-//            contractJson = JSONObject.parseObject(JsonFormat.printToString(exchangeInjectContract,
-//                selfType));
-//            break;
-//          case ExchangeWithdrawContract:
-//            ExchangeWithdrawContract exchangeWithdrawContract = contractParameter
-//                .unpack(ExchangeWithdrawContract.class);
-//            contractJson = JSONObject
-//                .parseObject(JsonFormat.printToString(exchangeWithdrawContract, selfType));
-//            break;
-//          case ExchangeTransactionContract:
-//            ExchangeTransactionContract exchangeTransactionContract = contractParameter
-//                .unpack(ExchangeTransactionContract.class);
-//            contractJson = JSONObject
-//                .parseObject(JsonFormat.printToString(exchangeTransactionContract, selfType));
-//            break;
-          case UpdateEnergyLimitContract:
-            UpdateEnergyLimitContract updateEnergyLimitContract = contractParameter
-                .unpack(UpdateEnergyLimitContract.class);
-            contractJson = JSONObject
-                .parseObject(JsonFormat.printToString(updateEnergyLimitContract, selfType));
-            break;
-          case AccountPermissionUpdateContract:
-            AccountPermissionUpdateContract accountPermissionUpdateContract = contractParameter
-                .unpack(AccountPermissionUpdateContract.class);
-            contractJson = JSONObject
-                .parseObject(JsonFormat.printToString(accountPermissionUpdateContract, selfType));
-            break;
-          case ClearABIContract:
-            Contract.ClearABIContract clearABIContract = contractParameter
-                .unpack(Contract.ClearABIContract.class);
-            contractJson = JSONObject
-                .parseObject(JsonFormat.printToString(clearABIContract, selfType));
-            break;
-          // todo add other contract
-          default:
+        Message value = unpackContract(contract);
+        if (value instanceof CreateSmartContract) {
+          byte[] ownerAddress = ((CreateSmartContract) value).getOwnerAddress().toByteArray();
+          contractAddress = generateContractAddress(transaction, ownerAddress);
+        }
+        if (contracts.length() > 0) {
+          contracts.append(",");
+        }
+        contracts.append("{\"parameter\": {");
+        if (value != null) {
+          contracts.append("\"" + VALUE + "\": ");
+          JsonFormat.print(value, contracts, selfType);
+          contracts.append(",");
         }
-        JSONObject parameter = new JSONObject();
-        parameter.put(VALUE, contractJson);
-        parameter.put("type_url", contract.getParameterOrBuilder().getTypeUrl());
-        JSONObject jsonContract = new JSONObject();
-        jsonContract.put("parameter", parameter);
-        jsonContract.put("type", contract.getType());
+        contracts.append("\"type_url\": \"")
+            .append(JsonFormat.escapeText(contract.getParameter().getTypeUrl()))
+            .append("\"}, \"type\": \"").append(contract.getType().name()).append("\"");
         if (contract.getPermissionId() > 0) {
-          jsonContract.put(PERMISSION_ID, contract.getPermissionId());
+          contracts.append(", \"" + PERMISSION_ID + "\": ").append(contract.getPermissionId());
         }
-        contracts.add(jsonContract);
+        contracts.append("}");
       } catch (InvalidProtocolBufferException e) {
         logger.debug("InvalidProtocolBufferException: {}", e.getMessage());
       }
-    });
+    }
+    if (contractAddress != null) {
+      out.append(", \"contract_address\": \"").append(ByteArray.toHexString(contractAddress))
+          .append("\"");
+    }
 
-    JSONObject rawData = JSONObject.parseObject(jsonTransaction.get("raw_data").toString());
-    rawData.put("contract", contracts);
-    jsonTransaction.put("raw_data", rawData);
-    String rawDataHex = ByteArray.toHexString(transaction.getRawData().toByteArray());
-    jsonTransaction.put("raw_data_hex", rawDataHex);
-    String txID = ByteArray.toHexString(Sha256Hash.hash(transaction.getRawData().toByteArray()));
-    jsonTransaction.put("txID", txID);
-    return jsonTransaction;
+    out.append(", \"raw_data\": {\"contract\": [").append(contracts).append("]");
+    for (Map.Entry<FieldDescriptor, Object> field : transaction.getRawData().getAllFields()
+        .entrySet()) {
+      if (field.getKey().getNumber() != Transaction.raw.CONTRACT_FIELD_NUMBER) {
+        out.append(",");
+        JsonFormat.printField(field.getKey(), field.getValue(), generator, selfType);
+      }
+    }
+    out.append("}");
+    for (Map.Entry<FieldDescriptor, Object> field : transaction.getAllFields().entrySet()) {
+      if (field.getKey().getNumber() != Transaction.RAW_DATA_FIELD_NUMBER) {
+        out.append(",");
+        JsonFormat.printField(field.getKey(), field.getValue(), generator, selfType);
+      }
+    }
+    out.append(", \"raw_data_hex\": \"").append(ByteArray.toHexString(rawData)).append("\"}");
+  }
+
+  /**
+   * The parameter of a contract as its concrete message, null for the types that are not
+   * rendered.
+   */
+  private static Message unpackContract(Transaction.Contract contract)
+      throws InvalidProtocolBufferException {
+    Any contractParameter = contract.getParameter();
+    switch (contract.getType()) {
+      case AccountCreateContract:
+        return contractParameter.unpack(AccountCreateContract.class);
+      case TransferContract:
+        return contractParameter.unpack(TransferContract.class);
+      case TransferAssetContract:
+        return contractParameter.unpack(TransferAssetContract.class);
+//      case VoteAssetContract:
+//        return contractParameter.unpack(VoteAssetContract.class);
+      case VoteWitnessContract:
+        return contractParameter.unpack(VoteWitnessContract.class);
+      case WitnessCreateContract:
+        return contractParameter.unpack(WitnessCreateContract.class);
+//      case AssetIssueContract:
+//        return contractParameter.unpack(AssetIssueContract.class);
+      case WitnessUpdateContract:
+        return contractParameter.unpack(WitnessUpdateContract.class);
+//      case ParticipateAssetIssueContract:
+//        return contractParameter.unpack(ParticipateAssetIssueContract.class);
+      case AccountUpdateContract:
+        return contractParameter.unpack(AccountUpdateContract.class);
+      case FreezeBalanceContract:
+        return contractParameter.unpack(FreezeBalanceContract.class);
+      case UnfreezeBalanceContract:
+        return contractParameter.unpack(UnfreezeBalanceContract.class);
+      case WithdrawBalanceContract:
+        return contractParameter.unpack(WithdrawBalanceContract.class);
+//      case UnfreezeAssetContract:
+//        return contractParameter.unpack(UnfreezeAssetContract.class);
+//      case UpdateAssetContract:
+//        return contractParameter.unpack(UpdateAssetContract.class);
+      case SideChainProposalCreateContract:
+        return contractParameter.unpack(SideChainProposalCreateContract.class);
+      case ProposalApproveContract:
+        return contractParameter.unpack(ProposalApproveContract.class);
+      case ProposalDeleteContract:
+        return contractParameter.unpack(ProposalDeleteContract.class);
+      case SetAccountIdContract:
+        return contractParameter.unpack(Contract.SetAccountIdContract.class);
+      case CreateSmartContract:
+        return contractParameter.unpack(CreateSmartContract.class);
+      case TriggerSmartContract:
+        return contractParameter.unpack(TriggerSmartContract.class);
+      case UpdateSettingContract:
+        return contractParameter.unpack(UpdateSettingContract.class);
+//      case ExchangeCreateContract:
+//        return contractParameter.unpack(ExchangeCreateContract.class);
+//      case ExchangeInjectContract:
+//        return contractParameter.unpack(ExchangeInjectContract.class);
+//      case ExchangeWithdrawContract:
+//        return contractParameter.unpack(ExchangeWithdrawContract.class);
+//      case ExchangeTransactionContract:
+//        return contractParameter.unpack(ExchangeTransactionContract.class);
+      case UpdateEnergyLimitContract:
+        return contractParameter.unpack(UpdateEnergyLimitContract.class);
+      case AccountPermissionUpdateContract:
+        return contractParameter.unpack(AccountPermissionUpdateContract.class);
+      case ClearABIContract:
+        return contractParameter.unpack(Contract.ClearABIContract.class);
+      // todo add other contract
+      default:
+        return null;
+    }
   }
 
   public static Transaction packTransaction(String strTransaction, boolean selfType) {
@@ -13,10 +13,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.api.GrpcAPI.BytesMessage;
 import org.tron.common.utils.ByteArray;
-import org.tron.core.Wallet;
+import org.tron.core.services.ApiResponseCache;
+import org.tron.core.services.ApiResponseCache.Endpoint;
 import org.tron.core.services.http.JsonFormat;
 import org.tron.core.services.http.Util;
-import org.tron.protos.Protocol.Transaction;
 
 
 @Component
@@ -24,16 +24,16 @@ import org.tron.protos.Protocol.Transaction;
 public class GetTransactionByIdSolidityServlet extends HttpServlet {
 
   @Autowired
-  private Wallet wallet;
+  private ApiResponseCache responseCache;
 
   protected void doGet(HttpServletRequest request, HttpServletResponse response) {
     try {
       boolean visible = Util.getVisible(request);
       String input = request.getParameter("value");
-      Transaction reply = wallet
-          .getTransactionById(ByteString.copyFrom(ByteArray.fromHexString(input)));
+      String reply = responseCache.getJson(Endpoint.TRANSACTION_BY_ID,
+          ByteString.copyFrom(ByteArray.fromHexString(input)), visible);
       if (reply != null) {
-        response.getWriter().println(Util.printTransaction(reply, visible));
+        response.getWriter().println(reply);
       } else {
         response.getWriter().println("{}");
       }
@@ -55,9 +55,10 @@ public class GetTransactionByIdSolidityServlet extends HttpServlet {
       boolean visible = Util.getVisiblePost(input);
       BytesMessage.Builder build = BytesMessage.newBuilder();
       JsonFormat.merge(input, build, visible);
-      Transaction reply = wallet.getTransactionById(build.build().getValue());
+      String reply = responseCache.getJson(Endpoint.TRANSACTION_BY_ID,
+          build.build().getValue(), visible);
       if (reply != null) {
-        response.getWriter().println(Util.printTransaction(reply, visible));
+        response.getWriter().println(reply);
       } else {
         response.getWriter().println("{}");
       }
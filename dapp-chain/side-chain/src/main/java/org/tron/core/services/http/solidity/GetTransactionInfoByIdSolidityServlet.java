@@ -13,10 +13,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.tron.api.GrpcAPI.BytesMessage;
 import org.tron.common.utils.ByteArray;
-import org.tron.core.Wallet;
+import org.tron.core.services.ApiResponseCache;
+import org.tron.core.services.ApiResponseCache.Endpoint;
 import org.tron.core.services.http.JsonFormat;
 import org.tron.core.services.http.Util;
-import org.tron.protos.Protocol.TransactionInfo;
 
 
 @Component
@@ -24,19 +24,19 @@ import org.tron.protos.Protocol.TransactionInfo;
 public class GetTransactionInfoByIdSolidityServlet extends HttpServlet {
 
   @Autowired
-  private Wallet wallet;
+  private ApiResponseCache responseCache;
 
   @Override
   protected void doGet(HttpServletRequest request, HttpServletResponse response) {
     try {
       boolean visible = Util.getVisible(request);
       String input = request.getParameter("value");
-      TransactionInfo transInfo = wallet.getTransactionInfoById(ByteString.copyFrom(
-          ByteArray.fromHexString(input)));
+      String transInfo = responseCache.getJson(Endpoint.TRANSACTION_INFO_BY_ID,
+          ByteString.copyFrom(ByteArray.fromHexString(input)), visible);
       if (transInfo == null) {
         response.getWriter().println("{}");
       } else {
-        response.getWriter().println(JsonFormat.printToString(transInfo, visible));
+        response.getWriter().println(transInfo);
       }
     } catch (Exception e) {
       logger.debug("Exception: {}", e.getMessage());
@@ -57,11 +57,12 @@ public class GetTransactionInfoByIdSolidityServlet extends HttpServlet {
       boolean visible = Util.getVisiblePost(input);
       BytesMessage.Builder build = BytesMessage.newBuilder();
       JsonFormat.merge(input, build, visible);
-      TransactionInfo transInfo = wallet.getTransactionInfoById(build.build().getValue());
+      String transInfo = responseCache.getJson(Endpoint.TRANSACTION_INFO_BY_ID,
+          build.build().getValue(), visible);
       if (transInfo == null) {
         response.getWriter().println("{}");
       } else {
-        response.getWriter().println(JsonFormat.printToString(transInfo, visible));
+        response.getWriter().println(transInfo);
       }
     } catch (Exception e) {
       logger.debug("Exception: {}", e.getMessage());
@@ -0,0 +1,50 @@
+package org.tron.common.logsfilter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.utils.ByteArray;
+
+public class BloomTest {
+
+  private static final byte[] ADDRESS = ByteArray
+      .fromHexString("548794500882809695a8a687866e76d4271a1abc");
+
+  private static final byte[] TOPIC = ByteArray
+      .fromHexString("ddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef");
+
+  @Test
+  public void testMatches() {
+    Bloom bloom = new Bloom();
+    Assert.assertTrue(bloom.isEmpty());
+    bloom.add(ADDRESS);
+    bloom.add(TOPIC);
+    Assert.assertFalse(bloom.isEmpty());
+
+    Assert.assertTrue(bloom.matches(Bloom.create(ADDRESS)));
+    Assert.assertTrue(bloom.matches(Bloom.create(TOPIC)));
+    Assert.assertTrue(bloom.matches(new Bloom()));
+    Assert.assertFalse(new Bloom().matches(Bloom.create(ADDRESS)));
+
+    // at most three bits are set for every value
+    int bits = 0;
+    for (byte b : Bloom.create(ADDRESS).getData()) {
+      bits += Integer.bitCount(b & 0xff);
+    }
+    Assert.assertTrue(bits > 0 && bits <= 3);
+  }
+
+  @Test
+  public void testOr() {
+    Bloom bloom = Bloom.create(ADDRESS);
+    bloom.or(Bloom.create(TOPIC));
+    Bloom copy = new Bloom(bloom.getData().clone());
+    Assert.assertEquals(bloom, copy);
+    Assert.assertTrue(copy.matches(Bloom.create(ADDRESS)));
+    Assert.assertTrue(copy.matches(Bloom.create(TOPIC)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongSize() {
+    new Bloom(new byte[32]);
+  }
+}
@@ -11,8 +11,18 @@ import java.util.List;
 import java.util.Map;
 import org.junit.Assert;
 import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.common.crypto.Hash;
 import org.tron.common.logsfilter.capsule.ContractEventTriggerCapsule;
+import org.tron.common.logsfilter.capsule.ContractTriggerCapsule;
+import org.tron.common.logsfilter.trigger.ContractEventTrigger;
+import org.tron.common.logsfilter.trigger.ContractLogTrigger;
+import org.tron.common.logsfilter.trigger.ContractTrigger;
+import org.tron.common.runtime.utils.MUtil;
+import org.tron.common.runtime.vm.DataWord;
 import org.tron.common.runtime.vm.LogEventWrapper;
+import org.tron.common.runtime.vm.LogInfo;
+import org.tron.core.Wallet;
 import org.tron.protos.Protocol.SmartContract.ABI.Entry;
 
 public class FilterQueryTest {
@@ -85,4 +95,67 @@ public class FilterQueryTest {
       Assert.assertEquals(true, matchFilter(capsule.getContractEventTrigger()));
     }
   }
+
+  private static ContractTrigger trigger(byte[] address, byte[]... topics) {
+    List<DataWord> topicList = new ArrayList<>();
+    for (byte[] topic : topics) {
+      topicList.add(new DataWord(topic));
+    }
+    ContractTrigger trigger = new ContractTrigger();
+    trigger.setBlockNumber(150L);
+    trigger.setContractAddress(Wallet.encode58Check(MUtil.convertToTronAddress(address)));
+    trigger.setLogInfo(new LogInfo(address, topicList, new byte[0]));
+    return trigger;
+  }
+
+  @Test
+  public synchronized void testMatchRawFilter() {
+    byte[] gateway = new byte[20];
+    Arrays.fill(gateway, (byte) 1);
+    byte[] other = new byte[20];
+    Arrays.fill(other, (byte) 2);
+    byte[] deposit = Hash.sha3("Deposit(address,uint256)".getBytes());
+    byte[] transfer = Hash.sha3("Transfer(address,address,uint256)".getBytes());
+
+    FilterQuery filterQuery = new FilterQuery();
+    filterQuery.setFromBlock(100);
+    filterQuery.setToBlock(FilterQuery.LATEST_BLOCK_NUM);
+    filterQuery.setContractAddressList(
+        Arrays.asList("", Wallet.encode58Check(MUtil.convertToTronAddress(gateway))));
+    filterQuery.setContractTopicList(Arrays.asList("0x" + Hex.toHexString(deposit)));
+    EventPluginLoader.getInstance().setFilterQuery(filterQuery);
+    try {
+      ContractTrigger matched = trigger(gateway, deposit, new byte[32]);
+      Assert.assertTrue(FilterQuery.matchRawFilter(matched));
+      Assert.assertTrue(FilterQuery.matchTopics(matched, new ContractLogTrigger()));
+      // the signature hash is not one of the topics of a decoded event, an indexed value is
+      Assert.assertFalse(FilterQuery.matchTopics(matched, new ContractEventTrigger()));
+      ContractTrigger indexed = trigger(gateway, transfer, deposit);
+      Assert.assertTrue(FilterQuery.matchRawFilter(indexed));
+      Assert.assertTrue(FilterQuery.matchTopics(indexed, new ContractEventTrigger()));
+      Assert.assertFalse(FilterQuery.matchRawFilter(trigger(other, deposit)));
+      Assert.assertFalse(FilterQuery.matchRawFilter(trigger(gateway, transfer)));
+      // the abi of an unmatched log is never parsed
+      Assert.assertNull(new ContractTriggerCapsule(trigger(other, deposit)).prepareTrigger());
+
+      // a topic that is not a hash is a decoded value, only the decoded trigger can tell
+      filterQuery.setContractTopicList(Arrays.asList(Hex.toHexString(deposit), "top1"));
+      ContractTrigger raw = trigger(gateway, transfer);
+      Assert.assertTrue(FilterQuery.matchRawFilter(raw));
+      ContractEventTrigger decoded = new ContractEventTrigger();
+      Map<String, String> topicMap = new HashMap<>();
+      topicMap.put("from", "top2");
+      decoded.setTopicMap(topicMap);
+      Assert.assertFalse(FilterQuery.matchTopics(raw, decoded));
+      topicMap.put("to", "top1");
+      Assert.assertTrue(FilterQuery.matchTopics(raw, decoded));
+      topicMap.remove("to");
+      Assert.assertTrue(FilterQuery.matchTopics(trigger(gateway, transfer, deposit), decoded));
+      Assert.assertFalse(FilterQuery.matchTopics(trigger(gateway, deposit), decoded));
+      Assert.assertTrue(
+          FilterQuery.matchTopics(trigger(gateway, deposit), new ContractLogTrigger()));
+    } finally {
+      EventPluginLoader.getInstance().setFilterQuery(null);
+    }
+  }
 }
@@ -0,0 +1,143 @@
+package org.tron.common.logsfilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.logsfilter.capsule.TriggerCapsule;
+
+public class TriggerPipelineTest {
+
+  private TriggerPipeline pipeline;
+  private List<Integer> published = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * A trigger that takes a random time to prepare, so the workers finish out of order.
+   */
+  private class TestCapsule extends TriggerCapsule {
+
+    private final int id;
+    private final CountDownLatch release;
+
+    private TestCapsule(int id, CountDownLatch release) {
+      this.id = id;
+      this.release = release;
+    }
+
+    @Override
+    public Runnable prepareTrigger() {
+      try {
+        Thread.sleep(new Random().nextInt(3));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (id % 10 == 9) {
+        // filtered out, nothing to send
+        return null;
+      }
+      if (id % 10 == 7) {
+        throw new IllegalStateException("cannot decode " + id);
+      }
+      return () -> {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        published.add(id);
+      };
+    }
+  }
+
+  @After
+  public void destroy() {
+    pipeline.stop();
+  }
+
+  @Test
+  public void testOrder() throws InterruptedException {
+    pipeline = new TriggerPipeline(4);
+    pipeline.start();
+    CountDownLatch release = new CountDownLatch(0);
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertTrue(pipeline.submit(new TestCapsule(i, release)));
+    }
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (pipeline.getPublishedCount().get() + pipeline.getFailedCount().get() < 1000
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      if (i % 10 != 9 && i % 10 != 7) {
+        expected.add(i);
+      }
+    }
+    Assert.assertEquals(expected, published);
+    Assert.assertEquals(900, pipeline.getPublishedCount().get());
+    Assert.assertEquals(100, pipeline.getFailedCount().get());
+    Assert.assertEquals(0, pipeline.getBacklogSize());
+  }
+
+  @Test
+  public void testBacklog() throws InterruptedException {
+    pipeline = new TriggerPipeline(2, 10);
+    pipeline.start();
+    CountDownLatch release = new CountDownLatch(1);
+    // the first send blocks, the rest fill the pipeline and then the backlog
+    Assert.assertTrue(pipeline.submit(new TestCapsule(0, release)));
+    while (pipeline.getQueueSize() > 0) {
+      Thread.sleep(10);
+    }
+    long start = System.currentTimeMillis();
+    for (int i = 1; i <= 50; i++) {
+      Assert.assertTrue(pipeline.submit(new TestCapsule(i, release)));
+    }
+    // the submitter never waits
+    Assert.assertTrue(System.currentTimeMillis() - start < 1_000);
+    Assert.assertEquals(10, pipeline.getQueueSize());
+    Assert.assertEquals(40, pipeline.getBacklogSize());
+    Assert.assertEquals(40, pipeline.getBackloggedCount().get());
+
+    // stopping sends what is queued, in order
+    release.countDown();
+    pipeline.stop();
+    Assert.assertFalse(pipeline.submit(new TestCapsule(51, release)));
+    Assert.assertEquals(51, pipeline.getPublishedCount().get() + pipeline.getFailedCount().get());
+    for (int i = 1; i < published.size(); i++) {
+      Assert.assertTrue(published.get(i - 1) < published.get(i));
+    }
+  }
+
+  @Test
+  public void testBacklogFull() throws InterruptedException {
+    pipeline = new TriggerPipeline(2, 10, 20);
+    pipeline.start();
+    CountDownLatch release = new CountDownLatch(1);
+    Assert.assertTrue(pipeline.submit(new TestCapsule(0, release)));
+    while (pipeline.getQueueSize() > 0) {
+      Thread.sleep(10);
+    }
+    int accepted = 0;
+    for (int i = 1; i <= 50; i++) {
+      if (pipeline.submit(new TestCapsule(i, release))) {
+        accepted++;
+      }
+    }
+    // the backlog stops growing at its capacity, the rest are dropped
+    Assert.assertEquals(30, accepted);
+    Assert.assertEquals(20, pipeline.getBacklogSize());
+    Assert.assertEquals(20, pipeline.getDroppedCount().get());
+
+    release.countDown();
+    pipeline.stop();
+    Assert.assertEquals(31, pipeline.getPublishedCount().get() + pipeline.getFailedCount().get());
+    Assert.assertEquals(31, pipeline.getSubmittedCount().get());
+  }
+}
@@ -0,0 +1,143 @@
+package org.tron.common.logsfilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.logsfilter.capsule.RawData;
+import org.tron.common.logsfilter.trigger.BlockLogTrigger;
+import org.tron.common.logsfilter.trigger.ContractEventTrigger;
+import org.tron.common.logsfilter.trigger.InternalTransactionPojo;
+import org.tron.common.logsfilter.trigger.TransactionLogTrigger;
+import org.tron.common.runtime.vm.DataWord;
+import org.tron.protos.EventTrigger;
+
+@Slf4j
+public class TriggerProtoEncoderTest {
+
+  private static final String TX_ID =
+      "7c2d4206c03a883dd9066d6c839d0deaef32dc5a0d9b15f6d06e506906c90332";
+
+  private static ContractEventTrigger eventTrigger() {
+    ContractEventTrigger trigger = new ContractEventTrigger();
+    trigger.setUniqueId(TX_ID + "_1");
+    trigger.setTransactionId(TX_ID);
+    trigger.setContractAddress("TMbN7SqmzeAu1ijeTjhmYKMGjCYGdQRSQi");
+    trigger.setOriginAddress("TXk8rQSAvPvBBNtqSoY6nCfsXWCSSpTVQF");
+    trigger.setCreatorAddress("TXk8rQSAvPvBBNtqSoY6nCfsXWCSSpTVQF");
+    trigger.setBlockNumber(1_234_567L);
+    trigger.setTimeStamp(1_560_000_000_000L);
+    trigger.setLatestSolidifiedBlockNumber(1_234_550L);
+    trigger.setEventSignature("Deposit(address,uint256)");
+    trigger.setEventSignatureFull("Deposit(address from,uint256 value)");
+    trigger.setEventName("Deposit");
+    Map<String, String> topicMap = new HashMap<>();
+    topicMap.put("0", "TXk8rQSAvPvBBNtqSoY6nCfsXWCSSpTVQF");
+    topicMap.put("from", "TXk8rQSAvPvBBNtqSoY6nCfsXWCSSpTVQF");
+    trigger.setTopicMap(topicMap);
+    Map<String, String> dataMap = new HashMap<>();
+    dataMap.put("1", "1000000");
+    dataMap.put("value", "1000000");
+    trigger.setDataMap(dataMap);
+    List<DataWord> topics = Arrays.asList(new DataWord(new byte[]{1, 2, 3}), new DataWord(7));
+    trigger.setRawData(new RawData(new byte[20], topics, new byte[32]));
+    return trigger;
+  }
+
+  private static TransactionLogTrigger transactionTrigger() {
+    TransactionLogTrigger trigger = new TransactionLogTrigger();
+    trigger.setTransactionId(TX_ID);
+    trigger.setBlockNumber(1_234_567L);
+    trigger.setEnergyUsageTotal(12_345);
+    trigger.setContractType("TriggerSmartContract");
+    trigger.setFromAddress("TXk8rQSAvPvBBNtqSoY6nCfsXWCSSpTVQF");
+    InternalTransactionPojo internal = new InternalTransactionPojo();
+    internal.setHash(TX_ID);
+    internal.setCallValue(10);
+    internal.getTokenInfo().put("1000001", 5L);
+    List<InternalTransactionPojo> internals = new ArrayList<>();
+    internals.add(internal);
+    trigger.setInternalTrananctionList(internals);
+    return trigger;
+  }
+
+  @Test
+  public void testContractEventTrigger() throws Exception {
+    ContractEventTrigger trigger = eventTrigger();
+    EventTrigger.ContractEventTrigger proto = EventTrigger.ContractEventTrigger
+        .parseFrom(TriggerProtoEncoder.toProto(trigger).toByteArray());
+    Assert.assertEquals(trigger.getUniqueId(), proto.getTrigger().getUniqueId());
+    Assert.assertEquals(trigger.getBlockNumber().longValue(), proto.getTrigger().getBlockNumber());
+    Assert.assertEquals(trigger.getTimeStamp(), proto.getTrigger().getTimeStamp());
+    Assert.assertEquals(trigger.getTriggerName(), proto.getTrigger().getTriggerName());
+    Assert.assertEquals("", proto.getTrigger().getCallerAddress());
+    Assert.assertEquals(trigger.getEventSignatureFull(), proto.getEventSignatureFull());
+    Assert.assertEquals(trigger.getTopicMap(), proto.getTopicMapMap());
+    Assert.assertEquals(trigger.getDataMap(), proto.getDataMapMap());
+    Assert.assertEquals(trigger.getRawData().getData(), proto.getTrigger().getRawData().getData());
+    Assert.assertEquals(new DataWord(7).toHexString(),
+        proto.getTrigger().getRawData().getTopics(1));
+  }
+
+  @Test
+  public void testTransactionAndBlockTrigger() throws Exception {
+    TransactionLogTrigger trigger = transactionTrigger();
+    EventTrigger.TransactionLogTrigger proto = EventTrigger.TransactionLogTrigger
+        .parseFrom(TriggerProtoEncoder.toProto(trigger).toByteArray());
+    Assert.assertEquals(TX_ID, proto.getTransactionId());
+    Assert.assertEquals(12_345, proto.getEnergyUsageTotal());
+    Assert.assertEquals("", proto.getToAddress());
+    Assert.assertEquals(1, proto.getInternalTrananctionListCount());
+    Assert.assertEquals(5L,
+        proto.getInternalTrananctionList(0).getTokenInfoMap().get("1000001").longValue());
+
+    BlockLogTrigger block = new BlockLogTrigger();
+    block.setBlockNumber(3);
+    block.getTransactionList().add(TX_ID);
+    block.setTransactionSize(1);
+    EventTrigger.BlockLogTrigger blockProto = EventTrigger.BlockLogTrigger
+        .parseFrom(TriggerProtoEncoder.toProto(block).toByteArray());
+    Assert.assertEquals(Arrays.asList(TX_ID), blockProto.getTransactionListList());
+    Assert.assertEquals(3, blockProto.getBlockNumber());
+  }
+
+  @Test
+  public void testEncodingBenchmark() throws Exception {
+    boolean enabled = false;
+
+    if (enabled) {
+      ObjectMapper objectMapper = new ObjectMapper();
+      ContractEventTrigger event = eventTrigger();
+      TransactionLogTrigger transaction = transactionTrigger();
+      int rounds = 200_000;
+      for (int warm = 0; warm < 2; warm++) {
+        long jsonBytes = 0;
+        long now = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+          jsonBytes += objectMapper.writeValueAsBytes(event).length;
+          jsonBytes += objectMapper.writeValueAsBytes(transaction).length;
+        }
+        long jsonNanos = System.nanoTime() - now;
+
+        long protoBytes = 0;
+        now = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+          protoBytes += TriggerProtoEncoder.toProto(event).toByteArray().length;
+          protoBytes += TriggerProtoEncoder.toProto(transaction).toByteArray().length;
+        }
+        long protoNanos = System.nanoTime() - now;
+
+        logger.info("json: {} bytes, {}ns per trigger; protobuf: {} bytes, {}ns per trigger",
+            jsonBytes / rounds / 2, jsonNanos / rounds / 2,
+            protoBytes / rounds / 2, protoNanos / rounds / 2);
+      }
+    } else {
+      logger.info("Trigger encoding benchmark is disabled.");
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package org.tron.common.logsfilter.eventlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.utils.FileUtil;
+
+public class EventLogTest {
+
+  private static final String DIR = "output_event_log_test";
+
+  private File dir = new File(DIR);
+  private EventLog eventLog;
+
+  @Before
+  public void init() throws IOException {
+    FileUtil.deleteDir(dir);
+    eventLog = new EventLog(dir, 1024, 10);
+  }
+
+  @After
+  public void destroy() {
+    eventLog.close();
+    FileUtil.deleteDir(dir);
+  }
+
+  private static String data(long block, int index) {
+    return "{\"block\":" + block + ",\"index\":" + index + "}";
+  }
+
+  private void appendBlocks(long from, long to) throws IOException {
+    for (long block = from; block <= to; block++) {
+      for (int i = 0; i < 3; i++) {
+        eventLog.append(block, "contractLogTrigger", data(block, i));
+      }
+    }
+  }
+
+  @Test
+  public void testAppendAndRead() throws IOException {
+    appendBlocks(1, 50);
+    Assert.assertTrue(eventLog.getSegmentCount() > 1);
+    Assert.assertEquals(150, eventLog.getNextOffset());
+
+    List<EventRecord> records = eventLog.read(0, 1000);
+    Assert.assertEquals(150, records.size());
+    for (int i = 0; i < records.size(); i++) {
+      EventRecord record = records.get(i);
+      Assert.assertEquals(i, record.getOffset());
+      Assert.assertEquals(i / 3 + 1, record.getBlockNumber());
+      Assert.assertEquals(i % 3, record.getLogIndex());
+      Assert.assertEquals("contractLogTrigger", record.getTopic());
+      Assert.assertEquals(data(i / 3 + 1, i % 3), record.getData());
+    }
+
+    Assert.assertEquals(30, eventLog.getOffsetOfBlock(11));
+    records = eventLog.read(eventLog.getOffsetOfBlock(11), 4);
+    Assert.assertEquals(4, records.size());
+    Assert.assertEquals(11, records.get(0).getBlockNumber());
+    Assert.assertEquals(12, records.get(3).getBlockNumber());
+    Assert.assertEquals(150, eventLog.getOffsetOfBlock(51));
+    Assert.assertTrue(eventLog.read(150, 10).isEmpty());
+  }
+
+  @Test
+  public void testReopen() throws IOException {
+    appendBlocks(1, 20);
+    eventLog.close();
+
+    // a record torn by a crash is dropped when the log is opened again
+    File[] files = dir.listFiles();
+    File last = files[0];
+    for (File file : files) {
+      last = file.getName().compareTo(last.getName()) > 0 ? file : last;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(last, "rw")) {
+      int position = 0;
+      for (int length = raf.readInt(); length > 0; length = raf.readInt()) {
+        position += 4 + length;
+        raf.seek(position);
+      }
+      raf.seek(position + 4);
+      raf.writeLong(21);
+    }
+
+    eventLog = new EventLog(dir, 1024, 10);
+    Assert.assertEquals(60, eventLog.getNextOffset());
+    Assert.assertEquals(60, eventLog.append(21, "blockTrigger", data(21, 0)));
+    List<EventRecord> records = eventLog.read(57, 10);
+    Assert.assertEquals(4, records.size());
+    Assert.assertEquals(data(20, 2), records.get(2).getData());
+    Assert.assertEquals(data(21, 0), records.get(3).getData());
+    Assert.assertEquals(0, records.get(3).getLogIndex());
+  }
+
+  @Test
+  public void testReopenInBlock() throws IOException {
+    appendBlocks(1, 2);
+    eventLog.close();
+
+    // the block goes on after the reopen, so do its log indexes
+    eventLog = new EventLog(dir, 1024, 10);
+    Assert.assertEquals(6, eventLog.append(2, "contractLogTrigger", data(2, 3)));
+    Assert.assertEquals(7, eventLog.append(3, "contractLogTrigger", data(3, 0)));
+    List<EventRecord> records = eventLog.read(6, 10);
+    Assert.assertEquals(3, records.get(0).getLogIndex());
+    Assert.assertEquals(0, records.get(1).getLogIndex());
+  }
+
+  @Test
+  public void testRetention() throws IOException {
+    appendBlocks(1, 20);
+    int segments = eventLog.getSegmentCount();
+    eventLog.setSolidifiedBlockNumber(25);
+    appendBlocks(21, 40);
+
+    // blocks below 25 - 10 are gone, but never the ones above
+    Assert.assertTrue(eventLog.getFirstOffset() > 0);
+    Assert.assertTrue(eventLog.getSegmentCount() < segments * 2);
+    List<EventRecord> records = eventLog.read(0, 1000);
+    Assert.assertEquals(eventLog.getFirstOffset(), records.get(0).getOffset());
+    Assert.assertTrue(records.get(0).getBlockNumber() <= 15);
+    Assert.assertEquals(40, records.get(records.size() - 1).getBlockNumber());
+    Assert.assertEquals(eventLog.getFirstOffset(), eventLog.getOffsetOfBlock(1));
+  }
+}
@@ -0,0 +1,331 @@
+package org.tron.common.runtime.vm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.common.utils.ByteUtil;
+
+/**
+ * Differential test of the limb based DataWord arithmetic against the BigInteger semantics it
+ * replaced.
+ */
+@Slf4j
+public class DataWordArithmeticTest {
+
+  private static final BigInteger MAX_VALUE = DataWord.MAX_VALUE;
+  private static final int ROUNDS = 20000;
+
+  private final Random random = new Random(20191018L);
+
+  /* reference implementations, as they were before the limb engine */
+
+  private static byte[] ref(BigInteger result) {
+    return ByteUtil.copyToArray(result.and(MAX_VALUE));
+  }
+
+  private static byte[] refAdd(DataWord a, DataWord b) {
+    return ref(a.value().add(b.value()));
+  }
+
+  private static byte[] refSub(DataWord a, DataWord b) {
+    return ref(a.value().subtract(b.value()));
+  }
+
+  private static byte[] refMul(DataWord a, DataWord b) {
+    return ref(a.value().multiply(b.value()));
+  }
+
+  private static byte[] refDiv(DataWord a, DataWord b) {
+    return b.isZero() ? new byte[32] : ref(a.value().divide(b.value()));
+  }
+
+  private static byte[] refSDiv(DataWord a, DataWord b) {
+    return b.isZero() ? new byte[32] : ref(a.sValue().divide(b.sValue()));
+  }
+
+  private static byte[] refMod(DataWord a, DataWord b) {
+    return b.isZero() ? new byte[32] : ref(a.value().mod(b.value()));
+  }
+
+  private static byte[] refSMod(DataWord a, DataWord b) {
+    if (b.isZero()) {
+      return new byte[32];
+    }
+    BigInteger result = a.sValue().abs().mod(b.sValue().abs());
+    return ref(a.sValue().signum() == -1 ? result.negate() : result);
+  }
+
+  private static byte[] refExp(DataWord a, DataWord b) {
+    return ByteUtil.copyToArray(a.value().modPow(b.value(), DataWord._2_256));
+  }
+
+  private static byte[] refAddMod(DataWord a, DataWord b, DataWord n) {
+    return n.isZero() ? new byte[32] : ref(a.value().add(b.value()).mod(n.value()));
+  }
+
+  private static byte[] refMulMod(DataWord a, DataWord b, DataWord n) {
+    if (a.isZero() || b.isZero() || n.isZero()) {
+      return new byte[32];
+    }
+    return ref(a.value().multiply(b.value()).mod(n.value()));
+  }
+
+  private static byte[] refNot(DataWord a) {
+    return ref(MAX_VALUE.subtract(a.value()));
+  }
+
+  private static byte[] refNegate(DataWord a) {
+    return ref(a.value().negate());
+  }
+
+  /* generators */
+
+  /**
+   * Random word biased towards the shapes that trip up limb arithmetic: zero, all ones,
+   * single limbs, carries across limb boundaries and sign bits.
+   */
+  private DataWord randomWord() {
+    byte[] data = new byte[32];
+    switch (random.nextInt(8)) {
+      case 0:
+        break;
+      case 1:
+        java.util.Arrays.fill(data, (byte) 0xff);
+        break;
+      case 2: {
+        // a few low bytes
+        int len = 1 + random.nextInt(8);
+        for (int i = 32 - len; i < 32; i++) {
+          data[i] = (byte) random.nextInt();
+        }
+        break;
+      }
+      case 3: {
+        // a single power of two, possibly minus one
+        BigInteger v = BigInteger.ONE.shiftLeft(random.nextInt(256));
+        if (random.nextBoolean()) {
+          v = v.subtract(BigInteger.ONE);
+        }
+        data = ByteUtil.copyToArray(v);
+        break;
+      }
+      case 4: {
+        // sparse limbs
+        for (int limb = 0; limb < 4; limb++) {
+          if (random.nextBoolean()) {
+            long v = random.nextBoolean() ? random.nextLong() : -1L;
+            UInt256.setLimb(data, limb, v);
+          }
+        }
+        break;
+      }
+      case 5: {
+        // small negative number
+        data = ByteUtil.copyToArray(
+            BigInteger.valueOf(random.nextInt(1 << 20) + 1).negate().and(MAX_VALUE));
+        break;
+      }
+      default:
+        random.nextBytes(data);
+        int len = random.nextInt(33);
+        for (int i = 0; i < 32 - len; i++) {
+          data[i] = 0;
+        }
+        break;
+    }
+    return new DataWord(data);
+  }
+
+  private interface BinaryOp {
+
+    void apply(DataWord a, DataWord b);
+  }
+
+  private interface BinaryRef {
+
+    byte[] apply(DataWord a, DataWord b);
+  }
+
+  private void checkBinary(String name, BinaryOp op, BinaryRef ref) {
+    for (int i = 0; i < ROUNDS; i++) {
+      DataWord a = randomWord();
+      DataWord b = randomWord();
+      byte[] expected = ref.apply(a, b);
+      DataWord actual = a.clone();
+      op.apply(actual, b.clone());
+      assertArrayEquals(name + "(" + a + ", " + b + ")", expected, actual.getData());
+    }
+  }
+
+  @Test
+  public void testAdd() {
+    checkBinary("add", DataWord::add, DataWordArithmeticTest::refAdd);
+  }
+
+  @Test
+  public void testSub() {
+    checkBinary("sub", DataWord::sub, DataWordArithmeticTest::refSub);
+  }
+
+  @Test
+  public void testMul() {
+    checkBinary("mul", DataWord::mul, DataWordArithmeticTest::refMul);
+  }
+
+  @Test
+  public void testDiv() {
+    checkBinary("div", DataWord::div, DataWordArithmeticTest::refDiv);
+  }
+
+  @Test
+  public void testSDiv() {
+    checkBinary("sdiv", DataWord::sDiv, DataWordArithmeticTest::refSDiv);
+  }
+
+  @Test
+  public void testMod() {
+    checkBinary("mod", DataWord::mod, DataWordArithmeticTest::refMod);
+  }
+
+  @Test
+  public void testSMod() {
+    checkBinary("smod", DataWord::sMod, DataWordArithmeticTest::refSMod);
+  }
+
+  @Test
+  public void testExp() {
+    checkBinary("exp", DataWord::exp, DataWordArithmeticTest::refExp);
+  }
+
+  @Test
+  public void testAddMod() {
+    for (int i = 0; i < ROUNDS; i++) {
+      DataWord a = randomWord();
+      DataWord b = randomWord();
+      DataWord n = randomWord();
+      DataWord actual = a.clone();
+      actual.addmod(b.clone(), n.clone());
+      assertArrayEquals("addmod(" + a + ", " + b + ", " + n + ")",
+          refAddMod(a, b, n), actual.getData());
+    }
+  }
+
+  @Test
+  public void testMulMod() {
+    for (int i = 0; i < ROUNDS; i++) {
+      DataWord a = randomWord();
+      DataWord b = randomWord();
+      DataWord n = randomWord();
+      DataWord actual = a.clone();
+      actual.mulmod(b.clone(), n.clone());
+      assertArrayEquals("mulmod(" + a + ", " + b + ", " + n + ")",
+          refMulMod(a, b, n), actual.getData());
+    }
+  }
+
+  @Test
+  public void testUnaryAndCompare() {
+    for (int i = 0; i < ROUNDS; i++) {
+      DataWord a = randomWord();
+      DataWord b = randomWord();
+
+      DataWord not = a.clone();
+      not.bnot();
+      assertArrayEquals("not(" + a + ")", refNot(a), not.getData());
+
+      DataWord neg = a.clone();
+      neg.negate();
+      assertArrayEquals("negate(" + a + ")", refNegate(a), neg.getData());
+
+      assertEquals("compare(" + a + ", " + b + ")",
+          a.value().compareTo(b.value()), a.compareTo(b));
+      assertEquals("scompare(" + a + ", " + b + ")",
+          a.sValue().compareTo(b.sValue()), a.sCompareTo(b));
+    }
+  }
+
+  @Test
+  public void testSameOperand() {
+    for (int i = 0; i < ROUNDS / 10; i++) {
+      DataWord a = randomWord();
+      DataWord x = a.clone();
+      x.sDiv(x);
+      assertArrayEquals(refSDiv(a, a), x.getData());
+      x = a.clone();
+      x.sMod(x);
+      assertArrayEquals(refSMod(a, a), x.getData());
+      x = a.clone();
+      x.exp(x);
+      assertArrayEquals(refExp(a, a), x.getData());
+      x = a.clone();
+      x.mul(x);
+      assertArrayEquals(refMul(a, a), x.getData());
+    }
+  }
+
+  @Test
+  public void testEdgeCases() {
+    DataWord min = new DataWord(
+        Hex.decode("8000000000000000000000000000000000000000000000000000000000000000"));
+    DataWord minusOne = new DataWord(
+        Hex.decode("ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff"));
+
+    DataWord x = min.clone();
+    x.sDiv(minusOne);
+    assertArrayEquals(refSDiv(min, minusOne), x.getData());
+    assertEquals(min, x);
+
+    x = min.clone();
+    x.sMod(minusOne);
+    assertArrayEquals(refSMod(min, minusOne), x.getData());
+
+    x = DataWord.ZERO();
+    x.exp(DataWord.ZERO());
+    assertEquals(DataWord.ONE(), x);
+
+    x = new DataWord((byte[]) null);
+    x.add(DataWord.ONE());
+    assertEquals(DataWord.ONE(), x);
+  }
+
+  @Test
+  public void testArithmeticPerformance() {
+    boolean enabled = false;
+
+    if (enabled) {
+      int iterations = 2000000;
+      DataWord[] words = new DataWord[1024];
+      for (int i = 0; i < words.length; i++) {
+        words[i] = randomWord();
+        if (words[i].isZero()) {
+          words[i] = DataWord.ONE();
+        }
+      }
+
+      long now1 = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        DataWord x = words[i & 1023].clone();
+        x.mul(words[(i + 1) & 1023]);
+        x.div(words[(i + 7) & 1023]);
+        x.mulmod(words[(i + 3) & 1023], words[(i + 5) & 1023]);
+      }
+      logger.info("limb mul/div/mulmod: {}ms", (System.nanoTime() - now1) / 1_000_000);
+
+      long now2 = System.nanoTime();
+      for (int i = 0; i < iterations; i++) {
+        DataWord x = words[i & 1023];
+        DataWord r = new DataWord(refMul(x, words[(i + 1) & 1023]));
+        r = new DataWord(refDiv(r, words[(i + 7) & 1023]));
+        refMulMod(r, words[(i + 3) & 1023], words[(i + 5) & 1023]);
+      }
+      logger.info("BigInteger mul/div/mulmod: {}ms", (System.nanoTime() - now2) / 1_000_000);
+    } else {
+      logger.info("Arithmetic performance test is disabled.");
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package org.tron.common.runtime.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.common.runtime.config.VMConfig;
+import org.tron.common.runtime.vm.program.InternalTransaction;
+import org.tron.common.runtime.vm.program.InternalTransaction.TrxType;
+import org.tron.common.runtime.vm.program.Program;
+import org.tron.common.runtime.vm.program.invoke.ProgramInvokeMockImpl;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.core.config.args.Args;
+import org.tron.core.exception.ContractValidateException;
+import org.tron.protos.Protocol.Transaction;
+
+/**
+ * Microbenchmarks of the interpreter loop. Every case is a stack neutral body run in a loop of
+ * JUMPDEST, body, PUSH1 0, JUMP until the energy runs out. The empty body measures the dispatch
+ * of the loop itself, it is taken off the other cases to give the time of their opcodes.
+ */
+@Slf4j
+public class OpcodeBenchmarkTest {
+
+  // JUMPDEST
+  private static final String LOOP_HEAD = "5b";
+
+  // PUSH1 0, JUMP
+  private static final String LOOP_TAIL = "600056";
+
+  private static final int LOOP_OPS = 3;
+
+  private static final int WARMUP_ROUNDS = 5;
+
+  private static final int ROUNDS = 10;
+
+  private static final long ENERGY_LIMIT = 5_000_000L;
+
+  /**
+   * The body of every case and the number of opcodes in it.
+   */
+  private static final Map<String, Case> CASES = new LinkedHashMap<>();
+
+  private static boolean debug;
+
+  private static boolean vmResourceChargingOn;
+
+  private static class Case {
+
+    private final String body;
+    private final int ops;
+
+    private Case(String body, int ops) {
+      this.body = body;
+      this.ops = ops;
+    }
+  }
+
+  static {
+    CASES.put("dispatch", new Case("", 0));
+    // PUSH1 1, POP
+    CASES.put("PUSH1/POP", new Case("600150", 2));
+    // PUSH1 1, DUP1, SWAP1, POP, POP
+    CASES.put("DUP1/SWAP1", new Case("6001809050" + "50", 5));
+    // PUSH1 1, PUSH1 2, ADD, POP
+    CASES.put("ADD", new Case("600160020150", 4));
+    // PUSH1 3, PUSH1 5, MUL, POP
+    CASES.put("MUL", new Case("600360050250", 4));
+    // PUSH1 3, PUSH1 9, DIV, POP
+    CASES.put("DIV", new Case("600360090450", 4));
+    // PUSH1 1, PUSH1 2, LT, ISZERO, POP
+    CASES.put("LT/ISZERO", new Case("6001600210" + "1550", 5));
+    // PUSH1 3, PUSH1 2, EXP, POP
+    CASES.put("EXP", new Case("600360020a50", 4));
+    // PUSH1 1, PUSH1 0, MSTORE, PUSH1 0, MLOAD, POP
+    CASES.put("MSTORE/MLOAD", new Case("6001600052" + "60005150", 6));
+    // PUSH1 0x20, PUSH1 0, SHA3, POP
+    CASES.put("SHA3", new Case("602060002050", 4));
+  }
+
+  @BeforeClass
+  public static void init() {
+    debug = Args.getInstance().isDebug();
+    vmResourceChargingOn = VMConfig.isVmResourceChargingOn();
+    // no cpu time limit, a round runs until its energy is gone
+    Args.getInstance().setDebug(true);
+    ArgsTestUtils.initValidContractProtoThreadNum();
+    VMConfig.setVmResourceChargingOn(true);
+  }
+
+  @AfterClass
+  public static void destroy() {
+    Args.getInstance().setDebug(debug);
+    VMConfig.setVmResourceChargingOn(vmResourceChargingOn);
+  }
+
+  private static Program newProgram(Case benchCase, long energyLimit)
+      throws ContractValidateException {
+    ProgramInvokeMockImpl invoke = new ProgramInvokeMockImpl();
+    invoke.setEnergyLimit(energyLimit);
+    InternalTransaction interTrx = new InternalTransaction(Transaction.getDefaultInstance(),
+        TrxType.TRX_UNKNOWN_TYPE);
+    return new Program(Hex.decode(LOOP_HEAD + benchCase.body + LOOP_TAIL), invoke, interTrx);
+  }
+
+  /**
+   * Runs the loop of a case until its energy is gone and returns the steps it took, the time
+   * taken is added to nanos.
+   */
+  private static long runLoop(Case benchCase, long energyLimit, long[] nanos)
+      throws ContractValidateException {
+    Program program = newProgram(benchCase, energyLimit);
+    VM vm = new VM();
+    long steps = 0;
+    long start = System.nanoTime();
+    try {
+      while (!program.isStopped()) {
+        vm.step(program);
+        steps++;
+      }
+    } catch (Program.OutOfEnergyException e) {
+      // the loop only ends by running out of energy
+    }
+    nanos[0] += System.nanoTime() - start;
+    Assert.assertTrue("stack grows in " + benchCase.body, program.getStack().size() <= 3);
+    return steps;
+  }
+
+  /**
+   * The median time of one loop iteration of a case over the rounds.
+   */
+  private static double measure(Case benchCase) throws ContractValidateException {
+    long[] nanos = new long[1];
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      runLoop(benchCase, ENERGY_LIMIT, nanos);
+    }
+    List<Double> perIteration = new ArrayList<>();
+    for (int round = 0; round < ROUNDS; round++) {
+      nanos[0] = 0;
+      long steps = runLoop(benchCase, ENERGY_LIMIT, nanos);
+      perIteration.add((double) nanos[0] * (LOOP_OPS + benchCase.ops) / steps);
+    }
+    Double[] sorted = perIteration.toArray(new Double[0]);
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  @Test
+  public void testCasesAreStackNeutral() throws ContractValidateException {
+    for (Map.Entry<String, Case> entry : CASES.entrySet()) {
+      long steps = runLoop(entry.getValue(), 100_000, new long[1]);
+      Assert.assertTrue(entry.getKey(), steps > LOOP_OPS + entry.getValue().ops);
+    }
+  }
+
+  @Test
+  public void testDispatchBenchmark() throws ContractValidateException {
+    boolean enabled = false;
+
+    if (enabled) {
+      double dispatch = measure(CASES.get("dispatch"));
+      logger.info("loop dispatch: {} ns/iteration, {} ns/op", String.format("%.1f", dispatch),
+          String.format("%.1f", dispatch / LOOP_OPS));
+      for (Map.Entry<String, Case> entry : CASES.entrySet()) {
+        Case benchCase = entry.getValue();
+        if (benchCase.ops == 0) {
+          continue;
+        }
+        double perIteration = measure(benchCase);
+        logger.info("{}: {} ns/iteration, {} ns/op over the loop", entry.getKey(),
+            String.format("%.1f", perIteration),
+            String.format("%.1f", (perIteration - dispatch) / benchCase.ops));
+      }
+    } else {
+      logger.info("Opcode dispatch benchmark is disabled.");
+    }
+  }
+}
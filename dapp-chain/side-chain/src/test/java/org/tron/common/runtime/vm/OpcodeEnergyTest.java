@@ -0,0 +1,106 @@
+package org.tron.common.runtime.vm;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.common.runtime.config.VMConfig;
+import org.tron.common.runtime.vm.program.InternalTransaction;
+import org.tron.common.runtime.vm.program.InternalTransaction.TrxType;
+import org.tron.common.runtime.vm.program.Program;
+import org.tron.common.runtime.vm.program.invoke.ProgramInvokeMockImpl;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.core.config.args.Args;
+import org.tron.core.exception.ContractValidateException;
+import org.tron.protos.Protocol.Transaction;
+
+/**
+ * Checks the precomputed static energy table of the interpreter loop against the tiers of the
+ * opcodes it runs.
+ */
+public class OpcodeEnergyTest {
+
+  private static boolean debug;
+
+  private static boolean vmResourceChargingOn;
+
+  @BeforeClass
+  public static void init() {
+    debug = Args.getInstance().isDebug();
+    vmResourceChargingOn = VMConfig.isVmResourceChargingOn();
+    Args.getInstance().setDebug(true);
+    ArgsTestUtils.initValidContractProtoThreadNum();
+    VMConfig.setVmResourceChargingOn(true);
+  }
+
+  @AfterClass
+  public static void destroy() {
+    Args.getInstance().setDebug(debug);
+    VMConfig.setVmResourceChargingOn(vmResourceChargingOn);
+  }
+
+  private static Program newProgram(byte[] ops, long energyLimit)
+      throws ContractValidateException {
+    ProgramInvokeMockImpl invoke = new ProgramInvokeMockImpl();
+    invoke.setEnergyLimit(energyLimit);
+    InternalTransaction interTrx = new InternalTransaction(Transaction.getDefaultInstance(),
+        TrxType.TRX_UNKNOWN_TYPE);
+    return new Program(ops, invoke, interTrx);
+  }
+
+  private static long run(String code) throws ContractValidateException {
+    Program program = newProgram(Hex.decode(code), 1_000_000);
+    VM vm = new VM();
+    while (!program.isStopped()) {
+      vm.step(program);
+    }
+    Assert.assertNull(program.getResult().getException());
+    return program.getResult().getEnergyUsed();
+  }
+
+  @Test
+  public void testStaticTiers() throws ContractValidateException {
+    // PUSH1 1, PUSH1 2, ADD, PUSH1 3, MUL, STOP
+    long used = run("6001" + "6002" + "01" + "6003" + "02" + "00");
+    Assert.assertEquals(3 * OpCode.Tier.VeryLowTier.asInt() + OpCode.Tier.VeryLowTier.asInt()
+        + OpCode.Tier.LowTier.asInt(), used);
+
+    // PUSH1 1, DUP1, SWAP1, POP, POP, STOP
+    used = run("6001" + "80" + "90" + "50" + "50" + "00");
+    Assert.assertEquals(3 * OpCode.Tier.VeryLowTier.asInt() + 2 * OpCode.Tier.BaseTier.asInt(),
+        used);
+  }
+
+  @Test
+  public void testDynamicCosts() throws ContractValidateException {
+    // PUSH1 2, PUSH1 3, EXP: base exp energy plus one byte of exponent
+    EnergyCost energyCost = EnergyCost.getInstance();
+    long used = run("6003" + "6002" + "0a" + "00");
+    Assert.assertEquals(2 * OpCode.Tier.VeryLowTier.asInt() + energyCost.getEXP_ENERGY()
+        + energyCost.getEXP_BYTE_ENERGY(), used);
+
+    // PUSH1 0x20, PUSH1 0, MSTORE: only the one word of fresh memory is charged
+    used = run("6020" + "6000" + "52" + "00");
+    Assert.assertEquals(2 * OpCode.Tier.VeryLowTier.asInt() + energyCost.getMEMORY(), used);
+  }
+
+  @Test
+  public void testLoopRunsOutOfEnergy() throws ContractValidateException {
+    // JUMPDEST, PUSH1 0, JUMP
+    long perIteration = OpCode.Tier.SpecialTier.asInt() + OpCode.Tier.VeryLowTier.asInt()
+        + OpCode.Tier.MidTier.asInt();
+    Program program = newProgram(Hex.decode("5b600056"), perIteration * 100);
+    VM vm = new VM();
+    int steps = 0;
+    try {
+      while (!program.isStopped()) {
+        vm.step(program);
+        steps++;
+      }
+      Assert.fail("loop should run out of energy");
+    } catch (Program.OutOfEnergyException e) {
+      Assert.assertEquals(300, steps);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package org.tron.common.runtime.vm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+import org.tron.common.crypto.Hash;
+import org.tron.common.runtime.vm.program.ProgramPrecompile;
+
+public class ProgramPrecompileTest {
+
+  // PUSH1 0x5b JUMPDEST PUSH2 0x5b5b JUMPDEST STOP
+  private static final byte[] CODE = Hex.decode("605b5b615b5b5b00");
+
+  @Test
+  public void testJumpDest() {
+    ProgramPrecompile precompile = ProgramPrecompile.compile(CODE);
+    // 0x5b inside push data is not a jump destination
+    Assert.assertFalse(precompile.hasJumpDest(1));
+    Assert.assertTrue(precompile.hasJumpDest(2));
+    Assert.assertFalse(precompile.hasJumpDest(4));
+    Assert.assertFalse(precompile.hasJumpDest(5));
+    Assert.assertTrue(precompile.hasJumpDest(6));
+    Assert.assertFalse(precompile.hasJumpDest(7));
+    Assert.assertFalse(precompile.hasJumpDest(100));
+    Assert.assertFalse(precompile.hasJumpDest(-1));
+  }
+
+  @Test
+  public void testCacheByCodeHash() {
+    byte[] codeHash = Hash.sha3(CODE);
+    ProgramPrecompile.invalidate(codeHash);
+    Assert.assertNull(ProgramPrecompile.getCached(codeHash));
+
+    ProgramPrecompile first = ProgramPrecompile.compile(codeHash, CODE);
+    Assert.assertSame(first, ProgramPrecompile.getCached(codeHash));
+    Assert.assertSame(first, ProgramPrecompile.compile(codeHash, CODE.clone()));
+    Assert.assertArrayEquals(CODE, first.getCode());
+
+    ProgramPrecompile.invalidate(codeHash);
+    Assert.assertNull(ProgramPrecompile.getCached(codeHash));
+
+    // without a code hash nothing is cached
+    Assert.assertNotSame(ProgramPrecompile.compile(null, CODE),
+        ProgramPrecompile.compile(null, CODE));
+  }
+}
@@ -0,0 +1,86 @@
+package org.tron.common.runtime.vm;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.runtime.vm.program.Program.StackTooLargeException;
+import org.tron.common.runtime.vm.program.Stack;
+import org.tron.common.runtime.vm.program.listener.ProgramListenerAdaptor;
+
+public class StackTest {
+
+  @Test
+  public void testPushPopPeek() {
+    Stack stack = new Stack();
+    Assert.assertTrue(stack.isEmpty());
+    for (int i = 0; i < 10; i++) {
+      stack.push(new DataWord(i));
+    }
+    Assert.assertEquals(10, stack.size());
+    Assert.assertEquals(new DataWord(9), stack.peek());
+    Assert.assertEquals(new DataWord(0), stack.get(0));
+    Assert.assertEquals(new DataWord(9), stack.pop());
+    Assert.assertEquals(new DataWord(8), stack.peek());
+    Assert.assertEquals(9, stack.size());
+  }
+
+  @Test
+  public void testDupAndSwap() {
+    Stack stack = new Stack();
+    stack.push(new DataWord(1));
+    stack.push(new DataWord(2));
+    stack.push(new DataWord(3));
+
+    stack.dup(3);
+    Assert.assertEquals(4, stack.size());
+    Assert.assertEquals(new DataWord(1), stack.peek());
+    // the duplicate must not share its bytes with the original
+    stack.peek().add(DataWord.ONE());
+    Assert.assertEquals(new DataWord(1), stack.get(0));
+
+    stack.swap(stack.size() - 1, stack.size() - 3);
+    Assert.assertEquals(new DataWord(2), stack.peek());
+    Assert.assertEquals(new DataWord(2), stack.get(1));
+    Assert.assertEquals(new DataWord(2), stack.pop());
+  }
+
+  @Test
+  public void testListener() {
+    final List<String> events = new ArrayList<>();
+    Stack stack = new Stack();
+    stack.setProgramListener(new ProgramListenerAdaptor() {
+      @Override
+      public void onStackPop() {
+        events.add("pop");
+      }
+
+      @Override
+      public void onStackPush(DataWord value) {
+        events.add("push " + value.intValue());
+      }
+
+      @Override
+      public void onStackSwap(int from, int to) {
+        events.add("swap " + from + " " + to);
+      }
+    });
+    stack.push(new DataWord(7));
+    stack.push(new DataWord(8));
+    stack.dup(2);
+    stack.swap(0, 2);
+    stack.pop();
+    Assert.assertEquals(5, events.size());
+    Assert.assertEquals("push 7", events.get(2));
+    Assert.assertEquals("swap 0 2", events.get(3));
+    Assert.assertEquals("pop", events.get(4));
+  }
+
+  @Test(expected = StackTooLargeException.class)
+  public void testOverflow() {
+    Stack stack = new Stack();
+    for (int i = 0; i <= Stack.MAX_SIZE; i++) {
+      stack.push(DataWord.ZERO());
+    }
+  }
+}
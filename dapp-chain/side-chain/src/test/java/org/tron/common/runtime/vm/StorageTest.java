@@ -1,6 +1,9 @@
 package org.tron.common.runtime.vm;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
@@ -10,8 +13,11 @@ import org.testng.Assert;
 import org.tron.common.runtime.TVMTestResult;
 import org.tron.common.runtime.TvmTestUtils;
 import org.tron.common.runtime.config.VMConfig;
+import org.tron.common.runtime.vm.program.Storage;
 import org.tron.common.storage.Deposit;
 import org.tron.common.storage.DepositImpl;
+import org.tron.common.storage.Key;
+import org.tron.common.storage.StorageAccessList;
 import org.tron.core.Wallet;
 import org.tron.core.config.Parameter.ForkBlockVersionConsts;
 import org.tron.core.exception.ContractExeException;
@@ -76,6 +82,43 @@ public class StorageTest extends VMTestBase {
     Assert.assertNull(DepositImpl.createRoot(manager).getStorageValue(address, nullKey));
   }
 
+  @Test
+  public void prefetchFromAccessList() {
+    byte[] address = Hex.decode(OWNER_ADDRESS);
+    DataWord storageKey1 = new DataWord("prefetch_key1".getBytes());
+    DataWord storageVal1 = new DataWord("prefetch_val1".getBytes());
+    DataWord missingKey = new DataWord("prefetch_missing".getBytes());
+    byte[] txId = Hex.decode("0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef");
+
+    rootDeposit.putStorageValue(address, storageKey1, storageVal1);
+    rootDeposit.commit();
+
+    // first execution records what it read, including the miss
+    Deposit deposit1 = DepositImpl.createRoot(manager);
+    Assert.assertEquals(deposit1.getStorageValue(address, storageKey1), storageVal1);
+    Assert.assertNull(deposit1.getStorageValue(address, missingKey));
+    Map<Key, Set<DataWord>> accessList = deposit1.getStorageAccessList();
+    Assert.assertEquals(accessList.get(Key.create(address)).size(), 2);
+    StorageAccessList.put(txId, accessList);
+
+    // second execution gets both slots from the batched read
+    Deposit deposit2 = DepositImpl.createRoot(manager);
+    deposit2.setStorageAccessList(StorageAccessList.get(txId));
+    Storage storage = deposit2.getStorage(address);
+    Assert.assertEquals(storage.getRowCache().get(storageKey1).getValue(), storageVal1);
+    // only the prefetched slots that are read go to the next access list
+    Assert.assertTrue(storage.getLoadedKeys().isEmpty());
+    Assert.assertNull(storage.getValue(missingKey));
+    Assert.assertEquals(Collections.singleton(missingKey), storage.getLoadedKeys());
+    Assert.assertTrue(StorageAccessList.get(null).isEmpty());
+
+    // prefetching a cached slot must not overwrite a pending write
+    DataWord storageVal2 = new DataWord("prefetch_val2".getBytes());
+    storage.put(storageKey1, storageVal2);
+    storage.prefetch(Collections.singleton(storageKey1));
+    Assert.assertEquals(storage.getValue(storageKey1), storageVal2);
+  }
+
   /*
     pragma solidity ^0.4.0;
     contract StorageDemo{
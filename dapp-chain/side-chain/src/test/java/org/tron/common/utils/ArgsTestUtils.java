@@ -0,0 +1,16 @@
+package org.tron.common.utils;
+
+import org.tron.core.config.args.Args;
+
+public class ArgsTestUtils {
+
+  /**
+   * Tests that do not load Args from a config still build transactions, whose capsules need a
+   * valid contract validation pool size.
+   */
+  public static void initValidContractProtoThreadNum() {
+    if (Args.getInstance().getValidContractProtoThreadNum() <= 0) {
+      Args.getInstance().setValidContractProtoThreadNum(1);
+    }
+  }
+}
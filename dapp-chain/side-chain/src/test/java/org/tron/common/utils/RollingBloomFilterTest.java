@@ -0,0 +1,60 @@
+package org.tron.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RollingBloomFilterTest {
+
+  private static byte[] key(int i) {
+    return Sha256Hash.of(ByteArray.fromInt(i)).getBytes();
+  }
+
+  @Test
+  public void testRolling() {
+    int capacity = 1_000;
+    RollingBloomFilter filter = new RollingBloomFilter(capacity, 0.001);
+    for (int i = 0; i < capacity; i++) {
+      filter.put(key(i));
+    }
+    for (int i = 0; i < capacity; i++) {
+      Assert.assertTrue(filter.mightContain(key(i)));
+    }
+
+    // the first generation survives one more generation of insertions
+    for (int i = capacity; i < 2 * capacity; i++) {
+      filter.put(key(i));
+    }
+    for (int i = 0; i < 2 * capacity; i++) {
+      Assert.assertTrue(filter.mightContain(key(i)));
+    }
+
+    // and is dropped after the next one
+    for (int i = 2 * capacity; i < 3 * capacity + 1; i++) {
+      filter.put(key(i));
+    }
+    int remembered = 0;
+    for (int i = 0; i < capacity; i++) {
+      if (filter.mightContain(key(i))) {
+        remembered++;
+      }
+    }
+    Assert.assertTrue(remembered < capacity / 100);
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    int capacity = 10_000;
+    RollingBloomFilter filter = new RollingBloomFilter(capacity, 0.001);
+    for (int i = 0; i < 2 * capacity; i++) {
+      filter.put(key(i));
+    }
+    int falsePositives = 0;
+    for (int i = 2 * capacity; i < 3 * capacity; i++) {
+      if (filter.mightContain(key(i))) {
+        falsePositives++;
+      }
+    }
+    // two generations at 0.1% each
+    Assert.assertTrue(falsePositives < capacity * 0.005);
+  }
+}
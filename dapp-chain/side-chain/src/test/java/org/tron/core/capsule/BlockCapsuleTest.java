@@ -92,6 +92,33 @@ public class BlockCapsuleTest {
         blockCapsule0.getTransactions().get(0).getInstance().getRawData().getVout(0).getValue());
   } */
 
+  @Test
+  public void testAddTransaction() throws Exception {
+    BlockCapsule block = new BlockCapsule(2, Sha256Hash.ZERO_HASH, 4567,
+        ByteString.copyFrom("1234567".getBytes()));
+    for (long amount = 1; amount <= 5; amount++) {
+      TransactionCapsule trx = new TransactionCapsule(TransferContract.newBuilder()
+          .setAmount(amount)
+          .setOwnerAddress(ByteString.copyFrom("0x0000000000000000000".getBytes()))
+          .build(), ContractType.TransferContract);
+      block.addTransaction(trx);
+      // a change after the add is not in the block
+      trx.setTimestamp();
+      Assert.assertEquals(block.getInstance().getSerializedSize(), block.getSerializedSize());
+    }
+    block.setMerkleRoot();
+
+    BlockCapsule received = new BlockCapsule(block.getData());
+    Assert.assertEquals(5, received.getInstance().getTransactionsCount());
+    Assert.assertEquals(block.getMerkleRoot(), received.calcMerkleRoot());
+    Assert.assertEquals(
+        new TransactionCapsule(block.getInstance().getTransactions(0)).getTransactionId(),
+        received.getTransactions().get(0).getTransactionId());
+    // the cached id follows the change of the transaction
+    Assert.assertNotEquals(block.getTransactions().get(0).getTransactionId(),
+        received.getTransactions().get(0).getTransactionId());
+  }
+
   @Test
   public void testGetData() {
     blockCapsule0.getData();
@@ -0,0 +1,27 @@
+package org.tron.core.capsule.utils;
+
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tron.common.utils.Sha256Hash;
+
+public class IncrementalMerkleTreeTest {
+
+  @Test
+  public void testSameRootAsMerkleTree() {
+    IncrementalMerkleTree tree = new IncrementalMerkleTree();
+    Assert.assertEquals(Sha256Hash.ZERO_HASH, tree.getRoot());
+
+    List<Sha256Hash> hashList = new ArrayList<>();
+    for (int i = 0; i < 140; i++) {
+      Sha256Hash hash = Sha256Hash.of(Ints.toByteArray(i));
+      hashList.add(hash);
+      tree.append(hash);
+      Assert.assertEquals(i + 1, tree.size());
+      Assert.assertEquals("leaves: " + (i + 1),
+          MerkleTree.getInstance().createTree(hashList).getRoot().getHash(), tree.getRoot());
+    }
+  }
+}
@@ -4,6 +4,10 @@ import com.google.protobuf.ByteString;
 import java.io.File;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import javafx.util.Pair;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.AfterClass;
 import org.junit.Assert;
@@ -12,11 +16,14 @@ import org.junit.Test;
 import org.tron.common.application.TronApplicationContext;
 import org.tron.common.utils.ByteArray;
 import org.tron.common.utils.FileUtil;
+import org.tron.common.utils.Sha256Hash;
 import org.tron.core.Constant;
 import org.tron.core.capsule.BlockCapsule;
 import org.tron.core.config.DefaultConfig;
 import org.tron.core.config.args.Args;
+import org.tron.core.db.KhaosDatabase.KhaosBlock;
 import org.tron.core.exception.BadNumberBlockException;
+import org.tron.core.exception.NonCommonBlockException;
 import org.tron.core.exception.UnLinkedBlockException;
 import org.tron.protos.Protocol.Block;
 import org.tron.protos.Protocol.BlockHeader;
@@ -115,4 +122,68 @@ public class KhaosDatabaseTest {
     Assert.assertNull(objectReference.get());
     Assert.assertNull(khaosDatabase.getParentBlock(blockCapsule2.getBlockId()));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testPruneAndBranch() throws Exception {
+    BlockCapsule start = new BlockCapsule(100, Sha256Hash.ZERO_HASH, 1, ByteString.EMPTY);
+    khaosDatabase.start(start);
+    khaosDatabase.setMaxSize(3);
+    try {
+      List<BlockCapsule> main = new ArrayList<>();
+      BlockCapsule parent = start;
+      for (long num = 101; num <= 105; num++) {
+        parent = new BlockCapsule(num, parent.getBlockId(), 1, ByteString.EMPTY);
+        main.add(parent);
+        khaosDatabase.push(parent);
+      }
+      // the blocks more than 3 below the head a block is pushed on are gone
+      Assert.assertFalse(khaosDatabase.containBlock(start.getBlockId()));
+      Assert.assertTrue(khaosDatabase.containBlock(main.get(0).getBlockId()));
+
+      BlockCapsule fork104 = new BlockCapsule(104, main.get(2).getBlockId(), 2, ByteString.EMPTY);
+      BlockCapsule fork105 = new BlockCapsule(105, fork104.getBlockId(), 2, ByteString.EMPTY);
+      khaosDatabase.push(fork104);
+      Assert.assertEquals(main.get(4), khaosDatabase.push(fork105));
+
+      Sha256Hash forkHead = fork105.getBlockId();
+      Pair<LinkedList<KhaosBlock>, LinkedList<KhaosBlock>> branch = khaosDatabase
+          .getBranch(forkHead, main.get(4).getBlockId());
+      Assert.assertEquals(fork105, branch.getKey().peekFirst().getBlk());
+      Assert.assertEquals(fork104, branch.getKey().peekLast().getBlk());
+      Assert.assertEquals(2, branch.getValue().size());
+      branch.getKey().clear();
+      branch = khaosDatabase.getBranch(forkHead, main.get(4).getBlockId());
+      Assert.assertEquals(2, branch.getKey().size());
+
+      // the highest block left is the head, the branch through the removed block is gone
+      khaosDatabase.removeBlk(main.get(4).getBlockId());
+      Assert.assertEquals(fork105, khaosDatabase.getHead());
+      try {
+        khaosDatabase.getBranch(forkHead, main.get(4).getBlockId());
+        Assert.fail("the block is removed");
+      } catch (NonCommonBlockException e) {
+        Assert.assertEquals(2,
+            khaosDatabase.getBranch(forkHead, main.get(3).getBlockId()).getKey().size());
+      }
+
+      // the cached branch goes when its common parent is pruned
+      parent = fork105;
+      for (long num = 106; num <= 108; num++) {
+        parent = new BlockCapsule(num, parent.getBlockId(), 2, ByteString.EMPTY);
+        khaosDatabase.push(parent);
+        if (num == 106) {
+          Assert.assertEquals(2,
+              khaosDatabase.getBranch(forkHead, main.get(3).getBlockId()).getKey().size());
+        }
+      }
+      try {
+        khaosDatabase.getBranch(forkHead, main.get(3).getBlockId());
+        Assert.fail("the common parent is pruned");
+      } catch (NonCommonBlockException e) {
+        Assert.assertFalse(khaosDatabase.containBlock(main.get(2).getBlockId()));
+      }
+    } finally {
+      khaosDatabase.setMaxSize(1024);
+    }
+  }
+}
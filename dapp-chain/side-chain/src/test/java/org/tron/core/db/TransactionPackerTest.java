@@ -0,0 +1,108 @@
+package org.tron.core.db;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.core.db.TransactionPacker.Candidate;
+import org.tron.core.exception.TaposException;
+import org.tron.protos.Contract.TransferContract;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+
+public class TransactionPackerTest {
+
+  private static final String OWNER = "a0548794500882809695a8a687866e76d4271a1abc";
+
+  private final AtomicReference<BlockId> head = new AtomicReference<>();
+  private final List<TransactionCapsule> pending = Collections
+      .synchronizedList(new ArrayList<>());
+  private Manager manager;
+  private TransactionPacker packer;
+
+  @BeforeClass
+  public static void initArgs() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+  }
+
+  private static BlockId blockId(long num) {
+    return new BlockCapsule(num, Sha256Hash.ZERO_HASH, num * 3000, ByteString.EMPTY).getBlockId();
+  }
+
+  private static TransactionCapsule transfer(long amount) {
+    return new TransactionCapsule(TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(ByteArray.fromHexString(OWNER)))
+        .setToAddress(ByteString.copyFrom(new byte[21]))
+        .setAmount(amount).build(), ContractType.TransferContract);
+  }
+
+  @Before
+  public void init() {
+    head.set(blockId(1));
+    manager = mock(Manager.class);
+    when(manager.getHeadBlockId()).thenAnswer(invocation -> head.get());
+    when(manager.getPendingTransactions()).thenReturn(pending);
+    packer = new TransactionPacker(manager, 100);
+  }
+
+  @Test
+  public void testRefresh() throws Exception {
+    TransactionCapsule trx = transfer(1);
+    TransactionCapsule expired = transfer(2);
+    doThrow(new TaposException("tapos failed")).when(manager).validateTapos(expired);
+    pending.add(trx);
+    pending.add(expired);
+    packer.refresh();
+
+    Map<TransactionCapsule, Candidate> candidates = packer.getCandidates(blockId(1));
+    Assert.assertEquals(2, candidates.size());
+    Assert.assertTrue(candidates.get(trx).isPackable());
+    Assert.assertFalse(candidates.get(expired).isPackable());
+    Assert.assertEquals(trx.getInstance().getSerializedSize(), candidates.get(trx).getSize());
+    Assert.assertEquals(OWNER, candidates.get(trx).getOwnerAddress());
+    Assert.assertFalse(candidates.get(trx).isMultiSign());
+
+    // a new transaction is prepared on the next refresh, the others are not checked again
+    TransactionCapsule later = transfer(3);
+    pending.add(later);
+    Assert.assertNull(packer.getCandidates(blockId(1)).get(later));
+    doThrow(new TaposException("tapos failed")).when(manager).validateTapos(any());
+    packer.refresh();
+    candidates = packer.getCandidates(blockId(1));
+    Assert.assertEquals(3, candidates.size());
+    Assert.assertTrue(candidates.get(trx).isPackable());
+    Assert.assertFalse(candidates.get(later).isPackable());
+  }
+
+  @Test
+  public void testHeadChange() {
+    TransactionCapsule trx = transfer(1);
+    pending.add(trx);
+    packer.refresh();
+    Assert.assertTrue(packer.getCandidates(blockId(2)).isEmpty());
+
+    // the preparation of another head is dropped
+    head.set(blockId(2));
+    Assert.assertTrue(packer.getCandidates(blockId(2)).isEmpty());
+    pending.clear();
+    packer.refresh();
+    Assert.assertTrue(packer.getCandidates(blockId(2)).isEmpty());
+    Assert.assertTrue(packer.getCandidates(blockId(1)).isEmpty());
+  }
+}
@@ -1,14 +1,41 @@
 package org.tron.core.net;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.primitives.Bytes;
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.tron.common.overlay.message.DisconnectMessage;
+import org.tron.common.overlay.message.Message;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.db.DynamicPropertiesStore;
+import org.tron.core.db.Manager;
 import org.tron.core.exception.P2pException;
+import org.tron.core.exception.P2pException.TypeEnum;
+import org.tron.core.net.message.FetchBlockTrxsMessage;
 import org.tron.core.net.message.MessageTypes;
+import org.tron.core.net.message.TransactionMessage;
+import org.tron.core.net.message.TransactionsMessage;
+import org.tron.core.net.message.TronMessageFactory;
 import org.tron.protos.Protocol.ReasonCode;
+import org.tron.protos.Protocol.Transaction;
 
+@Slf4j
 public class MessageTest {
 
+  private static DynamicPropertiesStore store;
+
   private DisconnectMessage disconnectMessage;
 
   @Test
@@ -35,4 +62,108 @@ public class MessageTest {
     System.out.println("spend time : " + (endTime - startTime));
   }
 
+  @BeforeClass
+  public static void init() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+    Manager manager = mock(Manager.class);
+    store = mock(DynamicPropertiesStore.class);
+    when(manager.getDynamicPropertiesStore()).thenReturn(store);
+    when(store.getAllowProtoFilterNum()).thenReturn(0L);
+    Message.setManager(manager);
+  }
+
+  private static TransactionsMessage newTransactionsMessage(int count) {
+    List<Transaction> transactions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      transactions.add(Transaction.newBuilder().setRawData(Transaction.raw.newBuilder()
+          .setTimestamp(i).setData(ByteString.copyFrom(new byte[200]))).build());
+    }
+    return new TransactionsMessage(transactions);
+  }
+
+  private static byte[] toBytes(ByteBuf buf) {
+    byte[] bytes = new byte[buf.readableBytes()];
+    buf.readBytes(bytes);
+    buf.release();
+    return bytes;
+  }
+
+  @Test
+  public void testFraming() throws Exception {
+    TransactionsMessage msg = newTransactionsMessage(3);
+    byte[] packed = toBytes(msg.getSendData());
+    Assert.assertEquals(MessageTypes.TRXS.asByte(), packed[0]);
+    Assert.assertEquals(msg.getData().length + 1, packed.length);
+
+    // splitting off the type byte gives the same message as parsing the whole frame
+    TronMessageFactory factory = new TronMessageFactory();
+    Message whole = factory.create(packed);
+    Message split = factory.create(msg.getType().asByte(), msg.getData());
+    Assert.assertEquals(whole, split);
+    Assert.assertEquals(msg, split);
+  }
+
+  @Test
+  public void testTransactionMessageData() throws Exception {
+    Transaction trx = newTransactionsMessage(1).getTransactions().getTransactions(0);
+    TransactionMessage msg = new TransactionMessage(trx);
+    Assert.assertArrayEquals(trx.toByteArray(), msg.getData());
+    Assert.assertEquals(msg, new TransactionMessage(trx.toByteArray()));
+    Assert.assertEquals(trx.toByteArray().length + 1, toBytes(msg.getSendData()).length);
+  }
+
+  @Test
+  public void testFetchBlockTrxsFilter() throws Exception {
+    BlockId blockId = new BlockId(Sha256Hash.ZERO_HASH, 1);
+    byte[] data = new FetchBlockTrxsMessage(blockId, Arrays.asList(0, 2)).getData();
+    // an unknown varint field 15 after the known ones
+    byte[] unknown = Bytes.concat(data, new byte[]{(byte) (15 << 3), 1});
+
+    FetchBlockTrxsMessage msg = new FetchBlockTrxsMessage(data);
+    Assert.assertEquals(blockId, msg.getBlockId());
+    Assert.assertEquals(Arrays.asList(0, 2), msg.getIndexes());
+    new FetchBlockTrxsMessage(unknown);
+
+    when(store.getAllowProtoFilterNum()).thenReturn(1L);
+    try {
+      new FetchBlockTrxsMessage(data);
+      new FetchBlockTrxsMessage(unknown);
+      Assert.fail();
+    } catch (P2pException e) {
+      Assert.assertEquals(TypeEnum.PROTOBUF_ERROR, e.getType());
+    } finally {
+      when(store.getAllowProtoFilterNum()).thenReturn(0L);
+    }
+  }
+
+  @Test
+  public void testAllocationPerMessage() throws Exception {
+    boolean enabled = false;
+
+    if (enabled) {
+      com.sun.management.ThreadMXBean bean =
+          (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+      TronMessageFactory factory = new TronMessageFactory();
+      byte[] data = newTransactionsMessage(100).getData();
+      int rounds = 10_000;
+      for (int round = 0; round < 3; round++) {
+        long start = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < rounds; i++) {
+          TransactionsMessage msg = (TransactionsMessage) factory
+              .create(MessageTypes.TRXS.asByte(), data);
+          // what TransactionsMsgHandler and AdvService do with every transaction
+          msg.getTransactions().getTransactionsList()
+              .forEach(trx -> new TransactionMessage(trx).getMessageId());
+          msg.getSendData().release();
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - start;
+        logger.info("round {}: {} bytes allocated per message of {} bytes", round,
+            allocated / rounds, data.length);
+      }
+    } else {
+      logger.info("Message allocation test is disabled.");
+    }
+  }
+
 }
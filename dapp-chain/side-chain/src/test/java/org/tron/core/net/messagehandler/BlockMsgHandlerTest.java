@@ -1,17 +1,42 @@
 package org.tron.core.net.messagehandler;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.cache.Cache;
+import com.google.protobuf.ByteString;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.testng.collections.Lists;
+import org.tron.common.overlay.message.Message;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ReflectUtils;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.BlockCapsule;
 import org.tron.core.exception.P2pException;
+import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.message.BlockTrxsMessage;
+import org.tron.core.net.message.CompactBlockMessage;
+import org.tron.core.net.message.FetchBlockTrxsMessage;
 import org.tron.core.net.peer.Item;
 import org.tron.core.net.peer.PeerConnection;
+import org.tron.core.net.service.AdvService;
+import org.tron.core.services.WitnessProductBlockService;
 import org.tron.protos.Protocol.Inventory.InventoryType;
 import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Result;
+import org.tron.protos.Protocol.Transaction.Result.contractResult;
 
 public class BlockMsgHandlerTest {
 
@@ -20,6 +45,11 @@ public class BlockMsgHandlerTest {
   private BlockCapsule blockCapsule;
   private BlockMessage msg;
 
+  @BeforeClass
+  public static void init() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+  }
+
   @Test
   public void testProcessMessage() {
     try {
@@ -61,4 +91,146 @@ public class BlockMsgHandlerTest {
     }
   }
 
+  private List<Message> sent = new ArrayList<>();
+  private int peerCount;
+
+  private class RecordingPeer extends PeerConnection {
+
+    RecordingPeer() {
+      // peers are told apart by their address
+      ReflectUtils.setFieldValue(this, "inetSocketAddress",
+          new InetSocketAddress("127.0.0.1", 18888 + peerCount++));
+    }
+
+    @Override
+    public void sendMessage(Message message) {
+      sent.add(message);
+    }
+  }
+
+  private BlockCapsule newBlock(List<Transaction> transactions) {
+    BlockCapsule block = new BlockCapsule(System.currentTimeMillis(),
+        Sha256Hash.ZERO_HASH.getByteString(), 1, transactions);
+    block.setMerkleRoot();
+    return block;
+  }
+
+  private TronNetDelegate mockHandler(AdvService advService) {
+    TronNetDelegate delegate = mock(TronNetDelegate.class);
+    when(delegate.containBlock(any())).thenReturn(true);
+    when(delegate.getActivePeer()).thenReturn(Collections.emptyList());
+    ReflectUtils.setFieldValue(handler, "tronNetDelegate", delegate);
+    ReflectUtils.setFieldValue(handler, "advService", advService);
+    ReflectUtils.setFieldValue(handler, "witnessProductBlockService",
+        mock(WitnessProductBlockService.class));
+    return delegate;
+  }
+
+  /**
+   * A transaction as it is in a block, with the ret set by processTransaction.
+   */
+  private Transaction newTransaction(long timestamp) {
+    return Transaction.newBuilder()
+        .setRawData(Transaction.raw.newBuilder().setTimestamp(timestamp)
+            .setData(ByteString.copyFrom(new byte[100])))
+        .addRet(Result.newBuilder().setFee(timestamp * 100)
+            .setContractRet(contractResult.SUCCESS)).build();
+  }
+
+  /**
+   * The copy of a transaction in the cache of AdvService, as it was broadcast, without ret.
+   */
+  private static Transaction cached(Transaction transaction) {
+    return transaction.toBuilder().clearRet().build();
+  }
+
+  @Test
+  public void testCompactBlock() throws Exception {
+    List<Transaction> transactions = Arrays.asList(newTransaction(1), newTransaction(2),
+        newTransaction(3));
+    BlockCapsule block = newBlock(transactions);
+    AdvService advService = mock(AdvService.class);
+    when(advService.getTransaction(anyLong())).thenReturn(null);
+    // the first and the last transaction are already cached
+    for (int i : new int[]{0, 2}) {
+      when(advService.getTransaction(CompactBlockMessage.shortId(block.getTransactions().get(i)
+          .getTransactionId()))).thenReturn(cached(transactions.get(i)));
+    }
+    TronNetDelegate delegate = mockHandler(advService);
+    PeerConnection peer = new RecordingPeer();
+    peer.getAdvInvRequest()
+        .put(new Item(block.getBlockId(), InventoryType.BLOCK), System.currentTimeMillis());
+
+    CompactBlockMessage compactBlock = new CompactBlockMessage(block);
+    Assert.assertEquals(block.getBlockId(), compactBlock.getBlockId());
+    Assert.assertTrue(compactBlock.getData().length < new BlockMessage(block).getData().length);
+    handler.processMessage(peer, compactBlock);
+
+    Assert.assertEquals(1, sent.size());
+    FetchBlockTrxsMessage fetch = (FetchBlockTrxsMessage) sent.get(0);
+    Assert.assertEquals(block.getBlockId(), fetch.getBlockId());
+    Assert.assertEquals(Collections.singletonList(1), fetch.getIndexes());
+
+    handler.processMessage(peer, new BlockTrxsMessage(block.getBlockId(),
+        Collections.singletonList(transactions.get(1))));
+    ArgumentCaptor<BlockCapsule> captor = ArgumentCaptor.forClass(BlockCapsule.class);
+    verify(delegate).processBlock(captor.capture());
+    Assert.assertEquals(block.getBlockId(), captor.getValue().getBlockId());
+    Assert.assertEquals(block.getInstance(), captor.getValue().getInstance());
+    Assert.assertTrue(peer.getAdvInvRequest().isEmpty());
+  }
+
+  @Test
+  public void testCompactBlockShortIdCollision() throws Exception {
+    List<Transaction> transactions = Arrays.asList(newTransaction(1), newTransaction(2));
+    BlockCapsule block = newBlock(transactions);
+    AdvService advService = mock(AdvService.class);
+    // every short id resolves, but to the wrong transaction
+    when(advService.getTransaction(anyLong())).thenReturn(newTransaction(4));
+    TronNetDelegate delegate = mockHandler(advService);
+    PeerConnection peer = new RecordingPeer();
+    peer.getAdvInvRequest()
+        .put(new Item(block.getBlockId(), InventoryType.BLOCK), System.currentTimeMillis());
+
+    handler.processMessage(peer, new CompactBlockMessage(block));
+    Assert.assertEquals(1, sent.size());
+    Assert.assertEquals(Arrays.asList(0, 1), ((FetchBlockTrxsMessage) sent.get(0)).getIndexes());
+
+    handler.processMessage(peer, new BlockTrxsMessage(block.getBlockId(), transactions));
+    verify(delegate).processBlock(any());
+
+    // a late reply is dropped, it does not cost the peer its connection
+    handler.processMessage(peer, new BlockTrxsMessage(block.getBlockId(), transactions));
+    verify(delegate).processBlock(any());
+  }
+
+  @Test
+  public void testBlockTrxsFromAnotherPeer() throws Exception {
+    List<Transaction> transactions = Arrays.asList(newTransaction(1), newTransaction(2));
+    BlockCapsule block = newBlock(transactions);
+    AdvService advService = mock(AdvService.class);
+    when(advService.getTransaction(anyLong())).thenReturn(null);
+    TronNetDelegate delegate = mockHandler(advService);
+    PeerConnection peer = new RecordingPeer();
+    PeerConnection other = new RecordingPeer();
+    for (PeerConnection p : Arrays.asList(peer, other)) {
+      p.getAdvInvRequest()
+          .put(new Item(block.getBlockId(), InventoryType.BLOCK), System.currentTimeMillis());
+    }
+
+    // both peers are asked, the requests do not overwrite each other
+    handler.processMessage(peer, new CompactBlockMessage(block));
+    handler.processMessage(other, new CompactBlockMessage(block));
+    Assert.assertEquals(2, sent.size());
+    Cache<?, ?> pendingBlocks = ReflectUtils.getFieldValue(handler, "pendingBlocks");
+    Assert.assertEquals(2, pendingBlocks.size());
+
+    handler.processMessage(new RecordingPeer(),
+        new BlockTrxsMessage(block.getBlockId(), transactions));
+    handler.processMessage(other, new BlockTrxsMessage(block.getBlockId(), transactions));
+    ArgumentCaptor<BlockCapsule> captor = ArgumentCaptor.forClass(BlockCapsule.class);
+    verify(delegate).processBlock(captor.capture());
+    Assert.assertEquals(block.getInstance(), captor.getValue().getInstance());
+  }
+
 }
@@ -0,0 +1,227 @@
+package org.tron.core.net.messagehandler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.core.capsule.TransactionCapsule;
+import org.tron.core.config.args.Args;
+import org.tron.core.exception.P2pException;
+import org.tron.core.net.TronNetDelegate;
+import org.tron.core.net.message.TransactionMessage;
+import org.tron.core.net.message.TransactionsMessage;
+import org.tron.core.net.messagehandler.TransactionsMsgHandler.Priority;
+import org.tron.core.net.peer.Item;
+import org.tron.core.net.peer.PeerConnection;
+import org.tron.core.net.service.AdvService;
+import org.tron.protos.Contract.TransferContract;
+import org.tron.protos.Contract.TriggerSmartContract;
+import org.tron.protos.Protocol.Inventory.InventoryType;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+
+public class TransactionsMsgHandlerTest {
+
+  private static final ByteString GATEWAY = ByteString.copyFrom(new byte[21]);
+
+  private TransactionsMsgHandler handler;
+  private TronNetDelegate delegate;
+  private PeerConnection peer = new PeerConnection();
+  private List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+  private CountDownLatch started = new CountDownLatch(1);
+  private CountDownLatch release = new CountDownLatch(1);
+  private CountDownLatch done;
+
+  @BeforeClass
+  public static void initArgs() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+  }
+
+  @Before
+  public void init() throws P2pException {
+    // a single worker, so the order the queue hands transactions out is the order they run in
+    Args.getInstance().setValidateSignThreadNum(1);
+    handler = new TransactionsMsgHandler();
+    delegate = mock(TronNetDelegate.class);
+    ReflectUtils.setFieldValue(handler, "tronNetDelegate", delegate);
+    ReflectUtils.setFieldValue(handler, "advService", mock(AdvService.class));
+    when(delegate.isGatewayContractCall(any())).thenAnswer(invocation -> {
+      Transaction.Contract contract = invocation.getArgument(0);
+      return contract.getParameter().unpack(TriggerSmartContract.class)
+          .getContractAddress().equals(GATEWAY);
+    });
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      handled.add(((TransactionCapsule) invocation.getArgument(0)).getInstance().getRawData()
+          .getTimestamp());
+      done.countDown();
+      return null;
+    }).when(delegate).pushTransaction(any());
+  }
+
+  @After
+  public void destroy() {
+    release.countDown();
+    handler.close();
+  }
+
+  private static Transaction transfer(long id, byte owner) {
+    byte[] address = new byte[21];
+    address[0] = owner;
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(address)).setAmount(id).build();
+    return build(id, ContractType.TransferContract, Any.pack(contract), 0);
+  }
+
+  private static Transaction trigger(long id, ByteString contractAddress, long feeLimit) {
+    return trigger(id, ByteString.copyFrom(new byte[]{1, (byte) id}), contractAddress, feeLimit);
+  }
+
+  private static Transaction trigger(long id, ByteString owner, ByteString contractAddress,
+      long feeLimit) {
+    TriggerSmartContract contract = TriggerSmartContract.newBuilder()
+        .setOwnerAddress(owner)
+        .setContractAddress(contractAddress).build();
+    return build(id, ContractType.TriggerSmartContract, Any.pack(contract), feeLimit);
+  }
+
+  private static Transaction build(long id, ContractType type, Any parameter, long feeLimit) {
+    Transaction.Contract contract = Transaction.Contract.newBuilder().setType(type)
+        .setParameter(parameter).build();
+    return Transaction.newBuilder().setRawData(Transaction.raw.newBuilder()
+        .addContract(contract).setFeeLimit(feeLimit).setTimestamp(id)).build();
+  }
+
+  private void receive(Transaction... trxs) throws P2pException {
+    List<Transaction> list = new ArrayList<>();
+    for (Transaction trx : trxs) {
+      peer.getAdvInvRequest().put(new Item(new TransactionMessage(trx).getMessageId(),
+          InventoryType.TRX), System.currentTimeMillis());
+      list.add(trx);
+    }
+    handler.processMessage(peer, new TransactionsMessage(list));
+  }
+
+  @Test
+  public void testPriorityOrder() throws Exception {
+    done = new CountDownLatch(6);
+    ByteString contract = ByteString.copyFrom(new byte[]{7});
+    // the first one occupies the worker while the rest queue up
+    receive(transfer(1, (byte) 1));
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    receive(trigger(2, contract, 10), transfer(3, (byte) 2), trigger(4, contract, 1000),
+        trigger(5, GATEWAY, 0), transfer(6, (byte) 3));
+    // nothing is classified before a worker has checked the signatures
+    Assert.assertEquals(5, handler.getQueueSize(Priority.UNVERIFIED));
+    Assert.assertEquals(0, handler.getQueueSize(Priority.GATEWAY));
+    release.countDown();
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+
+    // gateway first, then system contracts in arrival order, then contracts by fee limit
+    Assert.assertEquals(Arrays.asList(1L, 5L, 3L, 6L, 4L, 2L), handled);
+    Assert.assertEquals(6, handler.getAdmittedCount().get());
+    Assert.assertEquals(0, handler.getQueueSize());
+  }
+
+  @Test
+  public void testSenderQuota() throws Exception {
+    int quota = ReflectUtils.getFieldValue(handler, "MAX_TRX_PER_SENDER");
+    done = new CountDownLatch(quota + 3);
+    receive(transfer(0, (byte) 1));
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    Transaction[] trxs = new Transaction[quota + 10];
+    for (int i = 0; i < trxs.length; i++) {
+      trxs[i] = transfer(i + 1, (byte) 2);
+    }
+    receive(trxs);
+    // another sender is still admitted, and so are gateway calls
+    receive(transfer(100_000, (byte) 3), trigger(100_001, GATEWAY, 0));
+    Assert.assertEquals(quota + 12, handler.getQueueSize(Priority.UNVERIFIED));
+
+    // the unverified ones go first, so the whole batch is charged before any is handled
+    release.countDown();
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(10, handler.getSenderQuotaDropCount().get());
+    Assert.assertEquals(quota + 3, handled.size());
+  }
+
+  @Test
+  public void testGatewaySenderQuota() throws Exception {
+    int quota = ReflectUtils.getFieldValue(handler, "MAX_GATEWAY_TRX_PER_SENDER");
+    done = new CountDownLatch(quota + 2);
+    receive(transfer(0, (byte) 1));
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    // calls aimed at a gateway are held to a sender quota too
+    ByteString owner = ByteString.copyFrom(new byte[]{9});
+    Transaction[] trxs = new Transaction[quota + 10];
+    for (int i = 0; i < trxs.length; i++) {
+      trxs[i] = trigger(i + 1, owner, GATEWAY, 0);
+    }
+    receive(trxs);
+    receive(trigger(100_000, GATEWAY, 0));
+
+    release.countDown();
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(10, handler.getSenderQuotaDropCount().get());
+    Assert.assertEquals(quota + 2, handled.size());
+  }
+
+  @Test
+  public void testForgedTransactionsAreNotCharged() throws Exception {
+    int quota = ReflectUtils.getFieldValue(handler, "MAX_GATEWAY_TRX_PER_SENDER");
+    doAnswer(invocation -> {
+      TransactionCapsule trx = invocation.getArgument(0);
+      if (trx.getInstance().getRawData().getTimestamp() < 0) {
+        throw new P2pException(P2pException.TypeEnum.TRX_EXE_FAILED, "sig error");
+      }
+      return null;
+    }).when(delegate).validateSignature(any());
+    done = new CountDownLatch(quota + 1);
+    receive(transfer(0, (byte) 1));
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    // calls claiming an oracle as owner, without its signature, ahead of the oracle's own
+    ByteString oracle = ByteString.copyFrom(new byte[]{9});
+    Transaction[] forged = new Transaction[quota];
+    Transaction[] signed = new Transaction[quota];
+    for (int i = 0; i < quota; i++) {
+      forged[i] = trigger(-i - 1, oracle, GATEWAY, 0);
+      signed[i] = trigger(i + 1, oracle, GATEWAY, 0);
+    }
+    receive(forged);
+    receive(signed);
+
+    release.countDown();
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(0, handler.getSenderQuotaDropCount().get());
+    Assert.assertEquals(quota + 1, handled.size());
+    Assert.assertTrue(handled.stream().allMatch(id -> id >= 0));
+  }
+
+  @Test
+  public void testRejectedReleasesQuota() throws Exception {
+    handler.close();
+    receive(transfer(1, (byte) 1), trigger(2, GATEWAY, 0));
+    Assert.assertEquals(0, handler.getQueueSize(Priority.UNVERIFIED));
+    Assert.assertTrue(((Map<?, ?>) ReflectUtils.getFieldValue(handler, "peerQueued")).isEmpty());
+    Assert.assertTrue(((Map<?, ?>) ReflectUtils.getFieldValue(handler, "senderQueued")).isEmpty());
+  }
+}
@@ -1,20 +1,50 @@
 package org.tron.core.net.services;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.tron.common.overlay.message.Message;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ReflectUtils;
 import org.tron.common.utils.Sha256Hash;
 import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.config.Parameter.NetConstants;
+import org.tron.core.net.TronNetDelegate;
 import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.message.FetchInvDataMessage;
+import org.tron.core.net.message.InventoryMessage;
+import org.tron.core.net.message.TransactionMessage;
 import org.tron.core.net.peer.Item;
+import org.tron.core.net.peer.PeerConnection;
 import org.tron.core.net.service.AdvService;
 import org.tron.protos.Protocol.Inventory.InventoryType;
+import org.tron.protos.Protocol.Transaction;
 
-@Ignore
 public class AdvServiceTest {
 
   AdvService service = new AdvService();
 
+  @After
+  public void destroy() {
+    service.close();
+  }
+
+  @Ignore
   @Test
   public void testAddInv() {
     boolean flag;
@@ -25,6 +55,7 @@ public class AdvServiceTest {
     Assert.assertTrue(!flag);
   }
 
+  @Ignore
   @Test
   public void testBroadcast() {
     BlockCapsule blockCapsule = new BlockCapsule(1, Sha256Hash.ZERO_HASH,
@@ -34,4 +65,105 @@ public class AdvServiceTest {
     Item item = new Item(blockCapsule.getBlockId(), InventoryType.BLOCK);
     Assert.assertTrue(service.getMessage(item) != null);
   }
+
+  private void mockPeers(List<PeerConnection> peers) {
+    TronNetDelegate delegate = mock(TronNetDelegate.class);
+    when(delegate.getActivePeer()).thenReturn(peers);
+    ReflectUtils.setFieldValue(service, "tronNetDelegate", delegate);
+  }
+
+  private static Item trxItem(int i) {
+    return new Item(Sha256Hash.of(String.valueOf(i).getBytes()), InventoryType.TRX);
+  }
+
+  @Test
+  public void testConcurrentAddInv() throws InterruptedException {
+    mockPeers(Collections.emptyList());
+    int threads = 8;
+    int items = 5_000;
+    AtomicInteger added = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++) {
+      executor.execute(() -> {
+        for (int i = 0; i < items; i++) {
+          if (service.addInv(trxItem(i))) {
+            added.incrementAndGet();
+          }
+        }
+        done.countDown();
+      });
+    }
+    Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+    executor.shutdown();
+
+    // every item is queued by exactly one of the threads
+    Assert.assertEquals(items, added.get());
+    Assert.assertEquals((threads - 1) * items, service.getInvDedupCount().get());
+  }
+
+  @Test
+  public void testFetchFlushedBySize() throws InterruptedException {
+    CountDownLatch fetched = new CountDownLatch(1);
+    List<Message> sent = Collections.synchronizedList(new ArrayList<>());
+    PeerConnection peer = new PeerConnection() {
+      @Override
+      public void sendMessage(Message message) {
+        sent.add(message);
+        fetched.countDown();
+      }
+    };
+    mockPeers(Collections.singletonList(peer));
+
+    // the timers are not started, only the queue size can trigger the fetch
+    for (int i = 0; i < NetConstants.MAX_TRX_FETCH_PER_PEER; i++) {
+      peer.getAdvInvReceive().put(trxItem(i), System.currentTimeMillis());
+      Assert.assertTrue(service.addInv(trxItem(i)));
+    }
+    Assert.assertTrue(fetched.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(NetConstants.MAX_TRX_FETCH_PER_PEER,
+        ((FetchInvDataMessage) sent.get(0)).getHashList().size());
+    Assert.assertEquals(0, service.getFetchQueueSize());
+  }
+
+  @Test
+  public void testSpreadSkipsKnownTrxs() throws InterruptedException {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+    Map<PeerConnection, List<Sha256Hash>> announced = new ConcurrentHashMap<>();
+    CountDownLatch spread = new CountDownLatch(2);
+    List<PeerConnection> peers = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      peers.add(new PeerConnection() {
+        @Override
+        public void sendMessage(Message message) {
+          announced.put(this, ((InventoryMessage) message).getHashList());
+          spread.countDown();
+        }
+      });
+    }
+    mockPeers(peers);
+
+    int count = 200;
+    List<Sha256Hash> ids = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Transaction trx = Transaction.newBuilder()
+          .setRawData(Transaction.raw.newBuilder().setTimestamp(i)).build();
+      TransactionMessage msg = new TransactionMessage(trx);
+      ids.add(msg.getMessageId());
+      // the first peer already announced the first half to us
+      if (i < count / 2) {
+        peers.get(0).getKnownTrxs().put(msg.getMessageId().getBytes());
+      }
+      service.broadcast(msg);
+    }
+
+    // a full batch is spread without waiting for the timer
+    Assert.assertTrue(spread.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(new HashSet<>(ids.subList(count / 2, count)),
+        new HashSet<>(announced.get(peers.get(0))));
+    Assert.assertEquals(new HashSet<>(ids), new HashSet<>(announced.get(peers.get(1))));
+    Assert.assertEquals(count / 2, service.getSpreadDedupCount().get());
+    // what was announced is known to the peer now
+    ids.forEach(id -> Assert.assertTrue(peers.get(1).getKnownTrxs().mightContain(id.getBytes())));
+  }
 }
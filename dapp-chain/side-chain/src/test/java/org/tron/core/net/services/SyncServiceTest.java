@@ -0,0 +1,259 @@
+package org.tron.core.net.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.overlay.message.Message;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.BlockCapsule.BlockId;
+import org.tron.core.config.args.Args;
+import org.tron.core.exception.P2pException;
+import org.tron.core.exception.P2pException.TypeEnum;
+import org.tron.core.net.TronNetDelegate;
+import org.tron.core.net.message.BlockMessage;
+import org.tron.core.net.message.FetchInvDataMessage;
+import org.tron.core.net.peer.PeerConnection;
+import org.tron.core.net.service.SyncService;
+import org.tron.protos.Protocol.ReasonCode;
+
+/**
+ * Runs the sync engine against in-process peers that answer fetch requests after a fixed
+ * latency, and reports the sync throughput.
+ */
+@Slf4j
+public class SyncServiceTest {
+
+  private static final int LATENCY_MS = 20;
+
+  private ScheduledExecutorService network = Executors.newScheduledThreadPool(4);
+  private SyncService service;
+  private TronNetDelegate delegate;
+  private List<PeerConnection> peers = new ArrayList<>();
+  private Map<BlockId, BlockMessage> chain = new HashMap<>();
+  private List<BlockId> blockIds = new ArrayList<>();
+  private List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+  private Set<BlockId> requested = Collections.synchronizedSet(new HashSet<>());
+  private AtomicInteger duplicateRequests = new AtomicInteger();
+  private CountDownLatch done;
+
+  /**
+   * A peer that serves blocks from the shared chain, the way BlockMsgHandler hands them over.
+   */
+  private class InProcessPeer extends PeerConnection {
+
+    private final long latency;
+    private final boolean answer;
+    private final AtomicInteger served = new AtomicInteger();
+
+    InProcessPeer(long latency, boolean answer) {
+      this.latency = latency;
+      this.answer = answer;
+    }
+
+    @Override
+    public void sendMessage(Message message) {
+      if (!(message instanceof FetchInvDataMessage)) {
+        return;
+      }
+      for (Sha256Hash hash : ((FetchInvDataMessage) message).getHashList()) {
+        if (!requested.add(new BlockId(hash))) {
+          duplicateRequests.incrementAndGet();
+        }
+      }
+      if (!answer) {
+        return;
+      }
+      network.schedule(() -> {
+        for (Sha256Hash hash : ((FetchInvDataMessage) message).getHashList()) {
+          BlockId blockId = new BlockId(hash);
+          BlockMessage blockMessage = chain.get(blockId);
+          Long requestTime = getSyncBlockRequested().remove(blockId);
+          if (requestTime != null) {
+            getPeerStats().syncBlockReceived(System.currentTimeMillis() - requestTime,
+                blockMessage.getData().length);
+            served.incrementAndGet();
+            service.processBlock(this, blockMessage);
+          }
+        }
+      }, latency, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void disconnect(ReasonCode reason) {
+      logger.info("disconnect {}", reason);
+    }
+  }
+
+  @Before
+  public void init() throws P2pException {
+    Args.getInstance().setSyncFetchWindow(2);
+    service = new SyncService();
+    delegate = mock(TronNetDelegate.class);
+    ReflectUtils.setFieldValue(service, "tronNetDelegate", delegate);
+    when(delegate.getActivePeer()).thenReturn(peers);
+    when(delegate.containBlockInMainChain(any())).thenReturn(true);
+    // only used for the chain summary sent once a peer's list is drained
+    when(delegate.getBlockIdByNum(anyLong())).thenAnswer(invocation -> blockIds.get(0));
+    doAnswer(invocation -> {
+      processed.add(((BlockCapsule) invocation.getArgument(0)).getNum());
+      done.countDown();
+      return null;
+    }).when(delegate).processBlock(any());
+    // the periodic pass is what notices stragglers
+    service.init();
+  }
+
+  @After
+  public void destroy() {
+    service.close();
+    network.shutdownNow();
+  }
+
+  private void buildChain(int size) {
+    Sha256Hash parent = Sha256Hash.ZERO_HASH;
+    for (int num = 1; num <= size; num++) {
+      BlockCapsule block = new BlockCapsule(num, parent, num * 3000L, ByteString.EMPTY);
+      chain.put(block.getBlockId(), new BlockMessage(block));
+      blockIds.add(block.getBlockId());
+      parent = block.getBlockId();
+    }
+    done = new CountDownLatch(size);
+  }
+
+  private void addPeers(int count) {
+    for (int i = 0; i < count; i++) {
+      addPeer(LATENCY_MS, true);
+    }
+  }
+
+  private InProcessPeer addPeer(long latency, boolean answer) {
+    InProcessPeer peer = new InProcessPeer(latency, answer);
+    peer.setNeedSyncFromPeer(true);
+    peer.getSyncBlockToFetch().addAll(blockIds);
+    peers.add(peer);
+    return peer;
+  }
+
+  private void assertInOrder(int size) {
+    Assert.assertEquals(size, processed.size());
+    for (int i = 0; i < size; i++) {
+      Assert.assertEquals(i + 1, (long) processed.get(i));
+    }
+  }
+
+  private long sync() throws InterruptedException {
+    long start = System.currentTimeMillis();
+    service.triggerFetch();
+    Assert.assertTrue("sync did not finish", done.await(60, TimeUnit.SECONDS));
+    return System.currentTimeMillis() - start;
+  }
+
+  @Test
+  public void testSyncInOrderFromSeveralPeers() throws InterruptedException {
+    int size = 1000;
+    buildChain(size);
+    addPeers(3);
+    long cost = sync();
+
+    assertInOrder(size);
+    // peers that hold the same chain fetch disjoint ranges
+    Assert.assertEquals(0, duplicateRequests.get());
+    Assert.assertEquals(size, requested.size());
+    peers.forEach(peer -> Assert.assertTrue(peer.getSyncBlockRequested().isEmpty()));
+    logger.info("synced {} blocks from {} peers with {}ms latency in {}ms, {} blocks/s",
+        size, peers.size(), LATENCY_MS, cost, size * 1000L / Math.max(cost, 1));
+  }
+
+  @Test
+  public void testSlowPeerGetsSmallerShare() throws InterruptedException {
+    int size = 3000;
+    buildChain(size);
+    InProcessPeer fast1 = addPeer(LATENCY_MS, true);
+    InProcessPeer fast2 = addPeer(LATENCY_MS, true);
+    InProcessPeer slow = addPeer(LATENCY_MS * 10, true);
+    sync();
+
+    assertInOrder(size);
+    Assert.assertTrue(slow.getPeerStats().getSyncScore() < fast1.getPeerStats().getSyncScore());
+    Assert.assertTrue(slow.served.get() < fast1.served.get());
+    Assert.assertTrue(slow.served.get() < fast2.served.get());
+    logger.info("served fast {} {}, slow {}", fast1.served.get(), fast2.served.get(),
+        slow.served.get());
+  }
+
+  @Test
+  public void testStragglerReRequested() throws InterruptedException {
+    int size = 500;
+    buildChain(size);
+    addPeer(LATENCY_MS, true);
+    InProcessPeer silent = addPeer(LATENCY_MS, false);
+    sync();
+
+    // everything asked from the silent peer came from the other one
+    assertInOrder(size);
+    Assert.assertEquals(0, silent.served.get());
+    Assert.assertTrue(duplicateRequests.get() > 0);
+  }
+
+  @Test
+  public void testFailedBlockFetchedAgain() throws Exception {
+    buildChain(1);
+    CountDownLatch failed = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      if (failed.getCount() > 0) {
+        failed.countDown();
+        throw new P2pException(TypeEnum.BAD_BLOCK, "bad block");
+      }
+      processed.add(((BlockCapsule) invocation.getArgument(0)).getNum());
+      done.countDown();
+      return null;
+    }).when(delegate).processBlock(any());
+    InProcessPeer peer = addPeer(LATENCY_MS, true);
+    service.triggerFetch();
+    Assert.assertTrue(failed.await(10, TimeUnit.SECONDS));
+
+    // the next copy of the block is fetched and processed, not taken for a duplicate
+    peer.getSyncBlockToFetch().add(blockIds.get(0));
+    sync();
+    assertInOrder(1);
+  }
+
+  @Test
+  public void testSyncThroughput() throws InterruptedException {
+    boolean enabled = false;
+
+    if (enabled) {
+      int size = 20_000;
+      buildChain(size);
+      addPeers(4);
+      long cost = sync();
+      logger.info("synced {} blocks from {} peers with {}ms latency in {}ms, {} blocks/s",
+          size, peers.size(), LATENCY_MS, cost, size * 1000L / Math.max(cost, 1));
+    } else {
+      logger.info("Sync throughput test is disabled.");
+    }
+  }
+}
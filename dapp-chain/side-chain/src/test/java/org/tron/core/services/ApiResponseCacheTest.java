@@ -0,0 +1,157 @@
+package org.tron.core.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.core.Wallet;
+import org.tron.core.config.args.Args;
+import org.tron.core.db.DynamicPropertiesStore;
+import org.tron.core.db.Manager;
+import org.tron.core.services.ApiResponseCache.Endpoint;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.BlockHeader;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.TransactionInfo;
+
+public class ApiResponseCacheTest {
+
+  private static final long SOLIDIFIED = 10;
+
+  private ApiResponseCache cache;
+  private Wallet wallet;
+  private int cacheSize;
+
+  private static Block block(long num) {
+    return Block.newBuilder().setBlockHeader(BlockHeader.newBuilder()
+        .setRawData(BlockHeader.raw.newBuilder().setNumber(num).setTimestamp(num * 3000)))
+        .build();
+  }
+
+  private static Transaction transaction(long timestamp) {
+    return Transaction.newBuilder()
+        .setRawData(Transaction.raw.newBuilder().setTimestamp(timestamp)).build();
+  }
+
+  @Before
+  public void init() {
+    cacheSize = Args.getInstance().getApiResponseCacheSize();
+    Args.getInstance().setApiResponseCacheSize(1);
+    cache = new ApiResponseCache();
+    wallet = mock(Wallet.class);
+    Manager manager = mock(Manager.class);
+    DynamicPropertiesStore store = mock(DynamicPropertiesStore.class);
+    when(manager.getDynamicPropertiesStore()).thenReturn(store);
+    when(store.getLatestSolidifiedBlockNum()).thenReturn(SOLIDIFIED);
+    when(wallet.getBlockByNum(anyLong()))
+        .thenAnswer(invocation -> block(invocation.getArgument(0)));
+    ReflectUtils.setFieldValue(cache, "wallet", wallet);
+    ReflectUtils.setFieldValue(cache, "dbManager", manager);
+  }
+
+  @After
+  public void destroy() {
+    Args.getInstance().setApiResponseCacheSize(cacheSize);
+  }
+
+  @Test
+  public void testSolidifiedBlockCached() {
+    Block first = cache.getBlockByNum(SOLIDIFIED);
+    Assert.assertEquals(block(SOLIDIFIED), first);
+    for (int i = 0; i < 2; i++) {
+      // a hit hands out the cached message, it is not parsed again
+      Assert.assertSame(first, cache.getBlockByNum(SOLIDIFIED));
+    }
+    verify(wallet, times(1)).getBlockByNum(SOLIDIFIED);
+
+    // the json renderings are cached apart from the protobuf one, one per visible flag
+    String json = cache.getJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED, false);
+    Assert.assertEquals(json, cache.getJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED, false));
+    Assert.assertNotNull(cache.getJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED, true));
+    verify(wallet, times(3)).getBlockByNum(SOLIDIFIED);
+
+    Assert.assertEquals(3, cache.getStats().hitCount());
+    Assert.assertEquals(3, cache.getSize());
+  }
+
+  @Test
+  public void testWriteJson() throws IOException {
+    // a miss is written out as it is rendered, and what was written is what a hit returns
+    StringWriter miss = new StringWriter();
+    Assert.assertTrue(cache.writeJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED, true, miss));
+    StringWriter hit = new StringWriter();
+    Assert.assertTrue(cache.writeJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED, true, hit));
+    Assert.assertEquals(miss.toString(), hit.toString());
+    Assert.assertEquals(miss.toString(), cache.getJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED, true));
+    verify(wallet, times(1)).getBlockByNum(SOLIDIFIED);
+
+    StringWriter head = new StringWriter();
+    Assert.assertTrue(cache.writeJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED + 1, true, head));
+    Assert.assertTrue(head.toString().startsWith("{\"blockID\": "));
+    StringWriter missing = new StringWriter();
+    Assert.assertFalse(cache.writeJson(Endpoint.BLOCK_BY_ID, ByteString.copyFromUtf8("missing"),
+        true, missing));
+    Assert.assertEquals("", missing.toString());
+    Assert.assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  public void testHeadBlockNotCached() {
+    for (int i = 0; i < 3; i++) {
+      cache.getBlockByNum(SOLIDIFIED + 1);
+      cache.getJson(Endpoint.BLOCK_BY_NUM, SOLIDIFIED + 1, true);
+    }
+    verify(wallet, times(6)).getBlockByNum(SOLIDIFIED + 1);
+    Assert.assertEquals(0, cache.getSize());
+
+    // a missing block is not cached either
+    Assert.assertNull(cache.getBlockById(ByteString.copyFromUtf8("missing")));
+    Assert.assertNull(cache.getJson(Endpoint.BLOCK_BY_ID, ByteString.copyFromUtf8("missing"),
+        true));
+    Assert.assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void testTransactionCachedOnceSolidified() {
+    ByteString solid = ByteString.copyFromUtf8("solid");
+    ByteString pending = ByteString.copyFromUtf8("pending");
+    when(wallet.getTransactionById(solid)).thenReturn(transaction(1));
+    when(wallet.getTransactionById(pending)).thenReturn(transaction(2));
+    when(wallet.getTransactionInfoById(solid))
+        .thenReturn(TransactionInfo.newBuilder().setBlockNumber(SOLIDIFIED - 1).build());
+    when(wallet.getTransactionInfoById(pending))
+        .thenReturn(TransactionInfo.newBuilder().setBlockNumber(SOLIDIFIED + 1).build());
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(transaction(1), cache.getTransactionById(solid));
+      Assert.assertEquals(transaction(2), cache.getTransactionById(pending));
+    }
+    verify(wallet, times(1)).getTransactionById(solid);
+    verify(wallet, times(3)).getTransactionById(pending);
+    // the info of the solidified transaction was cached on the way
+    verify(wallet, times(1)).getTransactionInfoById(solid);
+  }
+
+  @Test
+  public void testDisabled() {
+    Args.getInstance().setApiResponseCacheSize(0);
+    cache = new ApiResponseCache();
+    ReflectUtils.setFieldValue(cache, "wallet", wallet);
+    for (int i = 0; i < 3; i++) {
+      cache.getBlockByNum(1);
+    }
+    verify(wallet, times(3)).getBlockByNum(1);
+    verify(wallet, times(0)).getTransactionInfoById(any());
+  }
+}
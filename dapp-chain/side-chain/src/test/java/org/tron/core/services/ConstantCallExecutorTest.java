@@ -0,0 +1,193 @@
+package org.tron.core.services;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.db.BlockStore;
+import org.tron.core.db.DynamicPropertiesStore;
+import org.tron.core.db.Manager;
+import org.tron.core.exception.ContractExeException;
+import org.tron.core.exception.ContractValidateException;
+import org.tron.core.services.ConstantCallExecutor.Result;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+
+public class ConstantCallExecutorTest {
+
+  private AtomicLong head = new AtomicLong(1);
+  private AtomicInteger runs = new AtomicInteger();
+  private CountDownLatch release = new CountDownLatch(0);
+  private long moveHeadAt = -1;
+  private ConstantCallExecutor executor;
+
+  @BeforeClass
+  public static void initArgs() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+  }
+
+  @After
+  public void destroy() {
+    release.countDown();
+    executor.stop();
+  }
+
+  private static BlockCapsule block(long num) {
+    return new BlockCapsule(num, Sha256Hash.ZERO_HASH, num * 3000, ByteString.EMPTY);
+  }
+
+  private static Transaction call(int data) {
+    return call(data, 0);
+  }
+
+  private static Transaction call(int data, long feeLimit) {
+    return Transaction.newBuilder().setRawData(Transaction.raw.newBuilder()
+        .setFeeLimit(feeLimit)
+        .addContract(Contract.newBuilder().setType(ContractType.TriggerSmartContract)
+            .setParameter(Any.newBuilder().setValue(ByteString.copyFrom(new byte[]{
+                (byte) data})))))
+        .build();
+  }
+
+  /**
+   * An executor over a chain whose head is the block number in head, the vm is replaced by a
+   * call that counts its runs and waits for release.
+   */
+  private ConstantCallExecutor newExecutor(int threads, int queueSize, long timeout) {
+    ConstantCallExecutor executor = new ConstantCallExecutor(threads, queueSize, timeout, 60_000,
+        false) {
+      @Override
+      Result run(Transaction trx, BlockCapsule block) {
+        if (runs.incrementAndGet() == moveHeadAt) {
+          head.incrementAndGet();
+        }
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new Result(ByteString.copyFrom(new byte[]{(byte) block.getNum()}), "", false);
+      }
+    };
+    Manager manager = mock(Manager.class);
+    BlockStore blockStore = mock(BlockStore.class);
+    DynamicPropertiesStore dynamicPropertiesStore = mock(DynamicPropertiesStore.class);
+    when(manager.getBlockStore()).thenReturn(blockStore);
+    when(manager.getDynamicPropertiesStore()).thenReturn(dynamicPropertiesStore);
+    when(blockStore.getBlockByLatestNum(anyLong()))
+        .thenAnswer(invocation -> Collections.singletonList(block(head.get())));
+    when(dynamicPropertiesStore.getLatestBlockHeaderHash())
+        .thenAnswer(invocation -> block(head.get()).getBlockId());
+    ReflectUtils.setFieldValue(executor, "dbManager", manager);
+    return executor;
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    executor = newExecutor(2, 10, 5_000);
+    Assert.assertEquals(1, executor.call(call(1)).getReturnData().byteAt(0));
+    Assert.assertEquals(1, executor.call(call(1)).getReturnData().byteAt(0));
+    Assert.assertEquals(1, runs.get());
+    Assert.assertEquals(1, executor.getCacheHitCount().get());
+
+    // another call, the same call with another fee limit, or on a new block, runs again
+    executor.call(call(2));
+    Assert.assertEquals(2, runs.get());
+    executor.call(call(1, 1_000_000));
+    Assert.assertEquals(3, runs.get());
+    head.set(2);
+    Assert.assertEquals(2, executor.call(call(1)).getReturnData().byteAt(0));
+    Assert.assertEquals(4, runs.get());
+    Assert.assertEquals(5, executor.getCallCount().get());
+  }
+
+  @Test
+  public void testCallAll() throws Exception {
+    executor = newExecutor(4, 100, 5_000);
+    executor.call(call(0));
+
+    // a new block while the batch runs makes it run again, all results are of one block
+    moveHeadAt = 3;
+    List<Transaction> calls = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      calls.add(call(i));
+    }
+    List<Result> results = executor.callAll(calls);
+    Assert.assertEquals(10, results.size());
+    for (Result result : results) {
+      Assert.assertNull(result.getException());
+      Assert.assertEquals(2, result.getReturnData().byteAt(0));
+    }
+    Assert.assertEquals(1 + 9 + 10, runs.get());
+    Assert.assertEquals(1, executor.getCacheHitCount().get());
+
+    try {
+      executor.callAll(Collections.nCopies(ConstantCallExecutor.MAX_BATCH_SIZE + 1, call(1)));
+      Assert.fail("the batch is too large");
+    } catch (ContractValidateException e) {
+      Assert.assertEquals(20, runs.get());
+    }
+  }
+
+  @Test
+  public void testBoundedQueue() throws Exception {
+    release = new CountDownLatch(1);
+    executor = newExecutor(1, 1, 5_000);
+    ExecutorService callers = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> running = callers.submit(() -> executor.call(call(1)));
+      while (runs.get() == 0) {
+        TimeUnit.MILLISECONDS.sleep(1);
+      }
+      Future<?> queued = callers.submit(() -> executor.call(call(2)));
+      while (executor.getQueueSize() == 0) {
+        TimeUnit.MILLISECONDS.sleep(1);
+      }
+      try {
+        executor.call(call(3));
+        Assert.fail("the queue is full");
+      } catch (ContractValidateException e) {
+        Assert.assertEquals(1, executor.getRejectedCount().get());
+      }
+      release.countDown();
+      running.get();
+      queued.get();
+      Assert.assertEquals(2, runs.get());
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    release = new CountDownLatch(1);
+    executor = newExecutor(1, 10, 100);
+    try {
+      executor.call(call(1));
+      Assert.fail("the call never ends");
+    } catch (ContractExeException e) {
+      Assert.assertEquals(1, executor.getTimeoutCount().get());
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package org.tron.core.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.api.GrpcAPI.LogEntry;
+import org.tron.api.GrpcAPI.LogFilter;
+import org.tron.api.GrpcAPI.LogList;
+import org.tron.common.logsfilter.Bloom;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.Wallet;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.capsule.TransactionInfoCapsule;
+import org.tron.core.db.BlockBloomStore;
+import org.tron.core.db.DynamicPropertiesStore;
+import org.tron.core.db.Manager;
+import org.tron.core.db.TransactionHistoryStore;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.BlockHeader;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+import org.tron.protos.Protocol.TransactionInfo;
+import org.tron.protos.Protocol.TransactionInfo.Log;
+
+public class GetLogsTest {
+
+  private static final long HEAD = 3_000;
+
+  private static final long FIRST_INDEXED_BLOCK = 1_000;
+
+  private static final ByteString ADDRESS = ByteString
+      .copyFrom(ByteArray.fromHexString("548794500882809695a8a687866e76d4271a1abc"));
+
+  private static final ByteString TOPIC = ByteString.copyFrom(ByteArray
+      .fromHexString("ddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef"));
+
+  private Map<ByteString, TransactionInfo> infos = new ConcurrentHashMap<>();
+  private AtomicLong read = new AtomicLong();
+  private Wallet wallet;
+
+  @BeforeClass
+  public static void initArgs() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+  }
+
+  /**
+   * Every block has one contract call, the ones of every hundredth block log a transfer.
+   */
+  private Block block(long num) {
+    Transaction transaction = Transaction.newBuilder().setRawData(Transaction.raw.newBuilder()
+        .setRefBlockNum(num)
+        .addContract(Contract.newBuilder().setType(ContractType.TriggerSmartContract)
+            .setParameter(Any.getDefaultInstance())))
+        .build();
+    ByteString id = ByteString
+        .copyFrom(Sha256Hash.hash(transaction.getRawData().toByteArray()));
+    TransactionInfo.Builder info = TransactionInfo.newBuilder().setId(id).setBlockNumber(num);
+    if (num % 100 == 0) {
+      info.addLog(Log.newBuilder().setAddress(ByteString.copyFrom(new byte[20])));
+      info.addLog(Log.newBuilder().setAddress(ADDRESS).addTopics(TOPIC));
+    }
+    infos.put(id, info.build());
+    return Block.newBuilder().setBlockHeader(BlockHeader.newBuilder()
+        .setRawData(BlockHeader.raw.newBuilder().setNumber(num).setTimestamp(num * 3000)))
+        .addTransactions(transaction).build();
+  }
+
+  @Before
+  public void init() throws Exception {
+    for (long num = 1; num <= HEAD; num++) {
+      block(num);
+    }
+    Manager manager = mock(Manager.class);
+    DynamicPropertiesStore dynamicPropertiesStore = mock(DynamicPropertiesStore.class);
+    when(manager.getDynamicPropertiesStore()).thenReturn(dynamicPropertiesStore);
+    when(dynamicPropertiesStore.getLatestBlockHeaderNumber()).thenReturn(HEAD);
+    when(manager.getBlockByNum(anyLong())).thenAnswer(invocation -> {
+      read.incrementAndGet();
+      return new BlockCapsule(block(invocation.getArgument(0)));
+    });
+
+    // only the blocks from FIRST_INDEXED_BLOCK on have blooms
+    BlockBloomStore bloomStore = mock(BlockBloomStore.class);
+    when(manager.getBlockBloomStore()).thenReturn(bloomStore);
+    when(bloomStore.getFirstIndexedBlock()).thenReturn(FIRST_INDEXED_BLOCK);
+    when(bloomStore.getBloom(anyLong())).thenAnswer(invocation -> {
+      long num = invocation.getArgument(0);
+      if (num < FIRST_INDEXED_BLOCK || num % 100 != 0) {
+        return null;
+      }
+      Bloom bloom = Bloom.create(ADDRESS.toByteArray());
+      bloom.add(TOPIC.toByteArray());
+      bloom.add(new byte[20]);
+      return bloom;
+    });
+
+    TransactionHistoryStore historyStore = mock(TransactionHistoryStore.class);
+    when(manager.getTransactionHistoryStore()).thenReturn(historyStore);
+    when(historyStore.get(any())).thenAnswer(invocation -> new TransactionInfoCapsule(
+        infos.get(ByteString.copyFrom((byte[]) invocation.getArgument(0)))));
+
+    wallet = new Wallet();
+    ReflectUtils.setFieldValue(wallet, "dbManager", manager);
+  }
+
+  @Test
+  public void testGetLogs() {
+    // the address is given with its prefix byte
+    ByteString prefixed = ByteString.copyFrom(new byte[]{Wallet.getAddressPreFixByte()})
+        .concat(ADDRESS);
+    LogList logs = wallet.getLogs(LogFilter.newBuilder().setFromBlock(1).setToBlock(HEAD)
+        .addAddresses(prefixed).addTopics(TOPIC).build());
+
+    Assert.assertEquals(HEAD / 100, logs.getLogsCount());
+    for (int i = 0; i < logs.getLogsCount(); i++) {
+      LogEntry entry = logs.getLogs(i);
+      Assert.assertEquals((i + 1) * 100, entry.getBlockNumber());
+      Assert.assertEquals(entry.getBlockNumber() * 3000, entry.getBlockTimeStamp());
+      Assert.assertEquals(1, entry.getLogIndex());
+      Assert.assertEquals(ADDRESS, entry.getLog().getAddress());
+      Assert.assertEquals(infos.get(entry.getTransactionId()).getBlockNumber(),
+          entry.getBlockNumber());
+    }
+    // the blocks before the index are all read, after it only the ones whose bloom matched
+    Assert.assertEquals(FIRST_INDEXED_BLOCK - 1 + (HEAD - FIRST_INDEXED_BLOCK) / 100 + 1,
+        read.get());
+  }
+
+  @Test
+  public void testNoFilter() {
+    LogList logs = wallet.getLogs(LogFilter.newBuilder().setFromBlock(2_000).build());
+    Assert.assertEquals(2 * ((HEAD - 2_000) / 100 + 1), logs.getLogsCount());
+    Assert.assertEquals(0, logs.getLogs(0).getLogIndex());
+    Assert.assertEquals(HEAD, logs.getLogs(logs.getLogsCount() - 1).getBlockNumber());
+
+    logs = wallet.getLogs(LogFilter.newBuilder().setFromBlock(1_500)
+        .addTopics(ByteString.copyFrom(new byte[32])).build());
+    Assert.assertEquals(0, logs.getLogsCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongRange() {
+    wallet.getLogs(LogFilter.newBuilder().setFromBlock(10).setToBlock(5).build());
+  }
+}
@@ -0,0 +1,171 @@
+package org.tron.core.services;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.ByteString;
+import io.grpc.BindableService;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.api.GrpcAPI.BlockLimit;
+import org.tron.api.WalletGrpc;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ReflectUtils;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.Wallet;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.core.db.BlockStore;
+import org.tron.core.db.Manager;
+import org.tron.protos.Protocol.Block;
+
+public class StreamBlocksTest {
+
+  private static final String NAME = "stream-blocks-test";
+  private static final long HEAD = 1_000;
+
+  private Server server;
+  private ManagedChannel channel;
+  private AtomicLong read = new AtomicLong();
+
+  @BeforeClass
+  public static void initArgs() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+  }
+
+  private static BlockCapsule block(long num) {
+    return new BlockCapsule(num, Sha256Hash.ZERO_HASH, num * 3000, ByteString.EMPTY);
+  }
+
+  /**
+   * A wallet over a block store that holds blocks 1 to HEAD and counts the blocks it reads.
+   */
+  private Wallet newWallet() {
+    Wallet wallet = new Wallet();
+    Manager manager = mock(Manager.class);
+    BlockStore blockStore = mock(BlockStore.class);
+    when(manager.getBlockStore()).thenReturn(blockStore);
+    when(blockStore.getLimitNumber(anyLong(), anyLong())).thenAnswer(invocation -> {
+      long start = Math.max(invocation.getArgument(0), 1L);
+      long limit = invocation.getArgument(1);
+      List<BlockCapsule> blocks = new ArrayList<>();
+      for (long num = start; num < start + limit && num <= HEAD; num++) {
+        blocks.add(block(num));
+        read.incrementAndGet();
+      }
+      return blocks;
+    });
+    ReflectUtils.setFieldValue(wallet, "dbManager", manager);
+    return wallet;
+  }
+
+  @Before
+  public void init() throws Exception {
+    RpcApiService service = new RpcApiService();
+    ReflectUtils.setFieldValue(service, "wallet", newWallet());
+    server = InProcessServerBuilder.forName(NAME).directExecutor()
+        .addService((BindableService) ReflectUtils.getFieldValue(service, "walletApi"))
+        .build().start();
+    channel = InProcessChannelBuilder.forName(NAME).directExecutor().build();
+  }
+
+  @After
+  public void destroy() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  public void testBlockIterator() {
+    Wallet wallet = newWallet();
+    long expected = 10;
+    Iterator<Block> blocks = wallet.getBlockIterator(10, 260);
+    while (blocks.hasNext()) {
+      Assert.assertEquals(expected++, blocks.next().getBlockHeader().getRawData().getNumber());
+    }
+    Assert.assertEquals(260, expected);
+
+    // a range past the head stops at the head
+    expected = HEAD - 5;
+    blocks = wallet.getBlockIterator(HEAD - 5, HEAD + 500);
+    while (blocks.hasNext()) {
+      Assert.assertEquals(expected++, blocks.next().getBlockHeader().getRawData().getNumber());
+    }
+    Assert.assertEquals(HEAD + 1, expected);
+  }
+
+  @Test
+  public void testStreamAll() {
+    long expected = 1;
+    Iterator<Block> blocks = WalletGrpc.newBlockingStub(channel)
+        .streamBlocks(BlockLimit.newBuilder().setStartNum(1).setEndNum(HEAD + 1).build());
+    while (blocks.hasNext()) {
+      Assert.assertEquals(expected++, blocks.next().getBlockHeader().getRawData().getNumber());
+    }
+    Assert.assertEquals(HEAD + 1, expected);
+  }
+
+  @Test
+  public void testStreamFollowsClientDemand() throws InterruptedException {
+    List<Block> received = new ArrayList<>();
+    CountDownLatch closed = new CountDownLatch(1);
+    AtomicReference<Status> status = new AtomicReference<>();
+    ClientCall<BlockLimit, Block> call = channel
+        .newCall(WalletGrpc.getStreamBlocksMethod(), CallOptions.DEFAULT);
+    call.start(new ClientCall.Listener<Block>() {
+      @Override
+      public void onMessage(Block message) {
+        received.add(message);
+      }
+
+      @Override
+      public void onClose(Status s, Metadata trailers) {
+        status.set(s);
+        closed.countDown();
+      }
+    }, new Metadata());
+    call.sendMessage(BlockLimit.newBuilder().setStartNum(1).setEndNum(HEAD + 1).build());
+    call.halfClose();
+
+    call.request(5);
+    Assert.assertEquals(5, received.size());
+    // the server stops reading one page after what the client asked for
+    Assert.assertTrue(read.get() <= 100);
+
+    call.request(Integer.MAX_VALUE);
+    Assert.assertTrue(closed.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(status.get().isOk());
+    Assert.assertEquals(HEAD, received.size());
+  }
+
+  @Test
+  public void testInvalidRange() {
+    try {
+      WalletGrpc.newBlockingStub(channel)
+          .streamBlocks(BlockLimit.newBuilder().setStartNum(10).setEndNum(10).build())
+          .hasNext();
+      Assert.fail("an empty range should be rejected");
+    } catch (StatusRuntimeException e) {
+      Assert.assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package org.tron.core.services.http;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tron.api.GrpcAPI.BlockList;
+import org.tron.api.GrpcAPI.Return;
+import org.tron.api.GrpcAPI.TransactionExtention;
+import org.tron.common.utils.ArgsTestUtils;
+import org.tron.common.utils.ByteArray;
+import org.tron.common.utils.Sha256Hash;
+import org.tron.core.capsule.BlockCapsule;
+import org.tron.protos.Contract.CreateSmartContract;
+import org.tron.protos.Contract.TransferContract;
+import org.tron.protos.Protocol.Block;
+import org.tron.protos.Protocol.BlockHeader;
+import org.tron.protos.Protocol.Transaction;
+import org.tron.protos.Protocol.Transaction.Contract.ContractType;
+import org.tron.protos.Protocol.Transaction.Result;
+
+@Slf4j
+public class UtilTest {
+
+  private static final byte[] OWNER = ByteArray
+      .fromHexString("a0548794500882809695a8a687866e76d4271a1abc");
+  private static final byte[] TO = ByteArray
+      .fromHexString("a0b4750e2cd76e19dca331bf5d089b71c3c2798548");
+
+  @BeforeClass
+  public static void init() {
+    ArgsTestUtils.initValidContractProtoThreadNum();
+  }
+
+  private static Transaction transfer(long amount) {
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(OWNER)).setToAddress(ByteString.copyFrom(TO))
+        .setAmount(amount).build();
+    return build(ContractType.TransferContract, contract, 0);
+  }
+
+  private static Transaction build(ContractType type, Message parameter, int permissionId) {
+    Transaction.Contract contract = Transaction.Contract.newBuilder().setType(type)
+        .setParameter(Any.pack(parameter)).setPermissionId(permissionId).build();
+    return Transaction.newBuilder()
+        .setRawData(Transaction.raw.newBuilder().addContract(contract)
+            .setRefBlockBytes(ByteString.copyFrom(new byte[]{1, 2}))
+            .setExpiration(1_500_000_000_000L).setTimestamp(1_400_000_000_000L)
+            .setFeeLimit(1_000_000L))
+        .addSignature(ByteString.copyFrom(new byte[65]))
+        .addRet(Result.newBuilder().setContractRet(Result.contractResult.SUCCESS))
+        .build();
+  }
+
+  /**
+   * The document the API rendered before the streaming writer: the protobuf printed to json,
+   * parsed, patched and serialized again.
+   */
+  private static JSONObject legacy(Transaction trx, boolean selfType, Message value) {
+    JSONObject json = JSONObject.parseObject(JsonFormat.printToString(trx, selfType));
+    Transaction.Contract contract = trx.getRawData().getContract(0);
+    JSONObject parameter = new JSONObject();
+    parameter.put("value", JSONObject.parseObject(JsonFormat.printToString(value, selfType)));
+    parameter.put("type_url", contract.getParameter().getTypeUrl());
+    JSONObject jsonContract = new JSONObject();
+    jsonContract.put("parameter", parameter);
+    jsonContract.put("type", contract.getType());
+    if (contract.getPermissionId() > 0) {
+      jsonContract.put("Permission_id", contract.getPermissionId());
+    }
+    JSONArray contracts = new JSONArray();
+    contracts.add(jsonContract);
+    JSONObject rawData = json.getJSONObject("raw_data");
+    rawData.put("contract", contracts);
+    json.put("raw_data", rawData);
+    json.put("raw_data_hex", ByteArray.toHexString(trx.getRawData().toByteArray()));
+    json.put("txID", ByteArray.toHexString(Sha256Hash.hash(trx.getRawData().toByteArray())));
+    return JSONObject.parseObject(json.toJSONString());
+  }
+
+  private static Message parameterOf(Transaction trx) throws Exception {
+    return trx.getRawData().getContract(0).getParameter().unpack(TransferContract.class);
+  }
+
+  @Test
+  public void testTransactionMatchesLegacyDocument() throws Exception {
+    Transaction trx = transfer(100);
+    for (boolean selfType : new boolean[]{true, false}) {
+      Assert.assertEquals(legacy(trx, selfType, parameterOf(trx)),
+          JSONObject.parseObject(Util.printTransaction(trx, selfType)));
+    }
+
+    Transaction withPermission = build(ContractType.TransferContract, parameterOf(trx), 2);
+    Assert.assertEquals(legacy(withPermission, false, parameterOf(trx)),
+        Util.printTransactionToJSON(withPermission, false));
+  }
+
+  @Test
+  public void testCreateSmartContract() {
+    CreateSmartContract create = CreateSmartContract.newBuilder()
+        .setOwnerAddress(ByteString.copyFrom(OWNER)).build();
+    Transaction trx = build(ContractType.CreateSmartContract, create, 0);
+    JSONObject json = JSONObject.parseObject(Util.printCreateTransaction(trx, true));
+    Assert.assertEquals(ByteArray.toHexString(Util.generateContractAddress(trx, OWNER)),
+        json.getString("contract_address"));
+    Assert.assertTrue(json.getBoolean(Util.VISIBLE));
+  }
+
+  @Test
+  public void testBlockList() throws Exception {
+    List<Block> blocks = new ArrayList<>();
+    for (int num = 1; num <= 3; num++) {
+      Block block = Block.newBuilder()
+          .setBlockHeader(BlockHeader.newBuilder().setRawData(BlockHeader.raw.newBuilder()
+              .setNumber(num).setTimestamp(num * 3000L)
+              .setWitnessAddress(ByteString.copyFrom(OWNER))))
+          .addTransactions(transfer(num)).addTransactions(transfer(num + 100))
+          .build();
+      blocks.add(block);
+    }
+    blocks.add(Block.newBuilder().setBlockHeader(blocks.get(0).getBlockHeader()).build());
+    BlockList list = BlockList.newBuilder().addAllBlock(blocks).build();
+
+    StringWriter text = new StringWriter();
+    Util.printBlockList(list, true, new PrintWriter(text));
+    Assert.assertEquals(Util.printBlockList(list, true), text.toString());
+
+    JSONArray jsonBlocks = JSONObject.parseObject(text.toString()).getJSONArray("block");
+    Assert.assertEquals(blocks.size(), jsonBlocks.size());
+    for (int i = 0; i < blocks.size(); i++) {
+      Block block = blocks.get(i);
+      JSONObject json = jsonBlocks.getJSONObject(i);
+      Assert.assertEquals(
+          ByteArray.toHexString(new BlockCapsule(block).getBlockId().getBytes()),
+          json.getString("blockID"));
+      Assert.assertEquals(
+          JSONObject.parseObject(JsonFormat.printToString(block.getBlockHeader(), true)),
+          json.getJSONObject("block_header"));
+      if (block.getTransactionsCount() == 0) {
+        Assert.assertFalse(json.containsKey("transactions"));
+        continue;
+      }
+      JSONArray transactions = json.getJSONArray("transactions");
+      for (int j = 0; j < block.getTransactionsCount(); j++) {
+        Transaction trx = block.getTransactions(j);
+        Assert.assertEquals(legacy(trx, true, parameterOf(trx)), transactions.getJSONObject(j));
+      }
+    }
+  }
+
+  @Test
+  public void testTransactionExtention() throws Exception {
+    Transaction trx = transfer(7);
+    TransactionExtention ok = TransactionExtention.newBuilder().setTransaction(trx)
+        .setTxid(ByteString.copyFrom(Sha256Hash.hash(trx.getRawData().toByteArray())))
+        .addConstantResult(ByteString.copyFrom(new byte[]{1}))
+        .setResult(Return.newBuilder().setResult(true)).build();
+    JSONObject json = JSONObject.parseObject(Util.printTransactionExtention(ok, false));
+    JSONObject expected = legacy(trx, false, parameterOf(trx));
+    expected.put(Util.VISIBLE, false);
+    Assert.assertEquals(expected, json.getJSONObject(Util.TRANSACTION));
+    Assert.assertEquals(1, json.getJSONArray("constant_result").size());
+
+    TransactionExtention failed = ok.toBuilder()
+        .setResult(Return.newBuilder().setResult(false)).build();
+    Assert.assertEquals(JSONObject.parseObject(JsonFormat.printToString(failed, false)),
+        JSONObject.parseObject(Util.printTransactionExtention(failed, false)));
+  }
+
+  @Test
+  public void testPrintBlockListPerformance() {
+    boolean enabled = false;
+
+    if (enabled) {
+      Block.Builder block = Block.newBuilder().setBlockHeader(BlockHeader.newBuilder()
+          .setRawData(BlockHeader.raw.newBuilder().setNumber(1)));
+      for (int i = 0; i < 1000; i++) {
+        block.addTransactions(transfer(i));
+      }
+      BlockList.Builder list = BlockList.newBuilder();
+      for (int i = 0; i < 100; i++) {
+        list.addBlock(block);
+      }
+      BlockList blockList = list.build();
+      for (int round = 0; round < 5; round++) {
+        long now = System.currentTimeMillis();
+        int length = Util.printBlockList(blockList, true).length();
+        logger.info("round {}: {} chars in {}ms", round, length,
+            System.currentTimeMillis() - now);
+      }
+    } else {
+      logger.info("Print block list performance test is disabled.");
+    }
+  }
+}